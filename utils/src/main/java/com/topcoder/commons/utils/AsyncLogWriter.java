@@ -0,0 +1,258 @@
+package com.topcoder.commons.utils;
+
+import org.apache.log4j.Category;
+import org.apache.log4j.Logger;
+import org.apache.log4j.Priority;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is a utility class that hands logging events over to a dedicated
+ * writer thread. It's used by Log4jUtility when asynchronous logging is
+ * enabled. Log4j 1.2 appenders are synchronized, so logging threads
+ * contend for the appender monitors (and a blocked thread can't yield its
+ * carrier thread); with this writer the logging threads only enqueue events
+ * into a lock-free queue and the appenders are called by a single platform
+ * daemon thread, which is started on the first event.
+ * <p>
+ * The thread name, NDC, MDC and rendered message of an event are captured by
+ * the logging thread. Location information is not available for
+ * asynchronous events. The queue is bounded: when it's full, new events are
+ * dropped (and counted) rather than blocking the logging thread.
+ * <p>
+ * Thread Safety: this class is thread safe.
+ */
+public final class AsyncLogWriter {
+    /**
+     * The default maximum number of queued events.
+     */
+    private static final int DEFAULT_CAPACITY = 65536;
+
+    /**
+     * The time in nanoseconds the idle writer parks before checking the
+     * queue again.
+     */
+    private static final long IDLE_PARK_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The time in nanoseconds flush() parks between checks.
+     */
+    private static final long FLUSH_PARK_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The fully qualified name of the class used as the logging location.
+     */
+    private static final String FQCN = Log4jUtility.class.getName();
+
+    /**
+     * The queued events.
+     */
+    private static final Queue<LoggingEvent> QUEUE =
+            new ConcurrentLinkedQueue<LoggingEvent>();
+
+    /**
+     * The number of queued events.
+     */
+    private static final AtomicInteger SIZE = new AtomicInteger();
+
+    /**
+     * The number of events accepted so far.
+     */
+    private static final AtomicLong ACCEPTED = new AtomicLong();
+
+    /**
+     * The number of dropped events.
+     */
+    private static final LongAdder DROPPED = new LongAdder();
+
+    /**
+     * True if the writer thread was started.
+     */
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    /**
+     * The maximum number of queued events.
+     */
+    private static volatile int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * The writer thread (null if it isn't started yet).
+     */
+    private static volatile Thread writer;
+
+    /**
+     * True if the writer is parked waiting for events.
+     */
+    private static volatile boolean writerWaiting;
+
+    /**
+     * The number of events passed to the appenders so far. Updated by the
+     * writer thread only.
+     */
+    private static volatile long written;
+
+    /**
+     * Empty private constructor.
+     */
+    private AsyncLogWriter() {
+    }
+
+    /**
+     * Sets the maximum number of queued events.
+     *
+     * @param maxEvents the maximum number of queued events
+     * @throws IllegalArgumentException if maxEvents is not positive
+     */
+    public static void setCapacity(final int maxEvents) {
+        if (maxEvents <= 0) {
+            throw new IllegalArgumentException(
+                    "maxEvents should be positive");
+        }
+        capacity = maxEvents;
+    }
+
+    /**
+     * Retrieves the maximum number of queued events.
+     *
+     * @return the maximum number of queued events
+     */
+    public static int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Retrieves the number of events waiting for the writer.
+     *
+     * @return the number of queued events
+     */
+    public static int getPendingCount() {
+        return SIZE.get();
+    }
+
+    /**
+     * Retrieves the number of events dropped because the queue was full.
+     *
+     * @return the number of dropped events
+     */
+    public static long getDroppedCount() {
+        return DROPPED.sum();
+    }
+
+    /**
+     * Waits until all events accepted before this call are passed to the
+     * appenders.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the time unit
+     * @return true if the events were written, false if the timeout expired
+     * @throws IllegalArgumentException if timeout is negative or unit is null
+     */
+    public static boolean flush(final long timeout, final TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException(
+                    "timeout should not be negative");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit should not be null");
+        }
+        long target = ACCEPTED.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (written < target) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread thread = writer;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+            LockSupport.parkNanos(FLUSH_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Enqueues the logging event. The caller is expected to check that the
+     * logger is enabled for the given priority.
+     *
+     * @param logger    the logger
+     * @param priority  the priority
+     * @param message   the message
+     * @param throwable the exception to be logged (null if not available)
+     */
+    static void dispatch(final Logger logger, final Priority priority,
+                         final Object message, final Throwable throwable) {
+        if (SIZE.incrementAndGet() > capacity) {
+            SIZE.decrementAndGet();
+            DROPPED.increment();
+            return;
+        }
+        LoggingEvent event = new LoggingEvent(FQCN, logger, priority,
+                message, throwable);
+        event.getThreadName();
+        event.getNDC();
+        event.getMDCCopy();
+        event.getRenderedMessage();
+        ACCEPTED.incrementAndGet();
+        QUEUE.offer(event);
+        Thread thread = writer;
+        if (thread == null) {
+            startWriter();
+        } else if (writerWaiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Starts the writer thread unless it's already started.
+     */
+    private static void startWriter() {
+        if (!STARTED.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                writeEvents();
+            }
+        }, "async-log-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    /**
+     * Passes the queued events to the appenders. This method is executed by
+     * the writer thread and never returns.
+     */
+    private static void writeEvents() {
+        while (true) {
+            LoggingEvent event = QUEUE.poll();
+            if (event == null) {
+                writerWaiting = true;
+                if (QUEUE.isEmpty()) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                writerWaiting = false;
+                continue;
+            }
+            SIZE.decrementAndGet();
+            try {
+                Category category = event.getLogger();
+                category.callAppenders(event);
+            } catch (RuntimeException e) {
+                LogLog.error("Failed to write an asynchronous log event.", e);
+            }
+            written++;
+        }
+    }
+}
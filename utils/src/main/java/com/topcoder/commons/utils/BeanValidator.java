@@ -0,0 +1,497 @@
+package com.topcoder.commons.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class validates the properties of objects whose classes can't be
+ * annotated for the compile-time validator generator. The rules are
+ * registered per class and property (see ValueRules), and properties can be
+ * marked as nested, so that their values (or the elements of Iterable and
+ * array values) are validated with the rules of their own classes.
+ * <p>
+ * The validation plan of a class is built once, on the first validation of
+ * an instance, and cached with a ClassValue: the properties are resolved to
+ * MethodHandles of their public getters (getX() or isX()) or, when there is
+ * no getter, of the fields themselves, and the rules of a property
+ * (including the rules registered for superclasses and interfaces) are
+ * combined into one. Validating an instance then doesn't do any reflective
+ * lookup and doesn't allocate anything while the instance is valid (apart
+ * from boxing primitive property values outside the boxing caches, and,
+ * when nested objects are validated, a small array tracking the ancestors
+ * and the iterators of nested collections).
+ * Objects referring to their ancestors are not validated again, so cyclic
+ * graphs are supported.
+ * <p>
+ * The first violation is reported with the given exception whose message
+ * contains the property path, e.g. "order.items[2].price should be
+ * positive".
+ * <p>
+ * Thread Safety: this class is not thread safe while rules are being added.
+ * A fully configured instance can be shared between threads; rules can't be
+ * added after the first validation.
+ */
+public final class BeanValidator {
+    /**
+     * The initial length of the ancestor array.
+     */
+    private static final int INITIAL_DEPTH = 8;
+
+    /**
+     * The type of the property accessors.
+     */
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(
+            Object.class, Object.class);
+
+    /**
+     * The classes the rules were registered for.
+     */
+    private Class<?>[] ruleTypes = new Class<?>[0];
+
+    /**
+     * The properties the rules were registered for.
+     */
+    private String[] ruleProperties = new String[0];
+
+    /**
+     * The rules in the order they were added (null for nested properties).
+     */
+    private ValueRule[] rules = new ValueRule[0];
+
+    /**
+     * True if validation has started (the rules can't be changed then).
+     */
+    private volatile boolean frozen;
+
+    /**
+     * The cached validation plans.
+     */
+    private final ClassValue<Plan> plans = new ClassValue<Plan>() {
+        protected Plan computeValue(final Class<?> type) {
+            return createPlan(type);
+        }
+    };
+
+    /**
+     * Creates the validator without rules.
+     */
+    public BeanValidator() {
+    }
+
+    /**
+     * Adds the rule for the given property of the given class (and its
+     * subclasses). Rules of a property are checked in the order they were
+     * added.
+     *
+     * @param type     the class
+     * @param property the name of the property
+     * @param rule     the rule
+     * @return this instance
+     * @throws IllegalArgumentException if any argument is null or property
+     *                                  is empty
+     * @throws IllegalStateException    if validation has already started
+     */
+    public BeanValidator addRule(final Class<?> type, final String property,
+                                 final ValueRule rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("rule should not be null");
+        }
+        add(type, property, rule);
+        return this;
+    }
+
+    /**
+     * Marks the given property of the given class (and its subclasses) as
+     * nested: its value is validated with the rules of its own class. The
+     * elements of Iterable and object array values are validated
+     * individually. Null values are accepted.
+     *
+     * @param type     the class
+     * @param property the name of the property
+     * @return this instance
+     * @throws IllegalArgumentException if any argument is null or property
+     *                                  is empty
+     * @throws IllegalStateException    if validation has already started
+     */
+    public BeanValidator addNested(final Class<?> type,
+                                   final String property) {
+        add(type, property, null);
+        return this;
+    }
+
+    /**
+     * Validates the given object and the nested objects reachable from it.
+     *
+     * @param <T>            type of exception
+     * @param bean           the object to be validated
+     * @param name           the name associated with the object
+     * @param exceptionClass the exception class
+     * @throws T                        if the object is null or violates
+     *                                  some rule
+     * @throws IllegalArgumentException if a property with rules doesn't
+     *                                  exist in the class of a validated
+     *                                  object
+     * @throws Exception                if the exception can't be created or
+     *                                  a getter failed
+     */
+    public <T extends Throwable> void validate(final Object bean,
+                                               final String name,
+                                               final Class<T> exceptionClass)
+            throws T, Exception {
+        frozen = true;
+        ValidationUtility.checkNotNull(bean, name, exceptionClass);
+        String violation = check(bean, plans.get(bean.getClass()), null, 0);
+        if (violation != null) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    name + "." + violation);
+        }
+    }
+
+    /**
+     * Registers the rule.
+     *
+     * @param type     the class
+     * @param property the name of the property
+     * @param rule     the rule (null for nested properties)
+     * @throws IllegalArgumentException if type or property is null or
+     *                                  property is empty
+     * @throws IllegalStateException    if validation has already started
+     */
+    private synchronized void add(final Class<?> type, final String property,
+                                  final ValueRule rule) {
+        if (type == null) {
+            throw new IllegalArgumentException("type should not be null");
+        }
+        if (property == null || property.length() == 0) {
+            throw new IllegalArgumentException(
+                    "property should not be null or empty");
+        }
+        if (frozen) {
+            throw new IllegalStateException(
+                    "rules can't be added after validation has started");
+        }
+        int count = rules.length;
+        ruleTypes = Arrays.copyOf(ruleTypes, count + 1);
+        ruleProperties = Arrays.copyOf(ruleProperties, count + 1);
+        rules = Arrays.copyOf(rules, count + 1);
+        ruleTypes[count] = type;
+        ruleProperties[count] = property;
+        rules[count] = rule;
+    }
+
+    /**
+     * Checks the given object.
+     *
+     * @param bean      the object
+     * @param plan      the validation plan of its class
+     * @param ancestors the objects being validated that refer to this one
+     *                  (null if there are none yet)
+     * @param depth     the number of ancestors
+     * @return null if the object is valid, otherwise the violation message
+     *         starting with the property path
+     * @throws Exception if a getter failed
+     */
+    private String check(final Object bean, final Plan plan,
+                         final Object[] ancestors, final int depth)
+            throws Exception {
+        Object[] stack = ancestors;
+        for (int i = 0; i < plan.properties.length; i++) {
+            Object value = get(plan.accessors[i], bean);
+            ValueRule rule = plan.rules[i];
+            if (rule != null) {
+                String violation = rule.check(value);
+                if (violation != null) {
+                    return plan.properties[i] + " " + violation;
+                }
+            }
+            if (!plan.nested[i] || value == null) {
+                continue;
+            }
+            if (stack == null) {
+                stack = new Object[INITIAL_DEPTH];
+            } else if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth] = bean;
+            String violation;
+            if (value instanceof Iterable<?>) {
+                violation = checkElements((Iterable<?>) value,
+                        plan.properties[i], stack, depth + 1);
+            } else if (value instanceof Object[]) {
+                violation = checkElements(Arrays.asList((Object[]) value),
+                        plan.properties[i], stack, depth + 1);
+            } else {
+                violation = checkNested(value, stack, depth + 1);
+                if (violation != null) {
+                    violation = plan.properties[i] + "." + violation;
+                }
+            }
+            if (violation != null) {
+                return violation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the elements of the given nested property value.
+     *
+     * @param elements  the elements
+     * @param property  the name of the property
+     * @param ancestors the objects being validated
+     * @param depth     the number of ancestors
+     * @return null if the elements are valid, otherwise the violation
+     *         message starting with the property path
+     * @throws Exception if a getter failed
+     */
+    private String checkElements(final Iterable<?> elements,
+                                 final String property,
+                                 final Object[] ancestors, final int depth)
+            throws Exception {
+        int index = 0;
+        for (Object element : elements) {
+            String violation = checkNested(element, ancestors, depth);
+            if (violation != null) {
+                return property + "[" + index + "]." + violation;
+            }
+            index++;
+        }
+        return null;
+    }
+
+    /**
+     * Checks the given nested object unless it's null or one of its
+     * ancestors.
+     *
+     * @param value     the nested object
+     * @param ancestors the objects being validated
+     * @param depth     the number of ancestors
+     * @return null if the object is valid, otherwise the violation message
+     *         starting with the property path
+     * @throws Exception if a getter failed
+     */
+    private String checkNested(final Object value, final Object[] ancestors,
+                               final int depth) throws Exception {
+        if (value == null) {
+            return null;
+        }
+        for (int i = 0; i < depth; i++) {
+            if (ancestors[i] == value) {
+                return null;
+            }
+        }
+        return check(value, plans.get(value.getClass()), ancestors, depth);
+    }
+
+    /**
+     * Creates the validation plan of the given class.
+     *
+     * @param type the class
+     * @return the plan (not null)
+     * @throws IllegalArgumentException if a property with rules doesn't
+     *                                  exist in the class
+     */
+    private synchronized Plan createPlan(final Class<?> type) {
+        List<String> properties = new ArrayList<String>();
+        List<ValueRule> combined = new ArrayList<ValueRule>();
+        List<Boolean> nested = new ArrayList<Boolean>();
+        for (int i = 0; i < rules.length; i++) {
+            if (!ruleTypes[i].isAssignableFrom(type)) {
+                continue;
+            }
+            int index = properties.indexOf(ruleProperties[i]);
+            if (index < 0) {
+                index = properties.size();
+                properties.add(ruleProperties[i]);
+                combined.add(null);
+                nested.add(Boolean.FALSE);
+            }
+            if (rules[i] == null) {
+                nested.set(index, Boolean.TRUE);
+            } else if (combined.get(index) == null) {
+                combined.set(index, rules[i]);
+            } else {
+                combined.set(index, ValueRules.all(combined.get(index),
+                        rules[i]));
+            }
+        }
+        int count = properties.size();
+        Plan plan = new Plan(count);
+        for (int i = 0; i < count; i++) {
+            plan.properties[i] = properties.get(i);
+            plan.accessors[i] = getAccessor(type, properties.get(i));
+            plan.rules[i] = combined.get(i);
+            plan.nested[i] = nested.get(i);
+        }
+        return plan;
+    }
+
+    /**
+     * Retrieves the value of the property.
+     *
+     * @param accessor the accessor of the property
+     * @param bean     the object
+     * @return the value of the property
+     * @throws Exception if the getter failed
+     */
+    private static Object get(final MethodHandle accessor, final Object bean)
+            throws Exception {
+        try {
+            return (Object) accessor.invokeExact(bean);
+        } catch (Exception e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("getter failed", e);
+        }
+    }
+
+    /**
+     * Resolves the accessor of the given property: the public getter (getX()
+     * or isX() for boolean properties), otherwise the field.
+     *
+     * @param type     the class
+     * @param property the name of the property
+     * @return the accessor of the type (Object)Object
+     * @throws IllegalArgumentException if the property doesn't exist or
+     *                                  isn't accessible
+     */
+    private static MethodHandle getAccessor(final Class<?> type,
+                                            final String property) {
+        String suffix = Character.toUpperCase(property.charAt(0))
+                + property.substring(1);
+        Method getter = getGetter(type, "get" + suffix);
+        if (getter == null) {
+            getter = getGetter(type, "is" + suffix);
+            if (getter != null && getter.getReturnType() != boolean.class
+                    && getter.getReturnType() != Boolean.class) {
+                getter = null;
+            }
+        }
+        Field field = getter == null ? getField(type, property) : null;
+        if (getter == null && field == null) {
+            throw new IllegalArgumentException("property " + property
+                    + " is not found in " + type.getName());
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle;
+            if (getter != null) {
+                makeAccessible(getter);
+                handle = lookup.unreflect(getter);
+            } else {
+                makeAccessible(field);
+                handle = lookup.unreflectGetter(field);
+            }
+            return handle.asType(ACCESSOR_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("property " + property
+                    + " of " + type.getName() + " is not accessible", e);
+        }
+    }
+
+    /**
+     * Retrieves the public instance getter with the given name.
+     *
+     * @param type the class
+     * @param name the name of the getter
+     * @return the getter, null if it doesn't exist
+     */
+    private static Method getGetter(final Class<?> type, final String name) {
+        try {
+            Method method = type.getMethod(name);
+            return Modifier.isStatic(method.getModifiers())
+                    || method.getReturnType() == void.class ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves the instance field with the given name declared in the
+     * given class or its superclasses.
+     *
+     * @param type the class
+     * @param name the name of the field
+     * @return the field, null if it doesn't exist
+     */
+    private static Field getField(final Class<?> type, final String name) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(name)
+                        && !Modifier.isStatic(field.getModifiers())) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Suppresses the access checks of the given member if possible (members
+     * of public classes are accessible anyway; the failure is reported when
+     * the member is unreflected).
+     *
+     * @param member the method or field
+     */
+    private static void makeAccessible(final Member member) {
+        try {
+            if (member instanceof Method) {
+                ((Method) member).setAccessible(true);
+            } else {
+                ((Field) member).setAccessible(true);
+            }
+        } catch (RuntimeException e) {
+            // ignore (e.g. the member is in a module that isn't open)
+        }
+    }
+
+    /**
+     * This class represents the validation plan of a class: its checked
+     * properties in the order they were registered.
+     * <p>
+     * Thread Safety: this class is effectively immutable and thread safe.
+     */
+    private static final class Plan {
+        /**
+         * The names of the properties.
+         */
+        private final String[] properties;
+
+        /**
+         * The accessors of the properties.
+         */
+        private final MethodHandle[] accessors;
+
+        /**
+         * The combined rules of the properties (null if there are none).
+         */
+        private final ValueRule[] rules;
+
+        /**
+         * True for nested properties.
+         */
+        private final boolean[] nested;
+
+        /**
+         * Creates the plan.
+         *
+         * @param count the number of properties
+         */
+        Plan(final int count) {
+            properties = new String[count];
+            accessors = new MethodHandle[count];
+            rules = new ValueRule[count];
+            nested = new boolean[count];
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This is a utility class that provides static predicates for character
+ * sequences. The predicates scan the sequences in place and never allocate,
+ * so they can be used for validating StringBuilder and CharBuffer content
+ * without converting it to a String, and for validating strings without
+ * trimming them first.
+ * <p>
+ * Lengths are measured in chars (UTF-16 code units); character class checks
+ * are done per code point, so supplementary characters given as surrogate
+ * pairs are checked as single characters.
+ * <p>
+ * Thread Safety: this class is thread safe, but the checked sequences should
+ * not be modified while they are being checked.
+ */
+public final class CharSequenceUtility {
+    /**
+     * Empty private constructor.
+     */
+    private CharSequenceUtility() {
+    }
+
+    /**
+     * Checks whether the given sequence is empty or contains only characters
+     * that String.trim() removes (characters up to and including ' ').
+     *
+     * @param value the sequence to be checked
+     * @return true if the sequence is blank, false otherwise
+     * @throws IllegalArgumentException if value is null
+     */
+    public static boolean isBlank(final CharSequence value) {
+        checkValue(value);
+        for (int i = value.length() - 1; i >= 0; i--) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the given sequence is empty or contains only white
+     * space characters.
+     *
+     * @param value   the sequence to be checked
+     * @param unicode true if Unicode white space (CharacterSet.WHITESPACE,
+     *                e.g. the non-breaking space) should be recognized,
+     *                false if String.trim() semantics should be used
+     * @return true if the sequence is blank, false otherwise
+     * @throws IllegalArgumentException if value is null
+     */
+    public static boolean isBlank(final CharSequence value,
+                                  final boolean unicode) {
+        if (!unicode) {
+            return isBlank(value);
+        }
+        return indexOfCharacterNotIn(value, CharacterSet.WHITESPACE) < 0;
+    }
+
+    /**
+     * Checks whether the length of the given sequence is in the given range.
+     *
+     * @param value     the sequence to be checked
+     * @param minLength the minimum length (inclusive)
+     * @param maxLength the maximum length (inclusive)
+     * @return true if the length is in the range, false otherwise
+     * @throws IllegalArgumentException if value is null
+     */
+    public static boolean isLengthInRange(final CharSequence value,
+                                          final int minLength,
+                                          final int maxLength) {
+        checkValue(value);
+        int length = value.length();
+        return length >= minLength && length <= maxLength;
+    }
+
+    /**
+     * Checks whether the given sequence contains only characters of the
+     * given set.
+     *
+     * @param value   the sequence to be checked
+     * @param allowed the allowed characters
+     * @return true if all characters are allowed, false otherwise
+     * @throws IllegalArgumentException if value or allowed is null
+     */
+    public static boolean containsOnly(final CharSequence value,
+                                       final CharacterSet allowed) {
+        return indexOfCharacterNotIn(value, allowed) < 0;
+    }
+
+    /**
+     * Checks whether the given sequence contains only ASCII characters.
+     *
+     * @param value the sequence to be checked
+     * @return true if all characters are ASCII characters, false otherwise
+     * @throws IllegalArgumentException if value is null
+     */
+    public static boolean isAscii(final CharSequence value) {
+        checkValue(value);
+        for (int i = value.length() - 1; i >= 0; i--) {
+            if (value.charAt(i) >= '\u0080') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the index of the first character of the given sequence that
+     * is not in the given set.
+     *
+     * @param value   the sequence to be checked
+     * @param allowed the allowed characters
+     * @return the index of the first character that isn't allowed (-1 if all
+     *         characters are allowed)
+     * @throws IllegalArgumentException if value or allowed is null
+     */
+    public static int indexOfCharacterNotIn(final CharSequence value,
+                                            final CharacterSet allowed) {
+        checkValue(value);
+        if (allowed == null) {
+            throw new IllegalArgumentException("allowed should not be null");
+        }
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = Character.codePointAt(value, i);
+            if (!allowed.contains(codePoint)) {
+                return i;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return -1;
+    }
+
+    /**
+     * Checks that the given sequence is not null.
+     *
+     * @param value the sequence
+     * @throws IllegalArgumentException if value is null
+     */
+    private static void checkValue(final CharSequence value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value should not be null");
+        }
+    }
+}
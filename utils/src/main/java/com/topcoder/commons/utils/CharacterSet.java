@@ -0,0 +1,273 @@
+package com.topcoder.commons.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class represents an immutable set of Unicode code points used by the
+ * character class checks of CharSequenceUtility and ValidationUtility. A set
+ * is a union of explicit characters, code point ranges and Unicode general
+ * categories (see Character.getType()).
+ * <p>
+ * Membership of ASCII characters is resolved with a 128-bit bitmap computed
+ * when the set is created; other code points are checked against the
+ * category mask and the ranges. Checking membership never allocates.
+ * <p>
+ * Thread Safety: this class is immutable and thread safe.
+ */
+public final class CharacterSet {
+    /**
+     * The number of ASCII characters.
+     */
+    private static final int ASCII_SIZE = 128;
+
+    /**
+     * The number of bits in a long.
+     */
+    private static final int LONG_BITS = 64;
+
+    /**
+     * The set of all ASCII characters.
+     */
+    public static final CharacterSet ASCII = range(0, ASCII_SIZE - 1);
+
+    /**
+     * The set of ASCII letters ('a' - 'z' and 'A' - 'Z').
+     */
+    public static final CharacterSet ASCII_LETTERS =
+            range('a', 'z').union(range('A', 'Z'));
+
+    /**
+     * The set of ASCII digits ('0' - '9').
+     */
+    public static final CharacterSet ASCII_DIGITS = range('0', '9');
+
+    /**
+     * The set of Unicode letters (as Character.isLetter()).
+     */
+    public static final CharacterSet LETTERS = ofCategories(
+            Character.UPPERCASE_LETTER, Character.LOWERCASE_LETTER,
+            Character.TITLECASE_LETTER, Character.MODIFIER_LETTER,
+            Character.OTHER_LETTER);
+
+    /**
+     * The set of Unicode decimal digits (as Character.isDigit()).
+     */
+    public static final CharacterSet DIGITS =
+            ofCategories(Character.DECIMAL_DIGIT_NUMBER);
+
+    /**
+     * The set of Unicode white space characters: the space, line and
+     * paragraph separators (including the non-breaking spaces) and the
+     * control characters U+0009 - U+000D and U+001C - U+001F.
+     */
+    public static final CharacterSet WHITESPACE = ofCategories(
+            Character.SPACE_SEPARATOR, Character.LINE_SEPARATOR,
+            Character.PARAGRAPH_SEPARATOR).union(range('\t', '\r'))
+            .union(range('\u001C', '\u001F'));
+
+    /**
+     * The ASCII characters 0 - 63 (bit i is set if character i is in the
+     * set).
+     */
+    private final long low;
+
+    /**
+     * The ASCII characters 64 - 127 (bit i is set if character 64 + i is in
+     * the set).
+     */
+    private final long high;
+
+    /**
+     * The Unicode general categories in the set (bit i is set if category i
+     * is in the set).
+     */
+    private final int categories;
+
+    /**
+     * The non-ASCII code point ranges in the set (pairs of inclusive bounds
+     * sorted by the lower bound).
+     */
+    private final int[] ranges;
+
+    /**
+     * Creates the set.
+     *
+     * @param low        the ASCII characters 0 - 63
+     * @param high       the ASCII characters 64 - 127
+     * @param categories the Unicode general categories
+     * @param ranges     the non-ASCII code point ranges
+     */
+    private CharacterSet(final long low, final long high,
+                         final int categories, final int[] ranges) {
+        this.low = low;
+        this.high = high;
+        this.categories = categories;
+        this.ranges = ranges;
+    }
+
+    /**
+     * Creates the set of the given characters.
+     *
+     * @param chars the characters (supplementary characters are given as
+     *              surrogate pairs)
+     * @return the created set (not null)
+     * @throws IllegalArgumentException if chars is null
+     */
+    public static CharacterSet of(final String chars) {
+        if (chars == null) {
+            throw new IllegalArgumentException("chars should not be null");
+        }
+        CharacterSet result = new CharacterSet(0, 0, 0, new int[0]);
+        int i = 0;
+        while (i < chars.length()) {
+            int codePoint = chars.codePointAt(i);
+            result = result.union(range(codePoint, codePoint));
+            i += Character.charCount(codePoint);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the set of the code points in the given range.
+     *
+     * @param from the first code point of the range
+     * @param to   the last code point of the range
+     * @return the created set (not null)
+     * @throws IllegalArgumentException if from or to is not a valid code
+     *                                  point or from is greater than to
+     */
+    public static CharacterSet range(final int from, final int to) {
+        if (!Character.isValidCodePoint(from)
+                || !Character.isValidCodePoint(to)) {
+            throw new IllegalArgumentException(
+                    "from and to should be valid code points");
+        }
+        if (from > to) {
+            throw new IllegalArgumentException(
+                    "from should not be greater than to");
+        }
+        long lowBits = 0;
+        long highBits = 0;
+        for (int c = from; c <= to && c < ASCII_SIZE; c++) {
+            if (c < LONG_BITS) {
+                lowBits |= 1L << c;
+            } else {
+                highBits |= 1L << (c - LONG_BITS);
+            }
+        }
+        int[] nonAscii = to < ASCII_SIZE ? new int[0]
+                : new int[] {Math.max(from, ASCII_SIZE), to};
+        return new CharacterSet(lowBits, highBits, 0, nonAscii);
+    }
+
+    /**
+     * Creates the set of the code points of the given Unicode general
+     * categories.
+     *
+     * @param types the categories (e.g. Character.UPPERCASE_LETTER)
+     * @return the created set (not null)
+     * @throws IllegalArgumentException if types is null or contains an
+     *                                  unknown category
+     */
+    public static CharacterSet ofCategories(final byte... types) {
+        if (types == null) {
+            throw new IllegalArgumentException("types should not be null");
+        }
+        int mask = 0;
+        for (byte type : types) {
+            if (type < 0 || type > Character.FINAL_QUOTE_PUNCTUATION) {
+                throw new IllegalArgumentException(
+                        "types should contain only Unicode categories");
+            }
+            mask |= 1 << type;
+        }
+        long lowBits = 0;
+        long highBits = 0;
+        for (int c = 0; c < ASCII_SIZE; c++) {
+            if ((mask & (1 << Character.getType(c))) != 0) {
+                if (c < LONG_BITS) {
+                    lowBits |= 1L << c;
+                } else {
+                    highBits |= 1L << (c - LONG_BITS);
+                }
+            }
+        }
+        return new CharacterSet(lowBits, highBits, mask, new int[0]);
+    }
+
+    /**
+     * Creates the union of this set and the given set.
+     *
+     * @param other the other set
+     * @return the created set (not null)
+     * @throws IllegalArgumentException if other is null
+     */
+    public CharacterSet union(final CharacterSet other) {
+        if (other == null) {
+            throw new IllegalArgumentException("other should not be null");
+        }
+        int[] merged = Arrays.copyOf(ranges, ranges.length
+                + other.ranges.length);
+        System.arraycopy(other.ranges, 0, merged, ranges.length,
+                other.ranges.length);
+        return new CharacterSet(low | other.low, high | other.high,
+                categories | other.categories, mergeRanges(merged));
+    }
+
+    /**
+     * Checks whether the given code point is in this set.
+     *
+     * @param codePoint the code point
+     * @return true if the code point is in this set, false otherwise
+     */
+    public boolean contains(final int codePoint) {
+        if (codePoint >= 0 && codePoint < ASCII_SIZE) {
+            if (codePoint < LONG_BITS) {
+                return (low & (1L << codePoint)) != 0;
+            }
+            return (high & (1L << (codePoint - LONG_BITS))) != 0;
+        }
+        if (categories != 0
+                && (categories & (1 << Character.getType(codePoint))) != 0) {
+            return true;
+        }
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (codePoint < ranges[i]) {
+                return false;
+            }
+            if (codePoint <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sorts the given ranges and merges the overlapping and adjacent ones.
+     *
+     * @param pairs the ranges (pairs of inclusive bounds)
+     * @return the merged ranges
+     */
+    private static int[] mergeRanges(final int[] pairs) {
+        int count = pairs.length / 2;
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = ((long) pairs[2 * i] << Integer.SIZE)
+                    | pairs[2 * i + 1];
+        }
+        Arrays.sort(sorted);
+        int[] result = new int[pairs.length];
+        int size = 0;
+        for (long pair : sorted) {
+            int from = (int) (pair >>> Integer.SIZE);
+            int to = (int) pair;
+            if (size > 0 && from <= result[size - 1] + 1) {
+                result[size - 1] = Math.max(result[size - 1], to);
+            } else {
+                result[size++] = from;
+                result[size++] = to;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
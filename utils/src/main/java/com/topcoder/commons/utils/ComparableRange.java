@@ -0,0 +1,144 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This class represents an immutable range of Comparable values (e.g.
+ * BigDecimal amounts, Date or Instant timestamps, Duration timeouts) that
+ * can be created once and reused for many checks (see
+ * ValidationUtility.checkInRange()). The values are compared with
+ * compareTo(), so no precision is lost. The bracket description of the range
+ * (e.g. "[0.01, 100.00)") is rendered when the range is created, not on
+ * every failed check.
+ * <p>
+ * Thread Safety: this class is immutable and thread safe if the bounds are
+ * immutable.
+ *
+ * @param <C> the type of the values
+ */
+public final class ComparableRange<C extends Comparable<? super C>> {
+    /**
+     * The lower bound.
+     */
+    private final C from;
+
+    /**
+     * The upper bound.
+     */
+    private final C to;
+
+    /**
+     * True if the lower bound is included into the range.
+     */
+    private final boolean fromInclusive;
+
+    /**
+     * True if the upper bound is included into the range.
+     */
+    private final boolean toInclusive;
+
+    /**
+     * The bracket description of the range, e.g. "[1, 10)".
+     */
+    private final String description;
+
+    /**
+     * Creates the range.
+     *
+     * @param from          the lower bound
+     * @param to            the upper bound
+     * @param fromInclusive true if the lower bound is inclusive
+     * @param toInclusive   true if the upper bound is inclusive
+     */
+    private ComparableRange(final C from, final C to,
+                            final boolean fromInclusive,
+                            final boolean toInclusive) {
+        this.from = from;
+        this.to = to;
+        this.fromInclusive = fromInclusive;
+        this.toInclusive = toInclusive;
+        this.description = NumberRange.describe(String.valueOf(from),
+                String.valueOf(to), fromInclusive, toInclusive);
+    }
+
+    /**
+     * Creates the range.
+     *
+     * @param <C>           the type of the values
+     * @param from          the lower bound
+     * @param to            the upper bound
+     * @param fromInclusive true if the lower bound is inclusive
+     * @param toInclusive   true if the upper bound is inclusive
+     * @return the created range (not null)
+     * @throws IllegalArgumentException if from or to is null, or from is
+     *                                  greater than to
+     */
+    public static <C extends Comparable<? super C>> ComparableRange<C> of(
+            final C from, final C to, final boolean fromInclusive,
+            final boolean toInclusive) {
+        if (from == null) {
+            throw new IllegalArgumentException("from should not be null");
+        }
+        if (to == null) {
+            throw new IllegalArgumentException("to should not be null");
+        }
+        if (from.compareTo(to) > 0) {
+            throw new IllegalArgumentException(
+                    "from should not be greater than to");
+        }
+        return new ComparableRange<C>(from, to, fromInclusive, toInclusive);
+    }
+
+    /**
+     * Checks whether the given value is in the range.
+     *
+     * @param value the value
+     * @return true if the value is in the range, false otherwise
+     * @throws IllegalArgumentException if value is null
+     */
+    public boolean contains(final C value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value should not be null");
+        }
+        int fromResult = value.compareTo(from);
+        if (fromInclusive ? fromResult < 0 : fromResult <= 0) {
+            return false;
+        }
+        int toResult = value.compareTo(to);
+        return toInclusive ? toResult <= 0 : toResult < 0;
+    }
+
+    /**
+     * Retrieves the lower bound of the range.
+     *
+     * @return the lower bound
+     */
+    public C getFrom() {
+        return from;
+    }
+
+    /**
+     * Retrieves the upper bound of the range.
+     *
+     * @return the upper bound
+     */
+    public C getTo() {
+        return to;
+    }
+
+    /**
+     * Retrieves the bracket description of the range, e.g. "[1, 10)".
+     *
+     * @return the description of the range
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Retrieves the bracket description of the range.
+     *
+     * @return the description of the range
+     */
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,800 @@
+package com.topcoder.commons.utils;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class represents a lightweight pool of JDBC connections opened with
+ * DriverManager. Idle connections are kept in a lock-free LIFO deque (so the
+ * most recently used, warm connections are reused first), and the number of
+ * borrowed connections is bounded by a semaphore, so neither checkout nor
+ * checkin takes a pool-wide lock.
+ * <p>
+ * Connections are validated with Connection.isValid() when they are
+ * borrowed. Connections that stay idle longer than the idle timeout are
+ * closed by evictIdleConnections(), but the pool never shrinks below its
+ * minimum size because of eviction. Eviction runs whenever a connection is
+ * returned; a pool that may become quiet should also have it scheduled,
+ * either with setEvictionInterval() (which starts a daemon thread) or by the
+ * caller, otherwise idle connections stay open until the pool is used again.
+ * The time spent waiting for a connection and the time a connection is used
+ * are recorded into histograms.
+ * <p>
+ * Borrowed connections are returned to the pool by calling close(). Every
+ * physical connection is represented by the same wrapper for its whole life,
+ * so the statements cached by JDBCUtility survive the checkin. Uncommitted
+ * work is rolled back and auto-commit mode is restored on checkin.
+ * <p>
+ * Thread Safety: this class is thread safe. A borrowed connection should be
+ * used by one thread at a time and must not be used after it's returned.
+ */
+public final class ConnectionPool implements Closeable {
+    /**
+     * The default maximum time to wait for a connection in milliseconds.
+     */
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 30000;
+
+    /**
+     * The default idle timeout in milliseconds.
+     */
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 600000;
+
+    /**
+     * The default validation timeout in seconds.
+     */
+    private static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 5;
+
+    /**
+     * The time to park for while the pool is full and the connection freed
+     * for the caller is not yet back in the idle deque, in nanoseconds.
+     */
+    private static final long ACQUIRE_PARK_NANOS = 50000;
+
+    /**
+     * The JDBC URL of the database.
+     */
+    private final String url;
+
+    /**
+     * The connection properties (user, password, etc).
+     */
+    private final Properties info;
+
+    /**
+     * The minimum number of connections kept open.
+     */
+    private final int minSize;
+
+    /**
+     * The maximum number of open connections.
+     */
+    private final int maxSize;
+
+    /**
+     * The permits for borrowing connections (one per borrowed connection).
+     */
+    private final Semaphore permits;
+
+    /**
+     * The idle connections (most recently used first).
+     */
+    private final ConcurrentLinkedDeque<PooledConnection> idle =
+            new ConcurrentLinkedDeque<PooledConnection>();
+
+    /**
+     * The number of open connections.
+     */
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    /**
+     * The number of borrowed connections.
+     */
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    /**
+     * The number of opened connections.
+     */
+    private final LongAdder createdCount = new LongAdder();
+
+    /**
+     * The number of closed connections.
+     */
+    private final LongAdder destroyedCount = new LongAdder();
+
+    /**
+     * The number of checkouts that timed out.
+     */
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * The histogram of times spent waiting for a connection.
+     */
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    /**
+     * The histogram of times connections were borrowed for.
+     */
+    private final LatencyHistogram usageTimes = new LatencyHistogram();
+
+    /**
+     * The maximum time to wait for a connection in milliseconds.
+     */
+    private volatile long maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+
+    /**
+     * The idle timeout in nanoseconds.
+     */
+    private volatile long idleTimeoutNanos =
+            TimeUnit.MILLISECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_MILLIS);
+
+    /**
+     * The validation timeout in seconds.
+     */
+    private volatile int validationTimeout =
+            DEFAULT_VALIDATION_TIMEOUT_SECONDS;
+
+    /**
+     * True if the pool is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The executor running the scheduled eviction (null if eviction is not
+     * scheduled). Guarded by this.
+     */
+    private ScheduledExecutorService evictor;
+
+    /**
+     * Creates the pool. No connections are opened until they are requested
+     * (or prefill() is called).
+     *
+     * @param url     the JDBC URL of the database
+     * @param info    the connection properties (can be null)
+     * @param minSize the minimum number of connections kept open
+     * @param maxSize the maximum number of open connections
+     * @throws IllegalArgumentException if url is null or empty, minSize is
+     *                                  negative, maxSize is not positive or
+     *                                  minSize is greater than maxSize
+     */
+    public ConnectionPool(final String url, final Properties info,
+                          final int minSize, final int maxSize) {
+        if (url == null || url.length() == 0) {
+            throw new IllegalArgumentException(
+                    "url should not be null or empty");
+        }
+        if (minSize < 0) {
+            throw new IllegalArgumentException(
+                    "minSize should not be negative");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize should be positive");
+        }
+        if (minSize > maxSize) {
+            throw new IllegalArgumentException(
+                    "minSize should not be greater than maxSize");
+        }
+        this.url = url;
+        this.info = new Properties();
+        if (info != null) {
+            this.info.putAll(info);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Sets the maximum time to wait for a connection.
+     *
+     * @param time the maximum wait time
+     * @param unit the time unit
+     * @throws IllegalArgumentException if time is negative or unit is null
+     */
+    public void setMaxWait(final long time, final TimeUnit unit) {
+        checkTime(time, unit);
+        maxWaitMillis = unit.toMillis(time);
+    }
+
+    /**
+     * Sets the time after which idle connections are closed.
+     *
+     * @param time the idle timeout
+     * @param unit the time unit
+     * @throws IllegalArgumentException if time is negative or unit is null
+     */
+    public void setIdleTimeout(final long time, final TimeUnit unit) {
+        checkTime(time, unit);
+        idleTimeoutNanos = unit.toNanos(time);
+    }
+
+    /**
+     * Schedules evictIdleConnections() to run periodically in a daemon
+     * thread of the pool, so idle connections are closed even if the pool
+     * isn't used. The thread is stopped by close().
+     *
+     * @param time the interval between evictions (0 to stop the scheduled
+     *             eviction)
+     * @param unit the time unit
+     * @throws IllegalArgumentException if time is negative or unit is null
+     * @throws IllegalStateException    if the pool is closed
+     */
+    public synchronized void setEvictionInterval(final long time,
+                                                 final TimeUnit unit) {
+        checkTime(time, unit);
+        if (closed) {
+            throw new IllegalStateException("The connection pool is closed.");
+        }
+        stopEvictor();
+        if (time == 0) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    public Thread newThread(final Runnable task) {
+                        Thread thread = new Thread(task,
+                                "connection-pool-evictor");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                evictIdleConnections();
+            }
+        }, time, time, unit);
+    }
+
+    /**
+     * Sets the timeout passed to Connection.isValid() when connections are
+     * borrowed.
+     *
+     * @param seconds the validation timeout in seconds (0 for no timeout)
+     * @throws IllegalArgumentException if seconds is negative
+     */
+    public void setValidationTimeout(final int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException(
+                    "seconds should not be negative");
+        }
+        validationTimeout = seconds;
+    }
+
+    /**
+     * Opens connections until the pool has at least its minimum number of
+     * connections.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @throws T         if some error occurred when opening a connection
+     * @throws Exception if some error occurred when opening a connection
+     */
+    public <T extends Throwable> void prefill(final Class<T> exceptionClass)
+            throws T, Exception {
+        checkOpen(exceptionClass);
+        while (true) {
+            int total = totalCount.get();
+            if (total >= minSize) {
+                return;
+            }
+            if (totalCount.compareAndSet(total, total + 1)) {
+                PooledConnection pooled = open(exceptionClass);
+                pooled.lastUsed = System.nanoTime();
+                idle.offerLast(pooled);
+            }
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no idle
+     * connection is available and the pool isn't full. The connection must
+     * be returned to the pool by calling close().
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @return the borrowed connection (not null)
+     * @throws T         if the pool is closed, no connection became available
+     *                   within the maximum wait time or some error occurred
+     *                   when opening a connection
+     * @throws Exception if the pool is closed, no connection became available
+     *                   within the maximum wait time or some error occurred
+     *                   when opening a connection
+     */
+    public <T extends Throwable> Connection getConnection(
+            final Class<T> exceptionClass) throws T, Exception {
+        checkOpen(exceptionClass);
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "Interrupted while waiting for a connection.", e);
+        }
+        if (!acquired) {
+            waitTimes.record(System.nanoTime() - start);
+            timeoutCount.increment();
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "Timed out waiting for a connection after "
+                            + maxWaitMillis + " ms.");
+        }
+        boolean borrowed = false;
+        try {
+            checkOpen(exceptionClass);
+            PooledConnection pooled = acquire(exceptionClass);
+            long now = System.nanoTime();
+            waitTimes.record(now - start);
+            pooled.borrowedAt = now;
+            pooled.lent = true;
+            activeCount.incrementAndGet();
+            borrowed = true;
+            return pooled.proxy;
+        } finally {
+            if (!borrowed) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Closes the connections that stayed idle longer than the idle timeout,
+     * keeping at least the minimum number of connections open. This method
+     * is also called whenever a connection is returned to the pool and by
+     * the scheduled eviction (see setEvictionInterval()).
+     */
+    public void evictIdleConnections() {
+        long now = System.nanoTime();
+        while (true) {
+            PooledConnection oldest = idle.peekLast();
+            if (oldest == null || now - oldest.lastUsed < idleTimeoutNanos
+                    || totalCount.get() <= minSize) {
+                return;
+            }
+            oldest = idle.pollLast();
+            if (oldest == null) {
+                return;
+            }
+            if (now - oldest.lastUsed < idleTimeoutNanos
+                    || !reserveEviction()) {
+                idle.offerLast(oldest);
+                return;
+            }
+            closePhysical(oldest);
+        }
+    }
+
+    /**
+     * Closes the pool and all idle connections, and stops the scheduled
+     * eviction. Borrowed connections are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            stopEvictor();
+        }
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * Retrieves the maximum number of open connections.
+     *
+     * @return the maximum number of open connections
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Retrieves the number of open connections.
+     *
+     * @return the number of open connections
+     */
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Retrieves the number of borrowed connections.
+     *
+     * @return the number of borrowed connections
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Retrieves the number of idle connections.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        return Math.max(0, totalCount.get() - activeCount.get());
+    }
+
+    /**
+     * Retrieves the number of connections opened by the pool.
+     *
+     * @return the number of opened connections
+     */
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    /**
+     * Retrieves the number of connections closed by the pool.
+     *
+     * @return the number of closed connections
+     */
+    public long getDestroyedCount() {
+        return destroyedCount.sum();
+    }
+
+    /**
+     * Retrieves the number of checkouts that timed out.
+     *
+     * @return the number of timed out checkouts
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /**
+     * Retrieves the histogram of times spent waiting for a connection.
+     *
+     * @return the wait time histogram (not null)
+     */
+    public LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * Retrieves the histogram of times connections were borrowed for.
+     *
+     * @return the usage time histogram (not null)
+     */
+    public LatencyHistogram getUsageTimes() {
+        return usageTimes;
+    }
+
+    /**
+     * Checks whether the given connection is a wrapper handed out by a pool
+     * (such wrappers report being closed while they are idle, but their
+     * statement caches are kept until the pool closes the connection).
+     *
+     * @param connection the connection
+     * @return true if the connection is a pooled one, false otherwise
+     */
+    static boolean isPooledConnection(final Connection connection) {
+        return Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection)
+                instanceof PooledConnection;
+    }
+
+    /**
+     * Retrieves a valid idle connection or opens a new one. The caller must
+     * hold a permit, so either the pool isn't full or an idle connection is
+     * (or is about to become) available.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @return the connection (not null)
+     * @throws T         if some error occurred when opening a connection
+     * @throws Exception if some error occurred when opening a connection
+     */
+    private <T extends Throwable> PooledConnection acquire(
+            final Class<T> exceptionClass) throws T, Exception {
+        while (true) {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled != null) {
+                if (isValid(pooled)) {
+                    return pooled;
+                }
+                destroy(pooled);
+                continue;
+            }
+            int total = totalCount.get();
+            if (total < maxSize) {
+                if (totalCount.compareAndSet(total, total + 1)) {
+                    return open(exceptionClass);
+                }
+            } else {
+                // the connection freed for the caller is being returned or
+                // evicted concurrently
+                LockSupport.parkNanos(ACQUIRE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Opens a new physical connection. The caller must have already counted
+     * it in totalCount.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @return the opened connection (not null)
+     * @throws T         if some error occurred when opening the connection
+     * @throws Exception if some error occurred when opening the connection
+     */
+    private <T extends Throwable> PooledConnection open(
+            final Class<T> exceptionClass) throws T, Exception {
+        try {
+            Connection connection = DriverManager.getConnection(url, info);
+            createdCount.increment();
+            return new PooledConnection(this, connection);
+        } catch (SQLException e) {
+            totalCount.decrementAndGet();
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "Error occurred while opening a connection to [" + url
+                            + "].", e);
+        } catch (RuntimeException e) {
+            totalCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the given idle connection can be borrowed.
+     *
+     * @param pooled the connection
+     * @return true if the connection is valid, false otherwise
+     */
+    private boolean isValid(final PooledConnection pooled) {
+        try {
+            return pooled.connection.isValid(validationTimeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the borrowed connection to the pool.
+     *
+     * @param pooled the connection
+     */
+    private void release(final PooledConnection pooled) {
+        long now = System.nanoTime();
+        usageTimes.record(now - pooled.borrowedAt);
+        activeCount.decrementAndGet();
+        if (!closed && reset(pooled)) {
+            pooled.lastUsed = now;
+            idle.offerFirst(pooled);
+            if (closed && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        } else {
+            destroy(pooled);
+        }
+        permits.release();
+        evictIdleConnections();
+    }
+
+    /**
+     * Rolls back uncommitted work of the returned connection and restores
+     * the auto-commit mode.
+     *
+     * @param pooled the connection
+     * @return true if the connection can be reused, false otherwise
+     */
+    private static boolean reset(final PooledConnection pooled) {
+        try {
+            Connection connection = pooled.connection;
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Decrements the number of open connections unless the pool would
+     * shrink below its minimum size.
+     *
+     * @return true if the number was decremented, false otherwise
+     */
+    private boolean reserveEviction() {
+        while (true) {
+            int total = totalCount.get();
+            if (total <= minSize) {
+                return false;
+            }
+            if (totalCount.compareAndSet(total, total - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Closes the physical connection and its cached statements.
+     *
+     * @param pooled the connection
+     */
+    private void destroy(final PooledConnection pooled) {
+        totalCount.decrementAndGet();
+        closePhysical(pooled);
+    }
+
+    /**
+     * Closes the physical connection and its cached statements without
+     * updating the number of open connections.
+     *
+     * @param pooled the connection
+     */
+    private void closePhysical(final PooledConnection pooled) {
+        JDBCUtility.clearStatementCache(pooled.proxy);
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            // ignore
+        }
+        destroyedCount.increment();
+    }
+
+    /**
+     * Stops the scheduled eviction if it's running. Must be called with the
+     * lock of this pool held.
+     */
+    private void stopEvictor() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+    }
+
+    /**
+     * Checks whether the pool is open.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @throws T         if the pool is closed
+     * @throws Exception if the pool is closed
+     */
+    private <T extends Throwable> void checkOpen(final Class<T> exceptionClass)
+            throws T, Exception {
+        if (closed) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "The connection pool is closed.");
+        }
+    }
+
+    /**
+     * Checks the given time configuration.
+     *
+     * @param time the time
+     * @param unit the time unit
+     * @throws IllegalArgumentException if time is negative or unit is null
+     */
+    private static void checkTime(final long time, final TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("time should not be negative");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit should not be null");
+        }
+    }
+
+    /**
+     * This class represents a physical connection owned by the pool together
+     * with the wrapper handed out to borrowers.
+     * <p>
+     * Thread Safety: this class is thread safe.
+     */
+    private static final class PooledConnection implements InvocationHandler {
+        /**
+         * The pool that owns the connection.
+         */
+        private final ConnectionPool pool;
+
+        /**
+         * The physical connection.
+         */
+        private final Connection connection;
+
+        /**
+         * The wrapper handed out to borrowers.
+         */
+        private final Connection proxy;
+
+        /**
+         * True if the connection is borrowed.
+         */
+        private volatile boolean lent;
+
+        /**
+         * The time (System.nanoTime()) the connection was borrowed at.
+         */
+        private volatile long borrowedAt;
+
+        /**
+         * The time (System.nanoTime()) the connection was returned at.
+         */
+        private volatile long lastUsed;
+
+        /**
+         * Creates the pooled connection.
+         *
+         * @param pool       the pool that owns the connection
+         * @param connection the physical connection
+         */
+        PooledConnection(final ConnectionPool pool,
+                         final Connection connection) {
+            this.pool = pool;
+            this.connection = connection;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, this);
+        }
+
+        /**
+         * Handles the invocation of the wrapper method. close() returns the
+         * connection to the pool; other methods are delegated to the
+         * physical connection while the connection is borrowed.
+         *
+         * @param target the wrapper
+         * @param method the invoked method
+         * @param args   the method arguments
+         * @return the method result
+         * @throws Throwable if the method failed
+         */
+        public Object invoke(final Object target, final Method method,
+                             final Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                if (name.equals("equals")) {
+                    return target == args[0];
+                } else if (name.equals("hashCode")) {
+                    return System.identityHashCode(target);
+                }
+                return "Pooled " + connection;
+            }
+            if (name.equals("close")) {
+                boolean returned;
+                synchronized (this) {
+                    returned = lent;
+                    lent = false;
+                }
+                if (returned) {
+                    pool.release(this);
+                }
+                return null;
+            }
+            if (name.equals("isClosed")) {
+                return !lent || connection.isClosed();
+            }
+            if (!lent) {
+                throw new SQLException("The connection is closed.");
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
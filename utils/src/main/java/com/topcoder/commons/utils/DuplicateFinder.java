@@ -0,0 +1,308 @@
+package com.topcoder.commons.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This is a helper class that finds duplicate values for the uniqueness
+ * checks of ValidationUtility. It reports the first duplicate, i.e. the
+ * element with the lowest index that is equal to some preceding element.
+ * <p>
+ * Primitive arrays are checked with open-addressing hash tables of
+ * primitives sized from the input (so the values are never boxed), or, when
+ * such a table would exceed the memory limit, by sorting a copy of the
+ * values. Collections are checked with an open-addressing table of element
+ * references (compared with equals()), which doesn't allocate entry objects
+ * as HashSet does. The memory limit applies to the primitive tables only:
+ * elements without an ordering can't be checked by sorting, and any
+ * fallback for them (such as HashSet) would need more memory than the
+ * reference table.
+ * <p>
+ * Thread Safety: this class is thread safe.
+ */
+public final class DuplicateFinder {
+    /**
+     * The default memory limit of the hash tables in bytes.
+     */
+    private static final long DEFAULT_MEMORY_LIMIT = 64L * 1024 * 1024;
+
+    /**
+     * The multiplier of the Fibonacci hashing (2^64 divided by the golden
+     * ratio).
+     */
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The multiplier of the Fibonacci hashing for int hash codes.
+     */
+    private static final int INT_GOLDEN_RATIO = 0x9E3779B9;
+
+    /**
+     * The maximum capacity of a hash table.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The number of bits in an int.
+     */
+    private static final int INT_BITS = 32;
+
+    /**
+     * The memory limit of the hash tables in bytes.
+     */
+    private static volatile long memoryLimit = DEFAULT_MEMORY_LIMIT;
+
+    /**
+     * Empty private constructor.
+     */
+    private DuplicateFinder() {
+    }
+
+    /**
+     * Sets the maximum size of the hash table used for checking a primitive
+     * array. Larger arrays are checked by sorting a copy of the values
+     * instead, which needs less memory but O(n log n) time. Collections are
+     * not affected by the limit.
+     *
+     * @param bytes the memory limit in bytes
+     * @throws IllegalArgumentException if bytes is negative
+     */
+    public static void setMemoryLimit(final long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException(
+                    "bytes should not be negative");
+        }
+        memoryLimit = bytes;
+    }
+
+    /**
+     * Retrieves the maximum size of the hash table used for checking a
+     * primitive array.
+     *
+     * @return the memory limit in bytes
+     */
+    public static long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Finds the first duplicate in the given array.
+     *
+     * @param values the values
+     * @return the index of the first duplicate (-1 if the values are unique)
+     */
+    static int findDuplicate(final long[] values) {
+        int length = values.length;
+        int capacity = getCapacity(length);
+        if (capacity < 0
+                || (long) capacity * Long.SIZE / Byte.SIZE > memoryLimit) {
+            return findDuplicateBySorting(values);
+        }
+        long[] table = new long[capacity];
+        int shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        int mask = capacity - 1;
+        boolean zero = false;
+        for (int i = 0; i < length; i++) {
+            long value = values[i];
+            if (value == 0) {
+                if (zero) {
+                    return i;
+                }
+                zero = true;
+                continue;
+            }
+            int slot = (int) ((value * GOLDEN_RATIO) >>> shift);
+            while (table[slot] != 0) {
+                if (table[slot] == value) {
+                    return i;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first duplicate in the given array.
+     *
+     * @param values the values
+     * @return the index of the first duplicate (-1 if the values are unique)
+     */
+    static int findDuplicate(final int[] values) {
+        int length = values.length;
+        int capacity = getCapacity(length);
+        if (capacity < 0
+                || (long) capacity * Integer.SIZE / Byte.SIZE > memoryLimit) {
+            return findDuplicateBySorting(values);
+        }
+        int[] table = new int[capacity];
+        int shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        int mask = capacity - 1;
+        boolean zero = false;
+        for (int i = 0; i < length; i++) {
+            int value = values[i];
+            if (value == 0) {
+                if (zero) {
+                    return i;
+                }
+                zero = true;
+                continue;
+            }
+            int slot = (int) ((value * GOLDEN_RATIO) >>> shift);
+            while (table[slot] != 0) {
+                if (table[slot] == value) {
+                    return i;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first duplicate in the given collection. Null elements are
+     * equal to each other. The table is not subject to the memory limit.
+     *
+     * @param values the values
+     * @return the index of the first duplicate in the iteration order (-1 if
+     *         the values are unique)
+     */
+    static int findDuplicate(final Collection<?> values) {
+        int capacity = getCapacity(values.size());
+        if (capacity < 0) {
+            return findDuplicateWithHashSet(values);
+        }
+        Object[] table = new Object[capacity];
+        int shift = INT_BITS - Integer.numberOfTrailingZeros(capacity);
+        int mask = capacity - 1;
+        boolean containsNull = false;
+        int index = 0;
+        for (Object value : values) {
+            if (value == null) {
+                if (containsNull) {
+                    return index;
+                }
+                containsNull = true;
+            } else {
+                int slot = (value.hashCode() * INT_GOLDEN_RATIO) >>> shift;
+                while (table[slot] != null) {
+                    if (table[slot].equals(value)) {
+                        return index;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first duplicate in the given array by sorting a copy of the
+     * values: the duplicated values are collected from the sorted copy, and
+     * the first repeated occurrence of them is found in a second pass.
+     *
+     * @param values the values
+     * @return the index of the first duplicate (-1 if the values are unique)
+     */
+    private static int findDuplicateBySorting(final long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        // compact the duplicated values to the beginning of the copy
+        int duplicates = 0;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1] && (duplicates == 0
+                    || sorted[duplicates - 1] != sorted[i])) {
+                sorted[duplicates++] = sorted[i];
+            }
+        }
+        if (duplicates == 0) {
+            return -1;
+        }
+        boolean[] seen = new boolean[duplicates];
+        for (int i = 0; i < values.length; i++) {
+            int position = Arrays.binarySearch(sorted, 0, duplicates,
+                    values[i]);
+            if (position >= 0) {
+                if (seen[position]) {
+                    return i;
+                }
+                seen[position] = true;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first duplicate in the given array by sorting a copy of the
+     * values (see findDuplicateBySorting(long[])).
+     *
+     * @param values the values
+     * @return the index of the first duplicate (-1 if the values are unique)
+     */
+    private static int findDuplicateBySorting(final int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        // compact the duplicated values to the beginning of the copy
+        int duplicates = 0;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1] && (duplicates == 0
+                    || sorted[duplicates - 1] != sorted[i])) {
+                sorted[duplicates++] = sorted[i];
+            }
+        }
+        if (duplicates == 0) {
+            return -1;
+        }
+        boolean[] seen = new boolean[duplicates];
+        for (int i = 0; i < values.length; i++) {
+            int position = Arrays.binarySearch(sorted, 0, duplicates,
+                    values[i]);
+            if (position >= 0) {
+                if (seen[position]) {
+                    return i;
+                }
+                seen[position] = true;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first duplicate in the given collection with a HashSet (used
+     * for collections too large for an open-addressing table).
+     *
+     * @param values the values
+     * @return the index of the first duplicate in the iteration order (-1 if
+     *         the values are unique)
+     */
+    private static int findDuplicateWithHashSet(final Collection<?> values) {
+        Set<Object> seen = new HashSet<Object>();
+        int index = 0;
+        for (Object value : values) {
+            if (!seen.add(value)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the capacity of a hash table for the given number of values:
+     * the smallest power of two not less than twice the number of values (at
+     * least 4), which keeps the load factor at most 0.5.
+     *
+     * @param size the number of values
+     * @return the capacity of the table, -1 if the table would be too large
+     */
+    static int getCapacity(final int size) {
+        int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 2;
+        return capacity <= 0 || capacity > MAX_CAPACITY ? -1 : capacity;
+    }
+}
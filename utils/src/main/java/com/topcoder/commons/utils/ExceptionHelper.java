@@ -0,0 +1,127 @@
+package com.topcoder.commons.utils;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * This is a static helper class that provides methods for constructing
+ * exception instances using reflection. It is used by ValidationUtility,
+ * PropertiesUtility and JDBCUtility. The failures of ValidationUtility checks
+ * are also reported to the failure sink (see
+ * ValidationUtility.setFailureSink()).
+ */
+final class ExceptionHelper {
+    /**
+     * The sink notified of validation failures (null if there is none).
+     */
+    private static volatile ValidationFailureSink failureSink;
+
+    /**
+     * Empty private constructor.
+     */
+    private ExceptionHelper() {
+    }
+
+    /**
+     * Sets the sink notified of validation failures.
+     *
+     * @param sink the sink (null to disable the notifications)
+     */
+    static void setFailureSink(final ValidationFailureSink sink) {
+        failureSink = sink;
+    }
+
+    /**
+     * Retrieves the sink notified of validation failures.
+     *
+     * @return the sink (null if there is none)
+     */
+    static ValidationFailureSink getFailureSink() {
+        return failureSink;
+    }
+
+    /**
+     * Notifies the failure sink (if any) of a validation failure and
+     * constructs the exception with the message "name rule".
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param rule           the violated rule, e.g. "should be positive"
+     * @return the constructed exception instance (not null)
+     * @throws Exception if any error occurred when using the reflection
+     */
+    static <T extends Throwable> T constructValidationException(
+            final Class<T> exceptionClass, final String name,
+            final String rule) throws Exception {
+        return constructValidationException(exceptionClass, name, rule, "");
+    }
+
+    /**
+     * Notifies the failure sink (if any) of a validation failure and
+     * constructs the exception with the message "name rule detail". The
+     * detail (e.g. the offending value) isn't passed to the sink, so that
+     * the failures of a check are counted together.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param rule           the violated rule, e.g. "should be positive"
+     * @param detail         the detail appended to the rule (starting with a
+     *                       space, or empty)
+     * @return the constructed exception instance (not null)
+     * @throws Exception if any error occurred when using the reflection
+     */
+    static <T extends Throwable> T constructValidationException(
+            final Class<T> exceptionClass, final String name,
+            final String rule, final String detail) throws Exception {
+        ValidationFailureSink sink = failureSink;
+        if (sink != null) {
+            try {
+                sink.failed(name, rule);
+            } catch (RuntimeException e) {
+                // ignore, the failure is reported with the exception anyway
+            }
+        }
+        return constructException(exceptionClass, name + " " + rule + detail);
+    }
+
+    /**
+     * Constructs an exception of the specified type with the given message.
+     *
+     * @param <T>            type of exception
+     * @param message        the message
+     * @param exceptionClass the exception class
+     * @return the constructed exception instance (not null)
+     * @throws Exception if any error occurred when using the reflection
+     */
+    static <T extends Throwable> T constructException(
+            final Class<T> exceptionClass, final String message)
+            throws Exception {
+        Constructor<T> constructor = exceptionClass
+                .getConstructor(String.class);
+        T result = (T) constructor.newInstance(message);
+        return result;
+    }
+
+    /**
+     * Constructs an exception of the specified type with the given message and
+     * cause.
+     *
+     * @param <T>            type of exception
+     * @param message        the message
+     * @param cause          the exception cause
+     * @param exceptionClass the exception class
+     * @return the constructed exception instance (not null)
+     * @throws Exception if any error occurred when using the reflection
+     */
+    static <T extends Throwable> T
+    constructException(final Class<T> exceptionClass, final String message,
+                       final Throwable cause)
+            throws Exception {
+        Constructor<T> constructor =
+                exceptionClass.getConstructor(String.class, Throwable.class);
+        T result = (T) constructor.newInstance(message, cause);
+        return result;
+    }
+}
+
@@ -0,0 +1,310 @@
+package com.topcoder.commons.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+
+/**
+ * This class is the built-in logging backend that appends the messages to a
+ * file, one line per message in the form "2024-05-17 10:15:30.123 DEBUG
+ * [thread] message" (UTC time), followed by the stack trace if an exception
+ * is logged. The messages of the levels below the threshold are not logged.
+ * <p>
+ * The backend is meant for high message rates: lines are written into a
+ * large buffer (flushed when full, on ERROR messages, exceptions, flush()
+ * and close()), the message characters are copied from the reused builder
+ * of LoggingWrapperUtility in chunks, and the timestamp is formatted into a
+ * reused array (the date part is computed once per day), so logging a line
+ * doesn't create any objects. I/O errors don't propagate to the logging
+ * code; they are counted instead (see getErrorCount()).
+ * <p>
+ * Thread Safety: this class is thread safe. Lines are written atomically.
+ */
+public final class FileLoggingBackend implements LoggingBackend, Flushable,
+        Closeable {
+    /**
+     * The default size of the buffer in characters.
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of milliseconds in a second.
+     */
+    private static final int MILLIS_PER_SECOND = 1000;
+
+    /**
+     * The number of milliseconds in a minute.
+     */
+    private static final int MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+
+    /**
+     * The number of milliseconds in an hour.
+     */
+    private static final int MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+
+    /**
+     * The number of milliseconds in a day.
+     */
+    private static final int MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    /**
+     * The length of the date part (yyyy-MM-dd) of the timestamp.
+     */
+    private static final int DATE_LENGTH = 10;
+
+    /**
+     * The timestamp template (the digits are replaced).
+     */
+    private static final String TIMESTAMP_TEMPLATE =
+            "0000-00-00 00:00:00.000";
+
+    /**
+     * The size of the chunks in which the messages are copied.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * The line separator.
+     */
+    private static final String LINE_SEPARATOR =
+            System.getProperty("line.separator");
+
+    /**
+     * The minimum level of the logged messages.
+     */
+    private final LogLevel threshold;
+
+    /**
+     * The file writer.
+     */
+    private final Writer writer;
+
+    /**
+     * The timestamp of the current line (guarded by this).
+     */
+    private final char[] timestamp = TIMESTAMP_TEMPLATE.toCharArray();
+
+    /**
+     * The chunk of the message being written (guarded by this).
+     */
+    private final char[] chunk = new char[CHUNK_SIZE];
+
+    /**
+     * The epoch day of the date part of the timestamp (guarded by this).
+     */
+    private long timestampDay = Long.MIN_VALUE;
+
+    /**
+     * True if the backend is closed (guarded by this).
+     */
+    private boolean closed;
+
+    /**
+     * The number of I/O errors.
+     */
+    private volatile long errorCount;
+
+    /**
+     * Creates the backend appending to the given file (in UTF-8) with the
+     * default buffer size of 64K characters.
+     *
+     * @param file      the file
+     * @param threshold the minimum level of the logged messages
+     * @throws IllegalArgumentException if file or threshold is null
+     * @throws IOException              if the file can't be opened
+     */
+    public FileLoggingBackend(final File file, final LogLevel threshold)
+            throws IOException {
+        this(file, threshold, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates the backend appending to the given file (in UTF-8).
+     *
+     * @param file       the file
+     * @param threshold  the minimum level of the logged messages
+     * @param bufferSize the size of the buffer in characters
+     * @throws IllegalArgumentException if file or threshold is null, or
+     *                                  bufferSize is not positive
+     * @throws IOException              if the file can't be opened
+     */
+    public FileLoggingBackend(final File file, final LogLevel threshold,
+                              final int bufferSize) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("file should not be null");
+        }
+        if (threshold == null) {
+            throw new IllegalArgumentException(
+                    "threshold should not be null");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException(
+                    "bufferSize should be positive");
+        }
+        this.threshold = threshold;
+        this.writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), Charset.forName("UTF-8")),
+                bufferSize);
+    }
+
+    /**
+     * Checks whether the given level is not below the threshold.
+     *
+     * @param level the level
+     * @return true if the messages of the level are logged, false otherwise
+     */
+    public boolean isEnabled(final LogLevel level) {
+        return level.ordinal() >= threshold.ordinal();
+    }
+
+    /**
+     * Writes the line with the given message (and the stack trace of the
+     * exception). Messages logged after close() are ignored.
+     *
+     * @param level     the level
+     * @param message   the message
+     * @param throwable the exception to be logged (null if not available)
+     */
+    public void log(final LogLevel level, final CharSequence message,
+                    final Throwable throwable) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                formatTimestamp(System.currentTimeMillis());
+                writer.write(timestamp, 0, timestamp.length);
+                writer.write(' ');
+                writer.write(level.name());
+                writer.write(" [");
+                writer.write(Thread.currentThread().getName());
+                writer.write("] ");
+                writeMessage(message);
+                writer.write(LINE_SEPARATOR);
+                if (throwable != null) {
+                    PrintWriter printWriter = new PrintWriter(writer);
+                    throwable.printStackTrace(printWriter);
+                    printWriter.flush();
+                }
+                if (level == LogLevel.ERROR) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                errorCount++;
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered lines to the file.
+     */
+    public synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            errorCount++;
+        }
+    }
+
+    /**
+     * Writes the buffered lines and closes the file. Messages logged later
+     * are ignored.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            errorCount++;
+        }
+    }
+
+    /**
+     * Retrieves the number of I/O errors that occurred while writing the
+     * file.
+     *
+     * @return the number of I/O errors
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Writes the message without creating a string (in chunks copied to the
+     * chunk array). Must be called with the lock of this backend held.
+     *
+     * @param message the message
+     * @throws IOException if an I/O error occurred
+     */
+    private void writeMessage(final CharSequence message) throws IOException {
+        int length = message.length();
+        for (int start = 0; start < length; start += CHUNK_SIZE) {
+            int end = Math.min(start + CHUNK_SIZE, length);
+            if (message instanceof StringBuilder) {
+                ((StringBuilder) message).getChars(start, end, chunk, 0);
+            } else {
+                for (int i = start; i < end; i++) {
+                    chunk[i - start] = message.charAt(i);
+                }
+            }
+            writer.write(chunk, 0, end - start);
+        }
+    }
+
+    /**
+     * Formats the given time into the timestamp array.
+     *
+     * @param millis the time in milliseconds since the epoch
+     */
+    private void formatTimestamp(final long millis) {
+        long day = Math.floorDiv(millis, (long) MILLIS_PER_DAY);
+        if (day != timestampDay) {
+            LocalDate.ofEpochDay(day).toString().getChars(0, DATE_LENGTH,
+                    timestamp, 0);
+            timestampDay = day;
+        }
+        int time = (int) Math.floorMod(millis, (long) MILLIS_PER_DAY);
+        int position = DATE_LENGTH + 1;
+        position = putDigits(time / MILLIS_PER_HOUR, 2, position);
+        position = putDigits(time % MILLIS_PER_HOUR / MILLIS_PER_MINUTE, 2,
+                position + 1);
+        position = putDigits(time % MILLIS_PER_MINUTE / MILLIS_PER_SECOND, 2,
+                position + 1);
+        putDigits(time % MILLIS_PER_SECOND, 3, position + 1);
+    }
+
+    /**
+     * Puts the digits of the given number into the timestamp array.
+     *
+     * @param value    the number (not negative)
+     * @param digits   the number of digits
+     * @param position the position of the first digit
+     * @return the position after the last digit
+     */
+    private int putDigits(final int value, final int digits,
+                          final int position) {
+        int remaining = value;
+        for (int i = position + digits - 1; i >= position; i--) {
+            timestamp[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return position + digits;
+    }
+}
@@ -0,0 +1,927 @@
+package com.topcoder.commons.utils;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This is a utility class that provides static methods for executing
+ * retrieval and DML queries, committing and rolling back transactions. If
+ * SQLException is thrown, this utility wraps it to the persistence exception
+ * specified by the caller.
+ * <p>
+ * Prepared statements are cached per connection (in LRU order) and reused by
+ * subsequent calls with the same query string; the cache size can be
+ * configured with setStatementCacheSize(). The cache of a connection that is
+ * not obtained from ConnectionPool should be cleared with
+ * clearStatementCache() when the connection is closed. DML queries can be
+ * executed in batches with executeBatch(), optionally validating every row
+ * with RowRules while binding it and collecting the rejected rows.
+ * <p>
+ * Large results can be read with openCursor(), which returns a lazily
+ * fetched forward-only ResultCursor instead of materializing all rows.
+ * <p>
+ * Full-range extracts can be split over a numeric key into partitions read
+ * in parallel with pooled connections (see openPartitionedCursor()).
+ * <p>
+ * Every execution is reported to QueryMonitor, which collects per-query
+ * statistics and logs slow queries when it's enabled. The time of a cursor
+ * execution doesn't include reading the rows.
+ * <p>
+ * Thread Safety: this class is thread safe, but a single connection should
+ * not be used by multiple threads at the same time.
+ */
+public final class JDBCUtility {
+    /**
+     * The default maximum number of cached statements per connection.
+     */
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
+    /**
+     * The column reader code for Date columns.
+     */
+    private static final int DATE_COLUMN = 0;
+
+    /**
+     * The column reader code for Double columns.
+     */
+    private static final int DOUBLE_COLUMN = 1;
+
+    /**
+     * The column reader code for Float columns.
+     */
+    private static final int FLOAT_COLUMN = 2;
+
+    /**
+     * The column reader code for Long columns.
+     */
+    private static final int LONG_COLUMN = 3;
+
+    /**
+     * The column reader code for Integer columns.
+     */
+    private static final int INTEGER_COLUMN = 4;
+
+    /**
+     * The column reader code for String columns.
+     */
+    private static final int STRING_COLUMN = 5;
+
+    /**
+     * The column reader code for Boolean columns.
+     */
+    private static final int BOOLEAN_COLUMN = 6;
+
+    /**
+     * The column reader code for Object columns.
+     */
+    private static final int OBJECT_COLUMN = 7;
+
+    /**
+     * The maximum number of cached statements per connection (0 if statements
+     * are not cached).
+     */
+    private static volatile int statementCacheSize =
+            DEFAULT_STATEMENT_CACHE_SIZE;
+
+    /**
+     * Empty private constructor.
+     */
+    private JDBCUtility() {
+    }
+
+    /**
+     * Sets the maximum number of prepared statements cached per connection.
+     * Statements are not cached if 0 is specified.
+     *
+     * @param size the maximum number of cached statements
+     * @throws IllegalArgumentException if size is negative
+     */
+    public static void setStatementCacheSize(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException(
+                    "size should not be negative");
+        }
+        statementCacheSize = size;
+    }
+
+    /**
+     * Retrieves the maximum number of prepared statements cached per
+     * connection.
+     *
+     * @return the maximum number of cached statements
+     */
+    public static int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Closes all prepared statements cached for the given connection and
+     * removes its cache. This method should be called before a connection
+     * that is not obtained from ConnectionPool (which clears the caches
+     * itself) is returned to another pool or closed. The caches of closed
+     * connections are also removed when a statement is first cached for
+     * another connection, but the cache of a connection that is abandoned
+     * without being closed is kept until this method is called.
+     *
+     * @param connection the database connection
+     */
+    public static void clearStatementCache(final Connection connection) {
+        StatementCache.clear(connection);
+    }
+
+    /**
+     * Executes the given retrieval query and converts the result set to the
+     * array of rows. Every row is an array of column values of the specified
+     * types (Date, Double, Float, Long, Integer, String, Boolean or Object).
+     *
+     * @param <T>            type of exception
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param queryArgs      the query arguments
+     * @param columnTypes    the expected types of the result set columns
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @return the retrieved rows (not null)
+     * @throws T         if some error occurred when executing the query
+     * @throws Exception if some error occurred when executing the query
+     */
+    public static <T extends Throwable> Object[][] executeQuery(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Object[] queryArgs,
+            final Class<?>[] columnTypes, final Class<T> exceptionClass)
+            throws T, Exception {
+        List<Object[]> rows = executeQuery(connection, queryString,
+                argumentTypes, queryArgs,
+                createRowMapper(columnTypes, exceptionClass),
+                columnTypes.length, exceptionClass);
+        return rows.toArray(new Object[rows.size()][]);
+    }
+
+    /**
+     * Executes the given retrieval query and converts every row of the
+     * result set with the given row mapper.
+     *
+     * @param <T>            type of exception
+     * @param <R>            type of the result objects
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param queryArgs      the query arguments
+     * @param rowMapper      the mapper that converts rows to result objects
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @return the list of result objects (not null)
+     * @throws T         if some error occurred when executing the query
+     * @throws Exception if some error occurred when executing the query
+     */
+    public static <T extends Throwable, R> List<R> executeQuery(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Object[] queryArgs,
+            final RowMapper<R> rowMapper, final Class<T> exceptionClass)
+            throws T, Exception {
+        return executeQuery(connection, queryString, argumentTypes, queryArgs,
+                rowMapper, -1, exceptionClass);
+    }
+
+    /**
+     * Executes the given retrieval query and opens a forward-only cursor over
+     * its result. Every row is an array of column values of the specified
+     * types (Date, Double, Float, Long, Integer, String, Boolean or Object).
+     * Rows are fetched lazily, so the memory usage doesn't depend on the size
+     * of the result. The caller must close the cursor unless it's read to
+     * the end.
+     *
+     * @param <T>            type of exception
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param queryArgs      the query arguments
+     * @param columnTypes    the expected types of the result set columns
+     * @param fetchSize      the number of rows fetched from the database at
+     *                       once (0 if the driver default should be used)
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException (also when reading rows)
+     * @return the cursor over the rows (not null)
+     * @throws IllegalArgumentException if fetchSize is negative
+     * @throws T                        if some error occurred when executing
+     *                                  the query
+     * @throws Exception                if some error occurred when executing
+     *                                  the query
+     */
+    public static <T extends RuntimeException> ResultCursor<Object[]>
+    openCursor(final Connection connection, final String queryString,
+               final int[] argumentTypes, final Object[] queryArgs,
+               final Class<?>[] columnTypes, final int fetchSize,
+               final Class<T> exceptionClass) throws T, Exception {
+        return openCursor(connection, queryString, argumentTypes, queryArgs,
+                createRowMapper(columnTypes, exceptionClass),
+                columnTypes.length, fetchSize, exceptionClass);
+    }
+
+    /**
+     * Executes the given retrieval query and opens a forward-only cursor over
+     * its result. Every row is converted with the given row mapper. Rows are
+     * fetched lazily, so the memory usage doesn't depend on the size of the
+     * result. The caller must close the cursor unless it's read to the end.
+     *
+     * @param <T>            type of exception
+     * @param <R>            type of the row objects
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param queryArgs      the query arguments
+     * @param rowMapper      the mapper that converts rows to result objects
+     * @param fetchSize      the number of rows fetched from the database at
+     *                       once (0 if the driver default should be used)
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException (also when reading rows)
+     * @return the cursor over the rows (not null)
+     * @throws IllegalArgumentException if fetchSize is negative
+     * @throws T                        if some error occurred when executing
+     *                                  the query
+     * @throws Exception                if some error occurred when executing
+     *                                  the query
+     */
+    public static <T extends RuntimeException, R> ResultCursor<R> openCursor(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Object[] queryArgs,
+            final RowMapper<R> rowMapper, final int fetchSize,
+            final Class<T> exceptionClass) throws T, Exception {
+        return openCursor(connection, queryString, argumentTypes, queryArgs,
+                rowMapper, -1, fetchSize, exceptionClass);
+    }
+
+    /**
+     * Executes the given retrieval query in parallel over the partitions of
+     * the key range [fromKey, toKey) and opens a cursor over the merged
+     * rows. The last two query arguments must be the inclusive lower and the
+     * exclusive upper key bound of a partition (e.g. "... WHERE id &gt;= ?
+     * AND id &lt; ?"); they are bound as BIGINT values for every partition
+     * and must not be included in argumentTypes and queryArgs.
+     * <p>
+     * Every partition is read with its own connection borrowed from the
+     * pool; at most pool.getMaxSize() partitions are read at the same time.
+     * The caller must close the cursor unless it's read to the end.
+     *
+     * @param <T>            type of exception
+     * @param <R>            type of the row objects
+     * @param pool           the pool used for borrowing connections
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types), excluding the key bounds
+     * @param queryArgs      the query arguments, excluding the key bounds
+     * @param rowMapper      the mapper that converts rows to result objects
+     * @param fromKey        the inclusive lower bound of the key range
+     * @param toKey          the exclusive upper bound of the key range
+     * @param partitions     the number of partitions
+     * @param ordered        true if the rows of every partition should be
+     *                       returned before the rows of the next partition,
+     *                       false if rows should be returned as soon as they
+     *                       are read
+     * @param fetchSize      the number of rows fetched from the database at
+     *                       once (0 if the driver default should be used)
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       errors
+     * @return the cursor over the merged rows (not null)
+     * @throws IllegalArgumentException if pool, queryString or rowMapper is
+     *                                  null, fromKey is not less than toKey,
+     *                                  partitions is not positive, fetchSize
+     *                                  is negative or argumentTypes and
+     *                                  queryArgs have different lengths
+     */
+    public static <T extends RuntimeException, R> PartitionedCursor<R>
+    openPartitionedCursor(final ConnectionPool pool, final String queryString,
+                          final int[] argumentTypes, final Object[] queryArgs,
+                          final RowMapper<R> rowMapper, final long fromKey,
+                          final long toKey, final int partitions,
+                          final boolean ordered, final int fetchSize,
+                          final Class<T> exceptionClass) {
+        if (pool == null || queryString == null || rowMapper == null) {
+            throw new IllegalArgumentException(
+                    "pool, queryString and rowMapper should not be null");
+        }
+        if (fromKey >= toKey) {
+            throw new IllegalArgumentException(
+                    "fromKey should be less than toKey");
+        }
+        if (partitions <= 0) {
+            throw new IllegalArgumentException(
+                    "partitions should be positive");
+        }
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException(
+                    "fetchSize should not be negative");
+        }
+        int argumentCount = queryArgs == null ? 0 : queryArgs.length;
+        if ((argumentTypes == null ? 0 : argumentTypes.length)
+                != argumentCount) {
+            throw new IllegalArgumentException(
+                    "argumentTypes and queryArgs should have the same length");
+        }
+        int[] types = new int[argumentCount + 2];
+        Object[] args = new Object[argumentCount];
+        if (argumentCount > 0) {
+            System.arraycopy(argumentTypes, 0, types, 0, argumentCount);
+            System.arraycopy(queryArgs, 0, args, 0, argumentCount);
+        }
+        types[argumentCount] = Types.BIGINT;
+        types[argumentCount + 1] = Types.BIGINT;
+        long[] bounds = getPartitionBounds(fromKey, toKey, partitions);
+        PartitionedCursor<R> cursor = new PartitionedCursor<R>(pool,
+                queryString, types, args, rowMapper, bounds, fetchSize,
+                ordered, Math.min(bounds.length - 1, pool.getMaxSize()),
+                exceptionClass);
+        cursor.start();
+        return cursor;
+    }
+
+    /**
+     * Executes the given DML query.
+     *
+     * @param <T>            type of exception
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param queryArgs      the query arguments
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @return the number of affected rows
+     * @throws T         if some error occurred when executing the query
+     * @throws Exception if some error occurred when executing the query
+     */
+    public static <T extends Throwable> int executeUpdate(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Object[] queryArgs,
+            final Class<T> exceptionClass) throws T, Exception {
+        PreparedStatement statement = null;
+        long start = System.nanoTime();
+        int rows = -1;
+        try {
+            statement = StatementCache.prepare(connection, queryString,
+                    statementCacheSize);
+            bindArguments(statement, argumentTypes, queryArgs);
+            rows = statement.executeUpdate();
+            return rows;
+        } catch (SQLException e) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    getQueryErrorMessage(queryString, queryArgs), e);
+        } finally {
+            StatementCache.release(connection, statement);
+            QueryMonitor.queryExecuted(queryString, queryArgs, start, rows,
+                    rows < 0);
+        }
+    }
+
+    /**
+     * Executes the given DML query once for every row of arguments. The rows
+     * are sent to the database in batches of the given size.
+     *
+     * @param <T>            type of exception
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param argumentRows   the query arguments for every execution
+     * @param batchSize      the maximum number of rows sent in one batch
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @return the total number of affected rows (executions for which the
+     *         driver doesn't report the number of affected rows are not
+     *         counted)
+     * @throws IllegalArgumentException if batchSize is not positive
+     * @throws T                        if some error occurred when executing
+     *                                  the query
+     * @throws Exception                if some error occurred when executing
+     *                                  the query
+     */
+    public static <T extends Throwable> int executeBatch(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Iterable<Object[]> argumentRows,
+            final int batchSize, final Class<T> exceptionClass)
+            throws T, Exception {
+        return executeBatch(connection, queryString, argumentTypes,
+                argumentRows, batchSize, null, null, exceptionClass);
+    }
+
+    /**
+     * Executes the given DML query once for every valid row of arguments.
+     * Every row is validated with the given rules right before it's bound,
+     * so the rows are iterated only once. Invalid rows are not sent to the
+     * database; they are added to the given collection instead and the
+     * batch continues. The valid rows are sent to the database in batches
+     * of the given size.
+     *
+     * @param <T>            type of exception
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param argumentRows   the query arguments for every execution
+     * @param batchSize      the maximum number of rows sent in one batch
+     * @param rowRules       the rules used for validating the rows (null if
+     *                       the rows should not be validated)
+     * @param rejectedRows   the collection that receives the rejected rows
+     *                       (can be null only if rowRules is null)
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @return the total number of affected rows (executions for which the
+     *         driver doesn't report the number of affected rows are not
+     *         counted)
+     * @throws IllegalArgumentException if batchSize is not positive or
+     *                                  rowRules is specified without
+     *                                  rejectedRows
+     * @throws T                        if some error occurred when executing
+     *                                  the query
+     * @throws Exception                if some error occurred when executing
+     *                                  the query
+     */
+    public static <T extends Throwable> int executeBatch(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Iterable<Object[]> argumentRows,
+            final int batchSize, final RowRules rowRules,
+            final Collection<? super RejectedRow> rejectedRows,
+            final Class<T> exceptionClass) throws T, Exception {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "batchSize should be positive");
+        }
+        if (rowRules != null && rejectedRows == null) {
+            throw new IllegalArgumentException(
+                    "rejectedRows should not be null");
+        }
+        PreparedStatement statement = null;
+        int rowNumber = 0;
+        int batchStart = 0;
+        int pending = 0;
+        int total = 0;
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            statement = StatementCache.prepare(connection, queryString,
+                    statementCacheSize);
+            for (Object[] queryArgs : argumentRows) {
+                if (rowRules != null) {
+                    String violation = rowRules.validate(queryArgs);
+                    if (violation != null) {
+                        rejectedRows.add(new RejectedRow(rowNumber, queryArgs,
+                                violation));
+                        rowNumber++;
+                        continue;
+                    }
+                }
+                if (pending == 0) {
+                    batchStart = rowNumber;
+                }
+                bindArguments(statement, argumentTypes, queryArgs);
+                statement.addBatch();
+                rowNumber++;
+                pending++;
+                if (pending == batchSize) {
+                    total += sumUpdateCounts(statement.executeBatch());
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                total += sumUpdateCounts(statement.executeBatch());
+            }
+            failed = false;
+            return total;
+        } catch (SQLException e) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "Error occurred while executing batch query ["
+                            + queryString + "] starting from the argument row "
+                            + batchStart + ".", e);
+        } finally {
+            StatementCache.release(connection, statement);
+            QueryMonitor.queryExecuted(queryString, null, start, total,
+                    failed);
+        }
+    }
+
+    /**
+     * Commits the current transaction of the given connection.
+     *
+     * @param <T>            type of exception
+     * @param connection     the database connection
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @throws T         if some error occurred when committing the transaction
+     * @throws Exception if some error occurred when committing the transaction
+     */
+    public static <T extends Throwable> void commitTransaction(
+            final Connection connection, final Class<T> exceptionClass)
+            throws T, Exception {
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "Error occurred when committing the transaction.", e);
+        }
+    }
+
+    /**
+     * Rolls back the current transaction of the given connection.
+     *
+     * @param <T>            type of exception
+     * @param connection     the database connection
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @throws T         if some error occurred when rolling back the
+     *                   transaction
+     * @throws Exception if some error occurred when rolling back the
+     *                   transaction
+     */
+    public static <T extends Throwable> void rollbackTransaction(
+            final Connection connection, final Class<T> exceptionClass)
+            throws T, Exception {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "Error occurred when rolling back the transaction.", e);
+        }
+    }
+
+    /**
+     * Executes the given retrieval query and converts every row of the
+     * result set with the given row mapper.
+     *
+     * @param <T>            type of exception
+     * @param <R>            type of the result objects
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments
+     * @param queryArgs      the query arguments
+     * @param rowMapper      the mapper that converts rows to result objects
+     * @param columnCount    the expected number of result set columns (-1 if
+     *                       it shouldn't be checked)
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @return the list of result objects (not null)
+     * @throws T         if some error occurred when executing the query
+     * @throws Exception if some error occurred when executing the query
+     */
+    private static <T extends Throwable, R> List<R> executeQuery(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Object[] queryArgs,
+            final RowMapper<R> rowMapper, final int columnCount,
+            final Class<T> exceptionClass) throws T, Exception {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        long start = System.nanoTime();
+        int rows = -1;
+        try {
+            statement = StatementCache.prepare(connection, queryString,
+                    statementCacheSize);
+            bindArguments(statement, argumentTypes, queryArgs);
+            resultSet = statement.executeQuery();
+            checkColumnCount(resultSet, columnCount, exceptionClass);
+            List<R> result = new ArrayList<R>();
+            int rowNumber = 0;
+            while (resultSet.next()) {
+                result.add(rowMapper.mapRow(resultSet, rowNumber++));
+            }
+            rows = rowNumber;
+            return result;
+        } catch (SQLException e) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    getQueryErrorMessage(queryString, queryArgs), e);
+        } finally {
+            closeQuietly(resultSet);
+            StatementCache.release(connection, statement);
+            QueryMonitor.queryExecuted(queryString, queryArgs, start, rows,
+                    rows < 0);
+        }
+    }
+
+    /**
+     * Executes the given retrieval query and opens a forward-only cursor over
+     * its result. The statement used by the cursor isn't cached since it
+     * stays open until the cursor is closed.
+     *
+     * @param <T>            type of exception
+     * @param <R>            type of the row objects
+     * @param connection     the database connection to be used
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments
+     * @param queryArgs      the query arguments
+     * @param rowMapper      the mapper that converts rows to result objects
+     * @param columnCount    the expected number of result set columns (-1 if
+     *                       it shouldn't be checked)
+     * @param fetchSize      the number of rows fetched from the database at
+     *                       once
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       SQLException
+     * @return the cursor over the rows (not null)
+     * @throws T         if some error occurred when executing the query
+     * @throws Exception if some error occurred when executing the query
+     */
+    private static <T extends RuntimeException, R> ResultCursor<R> openCursor(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Object[] queryArgs,
+            final RowMapper<R> rowMapper, final int columnCount,
+            final int fetchSize, final Class<T> exceptionClass)
+            throws T, Exception {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException(
+                    "fetchSize should not be negative");
+        }
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        boolean opened = false;
+        long start = System.nanoTime();
+        try {
+            statement = connection.prepareStatement(queryString,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            bindArguments(statement, argumentTypes, queryArgs);
+            resultSet = statement.executeQuery();
+            resultSet.setFetchSize(fetchSize);
+            checkColumnCount(resultSet, columnCount, exceptionClass);
+            ResultCursor<R> cursor = new ResultCursor<R>(statement, resultSet,
+                    rowMapper, queryString, exceptionClass);
+            opened = true;
+            return cursor;
+        } catch (SQLException e) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    getQueryErrorMessage(queryString, queryArgs), e);
+        } finally {
+            QueryMonitor.queryExecuted(queryString, queryArgs, start, -1,
+                    !opened);
+            if (!opened) {
+                closeQuietly(resultSet);
+                if (statement != null) {
+                    try {
+                        statement.close();
+                    } catch (SQLException e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the key range into partitions of (almost) equal size. Fewer
+     * partitions are created if the range has fewer keys than partitions.
+     *
+     * @param fromKey    the inclusive lower bound of the key range
+     * @param toKey      the exclusive upper bound of the key range
+     * @param partitions the number of partitions
+     * @return the partition bounds (partition i covers
+     *         [bounds[i], bounds[i + 1]))
+     */
+    private static long[] getPartitionBounds(final long fromKey,
+                                             final long toKey,
+                                             final int partitions) {
+        BigInteger from = BigInteger.valueOf(fromKey);
+        BigInteger size = BigInteger.valueOf(toKey).subtract(from);
+        int count = size.compareTo(BigInteger.valueOf(partitions)) < 0
+                ? size.intValue() : partitions;
+        long[] bounds = new long[count + 1];
+        BigInteger divisor = BigInteger.valueOf(count);
+        for (int i = 0; i < count; i++) {
+            bounds[i] = from.add(size.multiply(BigInteger.valueOf(i))
+                    .divide(divisor)).longValue();
+        }
+        bounds[count] = toKey;
+        return bounds;
+    }
+
+    /**
+     * Checks whether the result set has the expected number of columns.
+     *
+     * @param <T>            type of exception
+     * @param resultSet      the result set
+     * @param columnCount    the expected number of columns (-1 if it
+     *                       shouldn't be checked)
+     * @param exceptionClass the exception class
+     * @throws T            if the number of columns doesn't match
+     * @throws SQLException if some error occurred when reading the result
+     *                      set metadata
+     * @throws Exception    if the number of columns doesn't match
+     */
+    private static <T extends Throwable> void checkColumnCount(
+            final ResultSet resultSet, final int columnCount,
+            final Class<T> exceptionClass) throws T, Exception {
+        if (columnCount < 0) {
+            return;
+        }
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        if (metaData.getColumnCount() != columnCount) {
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "The column types length [" + columnCount
+                            + "] does not match the result set column count["
+                            + metaData.getColumnCount() + "].");
+        }
+    }
+
+    /**
+     * Creates the row mapper that converts rows to arrays of column values
+     * of the given types. The column readers are resolved once per column
+     * index, so no type lookup is performed per row.
+     *
+     * @param <T>            type of exception
+     * @param columnTypes    the expected types of the result set columns
+     * @param exceptionClass the exception class
+     * @return the row mapper (not null)
+     * @throws T         if some column type is not supported
+     * @throws Exception if some column type is not supported
+     */
+    private static <T extends Throwable> RowMapper<Object[]> createRowMapper(
+            final Class<?>[] columnTypes, final Class<T> exceptionClass)
+            throws T, Exception {
+        final int[] readers = new int[columnTypes.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            readers[i] = getColumnReader(columnTypes[i], exceptionClass);
+        }
+        return new RowMapper<Object[]>() {
+            public Object[] mapRow(final ResultSet resultSet,
+                                   final int rowNumber) throws SQLException {
+                return readRow(resultSet, readers);
+            }
+        };
+    }
+
+    /**
+     * Binds the given arguments to the statement. Null arguments are bound
+     * with setNull().
+     *
+     * @param statement     the prepared statement
+     * @param argumentTypes the SQL types of the arguments
+     * @param queryArgs     the arguments (can be null if the query has no
+     *                      arguments)
+     * @throws SQLException if some error occurred when binding the arguments
+     */
+    private static void bindArguments(final PreparedStatement statement,
+                                      final int[] argumentTypes,
+                                      final Object[] queryArgs)
+            throws SQLException {
+        if (queryArgs == null) {
+            return;
+        }
+        for (int i = 0; i < queryArgs.length; i++) {
+            if (queryArgs[i] == null) {
+                statement.setNull(i + 1, argumentTypes[i]);
+            } else {
+                statement.setObject(i + 1, queryArgs[i], argumentTypes[i]);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the reader code for the given column type.
+     *
+     * @param <T>            type of exception
+     * @param columnType     the column type
+     * @param exceptionClass the exception class
+     * @return the column reader code
+     * @throws T         if the column type is not supported
+     * @throws Exception if the column type is not supported
+     */
+    private static <T extends Throwable> int getColumnReader(
+            final Class<?> columnType, final Class<T> exceptionClass)
+            throws T, Exception {
+        if (columnType == Date.class) {
+            return DATE_COLUMN;
+        } else if (columnType == Double.class) {
+            return DOUBLE_COLUMN;
+        } else if (columnType == Float.class) {
+            return FLOAT_COLUMN;
+        } else if (columnType == Long.class) {
+            return LONG_COLUMN;
+        } else if (columnType == Integer.class) {
+            return INTEGER_COLUMN;
+        } else if (columnType == String.class) {
+            return STRING_COLUMN;
+        } else if (columnType == Boolean.class) {
+            return BOOLEAN_COLUMN;
+        } else if (columnType == Object.class) {
+            return OBJECT_COLUMN;
+        }
+        throw ExceptionHelper.constructException(exceptionClass,
+                "Unsupported column type is used: "
+                        + (columnType == null ? null : columnType.getName()));
+    }
+
+    /**
+     * Reads the current row of the result set.
+     *
+     * @param resultSet the result set
+     * @param readers   the column reader codes
+     * @return the column values of the row
+     * @throws SQLException if some error occurred when reading the row
+     */
+    private static Object[] readRow(final ResultSet resultSet,
+                                    final int[] readers) throws SQLException {
+        Object[] row = new Object[readers.length];
+        for (int i = 0; i < readers.length; i++) {
+            row[i] = readColumn(resultSet, i + 1, readers[i]);
+        }
+        return row;
+    }
+
+    /**
+     * Reads the value of the given column of the current row.
+     *
+     * @param resultSet the result set
+     * @param column    the one-based column index
+     * @param reader    the column reader code
+     * @return the column value (null if the column is SQL NULL)
+     * @throws SQLException if some error occurred when reading the column
+     */
+    private static Object readColumn(final ResultSet resultSet,
+                                     final int column, final int reader)
+            throws SQLException {
+        Object value;
+        switch (reader) {
+            case DATE_COLUMN:
+                Timestamp timestamp = resultSet.getTimestamp(column);
+                return timestamp == null ? null
+                        : new Date(timestamp.getTime());
+            case DOUBLE_COLUMN:
+                value = resultSet.getDouble(column);
+                break;
+            case FLOAT_COLUMN:
+                value = resultSet.getFloat(column);
+                break;
+            case LONG_COLUMN:
+                value = resultSet.getLong(column);
+                break;
+            case INTEGER_COLUMN:
+                value = resultSet.getInt(column);
+                break;
+            case STRING_COLUMN:
+                return resultSet.getString(column);
+            case BOOLEAN_COLUMN:
+                value = resultSet.getBoolean(column);
+                break;
+            default:
+                return resultSet.getObject(column);
+        }
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * Sums up the given batch update counts. Negative counts (e.g.
+     * SUCCESS_NO_INFO) are skipped.
+     *
+     * @param counts the update counts
+     * @return the sum of the update counts
+     */
+    private static int sumUpdateCounts(final int[] counts) {
+        int sum = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                sum += count;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Creates the error message for the failed query.
+     *
+     * @param queryString the query string
+     * @param queryArgs   the query arguments
+     * @return the error message
+     */
+    private static String getQueryErrorMessage(final String queryString,
+                                               final Object[] queryArgs) {
+        return "Error occurred while executing query [" + queryString
+                + "] using the query arguments "
+                + (queryArgs == null ? null : Arrays.asList(queryArgs)) + ".";
+    }
+
+    /**
+     * Closes the given result set ignoring errors.
+     *
+     * @param resultSet the result set to be closed (can be null)
+     */
+    private static void closeQuietly(final ResultSet resultSet) {
+        if (resultSet != null) {
+            try {
+                resultSet.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.topcoder.commons.utils;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is the logging backend that logs the messages with a
+ * java.util.logging logger. TRACE is mapped to Level.FINER, DEBUG to FINE,
+ * INFO to INFO, WARN to WARNING and ERROR to SEVERE.
+ * <p>
+ * Thread Safety: this class is immutable and thread safe.
+ */
+public final class JavaLoggingBackend implements LoggingBackend {
+    /**
+     * The java.util.logging levels by the ordinals of LogLevel.
+     */
+    private static final Level[] LEVELS = {Level.FINER, Level.FINE,
+        Level.INFO, Level.WARNING, Level.SEVERE};
+
+    /**
+     * The logger.
+     */
+    private final Logger logger;
+
+    /**
+     * Creates the backend.
+     *
+     * @param logger the logger
+     * @throws IllegalArgumentException if logger is null
+     */
+    public JavaLoggingBackend(final Logger logger) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger should not be null");
+        }
+        this.logger = logger;
+    }
+
+    /**
+     * Retrieves the logger.
+     *
+     * @return the logger
+     */
+    public Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Checks whether the logger is enabled for the given level.
+     *
+     * @param level the level
+     * @return true if the logger is enabled for the level, false otherwise
+     */
+    public boolean isEnabled(final LogLevel level) {
+        return logger.isLoggable(LEVELS[level.ordinal()]);
+    }
+
+    /**
+     * Logs the given message with the logger. The message is converted to a
+     * string, since java.util.logging keeps the message objects (e.g. in the
+     * log records passed to handlers).
+     *
+     * @param level     the level
+     * @param message   the message
+     * @param throwable the exception to be logged (null if not available)
+     */
+    public void log(final LogLevel level, final CharSequence message,
+                    final Throwable throwable) {
+        logger.log(LEVELS[level.ordinal()], message.toString(), throwable);
+    }
+}
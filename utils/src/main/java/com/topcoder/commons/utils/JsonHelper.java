@@ -0,0 +1,118 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This is a static helper class that provides compact JSON encoding
+ * functionality for structured log events. Strings are escaped using a
+ * precomputed table, so no intermediate strings are created.
+ */
+final class JsonHelper {
+    /**
+     * The number of characters covered by the escape table.
+     */
+    private static final int ESCAPE_TABLE_SIZE = 128;
+
+    /**
+     * The escape sequences of ASCII characters (null if character doesn't
+     * need escaping).
+     */
+    private static final String[] ESCAPES = new String[ESCAPE_TABLE_SIZE];
+
+    static {
+        for (int ch = 0; ch < ' '; ch++) {
+            ESCAPES[ch] = String.format("\\u%04x", ch);
+        }
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+    }
+
+    /**
+     * The reusable builders for rendering values before escaping.
+     */
+    private static final ThreadLocal<StringBuilder> SCRATCH =
+            new ThreadLocal<StringBuilder>();
+
+    /**
+     * Empty private constructor.
+     */
+    private JsonHelper() {
+    }
+
+    /**
+     * Appends the field name followed by a colon. A comma is prepended if
+     * the builder doesn't end with an opening brace.
+     *
+     * @param sb   the builder
+     * @param name the field name (must not require escaping)
+     */
+    static void appendName(final StringBuilder sb, final String name) {
+        char last = sb.charAt(sb.length() - 1);
+        if (last != '{') {
+            sb.append(',');
+        }
+        sb.append('"').append(name).append("\":");
+    }
+
+    /**
+     * Appends the given character sequence as a quoted JSON string.
+     *
+     * @param sb    the builder
+     * @param value the value to be appended (null is appended as null)
+     */
+    static void appendString(final StringBuilder sb, final CharSequence value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch < ESCAPE_TABLE_SIZE && ESCAPES[ch] != null) {
+                sb.append(ESCAPES[ch]);
+            } else {
+                sb.append(ch);
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Appends the given value. Integral numbers, finite floating point
+     * numbers and booleans are appended as JSON literals; other values are
+     * rendered with ParameterRenderer and appended as JSON strings.
+     *
+     * @param sb    the builder
+     * @param value the value to be appended
+     */
+    static void appendValue(final StringBuilder sb, final Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte
+                || value instanceof Boolean) {
+            sb.append(value);
+        } else if ((value instanceof Double || value instanceof Float)
+                && !Double.isNaN(((Number) value).doubleValue())
+                && !Double.isInfinite(((Number) value).doubleValue())) {
+            sb.append(value);
+        } else {
+            // the builder is taken from the thread local while in use, so
+            // that custom renderers can log without corrupting it
+            StringBuilder scratch = SCRATCH.get();
+            if (scratch == null) {
+                scratch = new StringBuilder();
+            } else {
+                SCRATCH.set(null);
+            }
+            ParameterRenderer.appendValue(scratch, value);
+            appendString(sb, scratch);
+            scratch.setLength(0);
+            SCRATCH.set(scratch);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.topcoder.commons.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a concurrent histogram of durations in nanoseconds.
+ * Values are counted in log-linear buckets: every power of two is split into
+ * 8 linear sub-buckets, so percentiles are reported with a relative error of
+ * at most 12.5% while the histogram has a fixed size regardless of the range
+ * of recorded values.
+ * <p>
+ * Recording a value doesn't allocate memory and doesn't block.
+ * <p>
+ * Thread Safety: this class is thread safe. Statistics read while values are
+ * being recorded are not guaranteed to be mutually consistent.
+ */
+public final class LatencyHistogram {
+    /**
+     * The number of bits used for the linear sub-buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * The number of linear sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The total number of buckets (enough for any non-negative long value).
+     */
+    private static final int BUCKETS =
+            (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The number of recorded values per bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * The number of recorded values.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * The sum of recorded values.
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * The maximum recorded value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * Records the given duration. Negative durations are recorded as 0.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(final long nanos) {
+        long value = nanos < 0 ? 0 : nanos;
+        counts.incrementAndGet(getBucket(value));
+        count.increment();
+        total.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Retrieves the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Retrieves the sum of recorded values.
+     *
+     * @return the sum of recorded values in nanoseconds
+     */
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    /**
+     * Retrieves the maximum recorded value.
+     *
+     * @return the maximum recorded value in nanoseconds (0 if no values are
+     *         recorded)
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Retrieves the mean of recorded values.
+     *
+     * @return the mean value in nanoseconds (0 if no values are recorded)
+     */
+    public long getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    /**
+     * Retrieves the value below or at which the given percentage of recorded
+     * values fall. The upper bound of the matching bucket is returned (but
+     * not more than the maximum recorded value).
+     *
+     * @param percentile the percentile (from 0 to 100)
+     * @return the percentile value in nanoseconds (0 if no values are
+     *         recorded)
+     * @throws IllegalArgumentException if percentile is not in [0, 100]
+     */
+    public long getPercentileNanos(final double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException(
+                    "percentile should be in range [0, 100]");
+        }
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100);
+        if (rank == 0) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(getUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    /**
+     * Retrieves the summary of the recorded values.
+     *
+     * @return the summary string (not null)
+     */
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + getMeanNanos()
+                + "ns, p50=" + getPercentileNanos(50) + "ns, p99="
+                + getPercentileNanos(99) + "ns, max=" + getMaxNanos() + "ns";
+    }
+
+    /**
+     * Retrieves the bucket for the given value.
+     *
+     * @param value the non-negative value
+     * @return the bucket index
+     */
+    private static int getBucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS))
+                & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Retrieves the largest value counted in the given bucket.
+     *
+     * @param bucket the bucket index
+     * @return the upper bound of the bucket
+     */
+    private static long getUpperBound(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long next = (SUB_BUCKETS + subBucket + 1)
+                << (exponent - SUB_BUCKET_BITS);
+        return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+}
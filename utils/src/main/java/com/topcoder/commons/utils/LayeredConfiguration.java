@@ -0,0 +1,485 @@
+package com.topcoder.commons.utils;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * This is a property source that merges several configuration layers into a
+ * single resolved view. From the highest to the lowest precedence the layers
+ * are: environment variables, system properties, override properties and base
+ * properties. An environment variable matches a property key either exactly
+ * or by its normalized name (e.g. "DB_URL" matches "db.url").
+ * <p>
+ * Property values can refer to other properties with "${other.key}"
+ * placeholders. Placeholders are expanded once when the view is resolved;
+ * circular references are rejected and references to missing properties are
+ * left as is. When a single layer is replaced with setLayer(), only the
+ * changed properties and the properties that refer to them (directly or
+ * transitively) are re-resolved.
+ * <p>
+ * Thread Safety: this class is thread safe. Reads are served from an
+ * immutable map published through a volatile field, so they never block;
+ * layer updates are serialized.
+ */
+public final class LayeredConfiguration implements PropertySource {
+    /**
+     * This enumeration represents the configuration layers in the order of
+     * their precedence (from the highest to the lowest).
+     */
+    public enum Layer {
+        /**
+         * The environment variables layer.
+         */
+        ENVIRONMENT,
+
+        /**
+         * The system properties layer.
+         */
+        SYSTEM,
+
+        /**
+         * The override properties layer.
+         */
+        OVERRIDE,
+
+        /**
+         * The base properties layer.
+         */
+        BASE
+    }
+
+    /**
+     * The placeholder prefix.
+     */
+    private static final String PLACEHOLDER_START = "${";
+
+    /**
+     * The placeholder suffix.
+     */
+    private static final char PLACEHOLDER_END = '}';
+
+    /**
+     * The content of each layer. Guarded by this instance.
+     */
+    private final Map<Layer, Map<String, String>> layers =
+            new EnumMap<Layer, Map<String, String>>(Layer.class);
+
+    /**
+     * The environment variables indexed by their normalized names. Guarded
+     * by this instance.
+     */
+    private Map<String, String> normalizedEnvironment =
+            new HashMap<String, String>();
+
+    /**
+     * The merged raw (not expanded) property values. Guarded by this
+     * instance.
+     */
+    private final Map<String, String> effective =
+            new HashMap<String, String>();
+
+    /**
+     * The keys referred by placeholders of each property. Guarded by this
+     * instance.
+     */
+    private final Map<String, Set<String>> references =
+            new HashMap<String, Set<String>>();
+
+    /**
+     * The properties that refer to each key through placeholders. Guarded by
+     * this instance.
+     */
+    private final Map<String, Set<String>> dependents =
+            new HashMap<String, Set<String>>();
+
+    /**
+     * The resolved view (unmodifiable, never modified after publishing).
+     */
+    private volatile Map<String, String> resolved =
+            Collections.emptyMap();
+
+    /**
+     * Creates the configuration from the current environment variables and
+     * system properties and the given override and base properties.
+     *
+     * @param override the override properties (null if not used)
+     * @param base     the base properties (null if not used)
+     * @throws IllegalArgumentException if placeholders contain a circular
+     *                                  reference
+     */
+    public LayeredConfiguration(final Properties override,
+                                final Properties base) {
+        this(System.getenv(), System.getProperties(), override, base);
+    }
+
+    /**
+     * Creates the configuration from the given layers.
+     *
+     * @param environment the environment variables (null if not used)
+     * @param system      the system properties (null if not used)
+     * @param override    the override properties (null if not used)
+     * @param base        the base properties (null if not used)
+     * @throws IllegalArgumentException if placeholders contain a circular
+     *                                  reference
+     */
+    public LayeredConfiguration(final Map<?, ?> environment,
+                                final Properties system,
+                                final Properties override,
+                                final Properties base) {
+        for (Layer layer : Layer.values()) {
+            layers.put(layer, Collections.<String, String>emptyMap());
+        }
+        setLayer(Layer.BASE, base);
+        setLayer(Layer.OVERRIDE, override);
+        setLayer(Layer.SYSTEM, system);
+        setLayer(Layer.ENVIRONMENT, environment);
+    }
+
+    /**
+     * Retrieves the resolved value of the property with the given key.
+     *
+     * @param key the key of the property to be retrieved
+     * @return the resolved property value (null if property is missing)
+     */
+    public String getProperty(final String key) {
+        return resolved.get(key);
+    }
+
+    /**
+     * Retrieves the resolved view of this configuration.
+     *
+     * @return the unmodifiable map with resolved property values (not null)
+     */
+    public Map<String, String> getResolvedProperties() {
+        return resolved;
+    }
+
+    /**
+     * Replaces the content of the given layer and incrementally re-resolves
+     * the affected properties.
+     *
+     * @param layer   the layer to be replaced
+     * @param content the new layer content (null if the layer is empty);
+     *                only entries with string keys and values are used
+     * @throws IllegalArgumentException if layer is null, or if placeholders
+     *                                  contain a circular reference (in this
+     *                                  case the configuration is not changed)
+     */
+    public synchronized void setLayer(final Layer layer,
+                                      final Map<?, ?> content) {
+        if (layer == null) {
+            throw new IllegalArgumentException("layer should not be null");
+        }
+        Map<String, String> newLayer = toStringMap(content);
+        Map<String, String> oldLayer = layers.get(layer);
+        Set<String> changed = getChangedKeys(oldLayer, newLayer);
+        if (changed.isEmpty()) {
+            return;
+        }
+        Map<String, String> oldNormalized = normalizedEnvironment;
+        if (layer == Layer.ENVIRONMENT) {
+            Set<String> normalizedChanged = new HashSet<String>();
+            for (String name : changed) {
+                normalizedChanged.add(normalize(name));
+            }
+            for (String key : getAllKeys()) {
+                if (normalizedChanged.contains(normalize(key))) {
+                    changed.add(key);
+                }
+            }
+            normalizedEnvironment = new HashMap<String, String>();
+            for (Map.Entry<String, String> entry : newLayer.entrySet()) {
+                normalizedEnvironment.put(normalize(entry.getKey()),
+                        entry.getValue());
+            }
+        }
+        layers.put(layer, newLayer);
+
+        Set<String> affected = getAffectedKeys(changed);
+        Map<String, String> oldEffective = new HashMap<String, String>();
+        for (String key : changed) {
+            oldEffective.put(key, effective.get(key));
+            String value = getRawValue(key);
+            if (value == null) {
+                effective.remove(key);
+            } else {
+                effective.put(key, value);
+            }
+        }
+        try {
+            resolved = Collections.unmodifiableMap(resolve(affected));
+        } catch (IllegalArgumentException e) {
+            layers.put(layer, oldLayer);
+            normalizedEnvironment = oldNormalized;
+            for (Map.Entry<String, String> entry : oldEffective.entrySet()) {
+                if (entry.getValue() == null) {
+                    effective.remove(entry.getKey());
+                } else {
+                    effective.put(entry.getKey(), entry.getValue());
+                }
+            }
+            resolve(affected);
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the given changed properties together with all properties
+     * that depend on them (directly or transitively).
+     *
+     * @param changed the keys of properties with changed raw values
+     * @return the set of affected keys (not null)
+     */
+    private Set<String> getAffectedKeys(final Set<String> changed) {
+        Set<String> affected = new HashSet<String>();
+        Deque<String> queue = new ArrayDeque<String>(changed);
+        while (!queue.isEmpty()) {
+            String key = queue.poll();
+            if (affected.add(key)) {
+                Set<String> keyDependents = dependents.get(key);
+                if (keyDependents != null) {
+                    queue.addAll(keyDependents);
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Re-resolves the given affected properties, reusing the resolved values
+     * of all other properties.
+     *
+     * @param affected the keys of properties to be re-resolved
+     * @return the new resolved view (not null)
+     * @throws IllegalArgumentException if placeholders contain a circular
+     *                                  reference
+     */
+    private Map<String, String> resolve(final Set<String> affected) {
+        Map<String, String> result = new HashMap<String, String>(resolved);
+        for (String key : affected) {
+            result.remove(key);
+            unregisterReferences(key);
+        }
+        Set<String> inProgress = new LinkedHashSet<String>();
+        for (String key : affected) {
+            expand(key, result, inProgress);
+        }
+        return result;
+    }
+
+    /**
+     * Expands placeholders of the given property. Resolved values are
+     * memoized in the result map, so every property is expanded only once.
+     *
+     * @param key        the key of the property to be expanded
+     * @param result     the resolved values (memo)
+     * @param inProgress the keys being expanded (used for cycle detection)
+     * @return the expanded value (null if property is missing)
+     * @throws IllegalArgumentException if placeholders contain a circular
+     *                                  reference
+     */
+    private String expand(final String key, final Map<String, String> result,
+                          final Set<String> inProgress) {
+        String cached = result.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String value = effective.get(key);
+        if (value == null) {
+            return null;
+        }
+        int start = value.indexOf(PLACEHOLDER_START);
+        if (start < 0) {
+            result.put(key, value);
+            return value;
+        }
+        if (!inProgress.add(key)) {
+            StringBuilder sb = new StringBuilder(
+                    "Circular placeholder reference: ");
+            boolean inCycle = false;
+            for (String name : inProgress) {
+                inCycle = inCycle || name.equals(key);
+                if (inCycle) {
+                    sb.append(name).append(" -> ");
+                }
+            }
+            throw new IllegalArgumentException(sb.append(key).toString());
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        int position = 0;
+        while (start >= 0) {
+            int end = value.indexOf(PLACEHOLDER_END, start);
+            if (end < 0) {
+                break;
+            }
+            String reference = value.substring(
+                    start + PLACEHOLDER_START.length(), end);
+            registerReference(key, reference);
+            String replacement = expand(reference, result, inProgress);
+            sb.append(value, position, start);
+            if (replacement == null) {
+                sb.append(value, start, end + 1);
+            } else {
+                sb.append(replacement);
+            }
+            position = end + 1;
+            start = value.indexOf(PLACEHOLDER_START, position);
+        }
+        sb.append(value, position, value.length());
+        inProgress.remove(key);
+        String expanded = sb.toString();
+        result.put(key, expanded);
+        return expanded;
+    }
+
+    /**
+     * Registers the placeholder reference from one property to another.
+     *
+     * @param key       the key of the referring property
+     * @param reference the referred key
+     */
+    private void registerReference(final String key, final String reference) {
+        Set<String> keyReferences = references.get(key);
+        if (keyReferences == null) {
+            keyReferences = new HashSet<String>();
+            references.put(key, keyReferences);
+        }
+        keyReferences.add(reference);
+        Set<String> referenceDependents = dependents.get(reference);
+        if (referenceDependents == null) {
+            referenceDependents = new HashSet<String>();
+            dependents.put(reference, referenceDependents);
+        }
+        referenceDependents.add(key);
+    }
+
+    /**
+     * Removes all placeholder references of the given property.
+     *
+     * @param key the key of the referring property
+     */
+    private void unregisterReferences(final String key) {
+        Set<String> keyReferences = references.remove(key);
+        if (keyReferences == null) {
+            return;
+        }
+        for (String reference : keyReferences) {
+            Set<String> referenceDependents = dependents.get(reference);
+            if (referenceDependents != null) {
+                referenceDependents.remove(key);
+                if (referenceDependents.isEmpty()) {
+                    dependents.remove(reference);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the raw value of the property with the given key from the
+     * layer with the highest precedence that contains it.
+     *
+     * @param key the property key
+     * @return the raw property value (null if property is missing)
+     */
+    private String getRawValue(final String key) {
+        String value = layers.get(Layer.ENVIRONMENT).get(key);
+        if (value == null) {
+            value = normalizedEnvironment.get(normalize(key));
+        }
+        if (value == null) {
+            value = layers.get(Layer.SYSTEM).get(key);
+        }
+        if (value == null) {
+            value = layers.get(Layer.OVERRIDE).get(key);
+        }
+        if (value == null) {
+            value = layers.get(Layer.BASE).get(key);
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves the keys defined in all layers.
+     *
+     * @return the set of all keys (not null)
+     */
+    private Set<String> getAllKeys() {
+        Set<String> result = new HashSet<String>();
+        for (Map<String, String> layer : layers.values()) {
+            result.addAll(layer.keySet());
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the keys which are added, removed or have different values
+     * in the new layer content comparing to the old one.
+     *
+     * @param oldLayer the old layer content
+     * @param newLayer the new layer content
+     * @return the set of changed keys (not null, modifiable)
+     */
+    private static Set<String> getChangedKeys(
+            final Map<String, String> oldLayer,
+            final Map<String, String> newLayer) {
+        Set<String> result = new HashSet<String>();
+        for (Map.Entry<String, String> entry : newLayer.entrySet()) {
+            if (!entry.getValue().equals(oldLayer.get(entry.getKey()))) {
+                result.add(entry.getKey());
+            }
+        }
+        for (String key : oldLayer.keySet()) {
+            if (!newLayer.containsKey(key)) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies string entries of the given map into a new map. For Properties
+     * the default values are taken into account.
+     *
+     * @param content the map to be copied (can be null)
+     * @return the copied map (not null)
+     */
+    private static Map<String, String> toStringMap(final Map<?, ?> content) {
+        Map<String, String> result = new HashMap<String, String>();
+        if (content instanceof Properties) {
+            Properties properties = (Properties) content;
+            for (String key : properties.stringPropertyNames()) {
+                result.put(key, properties.getProperty(key));
+            }
+        } else if (content != null) {
+            for (Map.Entry<?, ?> entry : content.entrySet()) {
+                if (entry.getKey() instanceof String
+                        && entry.getValue() instanceof String) {
+                    result.put((String) entry.getKey(),
+                            (String) entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Normalizes the given name for matching property keys with environment
+     * variable names.
+     *
+     * @param name the name to be normalized
+     * @return the normalized name
+     */
+    private static String normalize(final String name) {
+        return name.replace('.', '_').replace('-', '_')
+                .toUpperCase(Locale.US);
+    }
+}
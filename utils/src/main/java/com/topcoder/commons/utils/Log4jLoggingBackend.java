@@ -0,0 +1,69 @@
+package com.topcoder.commons.utils;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * This class is the logging backend that logs the messages with a log4j 1.2
+ * logger. TRACE is mapped to Level.TRACE, WARN to Level.WARN and so on.
+ * <p>
+ * Thread Safety: this class is immutable and thread safe.
+ */
+public final class Log4jLoggingBackend implements LoggingBackend {
+    /**
+     * The log4j levels by the ordinals of LogLevel.
+     */
+    private static final Level[] LEVELS = {Level.TRACE, Level.DEBUG,
+        Level.INFO, Level.WARN, Level.ERROR};
+
+    /**
+     * The logger.
+     */
+    private final Logger logger;
+
+    /**
+     * Creates the backend.
+     *
+     * @param logger the logger
+     * @throws IllegalArgumentException if logger is null
+     */
+    public Log4jLoggingBackend(final Logger logger) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger should not be null");
+        }
+        this.logger = logger;
+    }
+
+    /**
+     * Retrieves the logger.
+     *
+     * @return the logger
+     */
+    public Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Checks whether the logger is enabled for the given level.
+     *
+     * @param level the level
+     * @return true if the logger is enabled for the level, false otherwise
+     */
+    public boolean isEnabled(final LogLevel level) {
+        return logger.isEnabledFor(LEVELS[level.ordinal()]);
+    }
+
+    /**
+     * Logs the given message with the logger. The message is converted to a
+     * string, since log4j keeps the message objects (e.g. in the logging
+     * events passed to appenders).
+     *
+     * @param level     the level
+     * @param message   the message
+     * @param throwable the exception to be logged (null if not available)
+     */
+    public void log(final LogLevel level, final CharSequence message,
+                    final Throwable throwable) {
+        logger.log(LEVELS[level.ordinal()], message.toString(), throwable);
+    }
+}
@@ -3,6 +3,7 @@ package com.topcoder.commons.utils;
 import org.apache.log4j.Logger;
 import org.apache.log4j.Priority;
 
+import java.lang.reflect.Proxy;
 import java.util.Date;
 
 /**
@@ -12,14 +13,125 @@ import java.util.Date;
  * Exceptions are logged together with stack traces. Default priority for
  * method entrance/exit message is DEBUG, for exceptions - ERROR; but both can
  * be overridden.
+ * <p>
+ * When structured events are enabled, every entrance, exit and exception is
+ * logged as a single StructuredLogEvent message (rendered as compact JSON)
+ * instead of free-text lines.
+ * <p>
+ * Method entrances and exits are logged according to the sampling policies
+ * configured in TraceSampler (all calls are logged by default). When span
+ * mode is enabled in SpanTracer, exit events also carry the call tree
+ * details of the closed span.
+ * <p>
+ * Messages are built only if the logger is enabled for the priority, so
+ * disabled calls don't allocate them.
+ * <p>
+ * When asynchronous logging is enabled, the events are handed over to
+ * AsyncLogWriter and written by its writer thread, so logging threads never
+ * block on the synchronized appenders.
+ * <p>
+ * Interfaces can be traced without any logging calls in the implementation
+ * with trace(), which wraps the implementation in a logging proxy.
  */
 public final class Log4jUtility {
+    /**
+     * True if structured events are logged, false if free-text messages are
+     * logged.
+     */
+    private static volatile boolean structuredEvents;
+
+    /**
+     * True if events are written by AsyncLogWriter, false if they are
+     * written by the logging thread.
+     */
+    private static volatile boolean asyncLogging;
+
     /**
      * Empty private constructor.
      */
     private Log4jUtility() {
     }
 
+    /**
+     * Enables or disables structured events. When enabled, StructuredLogEvent
+     * messages are logged instead of free-text messages.
+     *
+     * @param enabled true if structured events should be logged, false
+     *                otherwise
+     */
+    public static void setStructuredEvents(final boolean enabled) {
+        structuredEvents = enabled;
+    }
+
+    /**
+     * Checks whether structured events are enabled.
+     *
+     * @return true if structured events are logged, false otherwise
+     */
+    public static boolean isStructuredEvents() {
+        return structuredEvents;
+    }
+
+    /**
+     * Enables or disables asynchronous logging. When enabled, the events are
+     * handed over to AsyncLogWriter instead of calling the appenders in the
+     * logging thread.
+     *
+     * @param enabled true if events should be written asynchronously, false
+     *                otherwise
+     */
+    public static void setAsyncLogging(final boolean enabled) {
+        asyncLogging = enabled;
+    }
+
+    /**
+     * Checks whether asynchronous logging is enabled.
+     *
+     * @return true if events are written asynchronously, false otherwise
+     */
+    public static boolean isAsyncLogging() {
+        return asyncLogging;
+    }
+
+    /**
+     * Creates a proxy of the given interface that logs the entrance, exit
+     * (with the execution time) and exceptions of every call of the target
+     * with the methods of this class, at DEBUG and ERROR priorities. The
+     * signatures ("Interface#method") and the parameter names (available
+     * when compiled with -parameters, otherwise "arg0", "arg1", ...) are
+     * computed once per interface. When DEBUG is disabled (and span mode is
+     * off), calls are passed to the target without building messages,
+     * timestamps or result arrays.
+     *
+     * @param <I>    the type of the interface
+     * @param iface  the interface to be traced
+     * @param target the traced object
+     * @param logger the logger to be used (null if logging is not required
+     *               to be performed, then the target itself is returned)
+     * @return the tracing proxy (not null)
+     * @throws IllegalArgumentException if iface or target is null, or iface
+     *                                  is not an interface
+     */
+    public static <I> I trace(final Class<I> iface, final I target,
+                              final Logger logger) {
+        if (iface == null) {
+            throw new IllegalArgumentException("iface should not be null");
+        }
+        if (!iface.isInterface()) {
+            throw new IllegalArgumentException(
+                    "iface should be an interface");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("target should not be null");
+        }
+        if (logger == null) {
+            return target;
+        }
+        return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(),
+                new Class<?>[] {iface},
+                new TracingInvocationHandler(iface, target, logger)));
+    }
+
     /**
      * Logs the method entrance together with input parameters (if present).
      * It's assumed that paramNames and paramValues contain the same number of
@@ -63,10 +175,24 @@ public final class Log4jUtility {
         if (logger == null) {
             return;
         }
-        logger.log(priority,
+        if (SpanTracer.isEnabled()) {
+            SpanTracer.enter(signature);
+        }
+        if (!TraceSampler.sampleEntrance(signature)) {
+            return;
+        }
+        if (!logger.isEnabledFor(priority)) {
+            return;
+        }
+        if (structuredEvents) {
+            log(logger, priority, StructuredLogEvent.entrance(signature,
+                    paramNames, paramValues));
+            return;
+        }
+        log(logger, priority,
                 LoggingUtilityHelper.getMethodEntranceMessage(signature));
         if (paramNames != null) {
-            logger.log(priority, LoggingUtilityHelper
+            log(logger, priority, LoggingUtilityHelper
                     .getInputParametersMessage(paramNames, paramValues));
         }
     }
@@ -136,10 +262,39 @@ public final class Log4jUtility {
         if (logger == null) {
             return;
         }
-        logger.log(priority, LoggingUtilityHelper
-                .getMethodExitMessage(signature, entranceTimestamp));
+        SpanTracer.Span span = null;
+        if (SpanTracer.isEnabled()) {
+            span = SpanTracer.exit(signature, false);
+        }
+        if (!TraceSampler.sampleExit(signature, entranceTimestamp)) {
+            return;
+        }
+        if (!logger.isEnabledFor(priority)) {
+            return;
+        }
+        if (structuredEvents) {
+            // the span measures the duration in nanoseconds, the entrance
+            // timestamp only in milliseconds
+            long durationNanos = -1;
+            long durationMillis = -1;
+            if (span != null) {
+                durationNanos = span.getTotalNanos();
+            } else if (entranceTimestamp != null) {
+                durationMillis = System.currentTimeMillis()
+                        - entranceTimestamp.getTime();
+            }
+            log(logger, priority, StructuredLogEvent.exit(signature, value,
+                    durationNanos, durationMillis, span));
+            return;
+        }
+        String message = LoggingUtilityHelper
+                .getMethodExitMessage(signature, entranceTimestamp);
+        if (span != null) {
+            message += LoggingUtilityHelper.getSpanMessage(span);
+        }
+        log(logger, priority, message);
         if (value != null) {
-            logger.log(priority, LoggingUtilityHelper
+            log(logger, priority, LoggingUtilityHelper
                     .getOutputValueMessage(value[0]));
         }
     }
@@ -182,9 +337,52 @@ public final class Log4jUtility {
         if (logger == null) {
             return null;
         }
-        logger.log(priority, LoggingUtilityHelper
+        SpanTracer.Span span = null;
+        if (SpanTracer.isEnabled()) {
+            span = SpanTracer.exit(signature, true);
+        }
+        TraceSampler.exceptionThrown(signature);
+        if (!logger.isEnabledFor(priority)) {
+            return exception;
+        }
+        if (structuredEvents) {
+            log(logger, priority, StructuredLogEvent.exception(signature,
+                    exception, span), exception);
+            return exception;
+        }
+        log(logger, priority, LoggingUtilityHelper
                 .getExceptionMessage(signature, exception));
         return exception;
     }
-}
 
+    /**
+     * Logs the message with the given logger, directly or through
+     * AsyncLogWriter.
+     *
+     * @param logger    the logger to be used
+     * @param priority  the logging priority to be used
+     * @param message   the message to be logged
+     * @param throwable the exception to be logged (null if not available)
+     */
+    private static void log(final Logger logger, final Priority priority,
+                            final Object message, final Throwable throwable) {
+        if (!asyncLogging) {
+            logger.log(priority, message, throwable);
+        } else if (logger.isEnabledFor(priority)) {
+            AsyncLogWriter.dispatch(logger, priority, message, throwable);
+        }
+    }
+
+    /**
+     * Logs the message with the given logger, directly or through
+     * AsyncLogWriter.
+     *
+     * @param logger   the logger to be used
+     * @param priority the logging priority to be used
+     * @param message  the message to be logged
+     */
+    private static void log(final Logger logger, final Priority priority,
+                            final Object message) {
+        log(logger, priority, message, null);
+    }
+}
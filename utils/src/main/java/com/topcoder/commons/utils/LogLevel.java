@@ -0,0 +1,35 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This enumeration represents the backend-neutral logging levels used by
+ * LoggingWrapperUtility. The adapters of the logging backends map them to
+ * the levels of the backend libraries.
+ * <p>
+ * Thread Safety: this enumeration is immutable and thread safe.
+ */
+public enum LogLevel {
+    /**
+     * The finest level, for detailed tracing.
+     */
+    TRACE,
+
+    /**
+     * The level of method entrance/exit messages by default.
+     */
+    DEBUG,
+
+    /**
+     * The level of informational messages.
+     */
+    INFO,
+
+    /**
+     * The level of potential problems.
+     */
+    WARN,
+
+    /**
+     * The level of exceptions by default.
+     */
+    ERROR
+}
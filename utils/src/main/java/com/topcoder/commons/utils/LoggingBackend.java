@@ -0,0 +1,38 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This interface represents a logging backend used by LoggingWrapperUtility,
+ * i.e. a single logger of some logging library or another destination of
+ * the messages. Adapters are provided for log4j 1.2 (Log4jLoggingBackend),
+ * java.util.logging (JavaLoggingBackend) and a buffered file
+ * (FileLoggingBackend).
+ * <p>
+ * LoggingWrapperUtility asks the backend whether a level is enabled before
+ * building the message, so nothing is formatted for disabled levels. The
+ * message is passed as the builder reused by the calling thread, without
+ * copying it: it's valid only until log() returns, so backends that keep the
+ * message must copy it (e.g. with toString(), as the log4j and
+ * java.util.logging adapters do), while backends that write it out
+ * immediately (such as FileLoggingBackend) don't need to create any string.
+ * <p>
+ * Thread Safety: implementations should be thread safe.
+ */
+public interface LoggingBackend {
+    /**
+     * Checks whether the messages of the given level are logged.
+     *
+     * @param level the level (not null)
+     * @return true if the messages of the level are logged, false otherwise
+     */
+    boolean isEnabled(LogLevel level);
+
+    /**
+     * Logs the given message.
+     *
+     * @param level     the level (not null)
+     * @param message   the message (not null, valid only during the call)
+     * @param throwable the exception to be logged with the message (null if
+     *                  not available)
+     */
+    void log(LogLevel level, CharSequence message, Throwable throwable);
+}
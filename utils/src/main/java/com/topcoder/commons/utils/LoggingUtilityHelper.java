@@ -0,0 +1,204 @@
+package com.topcoder.commons.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Date;
+
+/**
+ * This is a static helper class that provides log message generation
+ * functionality for LoggingWrapperUtility and Log4jUtility. Every message
+ * can be appended to a builder (used by LoggingWrapperUtility, which reuses
+ * the builders) or retrieved as a string (used by Log4jUtility).
+ */
+final class LoggingUtilityHelper {
+    /**
+     * Empty private constructor.
+     */
+    private LoggingUtilityHelper() {
+    }
+
+    /**
+     * Retrieves the method entrance log message.
+     *
+     * @param signature the signature that uniquely identifies the method
+     *                  (e.g. className#methodName)
+     * @return the constructed method entrance message
+     */
+    static String getMethodEntranceMessage(final String signature) {
+        return "Entering method [" + signature + "].";
+    }
+
+    /**
+     * Appends the method entrance log message to the builder.
+     *
+     * @param sb        the builder
+     * @param signature the signature that uniquely identifies the method
+     *                  (e.g. className#methodName)
+     */
+    static void appendMethodEntranceMessage(final StringBuilder sb,
+                                            final String signature) {
+        sb.append("Entering method [").append(signature).append("].");
+    }
+
+    /**
+     * Retrieves the log message for the given input parameters. It's assumed
+     * that paramNames and paramValues contain the same number of elements.
+     * Values are rendered by ParameterRenderer.
+     *
+     * @param paramValues the values of input parameters (not null)
+     * @param paramNames  the names of input parameters (not null)
+     * @return the constructed log message
+     */
+    static String getInputParametersMessage(final String[] paramNames,
+                                            final Object[] paramValues) {
+        return ParameterRenderer.renderParameters("Input parameters ",
+                paramNames, paramValues);
+    }
+
+    /**
+     * Appends the log message for the given input parameters to the
+     * builder. It's assumed that paramNames and paramValues contain the same
+     * number of elements. Values are rendered by ParameterRenderer.
+     *
+     * @param sb          the builder
+     * @param paramValues the values of input parameters (not null)
+     * @param paramNames  the names of input parameters (not null)
+     */
+    static void appendInputParametersMessage(final StringBuilder sb,
+                                             final String[] paramNames,
+                                             final Object[] paramValues) {
+        ParameterRenderer.appendParameters(sb, "Input parameters ",
+                paramNames, paramValues);
+    }
+
+    /**
+     * Retrieves the method exit log message.
+     *
+     * @param entranceTimestamp the method entrance timestamp (null if not
+     *                          available), is used for calculating method
+     *                          execution time
+     * @param signature         the signature that uniquely identifies the
+     *                          method (e.g. className#methodName)
+     * @return the constructed method exit message
+     */
+    static String getMethodExitMessage(final String signature,
+                                       final Date entranceTimestamp) {
+        StringBuilder sb = new StringBuilder();
+        appendMethodExitMessage(sb, signature, entranceTimestamp);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the method exit log message to the builder.
+     *
+     * @param sb                the builder
+     * @param entranceTimestamp the method entrance timestamp (null if not
+     *                          available), is used for calculating method
+     *                          execution time
+     * @param signature         the signature that uniquely identifies the
+     *                          method (e.g. className#methodName)
+     */
+    static void appendMethodExitMessage(final StringBuilder sb,
+                                        final String signature,
+                                        final Date entranceTimestamp) {
+        sb.append("Exiting method [").append(signature).append("]");
+        if (entranceTimestamp != null) {
+            sb.append(", time spent in the method: ")
+                    .append(System.currentTimeMillis()
+                            - entranceTimestamp.getTime())
+                    .append(" milliseconds");
+        }
+        sb.append(".");
+    }
+
+    /**
+     * Retrieves the span details message appended to the method exit
+     * message in span mode.
+     *
+     * @param span the closed span (not null)
+     * @return the constructed span message
+     */
+    static String getSpanMessage(final SpanTracer.Span span) {
+        StringBuilder sb = new StringBuilder();
+        appendSpanMessage(sb, span);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the span details message to the builder.
+     *
+     * @param sb   the builder
+     * @param span the closed span (not null)
+     */
+    static void appendSpanMessage(final StringBuilder sb,
+                                  final SpanTracer.Span span) {
+        sb.append(" Span [trace=").append(SpanTracer.toHex(span.getTraceId()))
+                .append(", span=").append(SpanTracer.toHex(span.getSpanId()))
+                .append(", parent=")
+                .append(SpanTracer.toHex(span.getParentId()))
+                .append(", depth=").append(span.getDepth())
+                .append(", total=").append(span.getTotalNanos())
+                .append("ns, self=").append(span.getSelfNanos())
+                .append("ns].");
+    }
+
+    /**
+     * Retrieves the log message for the given method output value. The value
+     * is rendered by ParameterRenderer.
+     *
+     * @param value the value returned by the method
+     * @return the constructed log message
+     */
+    static String getOutputValueMessage(final Object value) {
+        return ParameterRenderer.renderValue("Output parameter: ", value);
+    }
+
+    /**
+     * Appends the log message for the given method output value to the
+     * builder. The value is rendered by ParameterRenderer.
+     *
+     * @param sb    the builder
+     * @param value the value returned by the method
+     */
+    static void appendOutputValueMessage(final StringBuilder sb,
+                                         final Object value) {
+        ParameterRenderer.appendValueMessage(sb, "Output parameter: ", value);
+    }
+
+    /**
+     * Retrieves the exception log message.
+     *
+     * @param exception the exception to be logged (assumed to be not null)
+     * @param signature the signature that uniquely identifies the method
+     *                  (e.g. className#methodName)
+     * @return the retrieved exception message
+     */
+    static String getExceptionMessage(final String signature,
+                                      final Throwable exception) {
+        StringBuilder sb = new StringBuilder();
+        appendExceptionMessage(sb, signature, exception);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream ps = new PrintStream(out);
+        ps.println();
+        exception.printStackTrace(ps);
+        String stackTrace = out.toString();
+        sb.append(stackTrace);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the exception log message without the stack trace to the
+     * builder (the stack trace is logged by the backend).
+     *
+     * @param sb        the builder
+     * @param exception the exception to be logged (assumed to be not null)
+     * @param signature the signature that uniquely identifies the method
+     *                  (e.g. className#methodName)
+     */
+    static void appendExceptionMessage(final StringBuilder sb,
+                                       final String signature,
+                                       final Throwable exception) {
+        sb.append("Error in method [").append(signature)
+                .append("], details: ").append(exception.getMessage());
+    }
+}
@@ -0,0 +1,255 @@
+package com.topcoder.commons.utils;
+
+import java.util.Date;
+
+/**
+ * This is a utility class that provides static methods for logging method
+ * entrance, method exit and exception with any logging backend (see
+ * LoggingBackend: log4j 1.2, java.util.logging and a built-in file writer
+ * are supported out of the box). The messages are the same as the ones of
+ * Log4jUtility, which remains the log4j-specific variant. Default level for
+ * method entrance/exit messages is DEBUG, for exceptions - ERROR; but both
+ * can be overridden.
+ * <p>
+ * The backend is asked whether the level is enabled before anything is
+ * formatted. Messages are built in reused thread local builders, which are
+ * handed to the backend without copying, so with a backend that writes the
+ * characters out directly (such as FileLoggingBackend) logging doesn't
+ * create garbage apart from the rendering of non-string parameter values.
+ * The log4j and java.util.logging adapters create one string per message,
+ * since these libraries keep the messages. Exceptions are passed to the
+ * backend, which logs their stack traces.
+ * <p>
+ * Method entrances and exits are logged according to the sampling policies
+ * configured in TraceSampler, and take part in the spans of SpanTracer, as
+ * with Log4jUtility.
+ * <p>
+ * Thread Safety: this class is thread safe if the backends are thread
+ * safe.
+ */
+public final class LoggingWrapperUtility {
+    /**
+     * Empty private constructor.
+     */
+    private LoggingWrapperUtility() {
+    }
+
+    /**
+     * Logs the method entrance together with input parameters (if present).
+     * It's assumed that paramNames and paramValues contain the same number of
+     * elements.
+     * When this method is used, DEBUG level is used.
+     *
+     * @param backend     the backend to be used (null if logging is not
+     *                    required to be performed)
+     * @param signature   the signature that uniquely identifies the method
+     *                    (e.g. className#methodName)
+     * @param paramNames  the names of input parameters (null of method doesn't
+     *                    accept any parameters)
+     * @param paramValues the values of input parameters
+     */
+    public static void logEntrance(final LoggingBackend backend,
+                                   final String signature,
+                                   final String[] paramNames,
+                                   final Object[] paramValues) {
+        logEntrance(backend, signature, paramNames, paramValues,
+                LogLevel.DEBUG);
+    }
+
+    /**
+     * Logs the method entrance together with input parameters (if present).
+     * It's assumed that paramNames and paramValues contain the same number of
+     * elements.
+     *
+     * @param backend     the backend to be used (null if logging is not
+     *                    required to be performed)
+     * @param signature   the signature that uniquely identifies the method
+     *                    (e.g. className#methodName)
+     * @param paramNames  the names of input parameters (null of method doesn't
+     *                    accept any parameters)
+     * @param paramValues the values of input parameters
+     * @param level       the logging level to be used
+     */
+    public static void logEntrance(final LoggingBackend backend,
+                                   final String signature,
+                                   final String[] paramNames,
+                                   final Object[] paramValues,
+                                   final LogLevel level) {
+        if (backend == null) {
+            return;
+        }
+        if (SpanTracer.isEnabled()) {
+            SpanTracer.enter(signature);
+        }
+        if (!TraceSampler.sampleEntrance(signature)) {
+            return;
+        }
+        if (!backend.isEnabled(level)) {
+            return;
+        }
+        StringBuilder sb = ParameterRenderer.acquireBuilder();
+        try {
+            LoggingUtilityHelper.appendMethodEntranceMessage(sb, signature);
+            backend.log(level, sb, null);
+            if (paramNames != null) {
+                sb.setLength(0);
+                LoggingUtilityHelper.appendInputParametersMessage(sb,
+                        paramNames, paramValues);
+                backend.log(level, sb, null);
+            }
+        } finally {
+            ParameterRenderer.recycleBuilder(sb);
+        }
+    }
+
+    /**
+     * Logs the method exit together with the returned value (if present).
+     * When this method is used, method execution time is not logged and DEBUG
+     * level is used.
+     *
+     * @param backend   the backend to be used (null if logging is not
+     *                  required to be performed)
+     * @param signature the signature that uniquely identifies the method
+     *                  (e.g. className#methodName)
+     * @param value     the value returned from the method (should contain 1
+     *                  element with the returned value, or should be null if
+     *                  the method returns void)
+     */
+    public static void logExit(final LoggingBackend backend,
+                               final String signature,
+                               final Object[] value) {
+        logExit(backend, signature, value, null);
+    }
+
+    /**
+     * Logs the method exit together with the returned value (if present) and
+     * method execution time.
+     * When this method is used, DEBUG level is used.
+     *
+     * @param backend           the backend to be used (null if logging is not
+     *                          required to be performed)
+     * @param signature         the signature that uniquely identifies the
+     *                          method (e.g. className#methodName)
+     * @param value             the value returned from the method (should
+     *                          contain 1 element with the returned value, or
+     *                          should be null if the method returns void)
+     * @param entranceTimestamp the method entrance timestamp (null if not
+     *                          available), is used for calculating method
+     *                          execution time
+     */
+    public static void logExit(final LoggingBackend backend,
+                               final String signature,
+                               final Object[] value,
+                               final Date entranceTimestamp) {
+        logExit(backend, signature, value, entranceTimestamp, LogLevel.DEBUG);
+    }
+
+    /**
+     * Logs the method exit together with the returned value (if present) and
+     * method execution time.
+     *
+     * @param backend           the backend to be used (null if logging is not
+     *                          required to be performed)
+     * @param signature         the signature that uniquely identifies the
+     *                          method (e.g. className#methodName)
+     * @param value             the value returned from the method (should
+     *                          contain 1 element with the returned value, or
+     *                          should be null if the method returns void)
+     * @param entranceTimestamp the method entrance timestamp (null if not
+     *                          available), is used for calculating method
+     *                          execution time
+     * @param level             the logging level to be used
+     */
+    public static void logExit(final LoggingBackend backend,
+                               final String signature,
+                               final Object[] value,
+                               final Date entranceTimestamp,
+                               final LogLevel level) {
+        if (backend == null) {
+            return;
+        }
+        SpanTracer.Span span = null;
+        if (SpanTracer.isEnabled()) {
+            span = SpanTracer.exit(signature, false);
+        }
+        if (!TraceSampler.sampleExit(signature, entranceTimestamp)) {
+            return;
+        }
+        if (!backend.isEnabled(level)) {
+            return;
+        }
+        StringBuilder sb = ParameterRenderer.acquireBuilder();
+        try {
+            LoggingUtilityHelper.appendMethodExitMessage(sb, signature,
+                    entranceTimestamp);
+            if (span != null) {
+                LoggingUtilityHelper.appendSpanMessage(sb, span);
+            }
+            backend.log(level, sb, null);
+            if (value != null) {
+                sb.setLength(0);
+                LoggingUtilityHelper.appendOutputValueMessage(sb, value[0]);
+                backend.log(level, sb, null);
+            }
+        } finally {
+            ParameterRenderer.recycleBuilder(sb);
+        }
+    }
+
+    /**
+     * Logs the given exception.
+     * When this method is used, ERROR level is used.
+     *
+     * @param <T>       type of exception
+     * @param backend   the backend to be used (null if logging is not
+     *                  required to be performed)
+     * @param signature the signature that uniquely identifies the method (e.g.
+     *                  className#methodName) where the exception is logged
+     * @param exception the exception to be logged (assumed to be not null)
+     * @return the logged exception
+     */
+    public static <T extends Throwable> T logException(
+            final LoggingBackend backend,
+            final String signature,
+            final T exception) {
+        return logException(backend, signature, exception, LogLevel.ERROR);
+    }
+
+    /**
+     * Logs the given exception using the specified level.
+     *
+     * @param <T>       type of exception
+     * @param backend   the backend to be used (null if logging is not
+     *                  required to be performed)
+     * @param signature the signature that uniquely identifies the method (e.g.
+     *                  className#methodName) where the exception is logged
+     * @param exception the exception to be logged (assumed to be not null)
+     * @param level     the logging level to be used
+     * @return the logged exception
+     */
+    public static <T extends Throwable> T logException(
+            final LoggingBackend backend,
+            final String signature,
+            final T exception,
+            final LogLevel level) {
+        if (backend == null) {
+            return exception;
+        }
+        if (SpanTracer.isEnabled()) {
+            SpanTracer.exit(signature, true);
+        }
+        TraceSampler.exceptionThrown(signature);
+        if (!backend.isEnabled(level)) {
+            return exception;
+        }
+        StringBuilder sb = ParameterRenderer.acquireBuilder();
+        try {
+            LoggingUtilityHelper.appendExceptionMessage(sb, signature,
+                    exception);
+            backend.log(level, sb, exception);
+        } finally {
+            ParameterRenderer.recycleBuilder(sb);
+        }
+        return exception;
+    }
+}
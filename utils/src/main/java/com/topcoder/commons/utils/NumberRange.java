@@ -0,0 +1,192 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This class represents an immutable range of numbers that can be created
+ * once and reused for many checks (see ValidationUtility.checkInRange() and
+ * ValueRules.inRange()). The bracket description of the range (e.g.
+ * "[1, 10)") is rendered when the range is created, not on every failed
+ * check.
+ * <p>
+ * A range is either integral (created with long bounds; int values are
+ * checked through the same primitive path) or floating-point (created with
+ * double bounds). Checking values never boxes or allocates. NaN is never in
+ * a range; the bounds may be infinite, but not NaN.
+ * <p>
+ * Thread Safety: this class is immutable and thread safe.
+ */
+public final class NumberRange {
+    /**
+     * True if the range has long bounds, false if it has double bounds.
+     */
+    private final boolean integral;
+
+    /**
+     * The lower bound (for integral ranges).
+     */
+    private final long longFrom;
+
+    /**
+     * The upper bound (for integral ranges).
+     */
+    private final long longTo;
+
+    /**
+     * The lower bound (for all ranges).
+     */
+    private final double from;
+
+    /**
+     * The upper bound (for all ranges).
+     */
+    private final double to;
+
+    /**
+     * True if the lower bound is included into the range.
+     */
+    private final boolean fromInclusive;
+
+    /**
+     * True if the upper bound is included into the range.
+     */
+    private final boolean toInclusive;
+
+    /**
+     * The bracket description of the range, e.g. "[1, 10)".
+     */
+    private final String description;
+
+    /**
+     * Creates the range.
+     *
+     * @param integral      true if the range has long bounds
+     * @param longFrom      the lower bound (for integral ranges)
+     * @param longTo        the upper bound (for integral ranges)
+     * @param from          the lower bound
+     * @param to            the upper bound
+     * @param fromInclusive true if the lower bound is inclusive
+     * @param toInclusive   true if the upper bound is inclusive
+     * @param description   the bracket description of the range
+     */
+    private NumberRange(final boolean integral, final long longFrom,
+                        final long longTo, final double from,
+                        final double to, final boolean fromInclusive,
+                        final boolean toInclusive, final String description) {
+        this.integral = integral;
+        this.longFrom = longFrom;
+        this.longTo = longTo;
+        this.from = from;
+        this.to = to;
+        this.fromInclusive = fromInclusive;
+        this.toInclusive = toInclusive;
+        this.description = description;
+    }
+
+    /**
+     * Creates the integral range.
+     *
+     * @param from          the lower bound
+     * @param to            the upper bound
+     * @param fromInclusive true if the lower bound is inclusive
+     * @param toInclusive   true if the upper bound is inclusive
+     * @return the created range (not null)
+     * @throws IllegalArgumentException if from is greater than to
+     */
+    public static NumberRange of(final long from, final long to,
+                                 final boolean fromInclusive,
+                                 final boolean toInclusive) {
+        if (from > to) {
+            throw new IllegalArgumentException(
+                    "from should not be greater than to");
+        }
+        return new NumberRange(true, from, to, from, to, fromInclusive,
+                toInclusive, describe(String.valueOf(from),
+                        String.valueOf(to), fromInclusive, toInclusive));
+    }
+
+    /**
+     * Creates the floating-point range.
+     *
+     * @param from          the lower bound
+     * @param to            the upper bound
+     * @param fromInclusive true if the lower bound is inclusive
+     * @param toInclusive   true if the upper bound is inclusive
+     * @return the created range (not null)
+     * @throws IllegalArgumentException if from or to is NaN, or from is
+     *                                  greater than to
+     */
+    public static NumberRange of(final double from, final double to,
+                                 final boolean fromInclusive,
+                                 final boolean toInclusive) {
+        if (Double.isNaN(from) || Double.isNaN(to)) {
+            throw new IllegalArgumentException(
+                    "from and to should not be NaN");
+        }
+        if (from > to) {
+            throw new IllegalArgumentException(
+                    "from should not be greater than to");
+        }
+        return new NumberRange(false, 0, 0, from, to, fromInclusive,
+                toInclusive, describe(String.valueOf(from),
+                        String.valueOf(to), fromInclusive, toInclusive));
+    }
+
+    /**
+     * Renders the bracket description of a range.
+     *
+     * @param from          the lower bound
+     * @param to            the upper bound
+     * @param fromInclusive true if the lower bound is inclusive
+     * @param toInclusive   true if the upper bound is inclusive
+     * @return the description, e.g. "[1, 10)"
+     */
+    static String describe(final String from, final String to,
+                           final boolean fromInclusive,
+                           final boolean toInclusive) {
+        return (fromInclusive ? "[" : "(") + from + ", " + to
+                + (toInclusive ? "]" : ")");
+    }
+
+    /**
+     * Checks whether the given value is in the range.
+     *
+     * @param value the value
+     * @return true if the value is in the range, false otherwise
+     */
+    public boolean contains(final long value) {
+        if (!integral) {
+            return contains((double) value);
+        }
+        return (fromInclusive ? value >= longFrom : value > longFrom)
+                && (toInclusive ? value <= longTo : value < longTo);
+    }
+
+    /**
+     * Checks whether the given value is in the range. NaN is never in the
+     * range.
+     *
+     * @param value the value
+     * @return true if the value is in the range, false otherwise
+     */
+    public boolean contains(final double value) {
+        return (fromInclusive ? value >= from : value > from)
+                && (toInclusive ? value <= to : value < to);
+    }
+
+    /**
+     * Retrieves the bracket description of the range, e.g. "[1, 10)".
+     *
+     * @return the description of the range
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Retrieves the bracket description of the range.
+     *
+     * @return the description of the range
+     */
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,609 @@
+package com.topcoder.commons.utils;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This is a utility class that renders method parameter values for the log
+ * messages produced by LoggingUtilityHelper. Values are appended into
+ * reusable thread local builders, every value and the whole message are
+ * truncated to the configured limits, arrays and collections are rendered
+ * element by element with an element cap (instead of identity strings or
+ * full dumps), values of parameters with redacted names are hidden, and
+ * custom renderers can be registered per value type.
+ * <p>
+ * Thread Safety: this class is thread safe. The configuration is expected
+ * to be changed rarely (usually once at application startup).
+ */
+public final class ParameterRenderer {
+    /**
+     * This interface represents a custom renderer of values of some type.
+     *
+     * @param <V> the type of rendered values
+     */
+    public interface TypeRenderer<V> {
+        /**
+         * Appends the text representation of the given value to the target
+         * builder.
+         *
+         * @param value  the value to be rendered (not null)
+         * @param target the builder to append to (not null)
+         */
+        void render(V value, StringBuilder target);
+    }
+
+    /**
+     * The default maximum length of a single rendered value.
+     */
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 256;
+
+    /**
+     * The default maximum length of a whole message.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 4096;
+
+    /**
+     * The default maximum number of rendered array/collection elements.
+     */
+    public static final int DEFAULT_MAX_ELEMENTS = 16;
+
+    /**
+     * The text used instead of redacted values.
+     */
+    private static final String REDACTED = "***";
+
+    /**
+     * The text appended to truncated values and messages.
+     */
+    private static final String ELLIPSIS = "...";
+
+    /**
+     * The maximum nesting level of rendered arrays and collections.
+     */
+    private static final int MAX_DEPTH = 3;
+
+    /**
+     * The maximum capacity of a builder that is kept for reuse.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    /**
+     * The marker used in the renderer cache for types without a custom
+     * renderer.
+     */
+    private static final TypeRenderer<Object> NO_RENDERER =
+            new TypeRenderer<Object>() {
+                public void render(final Object value,
+                                   final StringBuilder target) {
+                    target.append(value);
+                }
+            };
+
+    /**
+     * The reusable builders.
+     */
+    private static final ThreadLocal<StringBuilder> BUILDERS =
+            new ThreadLocal<StringBuilder>();
+
+    /**
+     * The registered custom renderers with the renderers resolved per value
+     * class (replaced when the renderers are changed).
+     */
+    private static volatile RendererLookup lookup = new RendererLookup(
+            new LinkedHashMap<Class<?>, TypeRenderer<?>>());
+
+    /**
+     * The names of parameters with redacted values.
+     */
+    private static volatile String[] redactedNames = new String[0];
+
+    /**
+     * The maximum length of a single rendered value.
+     */
+    private static volatile int maxValueLength = DEFAULT_MAX_VALUE_LENGTH;
+
+    /**
+     * The maximum length of a whole message.
+     */
+    private static volatile int maxMessageLength = DEFAULT_MAX_MESSAGE_LENGTH;
+
+    /**
+     * The maximum number of rendered array/collection elements.
+     */
+    private static volatile int maxElements = DEFAULT_MAX_ELEMENTS;
+
+    /**
+     * Empty private constructor.
+     */
+    private ParameterRenderer() {
+    }
+
+    /**
+     * Sets the maximum length of a single rendered value. Longer values are
+     * truncated and followed by "...".
+     *
+     * @param length the maximum value length
+     * @throws IllegalArgumentException if length is not positive
+     */
+    public static void setMaxValueLength(final int length) {
+        checkPositive(length, "length");
+        maxValueLength = length;
+    }
+
+    /**
+     * Sets the maximum length of a whole message. Longer messages are
+     * truncated and followed by "...".
+     *
+     * @param length the maximum message length
+     * @throws IllegalArgumentException if length is not positive
+     */
+    public static void setMaxMessageLength(final int length) {
+        checkPositive(length, "length");
+        maxMessageLength = length;
+    }
+
+    /**
+     * Sets the maximum number of rendered array and collection elements.
+     *
+     * @param count the maximum number of elements
+     * @throws IllegalArgumentException if count is not positive
+     */
+    public static void setMaxElements(final int count) {
+        checkPositive(count, "count");
+        maxElements = count;
+    }
+
+    /**
+     * Sets the names of parameters whose values must not be logged. Names
+     * are compared ignoring case.
+     *
+     * @param names the parameter names (null if nothing should be redacted)
+     */
+    public static void setRedactedNames(final String... names) {
+        redactedNames = names == null ? new String[0] : names.clone();
+    }
+
+    /**
+     * Registers the custom renderer for values of the given type and its
+     * subtypes. When several registered types match a value, the exact
+     * type wins, then the one registered first.
+     *
+     * @param <V>      the type of rendered values
+     * @param type     the type of values
+     * @param renderer the renderer to be used (null to remove the renderer)
+     * @throws IllegalArgumentException if type is null
+     */
+    public static synchronized <V> void registerRenderer(
+            final Class<V> type, final TypeRenderer<? super V> renderer) {
+        if (type == null) {
+            throw new IllegalArgumentException("type should not be null");
+        }
+        Map<Class<?>, TypeRenderer<?>> newRenderers =
+                new LinkedHashMap<Class<?>, TypeRenderer<?>>(lookup.renderers);
+        if (renderer == null) {
+            newRenderers.remove(type);
+        } else {
+            newRenderers.put(type, renderer);
+        }
+        lookup = new RendererLookup(newRenderers);
+    }
+
+    /**
+     * Resets the configuration to the defaults.
+     */
+    public static synchronized void reset() {
+        maxValueLength = DEFAULT_MAX_VALUE_LENGTH;
+        maxMessageLength = DEFAULT_MAX_MESSAGE_LENGTH;
+        maxElements = DEFAULT_MAX_ELEMENTS;
+        redactedNames = new String[0];
+        lookup = new RendererLookup(
+                new LinkedHashMap<Class<?>, TypeRenderer<?>>());
+    }
+
+    /**
+     * Renders the input parameters message. It's assumed that paramNames
+     * and paramValues contain the same number of elements.
+     *
+     * @param prefix      the message prefix
+     * @param paramNames  the names of input parameters (not null)
+     * @param paramValues the values of input parameters (not null)
+     * @return the rendered message
+     */
+    static String renderParameters(final String prefix,
+                                   final String[] paramNames,
+                                   final Object[] paramValues) {
+        StringBuilder sb = acquireBuilder();
+        appendParameters(sb, prefix, paramNames, paramValues);
+        return releaseBuilder(sb, maxMessageLength);
+    }
+
+    /**
+     * Appends the input parameters message to the builder truncating it to
+     * the maximum message length. It's assumed that paramNames and
+     * paramValues contain the same number of elements.
+     *
+     * @param sb          the builder
+     * @param prefix      the message prefix
+     * @param paramNames  the names of input parameters (not null)
+     * @param paramValues the values of input parameters (not null)
+     */
+    static void appendParameters(final StringBuilder sb, final String prefix,
+                                 final String[] paramNames,
+                                 final Object[] paramValues) {
+        int start = sb.length();
+        sb.append(prefix).append('[');
+        int limit = start + maxMessageLength;
+        for (int i = 0; i < paramNames.length; i++) {
+            if (i != 0) {
+                sb.append(" ,");
+            }
+            sb.append(paramNames[i]).append(':');
+            if (isRedacted(paramNames[i])) {
+                sb.append(REDACTED);
+            } else {
+                appendValue(sb, paramValues[i]);
+            }
+            if (sb.length() > limit) {
+                break;
+            }
+        }
+        sb.append(']');
+        truncate(sb, limit);
+    }
+
+    /**
+     * Renders the message with a single value.
+     *
+     * @param prefix the message prefix
+     * @param value  the value to be rendered
+     * @return the rendered message
+     */
+    static String renderValue(final String prefix, final Object value) {
+        StringBuilder sb = acquireBuilder();
+        appendValueMessage(sb, prefix, value);
+        return releaseBuilder(sb, maxMessageLength);
+    }
+
+    /**
+     * Appends the message with a single value to the builder truncating it
+     * to the maximum message length.
+     *
+     * @param sb     the builder
+     * @param prefix the message prefix
+     * @param value  the value to be rendered
+     */
+    static void appendValueMessage(final StringBuilder sb,
+                                   final String prefix, final Object value) {
+        int limit = sb.length() + maxMessageLength;
+        sb.append(prefix);
+        appendValue(sb, value);
+        truncate(sb, limit);
+    }
+
+    /**
+     * Renders the message with a list of unnamed values.
+     *
+     * @param prefix the message prefix
+     * @param values the values to be rendered (not null)
+     * @return the rendered message
+     */
+    static String renderValues(final String prefix, final Object[] values) {
+        StringBuilder sb = acquireBuilder();
+        sb.append(prefix).append('[');
+        int limit = maxMessageLength;
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            appendValue(sb, values[i]);
+            if (sb.length() > limit) {
+                break;
+            }
+        }
+        sb.append(']');
+        return releaseBuilder(sb, limit);
+    }
+
+    /**
+     * Appends the given value to the builder truncating it to the maximum
+     * value length.
+     *
+     * @param sb    the builder
+     * @param value the value to be appended
+     */
+    static void appendValue(final StringBuilder sb, final Object value) {
+        int start = sb.length();
+        int limit = maxValueLength;
+        append(sb, value, start + limit, 0);
+        if (sb.length() - start > limit) {
+            sb.setLength(start + limit);
+            sb.append(ELLIPSIS);
+        }
+    }
+
+    /**
+     * Checks whether the value of the parameter with the given name must be
+     * redacted.
+     *
+     * @param name the parameter name
+     * @return true if the value must be redacted, false otherwise
+     */
+    static boolean isRedacted(final String name) {
+        for (String redacted : redactedNames) {
+            if (redacted.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the given value to the builder.
+     *
+     * @param sb    the builder
+     * @param value the value to be appended
+     * @param end   the builder length after which appending can be stopped
+     * @param depth the current nesting level
+     */
+    @SuppressWarnings("unchecked")
+    private static void append(final StringBuilder sb, final Object value,
+                               final int end, final int depth) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        Class<?> type = value.getClass();
+        TypeRenderer<Object> renderer =
+                (TypeRenderer<Object>) getRenderer(type);
+        if (renderer != NO_RENDERER) {
+            renderer.render(value, sb);
+        } else if (value instanceof CharSequence) {
+            CharSequence cs = (CharSequence) value;
+            int length = Math.max(0, end - sb.length() + 1);
+            sb.append(cs, 0, Math.min(cs.length(), length));
+        } else if (type.isArray()) {
+            appendArray(sb, value, end, depth);
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            appendElements(sb, collection.iterator(), collection.size(), end,
+                    depth, '[', ']');
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            appendElements(sb, map.entrySet().iterator(), map.size(), end,
+                    depth, '{', '}');
+        } else if (value instanceof Map.Entry) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) value;
+            append(sb, entry.getKey(), end, depth);
+            sb.append('=');
+            append(sb, entry.getValue(), end, depth);
+        } else {
+            sb.append(value);
+        }
+    }
+
+    /**
+     * Appends the elements of the given array to the builder.
+     *
+     * @param sb    the builder
+     * @param array the array to be appended
+     * @param end   the builder length after which appending can be stopped
+     * @param depth the current nesting level
+     */
+    private static void appendArray(final StringBuilder sb,
+                                    final Object array, final int end,
+                                    final int depth) {
+        int length = Array.getLength(array);
+        if (depth >= MAX_DEPTH) {
+            sb.append('[').append(ELLIPSIS).append(']');
+            return;
+        }
+        int count = Math.min(length, maxElements);
+        sb.append('[');
+        int i = 0;
+        while (i < count && sb.length() <= end) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            if (array instanceof Object[]) {
+                append(sb, ((Object[]) array)[i], end, depth + 1);
+            } else if (array instanceof int[]) {
+                sb.append(((int[]) array)[i]);
+            } else if (array instanceof long[]) {
+                sb.append(((long[]) array)[i]);
+            } else if (array instanceof byte[]) {
+                sb.append(((byte[]) array)[i]);
+            } else if (array instanceof char[]) {
+                sb.append(((char[]) array)[i]);
+            } else if (array instanceof double[]) {
+                sb.append(((double[]) array)[i]);
+            } else if (array instanceof float[]) {
+                sb.append(((float[]) array)[i]);
+            } else if (array instanceof short[]) {
+                sb.append(((short[]) array)[i]);
+            } else {
+                sb.append(((boolean[]) array)[i]);
+            }
+            i++;
+        }
+        appendRemaining(sb, length - i);
+        sb.append(']');
+    }
+
+    /**
+     * Appends the elements provided by the given iterator to the builder.
+     *
+     * @param sb      the builder
+     * @param it      the elements iterator
+     * @param size    the total number of elements
+     * @param end     the builder length after which appending can be stopped
+     * @param depth   the current nesting level
+     * @param opening the opening bracket
+     * @param closing the closing bracket
+     */
+    private static void appendElements(final StringBuilder sb,
+                                       final Iterator<?> it, final int size,
+                                       final int end, final int depth,
+                                       final char opening,
+                                       final char closing) {
+        if (depth >= MAX_DEPTH) {
+            sb.append(opening).append(ELLIPSIS).append(closing);
+            return;
+        }
+        int count = Math.min(size, maxElements);
+        sb.append(opening);
+        int i = 0;
+        while (i < count && sb.length() <= end && it.hasNext()) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            append(sb, it.next(), end, depth + 1);
+            i++;
+        }
+        appendRemaining(sb, size - i);
+        sb.append(closing);
+    }
+
+    /**
+     * Appends the number of elements that were not rendered (if any).
+     *
+     * @param sb        the builder
+     * @param remaining the number of elements that were not rendered
+     */
+    private static void appendRemaining(final StringBuilder sb,
+                                        final int remaining) {
+        if (remaining > 0) {
+            sb.append(", ...(").append(remaining).append(" more)");
+        }
+    }
+
+    /**
+     * Retrieves the custom renderer for values of the given class.
+     *
+     * @param type the value class
+     * @return the custom renderer, or NO_RENDERER if there is no one
+     */
+    private static TypeRenderer<?> getRenderer(final Class<?> type) {
+        return lookup.get(type);
+    }
+
+    /**
+     * Retrieves the reusable builder of the current thread. The builder must
+     * be returned with releaseBuilder().
+     *
+     * @return the empty builder (not null)
+     */
+    static StringBuilder acquireBuilder() {
+        StringBuilder sb = BUILDERS.get();
+        if (sb == null) {
+            return new StringBuilder();
+        }
+        BUILDERS.set(null);
+        sb.setLength(0);
+        return sb;
+    }
+
+    /**
+     * Converts the builder content to string (truncating it to the given
+     * limit) and returns the builder for reuse by the current thread.
+     *
+     * @param sb    the builder
+     * @param limit the maximum message length
+     * @return the builder content
+     */
+    static String releaseBuilder(final StringBuilder sb, final int limit) {
+        truncate(sb, limit);
+        String result = sb.toString();
+        recycleBuilder(sb);
+        return result;
+    }
+
+    /**
+     * Returns the builder for reuse by the current thread without converting
+     * its content to string.
+     *
+     * @param sb the builder acquired with acquireBuilder()
+     */
+    static void recycleBuilder(final StringBuilder sb) {
+        if (sb.capacity() <= MAX_RETAINED_CAPACITY) {
+            BUILDERS.set(sb);
+        }
+    }
+
+    /**
+     * Truncates the builder content to the given length (marking the
+     * truncation with an ellipsis).
+     *
+     * @param sb    the builder
+     * @param limit the maximum length
+     */
+    private static void truncate(final StringBuilder sb, final int limit) {
+        if (sb.length() > limit) {
+            sb.setLength(limit);
+            sb.append(ELLIPSIS);
+        }
+    }
+
+    /**
+     * Checks whether the given configuration value is positive.
+     *
+     * @param value the value to be checked
+     * @param name  the name associated with the value
+     * @throws IllegalArgumentException if value is not positive
+     */
+    private static void checkPositive(final int value, final String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " should be positive");
+        }
+    }
+
+    /**
+     * This class resolves the custom renderers of the value classes. The
+     * resolved renderers are kept in a ClassValue, so they don't prevent the
+     * value classes (and their class loaders) from being unloaded, and they
+     * are dropped together with the lookup when the renderers are changed.
+     * <p>
+     * Thread Safety: this class is thread safe.
+     */
+    private static final class RendererLookup
+            extends ClassValue<TypeRenderer<?>> {
+        /**
+         * The registered custom renderers (in registration order, not
+         * modified).
+         */
+        private final Map<Class<?>, TypeRenderer<?>> renderers;
+
+        /**
+         * Creates the lookup.
+         *
+         * @param renderers the registered custom renderers
+         */
+        RendererLookup(final Map<Class<?>, TypeRenderer<?>> renderers) {
+            this.renderers = renderers;
+        }
+
+        /**
+         * Resolves the custom renderer for values of the given class: the
+         * renderer of the exact class, or else the first registered one of a
+         * supertype.
+         *
+         * @param type the value class
+         * @return the custom renderer, or NO_RENDERER if there is no one
+         */
+        protected TypeRenderer<?> computeValue(final Class<?> type) {
+            TypeRenderer<?> result = renderers.get(type);
+            if (result != null) {
+                return result;
+            }
+            for (Map.Entry<Class<?>, TypeRenderer<?>> entry
+                    : renderers.entrySet()) {
+                if (entry.getKey().isAssignableFrom(type)) {
+                    return entry.getValue();
+                }
+            }
+            return NO_RENDERER;
+        }
+    }
+}
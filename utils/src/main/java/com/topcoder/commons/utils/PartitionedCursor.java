@@ -0,0 +1,474 @@
+package com.topcoder.commons.utils;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class represents a cursor over the merged rows of a query executed in
+ * parallel over the partitions of a numeric key range. It's created with
+ * JDBCUtility.openPartitionedCursor(). Every partition is read with its own
+ * pooled connection on a bounded set of worker threads owned by the cursor.
+ * <p>
+ * Rows are handed over to the reading thread through bounded queues, so the
+ * workers block when the reader is slower than the database (backpressure)
+ * and the memory used by the cursor doesn't depend on the size of the
+ * result. In ordered mode the rows of partition N are returned before the
+ * rows of partition N + 1 (so a query ordered by the partition key returns
+ * rows in key order); workers borrow connections in partition order, so the
+ * partition being read always holds a connection. In unordered mode rows are
+ * returned as soon as any worker produces them.
+ * <p>
+ * The workers are stopped and their connections returned to the pool when
+ * all rows are read, an error occurs or close() is called.
+ * <p>
+ * Thread Safety: this class is not thread safe; the cursor should be read by
+ * one thread.
+ *
+ * @param <R> the type of the row objects
+ */
+public final class PartitionedCursor<R> implements Iterator<R>, Closeable {
+    /**
+     * The capacity of the row queues.
+     */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * The time in milliseconds after which blocked workers check whether the
+     * cursor was closed.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * The marker of a finished partition.
+     */
+    private static final Object END = new Object();
+
+    /**
+     * The marker of a null row.
+     */
+    private static final Object NULL_ROW = new Object();
+
+    /**
+     * The pool used for borrowing connections.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * The query string.
+     */
+    private final String queryString;
+
+    /**
+     * The SQL types of the query arguments (including the key bounds).
+     */
+    private final int[] argumentTypes;
+
+    /**
+     * The query arguments (excluding the key bounds).
+     */
+    private final Object[] queryArgs;
+
+    /**
+     * The mapper used for converting rows.
+     */
+    private final RowMapper<R> rowMapper;
+
+    /**
+     * The key bounds of the partitions (partition i covers
+     * [bounds[i], bounds[i + 1])).
+     */
+    private final long[] bounds;
+
+    /**
+     * The fetch size used by the partition queries.
+     */
+    private final int fetchSize;
+
+    /**
+     * True if rows are returned in partition order.
+     */
+    private final boolean ordered;
+
+    /**
+     * The exception class used for wrapping errors.
+     */
+    private final Class<? extends RuntimeException> exceptionClass;
+
+    /**
+     * The row queues (one per partition in ordered mode, a single shared
+     * queue otherwise).
+     */
+    private final List<BlockingQueue<Object>> queues;
+
+    /**
+     * The worker threads.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The lock used for borrowing connections in partition order.
+     */
+    private final Object turnLock = new Object();
+
+    /**
+     * The partition that may borrow a connection next (ordered mode only).
+     * Guarded by turnLock.
+     */
+    private int turn;
+
+    /**
+     * True if the cursor is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The partition being read (ordered mode only).
+     */
+    private int current;
+
+    /**
+     * The number of partitions that are not read to the end.
+     */
+    private int remaining;
+
+    /**
+     * The row fetched by hasNext() (null if there is no such row).
+     */
+    private Object next;
+
+    /**
+     * The number of rows returned so far.
+     */
+    private long rowCount;
+
+    /**
+     * This class represents an error that occurred in a worker.
+     */
+    private static final class Failure {
+        /**
+         * The error.
+         */
+        private final Throwable cause;
+
+        /**
+         * Creates the failure.
+         *
+         * @param cause the error
+         */
+        Failure(final Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Creates the cursor. The workers are started with start().
+     *
+     * @param pool           the pool used for borrowing connections
+     * @param queryString    the query string
+     * @param argumentTypes  the SQL types of the query arguments (including
+     *                       the key bounds)
+     * @param queryArgs      the query arguments (excluding the key bounds)
+     * @param rowMapper      the mapper used for converting rows
+     * @param bounds         the key bounds of the partitions
+     * @param fetchSize      the fetch size used by the partition queries
+     * @param ordered        true if rows should be returned in partition
+     *                       order
+     * @param parallelism    the number of worker threads
+     * @param exceptionClass the exception class used for wrapping errors
+     */
+    PartitionedCursor(final ConnectionPool pool, final String queryString,
+                      final int[] argumentTypes, final Object[] queryArgs,
+                      final RowMapper<R> rowMapper, final long[] bounds,
+                      final int fetchSize, final boolean ordered,
+                      final int parallelism,
+                      final Class<? extends RuntimeException> exceptionClass) {
+        this.pool = pool;
+        this.queryString = queryString;
+        this.argumentTypes = argumentTypes;
+        this.queryArgs = queryArgs;
+        this.rowMapper = rowMapper;
+        this.bounds = bounds;
+        this.fetchSize = fetchSize;
+        this.ordered = ordered;
+        this.exceptionClass = exceptionClass;
+        this.remaining = bounds.length - 1;
+        int queueCount = ordered ? remaining : 1;
+        this.queues = new ArrayList<BlockingQueue<Object>>(queueCount);
+        for (int i = 0; i < queueCount; i++) {
+            queues.add(new ArrayBlockingQueue<Object>(QUEUE_CAPACITY));
+        }
+        this.executor = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactory() {
+                    public Thread newThread(final Runnable task) {
+                        Thread thread = new Thread(task,
+                                "partitioned-query-worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Submits the partition queries to the workers.
+     */
+    void start() {
+        for (int i = 0; i < remaining; i++) {
+            final int partition = i;
+            executor.execute(new Runnable() {
+                public void run() {
+                    readPartition(partition);
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Checks whether there are more rows. The cursor is closed when there
+     * are no more rows.
+     *
+     * @return true if there are more rows, false otherwise
+     * @throws RuntimeException of the configured type if some partition query
+     *                          failed
+     */
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        while (remaining > 0 && !closed) {
+            Object item;
+            try {
+                item = queues.get(ordered ? current : 0).take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw wrap("Interrupted while waiting for rows.", e);
+            }
+            if (item == END) {
+                remaining--;
+                current++;
+            } else if (item instanceof Failure) {
+                close();
+                Throwable cause = ((Failure) item).cause;
+                if (exceptionClass.isInstance(cause)) {
+                    throw (RuntimeException) cause;
+                }
+                throw wrap("Error occurred while executing the partitioned"
+                        + " query [" + queryString + "].", cause);
+            } else {
+                next = item;
+                return true;
+            }
+        }
+        close();
+        return false;
+    }
+
+    /**
+     * Retrieves the next row.
+     *
+     * @return the row object returned by the row mapper
+     * @throws NoSuchElementException if there are no more rows
+     * @throws RuntimeException       of the configured type if some partition
+     *                                query failed
+     */
+    @SuppressWarnings("unchecked")
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("There are no more rows.");
+        }
+        Object item = next;
+        next = null;
+        rowCount++;
+        return item == NULL_ROW ? null : (R) item;
+    }
+
+    /**
+     * This operation is not supported.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public void remove() {
+        throw new UnsupportedOperationException(
+                "The rows can't be removed.");
+    }
+
+    /**
+     * Retrieves the number of rows returned so far.
+     *
+     * @return the number of returned rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Checks whether the cursor is closed.
+     *
+     * @return true if the cursor is closed, false otherwise
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Creates a sequential stream over the remaining rows. Closing the stream
+     * closes the cursor.
+     *
+     * @return the stream of rows (not null)
+     */
+    public Stream<R> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                ordered ? Spliterator.ORDERED : 0), false).onClose(
+                        new Runnable() {
+                            public void run() {
+                                close();
+                            }
+                        });
+    }
+
+    /**
+     * Stops the workers and discards the rows that weren't read. The workers
+     * return their connections to the pool as soon as they notice that the
+     * cursor is closed. Calling this method on a closed cursor has no
+     * effect.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        next = null;
+        for (BlockingQueue<Object> queue : queues) {
+            queue.clear();
+        }
+        synchronized (turnLock) {
+            turnLock.notifyAll();
+        }
+    }
+
+    /**
+     * Reads the given partition and passes its rows to the reader.
+     *
+     * @param partition the partition index
+     */
+    private void readPartition(final int partition) {
+        BlockingQueue<Object> queue = queues.get(ordered ? partition : 0);
+        try {
+            Connection connection = borrowConnection(partition);
+            if (connection == null) {
+                return;
+            }
+            try {
+                Object[] args = new Object[queryArgs.length + 2];
+                System.arraycopy(queryArgs, 0, args, 0, queryArgs.length);
+                args[queryArgs.length] = bounds[partition];
+                args[queryArgs.length + 1] = bounds[partition + 1];
+                ResultCursor<R> cursor = JDBCUtility.openCursor(connection,
+                        queryString, argumentTypes, args, rowMapper,
+                        fetchSize, exceptionClass);
+                try {
+                    while (!closed && cursor.hasNext()) {
+                        R row = cursor.next();
+                        if (!put(queue, row == null ? NULL_ROW : row)) {
+                            return;
+                        }
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                connection.close();
+            }
+            put(queue, END);
+        } catch (Throwable e) {
+            put(queue, new Failure(e));
+        }
+    }
+
+    /**
+     * Borrows a connection for the given partition. In ordered mode the
+     * partitions borrow connections in partition order.
+     *
+     * @param partition the partition index
+     * @return the connection (null if the cursor was closed)
+     * @throws Exception if some error occurred when borrowing the connection
+     */
+    private Connection borrowConnection(final int partition)
+            throws Exception {
+        if (!ordered) {
+            return closed ? null : pool.getConnection(exceptionClass);
+        }
+        synchronized (turnLock) {
+            while (turn != partition) {
+                if (closed) {
+                    return null;
+                }
+                try {
+                    turnLock.wait(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    return null;
+                }
+            }
+        }
+        try {
+            return closed ? null : pool.getConnection(exceptionClass);
+        } finally {
+            synchronized (turnLock) {
+                turn++;
+                turnLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Puts the item to the queue, waiting while the queue is full.
+     *
+     * @param queue the queue
+     * @param item  the item
+     * @return true if the item was put, false if the cursor was closed
+     */
+    private boolean put(final BlockingQueue<Object> queue, final Object item) {
+        try {
+            while (!closed) {
+                if (queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            // the cursor is closed
+        }
+        return false;
+    }
+
+    /**
+     * Wraps the given error to the configured exception class.
+     *
+     * @param message the error message
+     * @param cause   the error
+     * @return the exception to be thrown (not null)
+     */
+    private RuntimeException wrap(final String message,
+                                  final Throwable cause) {
+        try {
+            return ExceptionHelper.constructException(exceptionClass, message,
+                    cause);
+        } catch (Exception e) {
+            return new IllegalStateException(message, cause);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.topcoder.commons.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * This is a utility class that caches compiled regular expressions. It's
+ * used by ValidationUtility.checkMatches(), so that the same expression isn't
+ * compiled on every check (as String.matches() does).
+ * <p>
+ * The cache is a concurrent map of bounded size. Lookups of cached
+ * expressions don't block; when the cache is full, an arbitrary entry is
+ * evicted before a new one is added.
+ * <p>
+ * Thread Safety: this class is thread safe.
+ */
+public final class PatternCache {
+    /**
+     * The default maximum number of cached patterns.
+     */
+    private static final int DEFAULT_MAX_SIZE = 256;
+
+    /**
+     * The compiled patterns per regular expression.
+     */
+    private static final ConcurrentMap<String, Pattern> PATTERNS =
+            new ConcurrentHashMap<String, Pattern>();
+
+    /**
+     * The maximum number of cached patterns.
+     */
+    private static volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * Empty private constructor.
+     */
+    private PatternCache() {
+    }
+
+    /**
+     * Sets the maximum number of cached patterns. Excess patterns are
+     * evicted.
+     *
+     * @param size the maximum number of cached patterns
+     * @throws IllegalArgumentException if size is not positive
+     */
+    public static void setMaxSize(final int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size should be positive");
+        }
+        maxSize = size;
+        evict(size);
+    }
+
+    /**
+     * Retrieves the maximum number of cached patterns.
+     *
+     * @return the maximum number of cached patterns
+     */
+    public static int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Retrieves the number of cached patterns.
+     *
+     * @return the number of cached patterns
+     */
+    public static int getSize() {
+        return PATTERNS.size();
+    }
+
+    /**
+     * Removes all cached patterns.
+     */
+    public static void clear() {
+        PATTERNS.clear();
+    }
+
+    /**
+     * Retrieves the compiled pattern of the given regular expression,
+     * compiling and caching it if needed.
+     *
+     * @param regex the regular expression
+     * @return the compiled pattern (not null)
+     * @throws IllegalArgumentException if regex is null
+     * @throws java.util.regex.PatternSyntaxException if regex is invalid
+     */
+    public static Pattern getPattern(final String regex) {
+        if (regex == null) {
+            throw new IllegalArgumentException("regex should not be null");
+        }
+        Pattern pattern = PATTERNS.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            evict(maxSize - 1);
+            Pattern existing = PATTERNS.putIfAbsent(regex, pattern);
+            if (existing != null) {
+                pattern = existing;
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Evicts patterns until at most the given number of patterns is cached.
+     *
+     * @param size the maximum number of patterns to be kept
+     */
+    private static void evict(final int size) {
+        Iterator<String> iterator = PATTERNS.keySet().iterator();
+        while (PATTERNS.size() > size && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
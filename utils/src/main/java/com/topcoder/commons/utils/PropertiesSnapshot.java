@@ -0,0 +1,84 @@
+package com.topcoder.commons.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * This is an immutable property source that holds a copy of a Properties
+ * instance. Every read of Properties acquires its monitor (it's a
+ * Hashtable), so heavily concurrent readers contend with each other; the
+ * snapshot is copied once and then served from a plain map without any
+ * locking. It can be passed to all typed getters of PropertiesUtility.
+ * <p>
+ * Thread Safety: this class is immutable and thread safe.
+ */
+public final class PropertiesSnapshot implements PropertySource {
+    /**
+     * The property values (never modified after construction).
+     */
+    private final Map<String, String> values;
+
+    /**
+     * Creates the snapshot of the given properties (including their
+     * defaults). Keys and values that are not strings are skipped.
+     *
+     * @param properties the properties to be copied
+     * @throws IllegalArgumentException if properties is null
+     */
+    public PropertiesSnapshot(final Properties properties) {
+        if (properties == null) {
+            throw new IllegalArgumentException(
+                    "properties should not be null");
+        }
+        Map<String, String> copy = new HashMap<String, String>();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            if (value != null) {
+                copy.put(key, value);
+            }
+        }
+        this.values = copy;
+    }
+
+    /**
+     * Retrieves the value of the property with the given key.
+     *
+     * @param key the key of the property to be retrieved
+     * @return the property value (null if property is missing)
+     */
+    public String getProperty(final String key) {
+        return values.get(key);
+    }
+
+    /**
+     * Retrieves the keys of all properties.
+     *
+     * @return the unmodifiable set of keys (not null)
+     */
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(values.keySet());
+    }
+
+    /**
+     * Retrieves the number of properties.
+     *
+     * @return the number of properties
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Creates a new Properties instance with the content of this snapshot.
+     *
+     * @return the created properties (not null)
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.putAll(values);
+        return properties;
+    }
+}
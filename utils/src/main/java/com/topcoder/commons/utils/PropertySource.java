@@ -0,0 +1,19 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This interface represents a read-only source of string properties. It
+ * allows PropertiesUtility to retrieve typed properties from containers other
+ * than Properties (e.g. from a LayeredConfiguration) without copying their
+ * content into a Properties instance first.
+ * <p>
+ * Thread Safety: implementations are expected to be thread safe.
+ */
+public interface PropertySource {
+    /**
+     * Retrieves the value of the property with the given key.
+     *
+     * @param key the key of the property to be retrieved
+     * @return the property value (null if property is missing)
+     */
+    String getProperty(String key);
+}
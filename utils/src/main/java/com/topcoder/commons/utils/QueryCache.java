@@ -0,0 +1,626 @@
+package com.topcoder.commons.utils;
+
+import java.sql.Connection;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents an opt-in read-through cache for the results of
+ * idempotent retrieval queries executed with JDBCUtility. Results are keyed
+ * by the query string, the query arguments and the row mapping (row mapper
+ * instance or column types).
+ * <p>
+ * The cache holds at most the configured number of results; when it's full,
+ * results are evicted with the CLOCK (second chance) policy, which
+ * approximates LRU without taking a lock on cache hits. Results expire after
+ * the configured time to live. Concurrent misses for the same key are
+ * coalesced: only one of the callers executes the query, the others wait for
+ * its result.
+ * <p>
+ * Every cached result is tagged with the tables it was read from.
+ * invalidateTable() makes all results tagged with the table stale in
+ * constant time (they are reloaded on the next access).
+ * <p>
+ * Cached results are shared between callers: the lists returned for row
+ * mappers are unmodifiable (the row objects should be immutable), and the
+ * arrays returned for column types are copied.
+ * <p>
+ * Thread Safety: this class is thread safe.
+ */
+public final class QueryCache {
+    /**
+     * The empty tag list.
+     */
+    private static final String[] NO_TABLES = new String[0];
+
+    /**
+     * The cached results.
+     */
+    private final ConcurrentMap<Key, Entry> entries =
+            new ConcurrentHashMap<Key, Entry>();
+
+    /**
+     * The clock of loaded entries (in load order). Guarded by itself.
+     */
+    private final ArrayDeque<Entry> clock = new ArrayDeque<Entry>();
+
+    /**
+     * The invalidation versions per table.
+     */
+    private final ConcurrentMap<String, AtomicLong> tableVersions =
+            new ConcurrentHashMap<String, AtomicLong>();
+
+    /**
+     * The version incremented by invalidateAll().
+     */
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    /**
+     * The maximum number of cached results.
+     */
+    private final int maxEntries;
+
+    /**
+     * The time to live of cached results in nanoseconds.
+     */
+    private final long timeToLiveNanos;
+
+    /**
+     * The number of cache hits (including coalesced misses).
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * The number of cache misses.
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * The number of evicted results.
+     */
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * The number of failed loads.
+     */
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    /**
+     * The histogram of successful load times.
+     */
+    private final LatencyHistogram loadTimes = new LatencyHistogram();
+
+    /**
+     * This class represents the cache key.
+     */
+    private static final class Key {
+        /**
+         * The query string.
+         */
+        private final String queryString;
+
+        /**
+         * The query arguments.
+         */
+        private final Object[] queryArgs;
+
+        /**
+         * The row mapping (row mapper instance or list of column types).
+         */
+        private final Object mapping;
+
+        /**
+         * The hash code.
+         */
+        private final int hash;
+
+        /**
+         * Creates the key.
+         *
+         * @param queryString the query string
+         * @param queryArgs   the query arguments
+         * @param mapping     the row mapping
+         */
+        Key(final String queryString, final Object[] queryArgs,
+            final Object mapping) {
+            this.queryString = queryString;
+            this.queryArgs = queryArgs == null ? null : queryArgs.clone();
+            this.mapping = mapping;
+            this.hash = (queryString.hashCode() * 31
+                    + Arrays.hashCode(queryArgs)) * 31 + mapping.hashCode();
+        }
+
+        /**
+         * Retrieves the hash code.
+         *
+         * @return the hash code
+         */
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Checks whether the given object is an equal key.
+         *
+         * @param obj the object
+         * @return true if the object is an equal key, false otherwise
+         */
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && queryString.equals(other.queryString)
+                    && Arrays.equals(queryArgs, other.queryArgs)
+                    && mapping.equals(other.mapping);
+        }
+    }
+
+    /**
+     * This class represents a cached (or loading) result.
+     */
+    private static final class Entry {
+        /**
+         * The key of the entry.
+         */
+        private final Key key;
+
+        /**
+         * The tables the result was read from.
+         */
+        private final String[] tables;
+
+        /**
+         * The versions of the tables when the load started.
+         */
+        private final long[] versions;
+
+        /**
+         * The global version when the load started.
+         */
+        private final long globalVersion;
+
+        /**
+         * The result (completed when loaded).
+         */
+        private final CompletableFuture<Object> result =
+                new CompletableFuture<Object>();
+
+        /**
+         * The expiration time (System.nanoTime()).
+         */
+        private volatile long expiresAt;
+
+        /**
+         * True if the entry was accessed since the clock hand passed it.
+         */
+        private volatile boolean referenced;
+
+        /**
+         * Creates the entry.
+         *
+         * @param key           the key
+         * @param tables        the tables the result is read from
+         * @param versions      the versions of the tables
+         * @param globalVersion the global version
+         */
+        Entry(final Key key, final String[] tables, final long[] versions,
+              final long globalVersion) {
+            this.key = key;
+            this.tables = tables;
+            this.versions = versions;
+            this.globalVersion = globalVersion;
+        }
+    }
+
+    /**
+     * This interface represents the loader of a cached result.
+     *
+     * @param <T> type of exception
+     */
+    private interface Loader<T extends Throwable> {
+        /**
+         * Loads the result.
+         *
+         * @return the result
+         * @throws T         if some error occurred
+         * @throws Exception if some error occurred
+         */
+        Object load() throws T, Exception;
+    }
+
+    /**
+     * Creates the cache.
+     *
+     * @param maxEntries the maximum number of cached results
+     * @param timeToLive the time to live of cached results
+     * @param unit       the time unit
+     * @throws IllegalArgumentException if maxEntries or timeToLive is not
+     *                                  positive or unit is null
+     */
+    public QueryCache(final int maxEntries, final long timeToLive,
+                      final TimeUnit unit) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException(
+                    "maxEntries should be positive");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException(
+                    "timeToLive should be positive");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit should not be null");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Retrieves the cached result of the given query, executing the query
+     * with JDBCUtility if the result isn't cached. Every row is converted
+     * with the given row mapper.
+     *
+     * @param <T>            type of exception
+     * @param <R>            type of the result objects
+     * @param connection     the database connection used if the query must
+     *                       be executed
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param queryArgs      the query arguments
+     * @param rowMapper      the mapper that converts rows to result objects
+     * @param tables         the tables the query reads from (used by
+     *                       invalidateTable(), can be null)
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       errors
+     * @return the unmodifiable list of result objects (not null)
+     * @throws T         if some error occurred when executing the query
+     * @throws Exception if some error occurred when executing the query
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Throwable, R> List<R> executeQuery(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Object[] queryArgs,
+            final RowMapper<R> rowMapper, final String[] tables,
+            final Class<T> exceptionClass) throws T, Exception {
+        return (List<R>) get(new Key(queryString, queryArgs, rowMapper),
+                tables, exceptionClass, new Loader<T>() {
+                    public Object load() throws T, Exception {
+                        return Collections.unmodifiableList(
+                                JDBCUtility.executeQuery(connection,
+                                        queryString, argumentTypes, queryArgs,
+                                        rowMapper, exceptionClass));
+                    }
+                });
+    }
+
+    /**
+     * Retrieves the cached result of the given query, executing the query
+     * with JDBCUtility if the result isn't cached. Every row is an array of
+     * column values of the specified types.
+     *
+     * @param <T>            type of exception
+     * @param connection     the database connection used if the query must
+     *                       be executed
+     * @param queryString    the SQL query string
+     * @param argumentTypes  the SQL types of the query arguments (see
+     *                       java.sql.Types)
+     * @param queryArgs      the query arguments
+     * @param columnTypes    the expected types of the result set columns
+     * @param tables         the tables the query reads from (used by
+     *                       invalidateTable(), can be null)
+     * @param exceptionClass the exception class to be used for wrapping
+     *                       errors
+     * @return the copy of the cached rows (not null)
+     * @throws T         if some error occurred when executing the query
+     * @throws Exception if some error occurred when executing the query
+     */
+    public <T extends Throwable> Object[][] executeQuery(
+            final Connection connection, final String queryString,
+            final int[] argumentTypes, final Object[] queryArgs,
+            final Class<?>[] columnTypes, final String[] tables,
+            final Class<T> exceptionClass) throws T, Exception {
+        Object[][] rows = (Object[][]) get(new Key(queryString, queryArgs,
+                Arrays.asList(columnTypes.clone())), tables, exceptionClass,
+                new Loader<T>() {
+                    public Object load() throws T, Exception {
+                        return JDBCUtility.executeQuery(connection,
+                                queryString, argumentTypes, queryArgs,
+                                columnTypes, exceptionClass);
+                    }
+                });
+        Object[][] copy = new Object[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            copy[i] = rows[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Makes all results read from the given table stale.
+     *
+     * @param table the table name (case insensitive)
+     * @throws IllegalArgumentException if table is null
+     */
+    public void invalidateTable(final String table) {
+        if (table == null) {
+            throw new IllegalArgumentException("table should not be null");
+        }
+        getTableVersion(table.toUpperCase(Locale.ENGLISH)).incrementAndGet();
+    }
+
+    /**
+     * Makes all cached results stale.
+     */
+    public void invalidateAll() {
+        globalVersion.incrementAndGet();
+    }
+
+    /**
+     * Retrieves the number of cached (or loading) results.
+     *
+     * @return the number of cached results
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Retrieves the number of cache hits. Callers that waited for a load
+     * started by another caller are counted as hits.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Retrieves the number of cache misses (i.e. query executions).
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Retrieves the number of results evicted because the cache was full.
+     *
+     * @return the number of evicted results
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Retrieves the number of failed loads.
+     *
+     * @return the number of failed loads
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    /**
+     * Retrieves the histogram of successful load times.
+     *
+     * @return the load time histogram (not null)
+     */
+    public LatencyHistogram getLoadTimes() {
+        return loadTimes;
+    }
+
+    /**
+     * Retrieves the cached result for the given key, loading it if
+     * necessary.
+     *
+     * @param <T>            type of exception
+     * @param key            the key
+     * @param tables         the tables the query reads from (can be null)
+     * @param exceptionClass the exception class
+     * @param loader         the loader of the result
+     * @return the result
+     * @throws T         if some error occurred when loading the result
+     * @throws Exception if some error occurred when loading the result
+     */
+    private <T extends Throwable> Object get(final Key key,
+                                             final String[] tables,
+                                             final Class<T> exceptionClass,
+                                             final Loader<T> loader)
+            throws T, Exception {
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.result.isDone()) {
+                    hitCount.increment();
+                    return await(entry, exceptionClass);
+                }
+                if (isFresh(entry, System.nanoTime())) {
+                    entry.referenced = true;
+                    hitCount.increment();
+                    return entry.result.getNow(null);
+                }
+                entries.remove(key, entry);
+            }
+            Entry created = createEntry(key, tables);
+            if (entries.putIfAbsent(key, created) != null) {
+                continue;
+            }
+            missCount.increment();
+            return load(created, loader);
+        }
+    }
+
+    /**
+     * Loads the result of the new entry and adds the entry to the clock.
+     *
+     * @param <T>    type of exception
+     * @param entry  the entry
+     * @param loader the loader of the result
+     * @return the result
+     * @throws T         if some error occurred when loading the result
+     * @throws Exception if some error occurred when loading the result
+     */
+    private <T extends Throwable> Object load(final Entry entry,
+                                              final Loader<T> loader)
+            throws T, Exception {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = loader.load();
+        } catch (Throwable e) {
+            loadFailureCount.increment();
+            entries.remove(entry.key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        long end = System.nanoTime();
+        loadTimes.record(end - start);
+        entry.expiresAt = end + timeToLiveNanos;
+        entry.result.complete(value);
+        synchronized (clock) {
+            clock.addLast(entry);
+            evict(end);
+        }
+        return value;
+    }
+
+    /**
+     * Waits for the result of an entry loaded by another caller.
+     *
+     * @param <T>            type of exception
+     * @param entry          the entry
+     * @param exceptionClass the exception class
+     * @return the result
+     * @throws T         if the load failed
+     * @throws Exception if the load failed
+     */
+    private static <T extends Throwable> Object await(final Entry entry,
+            final Class<T> exceptionClass) throws T, Exception {
+        try {
+            return entry.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "Interrupted while waiting for the cached query result.",
+                    e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (exceptionClass.isInstance(cause)) {
+                throw exceptionClass.cast(cause);
+            }
+            throw ExceptionHelper.constructException(exceptionClass,
+                    "Error occurred while loading the query ["
+                            + entry.key.queryString + "].", cause);
+        }
+    }
+
+    /**
+     * Evicts entries until the cache isn't over its capacity. The clock is
+     * swept from its oldest entry; a fresh entry referenced since the last
+     * sweep gets a second chance, any other entry (stale or not) is evicted
+     * when the sweep reaches it. Stale entries are not looked up ahead of
+     * older fresh ones. The caller must hold the clock lock.
+     *
+     * @param now the current time (System.nanoTime())
+     */
+    private void evict(final long now) {
+        int budget = clock.size() * 2 + 1;
+        while (entries.size() > maxEntries && budget-- > 0) {
+            Entry entry = clock.pollFirst();
+            if (entry == null) {
+                return;
+            }
+            if (entries.get(entry.key) != entry) {
+                continue;
+            }
+            if (entry.referenced && isFresh(entry, now)) {
+                entry.referenced = false;
+                clock.addLast(entry);
+            } else if (entries.remove(entry.key, entry)) {
+                evictionCount.increment();
+            }
+        }
+        // drop the entries that were removed from the map in the meantime
+        if (clock.size() > maxEntries * 2) {
+            int count = clock.size();
+            for (int i = 0; i < count; i++) {
+                Entry entry = clock.pollFirst();
+                if (entries.get(entry.key) == entry) {
+                    clock.addLast(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the loaded entry is neither expired nor invalidated.
+     *
+     * @param entry the entry
+     * @param now   the current time (System.nanoTime())
+     * @return true if the entry is fresh, false otherwise
+     */
+    private boolean isFresh(final Entry entry, final long now) {
+        if (now - entry.expiresAt >= 0
+                || entry.globalVersion != globalVersion.get()) {
+            return false;
+        }
+        for (int i = 0; i < entry.tables.length; i++) {
+            if (getTableVersion(entry.tables[i]).get()
+                    != entry.versions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the entry for the given key, capturing the current versions
+     * of its tables.
+     *
+     * @param key    the key
+     * @param tables the tables the query reads from (can be null)
+     * @return the entry
+     */
+    private Entry createEntry(final Key key, final String[] tables) {
+        String[] names = NO_TABLES;
+        long[] versions = new long[tables == null ? 0 : tables.length];
+        if (tables != null && tables.length > 0) {
+            names = new String[tables.length];
+            for (int i = 0; i < tables.length; i++) {
+                names[i] = tables[i].toUpperCase(Locale.ENGLISH);
+                versions[i] = getTableVersion(names[i]).get();
+            }
+        }
+        return new Entry(key, names, versions, globalVersion.get());
+    }
+
+    /**
+     * Retrieves the version counter of the given table.
+     *
+     * @param table the normalized table name
+     * @return the version counter (not null)
+     */
+    private AtomicLong getTableVersion(final String table) {
+        AtomicLong version = tableVersions.get(table);
+        if (version == null) {
+            AtomicLong created = new AtomicLong();
+            version = tableVersions.putIfAbsent(table, created);
+            if (version == null) {
+                version = created;
+            }
+        }
+        return version;
+    }
+}
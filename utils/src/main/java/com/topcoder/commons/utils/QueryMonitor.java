@@ -0,0 +1,411 @@
+package com.topcoder.commons.utils;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.Priority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is a utility class that instruments the statements executed by
+ * JDBCUtility. When the monitor is enabled, every execution is timed with
+ * System.nanoTime() and recorded into the statistics of its query shape (the
+ * query text with literals replaced by '?' and whitespace collapsed). The
+ * statistics are kept in an LRU table of bounded size, so rarely executed
+ * shapes are dropped first. Executions slower than the configured threshold
+ * are logged with the query text, the number of rows and the query
+ * arguments (which are redacted unless showing them is enabled).
+ * <p>
+ * When the monitor is disabled (the default), instrumentation costs a single
+ * volatile read per execution.
+ * <p>
+ * Thread Safety: this class is thread safe.
+ */
+public final class QueryMonitor {
+    /**
+     * The default maximum number of query shapes with statistics.
+     */
+    private static final int DEFAULT_MAX_SHAPES = 256;
+
+    /**
+     * The default slow query threshold in milliseconds.
+     */
+    private static final long DEFAULT_THRESHOLD_MILLIS = 1000;
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    /**
+     * The statistics per query shape in LRU order. Guarded by itself.
+     */
+    private static final LinkedHashMap<String, QueryStatistics> STATISTICS =
+            new LinkedHashMap<String, QueryStatistics>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        final Map.Entry<String, QueryStatistics> eldest) {
+                    return size() > maxShapes;
+                }
+            };
+
+    /**
+     * The shapes per query text (memoized, since the same query strings are
+     * executed repeatedly).
+     */
+    private static final ConcurrentMap<String, String> SHAPES =
+            new ConcurrentHashMap<String, String>();
+
+    /**
+     * True if the monitor is enabled.
+     */
+    private static volatile boolean enabled;
+
+    /**
+     * The maximum number of query shapes with statistics.
+     */
+    private static volatile int maxShapes = DEFAULT_MAX_SHAPES;
+
+    /**
+     * The slow query threshold in nanoseconds.
+     */
+    private static volatile long thresholdNanos =
+            DEFAULT_THRESHOLD_MILLIS * NANOS_PER_MILLI;
+
+    /**
+     * The logger used for slow queries (null if they are not logged).
+     */
+    private static volatile Logger logger;
+
+    /**
+     * The priority used for slow queries.
+     */
+    private static volatile Priority priority = Level.WARN;
+
+    /**
+     * True if query arguments are shown in slow query messages, false if
+     * they are redacted.
+     */
+    private static volatile boolean argumentsShown;
+
+    /**
+     * Empty private constructor.
+     */
+    private QueryMonitor() {
+    }
+
+    /**
+     * Enables or disables the monitor.
+     *
+     * @param value true if statements should be timed, false otherwise
+     */
+    public static void setEnabled(final boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Checks whether the monitor is enabled.
+     *
+     * @return true if statements are timed, false otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the logger used for slow queries.
+     *
+     * @param slowQueryLogger the logger (null if slow queries should not be
+     *                        logged)
+     */
+    public static void setLogger(final Logger slowQueryLogger) {
+        logger = slowQueryLogger;
+    }
+
+    /**
+     * Sets the priority used for slow queries. WARN is used by default.
+     *
+     * @param slowQueryPriority the priority
+     * @throws IllegalArgumentException if slowQueryPriority is null
+     */
+    public static void setPriority(final Priority slowQueryPriority) {
+        if (slowQueryPriority == null) {
+            throw new IllegalArgumentException(
+                    "slowQueryPriority should not be null");
+        }
+        priority = slowQueryPriority;
+    }
+
+    /**
+     * Sets the execution time above which queries are logged.
+     *
+     * @param time the threshold
+     * @param unit the time unit
+     * @throws IllegalArgumentException if time is negative or unit is null
+     */
+    public static void setSlowQueryThreshold(final long time,
+                                             final TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("time should not be negative");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit should not be null");
+        }
+        thresholdNanos = unit.toNanos(time);
+    }
+
+    /**
+     * Sets whether query arguments are shown in slow query messages. They
+     * are redacted by default.
+     *
+     * @param shown true if arguments should be shown, false if they should be
+     *              redacted
+     */
+    public static void setArgumentsShown(final boolean shown) {
+        argumentsShown = shown;
+    }
+
+    /**
+     * Sets the maximum number of query shapes with statistics.
+     *
+     * @param count the maximum number of shapes
+     * @throws IllegalArgumentException if count is not positive
+     */
+    public static void setMaxShapes(final int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count should be positive");
+        }
+        synchronized (STATISTICS) {
+            maxShapes = count;
+            while (STATISTICS.size() > count) {
+                STATISTICS.remove(STATISTICS.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Retrieves the collected statistics ordered by the total execution time
+     * (descending).
+     *
+     * @return the statistics (not null)
+     */
+    public static List<QueryStatistics> getStatistics() {
+        List<QueryStatistics> result;
+        synchronized (STATISTICS) {
+            result = new ArrayList<QueryStatistics>(STATISTICS.values());
+        }
+        Collections.sort(result, new Comparator<QueryStatistics>() {
+            public int compare(final QueryStatistics first,
+                               final QueryStatistics second) {
+                long a = first.getTotalNanos();
+                long b = second.getTotalNanos();
+                return a < b ? 1 : (a == b ? 0 : -1);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Retrieves the collected statistics as a table (one line per query
+     * shape, ordered by the total execution time).
+     *
+     * @return the statistics table (not null)
+     */
+    public static String dumpStatistics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("count\ttotal ms\tmean us\tmax ms\trows\terrors\tquery");
+        for (QueryStatistics statistics : getStatistics()) {
+            long count = statistics.getCount();
+            long total = statistics.getTotalNanos();
+            sb.append('\n').append(count)
+                    .append('\t').append(total / NANOS_PER_MILLI)
+                    .append('\t')
+                    .append(count == 0 ? 0 : total / count / NANOS_PER_MICRO)
+                    .append('\t')
+                    .append(statistics.getMaxNanos() / NANOS_PER_MILLI)
+                    .append('\t').append(statistics.getRowCount())
+                    .append('\t').append(statistics.getErrorCount())
+                    .append('\t').append(statistics.getShape());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Removes all collected statistics.
+     */
+    public static void clearStatistics() {
+        synchronized (STATISTICS) {
+            STATISTICS.clear();
+        }
+        SHAPES.clear();
+    }
+
+    /**
+     * Records the execution of the query. Nothing is done if the monitor is
+     * disabled.
+     *
+     * @param queryString the query string
+     * @param queryArgs   the query arguments (null if not available)
+     * @param start       the execution start time (System.nanoTime())
+     * @param rows        the number of returned or affected rows (-1 if
+     *                    unknown)
+     * @param failed      true if the execution failed, false otherwise
+     */
+    static void queryExecuted(final String queryString,
+                              final Object[] queryArgs, final long start,
+                              final int rows, final boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        String shape = getShape(queryString);
+        QueryStatistics statistics;
+        synchronized (STATISTICS) {
+            statistics = STATISTICS.get(shape);
+            if (statistics == null) {
+                statistics = new QueryStatistics(shape);
+                STATISTICS.put(shape, statistics);
+            }
+        }
+        statistics.record(nanos, rows, failed);
+        Logger slowQueryLogger = logger;
+        if (nanos >= thresholdNanos && slowQueryLogger != null
+                && slowQueryLogger.isEnabledFor(priority)) {
+            slowQueryLogger.log(priority, getSlowQueryMessage(queryString,
+                    queryArgs, nanos, rows, failed));
+        }
+    }
+
+    /**
+     * Retrieves the shape of the given query.
+     *
+     * @param queryString the query string
+     * @return the query shape
+     */
+    static String getShape(final String queryString) {
+        String shape = SHAPES.get(queryString);
+        if (shape == null) {
+            shape = normalize(queryString);
+            if (SHAPES.size() >= maxShapes * 4) {
+                SHAPES.clear();
+            }
+            SHAPES.put(queryString, shape);
+        }
+        return shape;
+    }
+
+    /**
+     * Replaces string and numeric literals of the query with '?' and
+     * collapses whitespace.
+     *
+     * @param queryString the query string
+     * @return the normalized query
+     */
+    private static String normalize(final String queryString) {
+        int length = queryString.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean space = false;
+        int i = 0;
+        while (i < length) {
+            char c = queryString.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                i++;
+                continue;
+            }
+            if (space && sb.length() > 0) {
+                sb.append(' ');
+            }
+            space = false;
+            if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (queryString.charAt(i) == '\'') {
+                        if (i + 1 < length
+                                && queryString.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                sb.append('?');
+                i++;
+            } else if (Character.isDigit(c) && !isIdentifierEnd(sb)) {
+                while (i < length
+                        && (Character.isLetterOrDigit(queryString.charAt(i))
+                        || queryString.charAt(i) == '.')) {
+                    i++;
+                }
+                sb.append('?');
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks whether the builder ends with a part of an identifier.
+     *
+     * @param sb the builder
+     * @return true if the last character is a part of an identifier
+     */
+    private static boolean isIdentifierEnd(final StringBuilder sb) {
+        if (sb.length() == 0) {
+            return false;
+        }
+        char c = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * Creates the slow query message.
+     *
+     * @param queryString the query string
+     * @param queryArgs   the query arguments (null if not available)
+     * @param nanos       the execution time in nanoseconds
+     * @param rows        the number of rows (-1 if unknown)
+     * @param failed      true if the execution failed
+     * @return the message
+     */
+    private static String getSlowQueryMessage(final String queryString,
+                                              final Object[] queryArgs,
+                                              final long nanos,
+                                              final int rows,
+                                              final boolean failed) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Slow query [").append(queryString).append("] took ")
+                .append(nanos / NANOS_PER_MILLI).append(" ms");
+        if (failed) {
+            sb.append(" and failed");
+        } else if (rows >= 0) {
+            sb.append(", rows: ").append(rows);
+        }
+        if (queryArgs != null) {
+            if (argumentsShown) {
+                sb.append(ParameterRenderer.renderValues(", arguments: ",
+                        queryArgs));
+            } else {
+                sb.append(", arguments: [").append(queryArgs.length)
+                        .append(" redacted]");
+            }
+        }
+        return sb.append('.').toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.topcoder.commons.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents the execution statistics of the queries with the
+ * same shape (the query text with literals replaced by '?' and whitespace
+ * collapsed). The statistics are collected by QueryMonitor.
+ * <p>
+ * Thread Safety: this class is thread safe. Statistics read while executions
+ * are being recorded are not guaranteed to be mutually consistent.
+ */
+public final class QueryStatistics {
+    /**
+     * The query shape.
+     */
+    private final String shape;
+
+    /**
+     * The number of executions.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * The number of failed executions.
+     */
+    private final LongAdder errorCount = new LongAdder();
+
+    /**
+     * The total execution time in nanoseconds.
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * The total number of returned or affected rows.
+     */
+    private final LongAdder rowCount = new LongAdder();
+
+    /**
+     * The maximum execution time in nanoseconds.
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Creates the statistics.
+     *
+     * @param shape the query shape
+     */
+    QueryStatistics(final String shape) {
+        this.shape = shape;
+    }
+
+    /**
+     * Records the query execution.
+     *
+     * @param nanos  the execution time in nanoseconds
+     * @param rows   the number of returned or affected rows (-1 if unknown)
+     * @param failed true if the execution failed, false otherwise
+     */
+    void record(final long nanos, final int rows, final boolean failed) {
+        count.increment();
+        totalNanos.add(nanos);
+        if (rows > 0) {
+            rowCount.add(rows);
+        }
+        if (failed) {
+            errorCount.increment();
+        }
+        long current = maxNanos.get();
+        while (nanos > current && !maxNanos.compareAndSet(current, nanos)) {
+            current = maxNanos.get();
+        }
+    }
+
+    /**
+     * Retrieves the query shape.
+     *
+     * @return the query shape
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * Retrieves the number of executions.
+     *
+     * @return the number of executions
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Retrieves the number of failed executions.
+     *
+     * @return the number of failed executions
+     */
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * Retrieves the total execution time.
+     *
+     * @return the total execution time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Retrieves the maximum execution time.
+     *
+     * @return the maximum execution time in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Retrieves the total number of returned or affected rows.
+     *
+     * @return the total number of rows
+     */
+    public long getRowCount() {
+        return rowCount.sum();
+    }
+}
@@ -0,0 +1,78 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This class represents an argument row that was rejected by the validation
+ * rules passed to JDBCUtility.executeBatch() and therefore was not sent to
+ * the database.
+ * <p>
+ * Thread Safety: this class is immutable and thread safe (the argument array
+ * isn't copied and should not be modified).
+ */
+public final class RejectedRow {
+    /**
+     * The zero-based index of the row among the argument rows.
+     */
+    private final int rowNumber;
+
+    /**
+     * The rejected arguments.
+     */
+    private final Object[] arguments;
+
+    /**
+     * The message describing the violated rule.
+     */
+    private final String reason;
+
+    /**
+     * Creates the rejected row.
+     *
+     * @param rowNumber the zero-based index of the row among the argument
+     *                  rows
+     * @param arguments the rejected arguments
+     * @param reason    the message describing the violated rule
+     */
+    RejectedRow(final int rowNumber, final Object[] arguments,
+                final String reason) {
+        this.rowNumber = rowNumber;
+        this.arguments = arguments;
+        this.reason = reason;
+    }
+
+    /**
+     * Retrieves the zero-based index of the row among the argument rows.
+     *
+     * @return the row index
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * Retrieves the rejected arguments.
+     *
+     * @return the rejected arguments (null if the row was null)
+     */
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Retrieves the message describing the violated rule.
+     *
+     * @return the message
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Retrieves the string representation of this row.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+        return "row " + rowNumber + ": " + reason;
+    }
+}
@@ -0,0 +1,223 @@
+package com.topcoder.commons.utils;
+
+import java.io.Closeable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class represents a forward-only cursor over the rows of a query result
+ * opened with JDBCUtility.openCursor(). Rows are fetched from the database
+ * lazily (in chunks of the configured fetch size) and converted with the row
+ * mapper one at a time, so the memory used by the cursor doesn't depend on
+ * the number of rows returned by the query.
+ * <p>
+ * The result set and the statement are closed as soon as the last row is
+ * read, an error occurs (including errors thrown by the row mapper) or
+ * close() is called, whichever happens first. The stream returned by
+ * stream() closes the cursor when the stream is closed.
+ * <p>
+ * Errors that occur while reading rows are wrapped to the exception class
+ * specified when the cursor was opened.
+ * <p>
+ * Thread Safety: this class is not thread safe.
+ *
+ * @param <R> the type of the row objects
+ */
+public final class ResultCursor<R> implements Iterator<R>, Closeable {
+    /**
+     * The statement that produced the result set.
+     */
+    private final PreparedStatement statement;
+
+    /**
+     * The result set (null after the cursor is closed).
+     */
+    private ResultSet resultSet;
+
+    /**
+     * The mapper used for converting rows.
+     */
+    private final RowMapper<R> rowMapper;
+
+    /**
+     * The query string (used in error messages).
+     */
+    private final String queryString;
+
+    /**
+     * The exception class used for wrapping SQLException.
+     */
+    private final Class<? extends RuntimeException> exceptionClass;
+
+    /**
+     * True if the result set is positioned at a row that wasn't returned yet.
+     */
+    private boolean hasRow;
+
+    /**
+     * The number of rows returned so far.
+     */
+    private int rowNumber;
+
+    /**
+     * Creates the cursor.
+     *
+     * @param statement      the executed statement
+     * @param resultSet      the result set to iterate over
+     * @param rowMapper      the mapper used for converting rows
+     * @param queryString    the query string
+     * @param exceptionClass the exception class used for wrapping
+     *                       SQLException
+     */
+    ResultCursor(final PreparedStatement statement, final ResultSet resultSet,
+                 final RowMapper<R> rowMapper, final String queryString,
+                 final Class<? extends RuntimeException> exceptionClass) {
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.queryString = queryString;
+        this.exceptionClass = exceptionClass;
+    }
+
+    /**
+     * Checks whether there are more rows. The cursor is closed when there
+     * are no more rows.
+     *
+     * @return true if there are more rows, false otherwise
+     * @throws RuntimeException of the configured type if some error occurred
+     *                          when fetching the row
+     */
+    public boolean hasNext() {
+        if (hasRow) {
+            return true;
+        }
+        if (resultSet == null) {
+            return false;
+        }
+        try {
+            hasRow = resultSet.next();
+        } catch (SQLException e) {
+            throw fail(e);
+        }
+        if (!hasRow) {
+            close();
+        }
+        return hasRow;
+    }
+
+    /**
+     * Retrieves the next row.
+     *
+     * @return the row object returned by the row mapper
+     * @throws NoSuchElementException if there are no more rows
+     * @throws RuntimeException       of the configured type if some error
+     *                                occurred when reading the row
+     */
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("There are no more rows.");
+        }
+        hasRow = false;
+        try {
+            R row = rowMapper.mapRow(resultSet, rowNumber);
+            rowNumber++;
+            return row;
+        } catch (SQLException e) {
+            throw fail(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * This operation is not supported.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public void remove() {
+        throw new UnsupportedOperationException(
+                "The rows can't be removed.");
+    }
+
+    /**
+     * Retrieves the number of rows returned so far.
+     *
+     * @return the number of returned rows
+     */
+    public int getRowCount() {
+        return rowNumber;
+    }
+
+    /**
+     * Checks whether the cursor is closed.
+     *
+     * @return true if the cursor is closed, false otherwise
+     */
+    public boolean isClosed() {
+        return resultSet == null;
+    }
+
+    /**
+     * Creates a sequential stream over the remaining rows. Closing the stream
+     * closes the cursor.
+     *
+     * @return the stream of rows (not null)
+     */
+    public Stream<R> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED), false).onClose(new Runnable() {
+                    public void run() {
+                        close();
+                    }
+                });
+    }
+
+    /**
+     * Closes the result set and the statement. Errors are ignored. Calling
+     * this method on a closed cursor has no effect.
+     */
+    public void close() {
+        if (resultSet == null) {
+            return;
+        }
+        hasRow = false;
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            // ignore
+        }
+        resultSet = null;
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Closes the cursor and wraps the given error to the configured exception
+     * class.
+     *
+     * @param cause the error
+     * @return the exception to be thrown (not null)
+     */
+    private RuntimeException fail(final SQLException cause) {
+        close();
+        String message = "Error occurred while reading the row " + rowNumber
+                + " of the query [" + queryString + "].";
+        try {
+            return ExceptionHelper.constructException(exceptionClass, message,
+                    cause);
+        } catch (Exception e) {
+            return new IllegalStateException(message, cause);
+        }
+    }
+}
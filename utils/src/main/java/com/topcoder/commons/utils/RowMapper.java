@@ -0,0 +1,26 @@
+package com.topcoder.commons.utils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * This interface represents a mapper that converts the current row of a
+ * ResultSet into a typed result object. It's used by JDBCUtility.
+ * <p>
+ * Thread Safety: implementations are not required to be thread safe unless
+ * they are shared between threads.
+ *
+ * @param <R> the type of the result objects
+ */
+public interface RowMapper<R> {
+    /**
+     * Converts the current row of the given result set into a result object.
+     * Implementations must not move the cursor of the result set.
+     *
+     * @param resultSet the result set positioned at the row to be mapped
+     * @param rowNumber the zero-based number of the row
+     * @return the result object
+     * @throws SQLException if some error occurred when reading the row
+     */
+    R mapRow(ResultSet resultSet, int rowNumber) throws SQLException;
+}
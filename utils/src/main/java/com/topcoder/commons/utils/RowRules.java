@@ -0,0 +1,116 @@
+package com.topcoder.commons.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a set of validation rules for the columns of
+ * argument rows. It's used by JDBCUtility.executeBatch() for validating every
+ * row right before binding it, so that bulk loads don't need a separate
+ * validation pass over the rows.
+ * <p>
+ * The rules are kept in flat arrays in the order they were added, so
+ * validating a row doesn't allocate anything unless the row is invalid. The
+ * violation message has the form used by ValidationUtility, e.g. "price
+ * should be in the range [0.0, 100.0]".
+ * <p>
+ * Thread Safety: this class is not thread safe while rules are being added.
+ * A fully configured instance can be shared between threads.
+ */
+public final class RowRules {
+    /**
+     * The names of the columns.
+     */
+    private final String[] columnNames;
+
+    /**
+     * The column index checked by every rule.
+     */
+    private int[] ruleColumns = new int[0];
+
+    /**
+     * The rules in the order they were added.
+     */
+    private ValueRule[] rules = new ValueRule[0];
+
+    /**
+     * Creates the rule set for rows with the given columns.
+     *
+     * @param columnNames the names of the columns (used in violation
+     *                    messages)
+     * @throws IllegalArgumentException if columnNames is null or contains
+     *                                  null
+     */
+    public RowRules(final String... columnNames) {
+        if (columnNames == null) {
+            throw new IllegalArgumentException(
+                    "columnNames should not be null");
+        }
+        for (String columnName : columnNames) {
+            if (columnName == null) {
+                throw new IllegalArgumentException(
+                        "columnNames should not contain null");
+            }
+        }
+        this.columnNames = columnNames.clone();
+    }
+
+    /**
+     * Adds the rule for the given column. Rules are checked in the order
+     * they were added.
+     *
+     * @param column the zero-based column index
+     * @param rule   the rule
+     * @return this instance
+     * @throws IllegalArgumentException if column is out of range or rule is
+     *                                  null
+     */
+    public RowRules addRule(final int column, final ValueRule rule) {
+        if (column < 0 || column >= columnNames.length) {
+            throw new IllegalArgumentException(
+                    "column should be in the range [0, " + columnNames.length
+                            + ")");
+        }
+        if (rule == null) {
+            throw new IllegalArgumentException("rule should not be null");
+        }
+        int count = rules.length;
+        ruleColumns = Arrays.copyOf(ruleColumns, count + 1);
+        rules = Arrays.copyOf(rules, count + 1);
+        ruleColumns[count] = column;
+        rules[count] = rule;
+        return this;
+    }
+
+    /**
+     * Retrieves the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * Validates the given row.
+     *
+     * @param row the row to be validated
+     * @return null if the row is valid, otherwise the message describing the
+     *         first violated rule
+     */
+    public String validate(final Object[] row) {
+        if (row == null) {
+            return "row should not be null";
+        }
+        if (row.length != columnNames.length) {
+            return "row should contain " + columnNames.length + " values";
+        }
+        for (int i = 0; i < rules.length; i++) {
+            int column = ruleColumns[i];
+            String violation = rules[i].check(row[column]);
+            if (violation != null) {
+                return columnNames[column] + " " + violation;
+            }
+        }
+        return null;
+    }
+}
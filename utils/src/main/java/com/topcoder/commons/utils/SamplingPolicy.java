@@ -0,0 +1,223 @@
+package com.topcoder.commons.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a policy that decides which method calls traced by
+ * Log4jUtility are actually logged. A decision is made once per call on
+ * method entrance; the exit of the call is logged if the entrance was
+ * sampled (tail sampling policies decide on method exit instead, based on
+ * the method execution time). Exceptions are never sampled out.
+ * <p>
+ * All decisions are lock-free. Every policy counts the sampled and the
+ * suppressed events, so tracing can stay enabled permanently while its
+ * volume is observed.
+ * <p>
+ * Thread Safety: this class and all its implementations are thread safe.
+ */
+public abstract class SamplingPolicy {
+    /**
+     * The number of sampled (logged) events.
+     */
+    private final LongAdder sampledCount = new LongAdder();
+
+    /**
+     * The number of suppressed events.
+     */
+    private final LongAdder suppressedCount = new LongAdder();
+
+    /**
+     * Creates the policy.
+     */
+    protected SamplingPolicy() {
+    }
+
+    /**
+     * Creates the policy that samples all calls.
+     *
+     * @return the created policy (not null)
+     */
+    public static SamplingPolicy always() {
+        return new SamplingPolicy() {
+            protected boolean decide(final long nowNanos) {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Creates the policy that samples every n-th call.
+     *
+     * @param n the sampling period
+     * @return the created policy (not null)
+     * @throws IllegalArgumentException if n is not positive
+     */
+    public static SamplingPolicy oneInN(final int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n should be positive");
+        }
+        final AtomicLong counter = new AtomicLong();
+        return new SamplingPolicy() {
+            protected boolean decide(final long nowNanos) {
+                return counter.getAndIncrement() % n == 0;
+            }
+        };
+    }
+
+    /**
+     * Creates the token bucket policy that samples at most the given number
+     * of calls per second on average, allowing bursts of the given size. The
+     * bucket is implemented with the generic cell rate algorithm, so every
+     * decision is a single compare-and-set.
+     *
+     * @param callsPerSecond the average number of sampled calls per second
+     * @param burst          the maximum number of calls sampled in a burst
+     * @return the created policy (not null)
+     * @throws IllegalArgumentException if callsPerSecond or burst is not
+     *                                  positive
+     */
+    public static SamplingPolicy tokenBucket(final double callsPerSecond,
+                                             final int burst) {
+        if (!(callsPerSecond > 0)) {
+            throw new IllegalArgumentException(
+                    "callsPerSecond should be positive");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst should be positive");
+        }
+        final long interval = Math.max(1L,
+                (long) (TimeUnit.SECONDS.toNanos(1) / callsPerSecond));
+        final long tolerance = interval * (burst - 1);
+        final AtomicLong arrivalTime = new AtomicLong(System.nanoTime());
+        return new SamplingPolicy() {
+            protected boolean decide(final long nowNanos) {
+                while (true) {
+                    long current = arrivalTime.get();
+                    long theoretical = current - nowNanos > 0 ? current
+                            : nowNanos;
+                    if (theoretical - nowNanos > tolerance) {
+                        return false;
+                    }
+                    if (arrivalTime.compareAndSet(current,
+                            theoretical + interval)) {
+                        return true;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates the tail sampling policy that logs only the calls that take
+     * at least the given time. Entrances of such calls are not logged.
+     *
+     * @param threshold the minimum execution time of logged calls
+     * @param unit      the time unit of the threshold
+     * @return the created policy (not null)
+     * @throws IllegalArgumentException if threshold is negative or unit is
+     *                                  null
+     */
+    public static SamplingPolicy slowerThan(final long threshold,
+                                            final TimeUnit unit) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException(
+                    "threshold should not be negative");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit should not be null");
+        }
+        final long thresholdNanos = unit.toNanos(threshold);
+        return new SamplingPolicy() {
+            protected boolean decide(final long nowNanos) {
+                return false;
+            }
+
+            protected boolean decideExit(final boolean entranceSampled,
+                                         final long durationNanos) {
+                return durationNanos >= thresholdNanos;
+            }
+        };
+    }
+
+    /**
+     * Decides whether the call that is being entered must be logged.
+     *
+     * @param nowNanos the current value of System.nanoTime()
+     * @return true if the call must be logged, false otherwise
+     */
+    protected abstract boolean decide(long nowNanos);
+
+    /**
+     * Decides whether the exit of the call must be logged. By default the
+     * entrance decision is reused.
+     *
+     * @param entranceSampled the decision made on method entrance
+     * @param durationNanos   the method execution time in nanoseconds
+     * @return true if the exit must be logged, false otherwise
+     */
+    protected boolean decideExit(final boolean entranceSampled,
+                                 final long durationNanos) {
+        return entranceSampled;
+    }
+
+    /**
+     * Decides whether the call that is being entered must be logged and
+     * updates the counters.
+     *
+     * @param nowNanos the current value of System.nanoTime()
+     * @return true if the call must be logged, false otherwise
+     */
+    final boolean sampleEntrance(final long nowNanos) {
+        return count(decide(nowNanos));
+    }
+
+    /**
+     * Decides whether the exit of the call must be logged and updates the
+     * counters.
+     *
+     * @param entranceSampled the decision made on method entrance
+     * @param durationNanos   the method execution time in nanoseconds
+     * @return true if the exit must be logged, false otherwise
+     */
+    final boolean sampleExit(final boolean entranceSampled,
+                             final long durationNanos) {
+        return count(decideExit(entranceSampled, durationNanos));
+    }
+
+    /**
+     * Updates the counters with the given decision.
+     *
+     * @param sampled the decision
+     * @return the decision
+     */
+    private boolean count(final boolean sampled) {
+        if (sampled) {
+            sampledCount.increment();
+        } else {
+            suppressedCount.increment();
+        }
+        return sampled;
+    }
+
+    /**
+     * Retrieves the number of events (entrances and exits) logged according
+     * to this policy.
+     *
+     * @return the number of sampled events
+     */
+    public long getSampledCount() {
+        return sampledCount.sum();
+    }
+
+    /**
+     * Retrieves the number of events (entrances and exits) suppressed by this
+     * policy.
+     *
+     * @return the number of suppressed events
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.sum();
+    }
+}
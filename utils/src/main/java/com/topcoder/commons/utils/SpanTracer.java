@@ -0,0 +1,625 @@
+package com.topcoder.commons.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This is a utility class that turns method entrance/exit logging of
+ * Log4jUtility into lightweight call tree tracing. When span mode is
+ * enabled, every logged method entrance opens a span on a thread local,
+ * pooled span stack and the corresponding exit (or exception) closes it; the
+ * exit event then carries the trace id, span id, parent span id, depth, and
+ * the total and self (total minus children) execution times.
+ * <p>
+ * Tasks wrapped with wrap() continue the trace of the span that was current
+ * when they were wrapped, so call trees are preserved across executors.
+ * Completed call trees can be exported to a local file.
+ * <p>
+ * Thread Safety: this class is thread safe.
+ */
+public final class SpanTracer {
+    /**
+     * The initial capacity of the per-thread span stacks.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum number of spans recorded per exported call tree.
+     */
+    private static final int MAX_RECORDS = 10000;
+
+    /**
+     * The indentation of nested spans in the exported call trees.
+     */
+    private static final String INDENT = "  ";
+
+    /**
+     * The per-thread span stacks.
+     */
+    private static final ThreadLocal<SpanStack> STACKS =
+            new ThreadLocal<SpanStack>() {
+                @Override
+                protected SpanStack initialValue() {
+                    return new SpanStack();
+                }
+            };
+
+    /**
+     * The lock that guards the export writer.
+     */
+    private static final Object EXPORT_LOCK = new Object();
+
+    /**
+     * The writer of the export file (null if export is disabled). Guarded
+     * by EXPORT_LOCK.
+     */
+    private static Writer exportWriter;
+
+    /**
+     * True if completed call trees are exported.
+     */
+    private static volatile boolean exporting;
+
+    /**
+     * True if span mode is enabled.
+     */
+    private static volatile boolean enabled;
+
+    /**
+     * This class represents a span. Instances are pooled per thread, so
+     * they must not be retained after the next call of enter() or exit()
+     * on the same thread.
+     */
+    static final class Span {
+        /**
+         * The signature of the method.
+         */
+        private String signature;
+
+        /**
+         * The trace id.
+         */
+        private long traceId;
+
+        /**
+         * The span id.
+         */
+        private long spanId;
+
+        /**
+         * The parent span id (0 for root spans).
+         */
+        private long parentId;
+
+        /**
+         * The depth (0 for root spans).
+         */
+        private int depth;
+
+        /**
+         * The entrance timestamp (System.nanoTime() value).
+         */
+        private long startNanos;
+
+        /**
+         * The total execution time of the closed child spans.
+         */
+        private long childNanos;
+
+        /**
+         * The total execution time (set when the span is closed).
+         */
+        private long totalNanos;
+
+        /**
+         * The index of the span record (-1 if not recorded).
+         */
+        private int recordIndex;
+
+        /**
+         * Retrieves the trace id.
+         *
+         * @return the trace id
+         */
+        long getTraceId() {
+            return traceId;
+        }
+
+        /**
+         * Retrieves the span id.
+         *
+         * @return the span id
+         */
+        long getSpanId() {
+            return spanId;
+        }
+
+        /**
+         * Retrieves the parent span id.
+         *
+         * @return the parent span id (0 for root spans)
+         */
+        long getParentId() {
+            return parentId;
+        }
+
+        /**
+         * Retrieves the depth.
+         *
+         * @return the depth (0 for root spans)
+         */
+        int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Retrieves the total execution time.
+         *
+         * @return the total execution time in nanoseconds
+         */
+        long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Retrieves the self execution time (total time minus the time of
+         * child spans).
+         *
+         * @return the self execution time in nanoseconds
+         */
+        long getSelfNanos() {
+            return totalNanos - childNanos;
+        }
+    }
+
+    /**
+     * This class represents the record of a span of the call tree that will
+     * be exported.
+     */
+    private static final class SpanRecord {
+        /**
+         * The signature of the method.
+         */
+        private String signature;
+
+        /**
+         * The span id.
+         */
+        private long spanId;
+
+        /**
+         * The parent span id.
+         */
+        private long parentId;
+
+        /**
+         * The depth.
+         */
+        private int depth;
+
+        /**
+         * The total execution time.
+         */
+        private long totalNanos;
+
+        /**
+         * The self execution time.
+         */
+        private long selfNanos;
+
+        /**
+         * True if the span ended with an exception.
+         */
+        private boolean failed;
+    }
+
+    /**
+     * This class represents the span stack of a thread together with the
+     * records of the call tree being built.
+     */
+    private static final class SpanStack {
+        /**
+         * The pooled spans; the first size elements are open.
+         */
+        private Span[] spans = new Span[INITIAL_CAPACITY];
+
+        /**
+         * The number of open spans.
+         */
+        private int size;
+
+        /**
+         * The pooled span records; the first recordCount elements are used.
+         */
+        private SpanRecord[] records = new SpanRecord[INITIAL_CAPACITY];
+
+        /**
+         * The number of used span records.
+         */
+        private int recordCount;
+
+        /**
+         * The trace id inherited from the task submitter (0 if none).
+         */
+        private long baseTraceId;
+
+        /**
+         * The span id inherited from the task submitter (0 if none).
+         */
+        private long baseSpanId;
+
+        /**
+         * The depth of spans opened directly under the inherited span.
+         */
+        private int baseDepth;
+
+        /**
+         * The number of open spans that belong to the outer context.
+         */
+        private int baseSize;
+
+        /**
+         * The number of span records that belong to the outer context.
+         */
+        private int baseRecordCount;
+    }
+
+    /**
+     * Empty private constructor.
+     */
+    private SpanTracer() {
+    }
+
+    /**
+     * Enables or disables span mode.
+     *
+     * @param value true if span mode should be enabled, false otherwise
+     */
+    public static void setEnabled(final boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Checks whether span mode is enabled.
+     *
+     * @return true if span mode is enabled, false otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the file the completed call trees are appended to.
+     *
+     * @param file the export file (null if call trees should not be
+     *             exported)
+     * @throws IOException if the file cannot be opened
+     */
+    public static void setExportFile(final File file) throws IOException {
+        synchronized (EXPORT_LOCK) {
+            if (exportWriter != null) {
+                exportWriter.close();
+                exportWriter = null;
+            }
+            if (file != null) {
+                exportWriter = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(file, true),
+                        Charset.forName("UTF-8")));
+            }
+            exporting = exportWriter != null;
+        }
+    }
+
+    /**
+     * Wraps the given task, so that spans opened by it continue the trace
+     * of the span which is current at the moment of wrapping.
+     *
+     * @param task the task to be wrapped
+     * @return the wrapped task (the task itself if span mode is disabled)
+     * @throws IllegalArgumentException if task is null
+     */
+    public static Runnable wrap(final Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException("task should not be null");
+        }
+        if (!enabled) {
+            return task;
+        }
+        final long[] context = captureContext();
+        return new Runnable() {
+            public void run() {
+                SpanStack stack = STACKS.get();
+                long[] saved = continueContext(stack, context);
+                try {
+                    task.run();
+                } finally {
+                    restoreContext(stack, saved);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps the given task, so that spans opened by it continue the trace
+     * of the span which is current at the moment of wrapping.
+     *
+     * @param <V>  the type of the task result
+     * @param task the task to be wrapped
+     * @return the wrapped task (the task itself if span mode is disabled)
+     * @throws IllegalArgumentException if task is null
+     */
+    public static <V> Callable<V> wrap(final Callable<V> task) {
+        if (task == null) {
+            throw new IllegalArgumentException("task should not be null");
+        }
+        if (!enabled) {
+            return task;
+        }
+        final long[] context = captureContext();
+        return new Callable<V>() {
+            public V call() throws Exception {
+                SpanStack stack = STACKS.get();
+                long[] saved = continueContext(stack, context);
+                try {
+                    return task.call();
+                } finally {
+                    restoreContext(stack, saved);
+                }
+            }
+        };
+    }
+
+    /**
+     * Opens the span of the method that is being entered.
+     *
+     * @param signature the signature that uniquely identifies the method
+     */
+    static void enter(final String signature) {
+        SpanStack stack = STACKS.get();
+        if (stack.size == stack.spans.length) {
+            Span[] newSpans = new Span[stack.size * 2];
+            System.arraycopy(stack.spans, 0, newSpans, 0, stack.size);
+            stack.spans = newSpans;
+        }
+        Span span = stack.spans[stack.size];
+        if (span == null) {
+            span = new Span();
+            stack.spans[stack.size] = span;
+        }
+        if (stack.size > stack.baseSize) {
+            Span parent = stack.spans[stack.size - 1];
+            span.traceId = parent.traceId;
+            span.parentId = parent.spanId;
+            span.depth = parent.depth + 1;
+        } else if (stack.baseTraceId != 0) {
+            span.traceId = stack.baseTraceId;
+            span.parentId = stack.baseSpanId;
+            span.depth = stack.baseDepth;
+        } else {
+            span.traceId = newId();
+            span.parentId = 0;
+            span.depth = 0;
+        }
+        span.signature = signature;
+        span.spanId = newId();
+        span.childNanos = 0;
+        span.totalNanos = 0;
+        span.recordIndex = exporting ? addRecord(stack, span) : -1;
+        stack.size++;
+        span.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Closes the innermost open span of the given method. Spans opened
+     * after it (by methods that exited without logging) are closed as well.
+     *
+     * @param signature the signature that uniquely identifies the method
+     * @param failed    true if the method ended with an exception
+     * @return the closed span (null if there is no open span of the given
+     *         method); it's valid until the next call of enter() or exit()
+     */
+    static Span exit(final String signature, final boolean failed) {
+        long now = System.nanoTime();
+        SpanStack stack = STACKS.get();
+        int index = -1;
+        for (int i = stack.size - 1; i >= stack.baseSize; i--) {
+            if (signature.equals(stack.spans[i].signature)) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return null;
+        }
+        Span span = null;
+        while (stack.size > index) {
+            stack.size--;
+            span = stack.spans[stack.size];
+            span.totalNanos = now - span.startNanos;
+            if (stack.size > stack.baseSize) {
+                stack.spans[stack.size - 1].childNanos += span.totalNanos;
+            }
+            if (span.recordIndex >= 0) {
+                SpanRecord record = stack.records[span.recordIndex];
+                record.totalNanos = span.totalNanos;
+                record.selfNanos = span.getSelfNanos();
+                record.failed = failed && stack.size == index;
+            }
+        }
+        if (stack.size == stack.baseSize
+                && stack.recordCount > stack.baseRecordCount) {
+            export(stack);
+        }
+        return span;
+    }
+
+    /**
+     * Adds the record of the given span to the call tree being built.
+     *
+     * @param stack the span stack
+     * @param span  the span
+     * @return the record index (-1 if the call tree is too large)
+     */
+    private static int addRecord(final SpanStack stack, final Span span) {
+        if (stack.recordCount - stack.baseRecordCount >= MAX_RECORDS) {
+            return -1;
+        }
+        if (stack.recordCount == stack.records.length) {
+            SpanRecord[] newRecords = new SpanRecord[stack.recordCount * 2];
+            System.arraycopy(stack.records, 0, newRecords, 0,
+                    stack.recordCount);
+            stack.records = newRecords;
+        }
+        SpanRecord record = stack.records[stack.recordCount];
+        if (record == null) {
+            record = new SpanRecord();
+            stack.records[stack.recordCount] = record;
+        }
+        record.signature = span.signature;
+        record.spanId = span.spanId;
+        record.parentId = span.parentId;
+        record.depth = span.depth;
+        record.totalNanos = -1;
+        record.selfNanos = -1;
+        record.failed = false;
+        return stack.recordCount++;
+    }
+
+    /**
+     * Exports the completed call tree and releases its records.
+     *
+     * @param stack the span stack
+     */
+    private static void export(final SpanStack stack) {
+        int from = stack.baseRecordCount;
+        StringBuilder sb = ParameterRenderer.acquireBuilder();
+        sb.append("Trace ")
+                .append(toHex(stack.spans[stack.size].traceId))
+                .append(" [").append(Thread.currentThread().getName())
+                .append("]\n");
+        int minDepth = stack.records[from].depth;
+        for (int i = from; i < stack.recordCount; i++) {
+            SpanRecord record = stack.records[i];
+            sb.append(INDENT);
+            for (int d = minDepth; d < record.depth; d++) {
+                sb.append(INDENT);
+            }
+            sb.append(record.signature)
+                    .append(" span=").append(toHex(record.spanId))
+                    .append(" parent=").append(toHex(record.parentId))
+                    .append(" total=").append(record.totalNanos)
+                    .append("ns self=").append(record.selfNanos)
+                    .append("ns");
+            if (record.failed) {
+                sb.append(" failed");
+            }
+            sb.append('\n');
+            record.signature = null;
+        }
+        stack.recordCount = from;
+        String text = ParameterRenderer.releaseBuilder(sb, Integer.MAX_VALUE);
+        synchronized (EXPORT_LOCK) {
+            if (exportWriter == null) {
+                return;
+            }
+            try {
+                exportWriter.write(text);
+                exportWriter.flush();
+            } catch (IOException e) {
+                // tracing must never break the traced code
+            }
+        }
+    }
+
+    /**
+     * Captures the context of the current span.
+     *
+     * @return the trace id, the span id and the depth of child spans (the
+     *         trace id is 0 if there is no current span)
+     */
+    private static long[] captureContext() {
+        SpanStack stack = STACKS.get();
+        if (stack.size > stack.baseSize) {
+            Span current = stack.spans[stack.size - 1];
+            return new long[]{current.traceId, current.spanId,
+                current.depth + 1};
+        }
+        return new long[]{stack.baseTraceId, stack.baseSpanId,
+            stack.baseDepth};
+    }
+
+    /**
+     * Makes the given stack continue the given captured context.
+     *
+     * @param stack   the span stack of the current thread
+     * @param context the captured context
+     * @return the previous context of the stack
+     */
+    private static long[] continueContext(final SpanStack stack,
+                                          final long[] context) {
+        long[] saved = new long[]{stack.baseTraceId, stack.baseSpanId,
+            stack.baseDepth, stack.baseSize, stack.baseRecordCount};
+        stack.baseTraceId = context[0];
+        stack.baseSpanId = context[1];
+        stack.baseDepth = (int) context[2];
+        stack.baseSize = stack.size;
+        stack.baseRecordCount = stack.recordCount;
+        return saved;
+    }
+
+    /**
+     * Restores the saved context of the given stack. Spans left open by the
+     * task are discarded.
+     *
+     * @param stack the span stack of the current thread
+     * @param saved the saved context
+     */
+    private static void restoreContext(final SpanStack stack,
+                                       final long[] saved) {
+        stack.size = stack.baseSize;
+        stack.recordCount = stack.baseRecordCount;
+        stack.baseTraceId = saved[0];
+        stack.baseSpanId = saved[1];
+        stack.baseDepth = (int) saved[2];
+        stack.baseSize = (int) saved[3];
+        stack.baseRecordCount = (int) saved[4];
+    }
+
+    /**
+     * Generates a new random non-zero id.
+     *
+     * @return the generated id
+     */
+    private static long newId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * Converts the given id to a fixed-length hexadecimal string.
+     *
+     * @param id the id
+     * @return the hexadecimal representation of the id
+     */
+    static String toHex(final long id) {
+        String hex = Long.toHexString(id);
+        if (hex.length() == Long.SIZE / 4) {
+            return hex;
+        }
+        StringBuilder sb = new StringBuilder(Long.SIZE / 4);
+        for (int i = hex.length(); i < Long.SIZE / 4; i++) {
+            sb.append('0');
+        }
+        return sb.append(hex).toString();
+    }
+}
@@ -0,0 +1,257 @@
+package com.topcoder.commons.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This is a helper class that caches prepared statements per connection for
+ * JDBCUtility. Every connection has its own LRU cache of statements keyed by
+ * the query string; statements evicted from the cache are closed. A cached
+ * statement is lent to one caller at a time: if it's already in use (e.g. its
+ * result set is still being iterated), an uncached statement is prepared.
+ * <p>
+ * The caches are referenced strongly (the cached statements reference their
+ * connections anyway). The caches of closed connections are removed when a
+ * cache is created for another connection; the cache of a connection that is
+ * abandoned without being closed is kept until clear() is called for it. The
+ * caches of pooled connections are kept while the connections are idle and
+ * removed by ConnectionPool when it closes them.
+ * <p>
+ * Thread Safety: this class is thread safe.
+ */
+final class StatementCache {
+    /**
+     * The statement caches per connection. Guarded by itself.
+     */
+    private static final Map<Connection, StatementCache> CACHES =
+            new IdentityHashMap<Connection, StatementCache>();
+
+    /**
+     * The cached statements (in LRU order). Guarded by this instance.
+     */
+    private final LinkedHashMap<String, PreparedStatement> statements =
+            new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+
+    /**
+     * The cached statements that are currently lent. Guarded by this
+     * instance.
+     */
+    private final Map<PreparedStatement, Boolean> lent =
+            new IdentityHashMap<PreparedStatement, Boolean>();
+
+    /**
+     * Creates the cache.
+     */
+    private StatementCache() {
+    }
+
+    /**
+     * Retrieves a prepared statement for the given query. The statement must
+     * be returned with release() when it's not used anymore.
+     *
+     * @param connection  the database connection
+     * @param queryString the query string
+     * @param maxSize     the maximum number of cached statements per
+     *                    connection (0 if statements should not be cached)
+     * @return the prepared statement (not null)
+     * @throws SQLException if some error occurred when preparing the
+     *                      statement
+     */
+    static PreparedStatement prepare(final Connection connection,
+                                     final String queryString,
+                                     final int maxSize) throws SQLException {
+        if (maxSize <= 0) {
+            return connection.prepareStatement(queryString);
+        }
+        StatementCache cache;
+        synchronized (CACHES) {
+            cache = CACHES.get(connection);
+            if (cache == null) {
+                removeClosedConnections();
+                cache = new StatementCache();
+                CACHES.put(connection, cache);
+            }
+        }
+        return cache.borrow(connection, queryString, maxSize);
+    }
+
+    /**
+     * Checks whether the given connection has a statement cache.
+     *
+     * @param connection the database connection
+     * @return true if the connection has a cache, false otherwise
+     */
+    static boolean hasCache(final Connection connection) {
+        synchronized (CACHES) {
+            return CACHES.containsKey(connection);
+        }
+    }
+
+    /**
+     * Retrieves the number of connections that have statement caches.
+     *
+     * @return the number of caches
+     */
+    static int getCacheCount() {
+        synchronized (CACHES) {
+            return CACHES.size();
+        }
+    }
+
+    /**
+     * Returns the statement retrieved with prepare(). Uncached statements
+     * are closed; cached statements are kept open for reuse.
+     *
+     * @param connection the database connection
+     * @param statement  the statement to be released (can be null)
+     */
+    static void release(final Connection connection,
+                        final PreparedStatement statement) {
+        if (statement == null) {
+            return;
+        }
+        StatementCache cache;
+        synchronized (CACHES) {
+            cache = CACHES.get(connection);
+        }
+        if (cache == null || !cache.giveBack(statement)) {
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Closes all cached statements of the given connection and removes its
+     * cache.
+     *
+     * @param connection the database connection
+     */
+    static void clear(final Connection connection) {
+        StatementCache cache;
+        synchronized (CACHES) {
+            cache = CACHES.remove(connection);
+        }
+        if (cache != null) {
+            cache.closeAll();
+        }
+    }
+
+    /**
+     * Removes the caches of closed connections (and closes their statements).
+     * Connections whose state can't be checked are treated as closed; pooled
+     * connections are skipped. Must be called with the lock of CACHES held.
+     */
+    private static void removeClosedConnections() {
+        Iterator<Map.Entry<Connection, StatementCache>> it =
+                CACHES.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Connection, StatementCache> entry = it.next();
+            if (ConnectionPool.isPooledConnection(entry.getKey())) {
+                continue;
+            }
+            boolean closed;
+            try {
+                closed = entry.getKey().isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                StatementCache cache = entry.getValue();
+                it.remove();
+                cache.closeAll();
+            }
+        }
+    }
+
+    /**
+     * Lends the cached statement for the given query (preparing it if
+     * necessary).
+     *
+     * @param connection  the database connection
+     * @param queryString the query string
+     * @param maxSize     the maximum number of cached statements
+     * @return the prepared statement (not null)
+     * @throws SQLException if some error occurred when preparing the
+     *                      statement
+     */
+    private synchronized PreparedStatement borrow(final Connection connection,
+                                                  final String queryString,
+                                                  final int maxSize)
+            throws SQLException {
+        PreparedStatement statement = statements.get(queryString);
+        if (statement != null && statement.isClosed()) {
+            statements.remove(queryString);
+            statement = null;
+        }
+        if (statement != null) {
+            if (lent.containsKey(statement)) {
+                return connection.prepareStatement(queryString);
+            }
+            lent.put(statement, Boolean.TRUE);
+            return statement;
+        }
+        statement = connection.prepareStatement(queryString);
+        statements.put(queryString, statement);
+        lent.put(statement, Boolean.TRUE);
+        Iterator<PreparedStatement> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            PreparedStatement eldest = it.next();
+            if (!lent.containsKey(eldest)) {
+                it.remove();
+                closeQuietly(eldest);
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Takes back the lent statement.
+     *
+     * @param statement the statement
+     * @return true if the statement is cached, false otherwise
+     */
+    private synchronized boolean giveBack(final PreparedStatement statement) {
+        if (lent.remove(statement) == null) {
+            return false;
+        }
+        if (!statements.containsValue(statement)) {
+            return false;
+        }
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+        } catch (SQLException e) {
+            statements.values().remove(statement);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    private synchronized void closeAll() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        lent.clear();
+    }
+
+    /**
+     * Closes the given statement ignoring errors.
+     *
+     * @param statement the statement to be closed
+     */
+    private static void closeQuietly(final PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.topcoder.commons.utils;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This is a utility class that validates streamed data lazily. The returned
+ * iterators, spliterators and streams check every element with the given
+ * value rule (see ValueRules) when the element is pulled from the source,
+ * so the data doesn't have to be buffered in a collection before it can be
+ * validated, and the validation doesn't need a separate pass.
+ * <p>
+ * A violation is reported with an exception of the given (unchecked) type
+ * whose message contains the ordinal of the element (0-based), e.g.
+ * "values[3] should not be null". Parallel streams are split through the
+ * source spliterator; the ordinals stay exact when the source is SUBSIZED
+ * (e.g. lists and arrays), otherwise the elements of split parts are
+ * reported as "values[?]". When the violation is found by a worker thread of
+ * a parallel stream, the stream may rethrow it as a new exception of the
+ * same type caused by the original one (as ForkJoinPool does for all
+ * exceptions).
+ * <p>
+ * Thread Safety: this class is thread safe. The returned iterators and
+ * spliterators are not thread safe (as usual for them); parallel streams
+ * use a separate spliterator per split.
+ */
+public final class StreamValidationUtility {
+    /**
+     * Empty private constructor.
+     */
+    private StreamValidationUtility() {
+    }
+
+    /**
+     * Creates an iterator that validates the elements of the given iterator
+     * as they are retrieved.
+     *
+     * @param <E>            the type of the elements
+     * @param <T>            type of exception
+     * @param iterator       the source iterator
+     * @param rule           the rule checked for every element
+     * @param name           the name associated with the elements
+     * @param exceptionClass the exception class
+     * @return the validating iterator (not null)
+     * @throws IllegalArgumentException if iterator, rule or exceptionClass is
+     *                                  null
+     */
+    public static <E, T extends RuntimeException> Iterator<E> validate(
+            final Iterator<E> iterator,
+            final ValueRule rule,
+            final String name,
+            final Class<T> exceptionClass) {
+        checkArguments(iterator, "iterator", rule, exceptionClass);
+        return new ValidatingIterator<E>(iterator, rule, name,
+                exceptionClass);
+    }
+
+    /**
+     * Creates a spliterator that validates the elements of the given
+     * spliterator as they are traversed.
+     *
+     * @param <E>            the type of the elements
+     * @param <T>            type of exception
+     * @param spliterator    the source spliterator
+     * @param rule           the rule checked for every element
+     * @param name           the name associated with the elements
+     * @param exceptionClass the exception class
+     * @return the validating spliterator (not null)
+     * @throws IllegalArgumentException if spliterator, rule or
+     *                                  exceptionClass is null
+     */
+    public static <E, T extends RuntimeException> Spliterator<E> validate(
+            final Spliterator<E> spliterator,
+            final ValueRule rule,
+            final String name,
+            final Class<T> exceptionClass) {
+        checkArguments(spliterator, "spliterator", rule, exceptionClass);
+        return new ValidatingSpliterator<E>(spliterator, 0, rule, name,
+                exceptionClass);
+    }
+
+    /**
+     * Creates a stream that validates the elements of the given stream as
+     * they are consumed. The returned stream is parallel if the given stream
+     * is parallel; closing it closes the given stream.
+     *
+     * @param <E>            the type of the elements
+     * @param <T>            type of exception
+     * @param stream         the source stream
+     * @param rule           the rule checked for every element
+     * @param name           the name associated with the elements
+     * @param exceptionClass the exception class
+     * @return the validating stream (not null)
+     * @throws IllegalArgumentException if stream, rule or exceptionClass is
+     *                                  null
+     */
+    public static <E, T extends RuntimeException> Stream<E> validate(
+            final Stream<E> stream,
+            final ValueRule rule,
+            final String name,
+            final Class<T> exceptionClass) {
+        checkArguments(stream, "stream", rule, exceptionClass);
+        Spliterator<E> spliterator = new ValidatingSpliterator<E>(
+                stream.spliterator(), 0, rule, name, exceptionClass);
+        return StreamSupport.stream(spliterator, stream.isParallel())
+                .onClose(new Runnable() {
+                    public void run() {
+                        stream.close();
+                    }
+                });
+    }
+
+    /**
+     * Checks the given element and throws the exception if it violates the
+     * rule.
+     *
+     * @param element        the element
+     * @param ordinal        the ordinal of the element (-1 if unknown)
+     * @param rule           the rule
+     * @param name           the name associated with the elements
+     * @param exceptionClass the exception class
+     * @throws RuntimeException of the given type if the element violates
+     *                          the rule
+     */
+    static void checkElement(final Object element, final long ordinal,
+                             final ValueRule rule, final String name,
+                             final Class<? extends RuntimeException>
+                                     exceptionClass) {
+        String violation = rule.check(element);
+        if (violation == null) {
+            return;
+        }
+        String message = name + "[" + (ordinal < 0 ? "?"
+                : String.valueOf(ordinal)) + "] " + violation;
+        RuntimeException exception;
+        try {
+            exception = ExceptionHelper.constructException(exceptionClass,
+                    message);
+        } catch (Exception e) {
+            exception = new IllegalStateException(message, e);
+        }
+        throw exception;
+    }
+
+    /**
+     * Checks the arguments of the factory methods.
+     *
+     * @param source         the source of the elements
+     * @param sourceName     the name of the source argument
+     * @param rule           the rule
+     * @param exceptionClass the exception class
+     * @throws IllegalArgumentException if any argument is null
+     */
+    private static void checkArguments(final Object source,
+                                       final String sourceName,
+                                       final ValueRule rule,
+                                       final Class<?> exceptionClass) {
+        if (source == null) {
+            throw new IllegalArgumentException(sourceName
+                    + " should not be null");
+        }
+        if (rule == null) {
+            throw new IllegalArgumentException("rule should not be null");
+        }
+        if (exceptionClass == null) {
+            throw new IllegalArgumentException(
+                    "exceptionClass should not be null");
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This class represents a structured log event produced by Log4jUtility when
+ * structured events are enabled. It's passed to Log4j as the message object,
+ * so custom layouts and appenders can read the fields directly; its string
+ * representation is a compact single-line JSON object, so text appenders
+ * write machine readable lines that don't need to be parsed with regular
+ * expressions.
+ * <p>
+ * The JSON text is rendered once, when the event is created, into a reusable
+ * thread local builder.
+ * <p>
+ * Thread Safety: this class is immutable and thread safe.
+ */
+public final class StructuredLogEvent {
+    /**
+     * The phase of method entrance events.
+     */
+    public static final String PHASE_ENTRANCE = "entrance";
+
+    /**
+     * The phase of method exit events.
+     */
+    public static final String PHASE_EXIT = "exit";
+
+    /**
+     * The phase of exception events.
+     */
+    public static final String PHASE_EXCEPTION = "exception";
+
+    /**
+     * The event phase.
+     */
+    private final String phase;
+
+    /**
+     * The signature of the method.
+     */
+    private final String signature;
+
+    /**
+     * The name of the thread that produced the event.
+     */
+    private final String threadName;
+
+    /**
+     * The method execution time in nanoseconds (-1 if not available).
+     */
+    private final long durationNanos;
+
+    /**
+     * The method execution time in milliseconds (-1 if not available or if
+     * it's available in nanoseconds).
+     */
+    private final long durationMillis;
+
+    /**
+     * The name of the exception class (null if not available).
+     */
+    private final String exceptionClass;
+
+    /**
+     * The JSON representation of the event.
+     */
+    private final String json;
+
+    /**
+     * Creates the event.
+     *
+     * @param phase          the event phase
+     * @param signature      the signature of the method
+     * @param threadName     the name of the thread that produced the event
+     * @param durationNanos  the method execution time in nanoseconds (-1 if
+     *                       not available)
+     * @param durationMillis the method execution time in milliseconds (-1
+     *                       if not available)
+     * @param exceptionClass the name of the exception class (null if not
+     *                       available)
+     * @param json           the JSON representation of the event
+     */
+    private StructuredLogEvent(final String phase, final String signature,
+                               final String threadName,
+                               final long durationNanos,
+                               final long durationMillis,
+                               final String exceptionClass,
+                               final String json) {
+        this.phase = phase;
+        this.signature = signature;
+        this.threadName = threadName;
+        this.durationNanos = durationNanos;
+        this.durationMillis = durationMillis;
+        this.exceptionClass = exceptionClass;
+        this.json = json;
+    }
+
+    /**
+     * Creates the method entrance event. It's assumed that paramNames and
+     * paramValues contain the same number of elements.
+     *
+     * @param signature   the signature that uniquely identifies the method
+     * @param paramNames  the names of input parameters (null if method
+     *                    doesn't accept any parameters)
+     * @param paramValues the values of input parameters
+     * @return the created event (not null)
+     */
+    static StructuredLogEvent entrance(final String signature,
+                                       final String[] paramNames,
+                                       final Object[] paramValues) {
+        String threadName = Thread.currentThread().getName();
+        StringBuilder sb = startEvent(PHASE_ENTRANCE, signature, threadName);
+        if (paramNames != null) {
+            JsonHelper.appendName(sb, "params");
+            sb.append('{');
+            for (int i = 0; i < paramNames.length; i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+                JsonHelper.appendString(sb, paramNames[i]);
+                sb.append(':');
+                if (ParameterRenderer.isRedacted(paramNames[i])) {
+                    JsonHelper.appendString(sb, "***");
+                } else {
+                    JsonHelper.appendValue(sb, paramValues[i]);
+                }
+            }
+            sb.append('}');
+        }
+        return new StructuredLogEvent(PHASE_ENTRANCE, signature, threadName,
+                -1, -1, null, finishEvent(sb));
+    }
+
+    /**
+     * Creates the method exit event.
+     *
+     * @param signature     the signature that uniquely identifies the method
+     * @param value         the value returned from the method (should
+     *                      contain 1 element with the returned value, or
+     *                      should be null if the method returns void)
+     * @param durationNanos  the method execution time in nanoseconds (-1 if
+     *                       not available)
+     * @param durationMillis the method execution time in milliseconds (-1
+     *                       if not available), used only when the time in
+     *                       nanoseconds is not available
+     * @param span           the closed span (null if span mode is disabled)
+     * @return the created event (not null)
+     */
+    static StructuredLogEvent exit(final String signature,
+                                   final Object[] value,
+                                   final long durationNanos,
+                                   final long durationMillis,
+                                   final SpanTracer.Span span) {
+        String threadName = Thread.currentThread().getName();
+        StringBuilder sb = startEvent(PHASE_EXIT, signature, threadName);
+        if (value != null) {
+            JsonHelper.appendName(sb, "return");
+            JsonHelper.appendValue(sb, value[0]);
+        }
+        long millis = -1;
+        if (durationNanos >= 0) {
+            JsonHelper.appendName(sb, "durationNanos");
+            sb.append(durationNanos);
+        } else if (durationMillis >= 0) {
+            millis = durationMillis;
+            JsonHelper.appendName(sb, "durationMillis");
+            sb.append(millis);
+        }
+        appendSpan(sb, span);
+        return new StructuredLogEvent(PHASE_EXIT, signature, threadName,
+                durationNanos, millis, null, finishEvent(sb));
+    }
+
+    /**
+     * Creates the exception event.
+     *
+     * @param signature the signature that uniquely identifies the method
+     * @param exception the exception to be logged (assumed to be not null)
+     * @param span      the closed span (null if span mode is disabled)
+     * @return the created event (not null)
+     */
+    static StructuredLogEvent exception(final String signature,
+                                        final Throwable exception,
+                                        final SpanTracer.Span span) {
+        String threadName = Thread.currentThread().getName();
+        String exceptionClass = exception.getClass().getName();
+        StringBuilder sb = startEvent(PHASE_EXCEPTION, signature, threadName);
+        JsonHelper.appendName(sb, "exception");
+        JsonHelper.appendString(sb, exceptionClass);
+        JsonHelper.appendName(sb, "message");
+        JsonHelper.appendString(sb, exception.getMessage());
+        appendSpan(sb, span);
+        return new StructuredLogEvent(PHASE_EXCEPTION, signature, threadName,
+                -1, -1, exceptionClass, finishEvent(sb));
+    }
+
+    /**
+     * Starts rendering of the event JSON.
+     *
+     * @param phase      the event phase
+     * @param signature  the signature of the method
+     * @param threadName the name of the thread that produced the event
+     * @return the builder with the common fields appended
+     */
+    private static StringBuilder startEvent(final String phase,
+                                            final String signature,
+                                            final String threadName) {
+        StringBuilder sb = ParameterRenderer.acquireBuilder();
+        sb.append('{');
+        JsonHelper.appendName(sb, "signature");
+        JsonHelper.appendString(sb, signature);
+        JsonHelper.appendName(sb, "phase");
+        sb.append('"').append(phase).append('"');
+        JsonHelper.appendName(sb, "thread");
+        JsonHelper.appendString(sb, threadName);
+        return sb;
+    }
+
+    /**
+     * Appends the span fields (if span is present).
+     *
+     * @param sb   the builder
+     * @param span the closed span (null if span mode is disabled)
+     */
+    private static void appendSpan(final StringBuilder sb,
+                                   final SpanTracer.Span span) {
+        if (span == null) {
+            return;
+        }
+        JsonHelper.appendName(sb, "traceId");
+        JsonHelper.appendString(sb, SpanTracer.toHex(span.getTraceId()));
+        JsonHelper.appendName(sb, "spanId");
+        JsonHelper.appendString(sb, SpanTracer.toHex(span.getSpanId()));
+        JsonHelper.appendName(sb, "parentId");
+        JsonHelper.appendString(sb, SpanTracer.toHex(span.getParentId()));
+        JsonHelper.appendName(sb, "depth");
+        sb.append(span.getDepth());
+        JsonHelper.appendName(sb, "selfNanos");
+        sb.append(span.getSelfNanos());
+    }
+
+    /**
+     * Finishes rendering of the event JSON.
+     *
+     * @param sb the builder retrieved from startEvent()
+     * @return the event JSON
+     */
+    private static String finishEvent(final StringBuilder sb) {
+        sb.append('}');
+        return ParameterRenderer.releaseBuilder(sb, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves the event phase (one of PHASE_ENTRANCE, PHASE_EXIT,
+     * PHASE_EXCEPTION).
+     *
+     * @return the event phase
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    /**
+     * Retrieves the signature of the method.
+     *
+     * @return the signature of the method
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    /**
+     * Retrieves the name of the thread that produced the event.
+     *
+     * @return the thread name
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Retrieves the method execution time in nanoseconds (available when
+     * span mode is enabled).
+     *
+     * @return the method execution time (-1 if not available)
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Retrieves the method execution time in milliseconds (available when
+     * only the entrance timestamp was known, i.e. the time in nanoseconds is
+     * not available).
+     *
+     * @return the method execution time (-1 if not available)
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Retrieves the name of the exception class.
+     *
+     * @return the exception class name (null if not available)
+     */
+    public String getExceptionClass() {
+        return exceptionClass;
+    }
+
+    /**
+     * Retrieves the JSON representation of the event.
+     *
+     * @return the JSON representation of the event
+     */
+    @Override
+    public String toString() {
+        return json;
+    }
+}
@@ -0,0 +1,515 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This enumeration represents the text formats that can be recognized by
+ * hand-written scanners, without regular expressions. It's used by
+ * ValidationUtility.checkFormat() and ValueRules.format().
+ * <p>
+ * The scanners make a single pass over the sequence and never allocate. Only
+ * ASCII characters are accepted by the formats.
+ * <p>
+ * Thread Safety: this enumeration is immutable and thread safe.
+ */
+public enum TextFormat {
+    /**
+     * The UUID in the canonical form, e.g.
+     * "123e4567-e89b-12d3-a456-426614174000" (hexadecimal digits of both
+     * cases are accepted).
+     */
+    UUID("UUID") {
+        /**
+         * Checks whether the given sequence is in this format.
+         *
+         * @param value the sequence (not null)
+         * @return true if the sequence is in this format, false otherwise
+         */
+        boolean scan(final CharSequence value) {
+            if (value.length() != UUID_LENGTH) {
+                return false;
+            }
+            for (int i = 0; i < UUID_LENGTH; i++) {
+                char c = value.charAt(i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') {
+                        return false;
+                    }
+                } else if (hexValue(c) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    },
+
+    /**
+     * The email address of the local@domain shape. The local part consists
+     * of dot separated atoms of letters, digits and the characters
+     * "!#$%&'*+/=?^_`{|}~-" (at most 64 characters); the domain consists of
+     * at least two dot separated labels of letters, digits and inner hyphens
+     * (at most 63 characters per label). The address is at most 254
+     * characters long.
+     */
+    EMAIL("email address") {
+        /**
+         * Checks whether the given sequence is in this format.
+         *
+         * @param value the sequence (not null)
+         * @return true if the sequence is in this format, false otherwise
+         */
+        boolean scan(final CharSequence value) {
+            int length = value.length();
+            if (length > MAX_EMAIL_LENGTH) {
+                return false;
+            }
+            int i = 0;
+            boolean atomStart = true;
+            while (i < length && value.charAt(i) != '@') {
+                char c = value.charAt(i);
+                if (c == '.') {
+                    if (atomStart) {
+                        return false;
+                    }
+                    atomStart = true;
+                } else if (isLetterOrDigit(c)
+                        || EMAIL_SPECIALS.indexOf(c) >= 0) {
+                    atomStart = false;
+                } else {
+                    return false;
+                }
+                i++;
+            }
+            if (i == length || atomStart || i > MAX_LOCAL_PART_LENGTH) {
+                return false;
+            }
+            return scanDomain(value, i + 1);
+        }
+    },
+
+    /**
+     * The ISO-8601 calendar date in the extended form, e.g. "2010-12-31"
+     * (the day should exist in the month).
+     */
+    ISO_DATE("ISO-8601 date") {
+        /**
+         * Checks whether the given sequence is in this format.
+         *
+         * @param value the sequence (not null)
+         * @return true if the sequence is in this format, false otherwise
+         */
+        boolean scan(final CharSequence value) {
+            if (value.length() != ISO_DATE_LENGTH || value.charAt(4) != '-'
+                    || value.charAt(7) != '-') {
+                return false;
+            }
+            int year = parseDigits(value, 0, 4);
+            int month = parseDigits(value, 5, 7);
+            int day = parseDigits(value, 8, 10);
+            if (year < 0 || month < 1 || month > 12 || day < 1) {
+                return false;
+            }
+            int days = DAYS_IN_MONTH[month - 1];
+            if (month == 2 && year % 4 == 0
+                    && (year % 100 != 0 || year % 400 == 0)) {
+                days++;
+            }
+            return day <= days;
+        }
+    },
+
+    /**
+     * The IPv4 address in the dotted decimal form, e.g. "192.168.0.1" (the
+     * octets should not have leading zeros).
+     */
+    IPV4("IPv4 address") {
+        /**
+         * Checks whether the given sequence is in this format.
+         *
+         * @param value the sequence (not null)
+         * @return true if the sequence is in this format, false otherwise
+         */
+        boolean scan(final CharSequence value) {
+            return scanIpv4(value, 0);
+        }
+    },
+
+    /**
+     * The IPv6 address in the text form of RFC 4291, e.g. "2001:db8::1" or
+     * "::ffff:192.168.0.1" (zone identifiers aren't accepted).
+     */
+    IPV6("IPv6 address") {
+        /**
+         * Checks whether the given sequence is in this format.
+         *
+         * @param value the sequence (not null)
+         * @return true if the sequence is in this format, false otherwise
+         */
+        boolean scan(final CharSequence value) {
+            return scanIpv6(value);
+        }
+    },
+
+    /**
+     * The IPv4 or IPv6 address.
+     */
+    IP_ADDRESS("IP address") {
+        /**
+         * Checks whether the given sequence is in this format.
+         *
+         * @param value the sequence (not null)
+         * @return true if the sequence is in this format, false otherwise
+         */
+        boolean scan(final CharSequence value) {
+            return scanIpv4(value, 0) || scanIpv6(value);
+        }
+    },
+
+    /**
+     * The integer number: optional sign followed by decimal digits, e.g.
+     * "-42" (the value isn't limited).
+     */
+    INTEGER("integer number") {
+        /**
+         * Checks whether the given sequence is in this format.
+         *
+         * @param value the sequence (not null)
+         * @return true if the sequence is in this format, false otherwise
+         */
+        boolean scan(final CharSequence value) {
+            int i = skipSign(value, 0);
+            int end = skipDigits(value, i);
+            return end > i && end == value.length();
+        }
+    },
+
+    /**
+     * The decimal number: optional sign, decimal digits, optional fraction
+     * and optional exponent, e.g. "-1.5e10" (the value isn't limited).
+     */
+    DECIMAL("decimal number") {
+        /**
+         * Checks whether the given sequence is in this format.
+         *
+         * @param value the sequence (not null)
+         * @return true if the sequence is in this format, false otherwise
+         */
+        boolean scan(final CharSequence value) {
+            int length = value.length();
+            int start = skipSign(value, 0);
+            int i = skipDigits(value, start);
+            if (i == start) {
+                return false;
+            }
+            if (i < length && value.charAt(i) == '.') {
+                int fraction = i + 1;
+                i = skipDigits(value, fraction);
+                if (i == fraction) {
+                    return false;
+                }
+            }
+            if (i < length && (value.charAt(i) == 'e'
+                    || value.charAt(i) == 'E')) {
+                int exponent = skipSign(value, i + 1);
+                i = skipDigits(value, exponent);
+                if (i == exponent) {
+                    return false;
+                }
+            }
+            return i == length;
+        }
+    };
+
+    /**
+     * The length of a UUID.
+     */
+    private static final int UUID_LENGTH = 36;
+
+    /**
+     * The maximum length of an email address.
+     */
+    private static final int MAX_EMAIL_LENGTH = 254;
+
+    /**
+     * The maximum length of the local part of an email address.
+     */
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+
+    /**
+     * The maximum length of a domain label.
+     */
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    /**
+     * The special characters allowed in the local part of an email address.
+     */
+    private static final String EMAIL_SPECIALS = "!#$%&'*+/=?^_`{|}~-";
+
+    /**
+     * The length of an ISO-8601 date.
+     */
+    private static final int ISO_DATE_LENGTH = 10;
+
+    /**
+     * The number of days in the months of a common year.
+     */
+    private static final int[] DAYS_IN_MONTH =
+        {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /**
+     * The maximum value of an IPv4 octet.
+     */
+    private static final int MAX_OCTET = 255;
+
+    /**
+     * The number of 16-bit groups in an IPv6 address.
+     */
+    private static final int IPV6_GROUPS = 8;
+
+    /**
+     * The description of the format used in validation messages.
+     */
+    private final String description;
+
+    /**
+     * Creates the format.
+     *
+     * @param description the description of the format
+     */
+    private TextFormat(final String description) {
+        this.description = description;
+    }
+
+    /**
+     * Retrieves the description of the format used in validation messages,
+     * e.g. "UUID".
+     *
+     * @return the description of the format
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Checks whether the given sequence is in this format.
+     *
+     * @param value the sequence to be checked
+     * @return true if the sequence is in this format, false otherwise
+     * @throws IllegalArgumentException if value is null
+     */
+    public boolean matches(final CharSequence value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value should not be null");
+        }
+        return scan(value);
+    }
+
+    /**
+     * Checks whether the given sequence is in this format.
+     *
+     * @param value the sequence (not null)
+     * @return true if the sequence is in this format, false otherwise
+     */
+    abstract boolean scan(CharSequence value);
+
+    /**
+     * Retrieves the value of the given hexadecimal digit.
+     *
+     * @param c the character
+     * @return the value of the digit, -1 if the character isn't a hexadecimal
+     *         digit
+     */
+    private static int hexValue(final char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the given character is an ASCII letter or digit.
+     *
+     * @param c the character
+     * @return true if the character is an ASCII letter or digit
+     */
+    private static boolean isLetterOrDigit(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Parses the decimal digits in the given part of the sequence.
+     *
+     * @param value the sequence
+     * @param from  the index of the first digit
+     * @param to    the index after the last digit
+     * @return the parsed value, -1 if the part contains other characters
+     */
+    private static int parseDigits(final CharSequence value, final int from,
+                                   final int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Skips the optional sign at the given index.
+     *
+     * @param value the sequence
+     * @param index the index
+     * @return the index after the sign
+     */
+    private static int skipSign(final CharSequence value, final int index) {
+        if (index < value.length()) {
+            char c = value.charAt(index);
+            if (c == '+' || c == '-') {
+                return index + 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Skips the decimal digits starting at the given index.
+     *
+     * @param value the sequence
+     * @param index the index
+     * @return the index of the first character that isn't a digit
+     */
+    private static int skipDigits(final CharSequence value, final int index) {
+        int i = index;
+        while (i < value.length() && value.charAt(i) >= '0'
+                && value.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks whether the part of the sequence starting at the given index is
+     * a domain name of at least two labels.
+     *
+     * @param value the sequence
+     * @param from  the index of the domain name
+     * @return true if the part is a domain name, false otherwise
+     */
+    private static boolean scanDomain(final CharSequence value,
+                                      final int from) {
+        int length = value.length();
+        int labels = 0;
+        int labelStart = from;
+        for (int i = from; i <= length; i++) {
+            char c = i < length ? value.charAt(i) : '.';
+            if (c == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH
+                        || value.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labels++;
+                labelStart = i + 1;
+            } else if (c == '-') {
+                if (i == labelStart) {
+                    return false;
+                }
+            } else if (!isLetterOrDigit(c)) {
+                return false;
+            }
+        }
+        return labels >= 2;
+    }
+
+    /**
+     * Checks whether the part of the sequence starting at the given index is
+     * an IPv4 address.
+     *
+     * @param value the sequence
+     * @param from  the index of the address
+     * @return true if the part is an IPv4 address, false otherwise
+     */
+    private static boolean scanIpv4(final CharSequence value,
+                                    final int from) {
+        int length = value.length();
+        int i = from;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (i >= length || value.charAt(i) != '.') {
+                    return false;
+                }
+                i++;
+            }
+            int end = skipDigits(value, i);
+            int digits = end - i;
+            if (digits == 0 || digits > 3
+                    || (digits > 1 && value.charAt(i) == '0')
+                    || parseDigits(value, i, end) > MAX_OCTET) {
+                return false;
+            }
+            i = end;
+        }
+        return i == length;
+    }
+
+    /**
+     * Checks whether the sequence is an IPv6 address.
+     *
+     * @param value the sequence
+     * @return true if the sequence is an IPv6 address, false otherwise
+     */
+    private static boolean scanIpv6(final CharSequence value) {
+        int length = value.length();
+        int groups = 0;
+        boolean compressed = false;
+        int i = 0;
+        if (length >= 2 && value.charAt(0) == ':' && value.charAt(1) == ':') {
+            compressed = true;
+            i = 2;
+        } else if (length > 0 && value.charAt(0) == ':') {
+            return false;
+        }
+        while (i < length) {
+            int start = i;
+            while (i < length && hexValue(value.charAt(i)) >= 0) {
+                i++;
+            }
+            if (i < length && value.charAt(i) == '.') {
+                // embedded IPv4 address takes two groups and ends the address
+                int total = groups + 2;
+                return (compressed ? total < IPV6_GROUPS
+                        : total == IPV6_GROUPS) && scanIpv4(value, start);
+            }
+            int digits = i - start;
+            if (digits == 0 || digits > 4) {
+                return false;
+            }
+            groups++;
+            if (i == length) {
+                break;
+            }
+            if (value.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < length && value.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            } else if (i == length) {
+                return false;
+            }
+        }
+        return compressed ? groups < IPV6_GROUPS : groups == IPV6_GROUPS;
+    }
+}
@@ -0,0 +1,275 @@
+package com.topcoder.commons.utils;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is a utility class that holds the sampling policies used by
+ * Log4jUtility for method entrance/exit tracing. A policy can be set per
+ * method signature; the default policy (if any) is used for all other
+ * signatures. When no policy is configured, every call is logged and the
+ * sampler costs a single volatile read per call.
+ * <p>
+ * The entrance decision of every sampled call is kept in a thread local
+ * stack until the method exit (or exception) is logged, so the exit of a
+ * call is logged exactly when its entrance was.
+ * <p>
+ * Thread Safety: this class is thread safe.
+ */
+public final class TraceSampler {
+    /**
+     * The initial capacity of the per-thread call stacks.
+     */
+    private static final int INITIAL_DEPTH = 16;
+
+    /**
+     * The maximum depth of the per-thread call stacks.
+     */
+    private static final int MAX_DEPTH = 4096;
+
+    /**
+     * The policies per method signature.
+     */
+    private static final ConcurrentMap<String, SamplingPolicy> POLICIES =
+            new ConcurrentHashMap<String, SamplingPolicy>();
+
+    /**
+     * The per-thread call stacks.
+     */
+    private static final ThreadLocal<CallStack> STACKS =
+            new ThreadLocal<CallStack>() {
+                @Override
+                protected CallStack initialValue() {
+                    return new CallStack();
+                }
+            };
+
+    /**
+     * The policy used for signatures without own policy (null if such calls
+     * are always logged).
+     */
+    private static volatile SamplingPolicy defaultPolicy;
+
+    /**
+     * True if at least one policy is configured.
+     */
+    private static volatile boolean active;
+
+    /**
+     * This class represents the stack of sampling decisions of the calls
+     * being executed by a thread.
+     */
+    private static final class CallStack {
+        /**
+         * The method signatures.
+         */
+        private String[] signatures = new String[INITIAL_DEPTH];
+
+        /**
+         * The entrance decisions.
+         */
+        private boolean[] sampled = new boolean[INITIAL_DEPTH];
+
+        /**
+         * The entrance timestamps (System.nanoTime() values).
+         */
+        private long[] starts = new long[INITIAL_DEPTH];
+
+        /**
+         * The current depth.
+         */
+        private int depth;
+
+        /**
+         * Pushes the call to the stack. Nothing is done if the stack is
+         * full.
+         *
+         * @param signature the method signature
+         * @param decision  the entrance decision
+         * @param start     the entrance timestamp
+         */
+        void push(final String signature, final boolean decision,
+                  final long start) {
+            if (depth == signatures.length) {
+                if (depth == MAX_DEPTH) {
+                    return;
+                }
+                int capacity = depth * 2;
+                String[] newSignatures = new String[capacity];
+                boolean[] newSampled = new boolean[capacity];
+                long[] newStarts = new long[capacity];
+                System.arraycopy(signatures, 0, newSignatures, 0, depth);
+                System.arraycopy(sampled, 0, newSampled, 0, depth);
+                System.arraycopy(starts, 0, newStarts, 0, depth);
+                signatures = newSignatures;
+                sampled = newSampled;
+                starts = newStarts;
+            }
+            signatures[depth] = signature;
+            sampled[depth] = decision;
+            starts[depth] = start;
+            depth++;
+        }
+
+        /**
+         * Pops the innermost call with the given signature. The calls above
+         * it (which exited without logging) are discarded.
+         *
+         * @param signature the method signature
+         * @return the index of the popped call (-1 if not found)
+         */
+        int pop(final String signature) {
+            for (int i = depth - 1; i >= 0; i--) {
+                if (signature.equals(signatures[i])) {
+                    for (int j = i; j < depth; j++) {
+                        signatures[j] = null;
+                    }
+                    depth = i;
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Empty private constructor.
+     */
+    private TraceSampler() {
+    }
+
+    /**
+     * Sets the sampling policy for the given method signature.
+     *
+     * @param signature the signature that uniquely identifies the method
+     *                  (e.g. className#methodName)
+     * @param policy    the policy to be used (null to remove the policy)
+     * @throws IllegalArgumentException if signature is null
+     */
+    public static synchronized void setPolicy(final String signature,
+                                              final SamplingPolicy policy) {
+        if (signature == null) {
+            throw new IllegalArgumentException(
+                    "signature should not be null");
+        }
+        if (policy == null) {
+            POLICIES.remove(signature);
+        } else {
+            POLICIES.put(signature, policy);
+        }
+        updateActive();
+    }
+
+    /**
+     * Sets the sampling policy for signatures without own policy.
+     *
+     * @param policy the policy to be used (null if such calls must always
+     *               be logged)
+     */
+    public static synchronized void setDefaultPolicy(
+            final SamplingPolicy policy) {
+        defaultPolicy = policy;
+        updateActive();
+    }
+
+    /**
+     * Retrieves the sampling policy used for the given method signature.
+     *
+     * @param signature the signature that uniquely identifies the method
+     * @return the policy (null if calls are always logged)
+     */
+    public static SamplingPolicy getPolicy(final String signature) {
+        SamplingPolicy policy = POLICIES.get(signature);
+        return policy == null ? defaultPolicy : policy;
+    }
+
+    /**
+     * Removes all sampling policies.
+     */
+    public static synchronized void clearPolicies() {
+        POLICIES.clear();
+        defaultPolicy = null;
+        updateActive();
+    }
+
+    /**
+     * Decides whether the entrance of the method call must be logged.
+     *
+     * @param signature the signature that uniquely identifies the method
+     * @return true if the entrance must be logged, false otherwise
+     */
+    static boolean sampleEntrance(final String signature) {
+        if (!active) {
+            return true;
+        }
+        SamplingPolicy policy = getPolicy(signature);
+        if (policy == null) {
+            return true;
+        }
+        long now = System.nanoTime();
+        boolean decision = policy.sampleEntrance(now);
+        STACKS.get().push(signature, decision, now);
+        return decision;
+    }
+
+    /**
+     * Decides whether the exit of the method call must be logged.
+     *
+     * @param signature         the signature that uniquely identifies the
+     *                          method
+     * @param entranceTimestamp the method entrance timestamp (null if not
+     *                          available), is used for calculating method
+     *                          execution time if the entrance was not traced
+     * @return true if the exit must be logged, false otherwise
+     */
+    static boolean sampleExit(final String signature,
+                              final Date entranceTimestamp) {
+        if (!active) {
+            return true;
+        }
+        SamplingPolicy policy = getPolicy(signature);
+        if (policy == null) {
+            return true;
+        }
+        long now = System.nanoTime();
+        CallStack stack = STACKS.get();
+        int index = stack.pop(signature);
+        boolean entranceSampled;
+        long duration;
+        if (index >= 0) {
+            entranceSampled = stack.sampled[index];
+            duration = now - stack.starts[index];
+        } else {
+            // the entrance was not traced, decide now
+            entranceSampled = policy.sampleEntrance(now);
+            duration = 0;
+            if (entranceTimestamp != null) {
+                duration = TimeUnit.MILLISECONDS.toNanos(
+                        System.currentTimeMillis()
+                                - entranceTimestamp.getTime());
+            }
+        }
+        return policy.sampleExit(entranceSampled, duration);
+    }
+
+    /**
+     * Notifies the sampler that the method call ended with an exception.
+     * Exceptions are always logged.
+     *
+     * @param signature the signature that uniquely identifies the method
+     */
+    static void exceptionThrown(final String signature) {
+        if (active) {
+            STACKS.get().pop(signature);
+        }
+    }
+
+    /**
+     * Updates the flag that shows whether at least one policy is configured.
+     */
+    private static void updateActive() {
+        active = defaultPolicy != null || !POLICIES.isEmpty();
+    }
+}
@@ -0,0 +1,193 @@
+package com.topcoder.commons.utils;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class represents the invocation handler of the tracing proxies
+ * created by Log4jUtility.trace(). It logs the entrance, exit (with the
+ * execution time) and exceptions of every interface method with the
+ * Log4jUtility methods, so the traced code doesn't need the logging calls.
+ * <p>
+ * The signature ("Interface#method") and the parameter names of every
+ * method are computed once per interface and cached with a ClassValue. When
+ * DEBUG logging and span mode are disabled, calls are passed to the target
+ * directly, without building the entrance timestamp or the result array;
+ * exceptions are logged in any case.
+ * <p>
+ * Thread Safety: this class is thread safe if the target is thread safe.
+ */
+final class TracingInvocationHandler implements InvocationHandler {
+    /**
+     * The traced methods of the interfaces.
+     */
+    private static final ClassValue<Map<Method, TracedMethod>> METHODS =
+            new ClassValue<Map<Method, TracedMethod>>() {
+                protected Map<Method, TracedMethod> computeValue(
+                        final Class<?> type) {
+                    Map<Method, TracedMethod> methods =
+                            new HashMap<Method, TracedMethod>();
+                    for (Method method : type.getMethods()) {
+                        methods.put(method, new TracedMethod(type, method));
+                    }
+                    return Collections.unmodifiableMap(methods);
+                }
+            };
+
+    /**
+     * The traced object.
+     */
+    private final Object target;
+
+    /**
+     * The logger.
+     */
+    private final Logger logger;
+
+    /**
+     * The traced methods of the interface.
+     */
+    private final Map<Method, TracedMethod> methods;
+
+    /**
+     * Creates the handler.
+     *
+     * @param type   the traced interface
+     * @param target the traced object
+     * @param logger the logger
+     */
+    TracingInvocationHandler(final Class<?> type, final Object target,
+                             final Logger logger) {
+        this.target = target;
+        this.logger = logger;
+        this.methods = METHODS.get(type);
+    }
+
+    /**
+     * Invokes the method of the target and logs the call. The methods of
+     * Object are passed to the target without logging.
+     *
+     * @param proxy  the proxy
+     * @param method the invoked method
+     * @param args   the method arguments (null if there are none)
+     * @return the result of the method
+     * @throws Throwable the exception thrown by the method
+     */
+    public Object invoke(final Object proxy, final Method method,
+                         final Object[] args) throws Throwable {
+        TracedMethod traced = methods.get(method);
+        if (traced == null) {
+            Object[] arguments = args;
+            if (method.getName().equals("equals") && args.length == 1
+                    && args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                    && Proxy.getInvocationHandler(args[0])
+                    instanceof TracingInvocationHandler) {
+                arguments = new Object[] {((TracingInvocationHandler) Proxy
+                        .getInvocationHandler(args[0])).target};
+            }
+            return invokeTarget(method, arguments);
+        }
+        String signature = traced.signature;
+        if (!SpanTracer.isEnabled() && !logger.isEnabledFor(Level.DEBUG)) {
+            try {
+                return invokeTarget(traced.method, args);
+            } catch (InvocationTargetException e) {
+                throw Log4jUtility.logException(logger, signature,
+                        e.getCause());
+            }
+        }
+        Date entranceTimestamp = new Date();
+        Log4jUtility.logEntrance(logger, signature, traced.paramNames, args);
+        Object result;
+        try {
+            result = invokeTarget(traced.method, args);
+        } catch (InvocationTargetException e) {
+            throw Log4jUtility.logException(logger, signature, e.getCause());
+        }
+        Log4jUtility.logExit(logger, signature,
+                traced.returnsValue ? new Object[] {result} : null,
+                entranceTimestamp);
+        return result;
+    }
+
+    /**
+     * Invokes the given method of the target.
+     *
+     * @param method the method
+     * @param args   the method arguments
+     * @return the result of the method
+     * @throws InvocationTargetException if the method threw an exception
+     */
+    private Object invokeTarget(final Method method, final Object[] args)
+            throws InvocationTargetException {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("failed to invoke "
+                    + method.getName(), e);
+        }
+    }
+
+    /**
+     * This class represents the cached details of a traced method.
+     * <p>
+     * Thread Safety: this class is immutable and thread safe.
+     */
+    private static final class TracedMethod {
+        /**
+         * The method.
+         */
+        private final Method method;
+
+        /**
+         * The signature of the method (Interface#method).
+         */
+        private final String signature;
+
+        /**
+         * The names of the parameters (null if there are none).
+         */
+        private final String[] paramNames;
+
+        /**
+         * True if the method returns a value (isn't void).
+         */
+        private final boolean returnsValue;
+
+        /**
+         * Creates the details of the given method.
+         *
+         * @param type   the traced interface
+         * @param method the method
+         */
+        TracedMethod(final Class<?> type, final Method method) {
+            try {
+                method.setAccessible(true);
+            } catch (RuntimeException e) {
+                // ignore, public interfaces don't need it
+            }
+            this.method = method;
+            this.signature = type.getSimpleName() + "#" + method.getName();
+            Parameter[] parameters = method.getParameters();
+            if (parameters.length == 0) {
+                paramNames = null;
+            } else {
+                paramNames = new String[parameters.length];
+                for (int i = 0; i < parameters.length; i++) {
+                    paramNames[i] = parameters[i].getName();
+                }
+            }
+            this.returnsValue = method.getReturnType() != void.class;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.topcoder.commons.utils;
+
+import java.util.Iterator;
+
+/**
+ * This class represents an iterator that validates the elements of the
+ * source iterator as they are retrieved. It's created by
+ * StreamValidationUtility.validate().
+ * <p>
+ * Thread Safety: this class is not thread safe.
+ *
+ * @param <E> the type of the elements
+ */
+final class ValidatingIterator<E> implements Iterator<E> {
+    /**
+     * The source iterator.
+     */
+    private final Iterator<E> source;
+
+    /**
+     * The rule checked for every element.
+     */
+    private final ValueRule rule;
+
+    /**
+     * The name associated with the elements.
+     */
+    private final String name;
+
+    /**
+     * The exception class.
+     */
+    private final Class<? extends RuntimeException> exceptionClass;
+
+    /**
+     * The ordinal of the next element.
+     */
+    private long ordinal;
+
+    /**
+     * Creates the iterator.
+     *
+     * @param source         the source iterator
+     * @param rule           the rule checked for every element
+     * @param name           the name associated with the elements
+     * @param exceptionClass the exception class
+     */
+    ValidatingIterator(final Iterator<E> source, final ValueRule rule,
+                       final String name,
+                       final Class<? extends RuntimeException>
+                               exceptionClass) {
+        this.source = source;
+        this.rule = rule;
+        this.name = name;
+        this.exceptionClass = exceptionClass;
+    }
+
+    /**
+     * Checks whether there are more elements.
+     *
+     * @return true if there are more elements, false otherwise
+     */
+    public boolean hasNext() {
+        return source.hasNext();
+    }
+
+    /**
+     * Retrieves and validates the next element.
+     *
+     * @return the next element
+     * @throws java.util.NoSuchElementException if there are no more elements
+     * @throws RuntimeException                 of the configured type if the
+     *                                          element violates the rule
+     */
+    public E next() {
+        E element = source.next();
+        StreamValidationUtility.checkElement(element, ordinal++, rule, name,
+                exceptionClass);
+        return element;
+    }
+
+    /**
+     * Removes the last retrieved element from the source.
+     *
+     * @throws UnsupportedOperationException if the source doesn't support
+     *                                       removing
+     */
+    public void remove() {
+        source.remove();
+    }
+}
@@ -0,0 +1,175 @@
+package com.topcoder.commons.utils;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a spliterator that validates the elements of the
+ * source spliterator as they are traversed. It's created by
+ * StreamValidationUtility.validate().
+ * <p>
+ * Splitting splits the source, so parallel streams keep the parallelism of
+ * the source. The ordinals of the elements stay exact when the split parts
+ * have known sizes (SUBSIZED sources); otherwise they become unknown.
+ * <p>
+ * The spliterator passes itself to the source as the element consumer, so
+ * traversal doesn't allocate per element.
+ * <p>
+ * Thread Safety: this class is not thread safe.
+ *
+ * @param <E> the type of the elements
+ */
+final class ValidatingSpliterator<E> implements Spliterator<E>, Consumer<E> {
+    /**
+     * The source spliterator.
+     */
+    private final Spliterator<E> source;
+
+    /**
+     * The rule checked for every element.
+     */
+    private final ValueRule rule;
+
+    /**
+     * The name associated with the elements.
+     */
+    private final String name;
+
+    /**
+     * The exception class.
+     */
+    private final Class<? extends RuntimeException> exceptionClass;
+
+    /**
+     * The ordinal of the next element (-1 if unknown).
+     */
+    private long ordinal;
+
+    /**
+     * The action of the current traversal (null between traversals).
+     */
+    private Consumer<? super E> action;
+
+    /**
+     * Creates the spliterator.
+     *
+     * @param source         the source spliterator
+     * @param ordinal        the ordinal of the first element (-1 if unknown)
+     * @param rule           the rule checked for every element
+     * @param name           the name associated with the elements
+     * @param exceptionClass the exception class
+     */
+    ValidatingSpliterator(final Spliterator<E> source, final long ordinal,
+                          final ValueRule rule, final String name,
+                          final Class<? extends RuntimeException>
+                                  exceptionClass) {
+        this.source = source;
+        this.ordinal = ordinal;
+        this.rule = rule;
+        this.name = name;
+        this.exceptionClass = exceptionClass;
+    }
+
+    /**
+     * Validates the given element and passes it to the current action.
+     *
+     * @param element the element
+     * @throws RuntimeException of the configured type if the element
+     *                          violates the rule
+     */
+    public void accept(final E element) {
+        StreamValidationUtility.checkElement(element, ordinal, rule, name,
+                exceptionClass);
+        if (ordinal >= 0) {
+            ordinal++;
+        }
+        action.accept(element);
+    }
+
+    /**
+     * Validates the next element and passes it to the given action.
+     *
+     * @param consumer the action
+     * @return false if there are no more elements, true otherwise
+     * @throws RuntimeException of the configured type if the element
+     *                          violates the rule
+     */
+    public boolean tryAdvance(final Consumer<? super E> consumer) {
+        if (consumer == null) {
+            throw new NullPointerException("consumer should not be null");
+        }
+        action = consumer;
+        try {
+            return source.tryAdvance(this);
+        } finally {
+            action = null;
+        }
+    }
+
+    /**
+     * Validates the remaining elements and passes them to the given action.
+     *
+     * @param consumer the action
+     * @throws RuntimeException of the configured type if some element
+     *                          violates the rule
+     */
+    public void forEachRemaining(final Consumer<? super E> consumer) {
+        if (consumer == null) {
+            throw new NullPointerException("consumer should not be null");
+        }
+        action = consumer;
+        try {
+            source.forEachRemaining(this);
+        } finally {
+            action = null;
+        }
+    }
+
+    /**
+     * Splits the source. The returned spliterator covers the elements
+     * preceding the remaining elements of this spliterator.
+     *
+     * @return the spliterator of the split part, null if the source can't be
+     *         split
+     */
+    public Spliterator<E> trySplit() {
+        Spliterator<E> prefix = source.trySplit();
+        if (prefix == null) {
+            return null;
+        }
+        long prefixOrdinal = ordinal;
+        long prefixSize = prefix.getExactSizeIfKnown();
+        ordinal = ordinal >= 0 && prefixSize >= 0 ? ordinal + prefixSize : -1;
+        return new ValidatingSpliterator<E>(prefix, prefixOrdinal, rule, name,
+                exceptionClass);
+    }
+
+    /**
+     * Retrieves the estimated number of remaining elements.
+     *
+     * @return the estimate of the source
+     */
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    /**
+     * Retrieves the characteristics of the source.
+     *
+     * @return the characteristics of the source
+     */
+    public int characteristics() {
+        return source.characteristics();
+    }
+
+    /**
+     * Retrieves the comparator of a SORTED source.
+     *
+     * @return the comparator of the source
+     * @throws IllegalStateException if the source isn't SORTED
+     */
+    public Comparator<? super E> getComparator() {
+        return source.getComparator();
+    }
+}
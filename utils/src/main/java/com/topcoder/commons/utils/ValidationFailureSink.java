@@ -0,0 +1,24 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This interface represents a receiver of validation failures. The sink set
+ * with ValidationUtility.setFailureSink() is notified of every failed
+ * ValidationUtility check right before the exception is thrown, so it can
+ * e.g. count the failures per value name (see ValidationMetrics). Successful
+ * checks don't touch the sink at all.
+ * <p>
+ * Thread Safety: implementations should be thread safe and shouldn't block,
+ * since they are called by every thread failing a check. Exceptions thrown
+ * by implementations are ignored.
+ */
+public interface ValidationFailureSink {
+    /**
+     * Notifies the sink of a failed check.
+     *
+     * @param name the name associated with the checked value (as passed to
+     *             the check, may be null)
+     * @param rule the violated rule without the offending value, e.g.
+     *             "should be positive" or "should be in the range [1, 10]"
+     */
+    void failed(String name, String rule);
+}
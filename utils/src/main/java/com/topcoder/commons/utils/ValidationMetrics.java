@@ -0,0 +1,210 @@
+package com.topcoder.commons.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a validation failure sink that counts the failures per value
+ * name and violated rule, so that the most common client errors can be seen
+ * without searching the logs. Install it with
+ * ValidationUtility.setFailureSink() and read the counts with getSnapshot().
+ * <p>
+ * The counters are LongAdders (striped, so threads failing the same check
+ * don't contend on one counter) kept in concurrent maps keyed by the name
+ * and then by the rule, so counting an already known failure neither locks
+ * nor allocates. The number of distinct (name, rule) pairs is bounded;
+ * failures of further pairs are counted in the OTHER bucket, so that names
+ * built from user input can't exhaust the memory.
+ * <p>
+ * Thread Safety: this class is thread safe. Snapshots taken while failures
+ * are being counted are not atomic across counters.
+ */
+public final class ValidationMetrics implements ValidationFailureSink {
+    /**
+     * The name and rule of the bucket counting the failures over the limit.
+     */
+    public static final String OTHER = "other";
+
+    /**
+     * The name used for the failures of checks with null names.
+     */
+    private static final String NULL_NAME = "null";
+
+    /**
+     * The default maximum number of distinct (name, rule) pairs.
+     */
+    private static final int DEFAULT_MAX_KEYS = 1000;
+
+    /**
+     * The maximum number of distinct (name, rule) pairs.
+     */
+    private final int maxKeys;
+
+    /**
+     * The counters by name and rule.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>>
+    counters = new ConcurrentHashMap<String,
+            ConcurrentMap<String, LongAdder>>();
+
+    /**
+     * The number of distinct (name, rule) pairs.
+     */
+    private final AtomicInteger keys = new AtomicInteger();
+
+    /**
+     * The number of failures of the pairs over the limit.
+     */
+    private final LongAdder overflow = new LongAdder();
+
+    /**
+     * Creates the metrics with the default limit of 1000 distinct (name,
+     * rule) pairs.
+     */
+    public ValidationMetrics() {
+        this(DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Creates the metrics with the given limit of distinct (name, rule)
+     * pairs.
+     *
+     * @param maxKeys the maximum number of distinct (name, rule) pairs
+     * @throws IllegalArgumentException if maxKeys is not positive
+     */
+    public ValidationMetrics(final int maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys should be positive");
+        }
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Counts the failure of the given check.
+     *
+     * @param name the name associated with the checked value
+     * @param rule the violated rule
+     */
+    public void failed(final String name, final String rule) {
+        String key = name == null ? NULL_NAME : name;
+        String ruleKey = rule == null ? OTHER : rule;
+        ConcurrentMap<String, LongAdder> rules = counters.get(key);
+        LongAdder counter = rules == null ? null : rules.get(ruleKey);
+        if (counter == null) {
+            counter = register(key, ruleKey);
+        }
+        counter.increment();
+    }
+
+    /**
+     * Retrieves the number of failures of the given check.
+     *
+     * @param name the name associated with the checked values
+     * @param rule the violated rule
+     * @return the number of failures (0 if none were counted)
+     */
+    public long getCount(final String name, final String rule) {
+        if (OTHER.equals(name) && OTHER.equals(rule)) {
+            return overflow.sum();
+        }
+        ConcurrentMap<String, LongAdder> rules = counters.get(
+                name == null ? NULL_NAME : name);
+        LongAdder counter = rules == null ? null : rules.get(
+                rule == null ? OTHER : rule);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Retrieves the number of failures counted in the OTHER bucket (the
+     * failures of pairs over the limit).
+     *
+     * @return the number of failures counted in the OTHER bucket
+     */
+    public long getOverflowCount() {
+        return overflow.sum();
+    }
+
+    /**
+     * Retrieves the current counts. The OTHER bucket is included (as the
+     * OTHER rule of the OTHER name) if it's not empty.
+     *
+     * @return the counts by name and rule, sorted by name and rule (not
+     *         null, modifiable)
+     */
+    public Map<String, Map<String, Long>> getSnapshot() {
+        Map<String, Map<String, Long>> snapshot =
+                new TreeMap<String, Map<String, Long>>();
+        for (Map.Entry<String, ConcurrentMap<String, LongAdder>> entry
+                : counters.entrySet()) {
+            Map<String, Long> rules = new TreeMap<String, Long>();
+            for (Map.Entry<String, LongAdder> counter
+                    : entry.getValue().entrySet()) {
+                rules.put(counter.getKey(), counter.getValue().sum());
+            }
+            if (!rules.isEmpty()) {
+                snapshot.put(entry.getKey(), rules);
+            }
+        }
+        long other = overflow.sum();
+        if (other > 0) {
+            Map<String, Long> rules = snapshot.get(OTHER);
+            if (rules == null) {
+                rules = new TreeMap<String, Long>();
+                snapshot.put(OTHER, rules);
+            }
+            rules.put(OTHER, other);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Removes all counters. Failures counted concurrently may be lost.
+     */
+    public void reset() {
+        counters.clear();
+        keys.set(0);
+        overflow.reset();
+    }
+
+    /**
+     * Registers the counter of the given pair, or returns the overflow
+     * counter if the limit is reached.
+     *
+     * @param name the name
+     * @param rule the rule
+     * @return the counter (not null)
+     */
+    private LongAdder register(final String name, final String rule) {
+        ConcurrentMap<String, LongAdder> rules = counters.get(name);
+        if (rules == null) {
+            if (keys.get() >= maxKeys) {
+                return overflow;
+            }
+            ConcurrentMap<String, LongAdder> created =
+                    new ConcurrentHashMap<String, LongAdder>();
+            rules = counters.putIfAbsent(name, created);
+            if (rules == null) {
+                rules = created;
+            }
+        }
+        LongAdder counter = rules.get(rule);
+        if (counter != null) {
+            return counter;
+        }
+        if (keys.incrementAndGet() > maxKeys) {
+            keys.decrementAndGet();
+            return overflow;
+        }
+        LongAdder created = new LongAdder();
+        counter = rules.putIfAbsent(rule, created);
+        if (counter != null) {
+            keys.decrementAndGet();
+            return counter;
+        }
+        return created;
+    }
+}
@@ -3,20 +3,70 @@ package com.topcoder.commons.utils;
 import java.io.File;
 import java.util.Collection;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * This is a utility class that provides static methods for checking whether
  * some arbitrary value meets specific criteria (not null, not empty, positive,
  * negative, etc). If criteria is not met, this utility throws an exception
  * of type specified by the caller.
+ * <p>
+ * String checks scan the values in place (see CharSequenceUtility), so
+ * trimmed emptiness checks don't copy the strings and the CharSequence checks
+ * can be used for StringBuilder and CharBuffer values directly. Pattern checks
+ * use cached compiled expressions (see PatternCache); the common formats
+ * (UUID, email address, ISO-8601 date, IP address, number) are recognized
+ * by regex-free scanners (see TextFormat).
+ * <p>
+ * The double checks reject NaN explicitly (NaN isn't ordered, so it would
+ * otherwise pass some checks and fail others); infinities are compared as
+ * the extreme values, use checkFinite() to reject them. Comparable values
+ * (e.g. BigDecimal, Date or Instant) are checked with compareTo(), without
+ * converting them to double. Ranges used for many checks can be created
+ * once as NumberRange or ComparableRange objects, so that their description
+ * isn't rendered on every failure; int values use the long checks, so they
+ * are never boxed.
+ * <p>
+ * The collection checks need materialized collections; streamed data can be
+ * validated element by element with StreamValidationUtility, and object
+ * graphs property by property with BeanValidator.
+ * <p>
+ * Failed checks can be counted per value name and rule by setting a failure
+ * sink such as ValidationMetrics.
  */
 public final class ValidationUtility {
+    /**
+     * The violated rule reported by the uniqueness checks.
+     */
+    private static final String DUPLICATE_RULE =
+            "should not contain duplicate values";
+
     /**
      * Empty private constructor.
      */
     private ValidationUtility() {
     }
 
+    /**
+     * Sets the sink notified of every failed check (e.g. ValidationMetrics).
+     * The sink is called only when a check fails, so successful checks cost
+     * the same with and without it.
+     *
+     * @param sink the sink (null to disable the notifications)
+     */
+    public static void setFailureSink(final ValidationFailureSink sink) {
+        ExceptionHelper.setFailureSink(sink);
+    }
+
+    /**
+     * Retrieves the sink notified of every failed check.
+     *
+     * @return the sink (null if there is none)
+     */
+    public static ValidationFailureSink getFailureSink() {
+        return ExceptionHelper.getFailureSink();
+    }
+
     /**
      * Checks whether the given value is not null. And if this condition is
      * not met, the specified exception is thrown.
@@ -34,8 +84,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (value == null) {
-            throw ExceptionHelper.constructException(exceptionClass, name
-                    + " should not be null");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not be null");
         }
     }
 
@@ -57,8 +107,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (value != null && value.equals("")) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not be empty");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not be empty");
         }
     }
 
@@ -79,9 +129,9 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
-        if (value != null && value.trim().equals("")) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not be empty (trimmed)");
+        if (value != null && CharSequenceUtility.isBlank(value)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not be empty (trimmed)");
         }
     }
 
@@ -126,6 +176,215 @@ public final class ValidationUtility {
         checkNotEmptyAfterTrimming(value, name, exceptionClass);
     }
 
+    /**
+     * Checks whether the given character sequence is not blank (empty or
+     * white space only). The sequence is scanned in place. And if this
+     * condition is not met, the specified exception is thrown. Note that if
+     * value is null, exception is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param unicode        true if Unicode white space should be recognized,
+     *                       false if String.trim() semantics should be used
+     * @throws T         if the given value is blank
+     * @throws Exception if the given value is blank
+     */
+    public static <T extends Throwable> void checkNotBlank(
+            final CharSequence value,
+            final boolean unicode,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (value != null && CharSequenceUtility.isBlank(value, unicode)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not be blank");
+        }
+    }
+
+    /**
+     * Checks whether the length of the given character sequence is in the
+     * specified range (both bounds are inclusive). And if this condition is
+     * not met, the specified exception is thrown. Note that if value is
+     * null, exception is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param minLength      the minimum length
+     * @param maxLength      the maximum length
+     * @throws T         if the length of the given value is out of the range
+     * @throws Exception if the length of the given value is out of the range
+     */
+    public static <T extends Throwable> void checkLength(
+            final CharSequence value,
+            final int minLength,
+            final int maxLength,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (value != null && !CharSequenceUtility.isLengthInRange(value,
+                minLength, maxLength)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should have the length in the range ["
+                            + minLength + ", " + maxLength + "]");
+        }
+    }
+
+    /**
+     * Checks whether the given character sequence contains only the allowed
+     * characters. The sequence is scanned in place. And if this condition is
+     * not met, the specified exception is thrown. Note that if value is
+     * null, exception is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param allowed        the allowed characters
+     * @throws IllegalArgumentException if allowed is null
+     * @throws T                        if the given value contains a
+     *                                  character that is not allowed
+     * @throws Exception                if the given value contains a
+     *                                  character that is not allowed
+     */
+    public static <T extends Throwable> void checkContainsOnly(
+            final CharSequence value,
+            final CharacterSet allowed,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (value == null) {
+            return;
+        }
+        int index = CharSequenceUtility.indexOfCharacterNotIn(value, allowed);
+        if (index >= 0) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not contain the character",
+                    String.format(" U+%04X (found at index %d)",
+                            Character.codePointAt(value, index), index));
+        }
+    }
+
+    /**
+     * Checks whether the given character sequence contains only ASCII
+     * characters. And if this condition is not met, the specified exception
+     * is thrown. Note that if value is null, exception is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @throws T         if the given value contains a non-ASCII character
+     * @throws Exception if the given value contains a non-ASCII character
+     */
+    public static <T extends Throwable> void checkAscii(
+            final CharSequence value,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (value != null && !CharSequenceUtility.isAscii(value)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should contain only ASCII characters");
+        }
+    }
+
+    /**
+     * Checks whether the given character sequence matches the given regular
+     * expression. The compiled expression is cached (see PatternCache), so it
+     * isn't compiled on every check as with String.matches(). And if this
+     * condition is not met, the specified exception is thrown. Note that if
+     * value is null, exception is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param regex          the regular expression
+     * @throws IllegalArgumentException if regex is null
+     * @throws java.util.regex.PatternSyntaxException if regex is invalid
+     * @throws T                        if the given value doesn't match the
+     *                                  expression
+     * @throws Exception                if the given value doesn't match the
+     *                                  expression
+     */
+    public static <T extends Throwable> void checkMatches(
+            final CharSequence value,
+            final String regex,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        checkMatches(value, PatternCache.getPattern(regex), name,
+                exceptionClass);
+    }
+
+    /**
+     * Checks whether the given character sequence matches the given
+     * precompiled pattern. And if this condition is not met, the specified
+     * exception is thrown. Note that if value is null, exception is not
+     * thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param pattern        the pattern
+     * @throws IllegalArgumentException if pattern is null
+     * @throws T                        if the given value doesn't match the
+     *                                  pattern
+     * @throws Exception                if the given value doesn't match the
+     *                                  pattern
+     */
+    public static <T extends Throwable> void checkMatches(
+            final CharSequence value,
+            final Pattern pattern,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern should not be null");
+        }
+        if (value != null && !pattern.matcher(value).matches()) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should match the pattern " + pattern.pattern());
+        }
+    }
+
+    /**
+     * Checks whether the given character sequence is in the given format.
+     * The format is recognized by a hand-written scanner without regular
+     * expressions, so the check doesn't allocate. And if this condition is
+     * not met, the specified exception is thrown. Note that if value is
+     * null, exception is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param format         the expected format
+     * @throws IllegalArgumentException if format is null
+     * @throws T                        if the given value is not in the
+     *                                  format
+     * @throws Exception                if the given value is not in the
+     *                                  format
+     */
+    public static <T extends Throwable> void checkFormat(
+            final CharSequence value,
+            final TextFormat format,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (format == null) {
+            throw new IllegalArgumentException("format should not be null");
+        }
+        if (value != null && !format.matches(value)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be a valid " + format.getDescription());
+        }
+    }
+
     /**
      * Checks whether the given value is an instance of the specified type.
      * And if this condition is not met, the specified exception is thrown.
@@ -148,8 +407,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (!expectedType.isInstance(value)) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be an instance of "
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be an instance of "
                             + expectedType.getName());
         }
     }
@@ -175,8 +434,8 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass) throws T, Exception {
         if (value != null && !expectedType.isInstance(value)) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be null or an instance of "
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be null or an instance of "
                             + expectedType.getName());
         }
     }
@@ -201,8 +460,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (file != null && !file.exists()) {
-            throw ExceptionHelper.constructException(exceptionClass, name
-                    + " should point to an existing file or directory");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should point to an existing file or directory");
         }
     }
 
@@ -224,8 +483,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (file != null && !file.isFile()) {
-            throw ExceptionHelper.constructException(exceptionClass, name
-                    + " should point to an existing file");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should point to an existing file");
         }
     }
 
@@ -249,8 +508,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (file != null && !file.isDirectory()) {
-            throw ExceptionHelper.constructException(exceptionClass, name
-                    + " should point to an existing directory");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should point to an existing directory");
         }
     }
 
@@ -272,8 +531,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (collection != null && collection.isEmpty()) {
-            throw ExceptionHelper.constructException(exceptionClass, name
-                    + " should not be empty");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not be empty");
         }
     }
 
@@ -315,8 +574,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (map != null && map.isEmpty()) {
-            throw ExceptionHelper.constructException(exceptionClass, name
-                    + " should not be empty");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not be empty");
         }
     }
 
@@ -367,8 +626,8 @@ public final class ValidationUtility {
             }
         }
         if (containsNull) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not contain null");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not contain null");
         }
     }
 
@@ -402,10 +661,8 @@ public final class ValidationUtility {
         for (Object element : collection) {
             if (element instanceof String) {
                 String str = (String) element;
-                if (trimStrings) {
-                    str = str.trim();
-                }
-                if (str.equals("")) {
+                if (trimStrings ? CharSequenceUtility.isBlank(str)
+                        : str.length() == 0) {
                     containsEmpty = true;
                     break;
                 }
@@ -422,8 +679,115 @@ public final class ValidationUtility {
             }
         }
         if (containsEmpty) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not contain empty elements");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not contain empty elements");
+        }
+    }
+
+    /**
+     * Checks whether the given array doesn't contain duplicate values. The
+     * values are checked with a primitive hash table (or by sorting a copy
+     * of them for arrays too large for the memory limit of DuplicateFinder),
+     * so they are never boxed. And if this condition is not met, the
+     * specified exception is thrown. Note that if values is null, exception
+     * is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param values         the array to be checked
+     * @throws T         if the given array contains duplicate values
+     * @throws Exception if the given array contains duplicate values
+     */
+    public static <T extends Throwable> void checkUnique(
+            final long[] values,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (values == null) {
+            return;
+        }
+        int index = DuplicateFinder.findDuplicate(values);
+        if (index >= 0) {
+            int first = 0;
+            while (values[first] != values[index]) {
+                first++;
+            }
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, DUPLICATE_RULE,
+                    getDuplicateDetail(values[index], first, index));
+        }
+    }
+
+    /**
+     * Checks whether the given array doesn't contain duplicate values. The
+     * values are checked with a primitive hash table (or by sorting a copy
+     * of them for arrays too large for the memory limit of DuplicateFinder),
+     * so they are never boxed. And if this condition is not met, the
+     * specified exception is thrown. Note that if values is null, exception
+     * is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param values         the array to be checked
+     * @throws T         if the given array contains duplicate values
+     * @throws Exception if the given array contains duplicate values
+     */
+    public static <T extends Throwable> void checkUnique(
+            final int[] values,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (values == null) {
+            return;
+        }
+        int index = DuplicateFinder.findDuplicate(values);
+        if (index >= 0) {
+            int first = 0;
+            while (values[first] != values[index]) {
+                first++;
+            }
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, DUPLICATE_RULE,
+                    getDuplicateDetail(values[index], first, index));
+        }
+    }
+
+    /**
+     * Checks whether the given collection doesn't contain duplicate elements
+     * (elements are compared with equals(), null elements are equal to each
+     * other). The indexes in the message follow the iteration order. And if
+     * this condition is not met, the specified exception is thrown. Note
+     * that if collection is null, exception is not thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param collection     the collection to be checked
+     * @throws T         if the given collection contains duplicate elements
+     * @throws Exception if the given collection contains duplicate elements
+     */
+    public static <T extends Throwable> void checkUnique(
+            final Collection<?> collection,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (collection == null) {
+            return;
+        }
+        int index = DuplicateFinder.findDuplicate(collection);
+        if (index >= 0) {
+            Object[] elements = collection.toArray();
+            Object duplicate = elements[index];
+            int first = 0;
+            while (duplicate == null ? elements[first] != null
+                    : !duplicate.equals(elements[first])) {
+                first++;
+            }
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, DUPLICATE_RULE,
+                    getDuplicateDetail(duplicate, first, index));
         }
     }
 
@@ -445,8 +809,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (map != null && map.containsKey(null)) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not contain null key");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not contain null key");
         }
     }
 
@@ -468,8 +832,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (map != null && map.containsValue(null)) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not contain null value");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not contain null value");
         }
     }
 
@@ -502,10 +866,8 @@ public final class ValidationUtility {
         for (Object key : map.keySet()) {
             if (key instanceof String) {
                 String str = (String) key;
-                if (trimStrings) {
-                    str = str.trim();
-                }
-                if (str.equals("")) {
+                if (trimStrings ? CharSequenceUtility.isBlank(str)
+                        : str.length() == 0) {
                     containsEmpty = true;
                     break;
                 }
@@ -522,8 +884,8 @@ public final class ValidationUtility {
             }
         }
         if (containsEmpty) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not contain empty keys");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not contain empty keys");
         }
     }
 
@@ -556,10 +918,8 @@ public final class ValidationUtility {
         for (Object value : map.values()) {
             if (value instanceof String) {
                 String str = (String) value;
-                if (trimStrings) {
-                    str = str.trim();
-                }
-                if (str.equals("")) {
+                if (trimStrings ? CharSequenceUtility.isBlank(str)
+                        : str.length() == 0) {
                     containsEmpty = true;
                     break;
                 }
@@ -576,8 +936,8 @@ public final class ValidationUtility {
             }
         }
         if (containsEmpty) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not contain empty values");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not contain empty values");
         }
     }
 
@@ -597,9 +957,10 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
         if (value >= 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be negative");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be negative");
         }
     }
 
@@ -619,9 +980,10 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
         if (value <= 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be positive");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be positive");
         }
     }
 
@@ -641,9 +1003,10 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
         if (value < 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be not negative");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be not negative");
         }
     }
 
@@ -663,9 +1026,10 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
         if (value > 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be not positive");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be not positive");
         }
     }
 
@@ -685,9 +1049,34 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
         if (value == 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not be equal to 0");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not be equal to 0");
+        }
+    }
+
+    /**
+     * Checks whether the given value is a finite number (not NaN and not
+     * infinite). And if this condition is not met, the specified exception
+     * is thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @throws T         if the given value is NaN or infinite
+     * @throws Exception if the given value is NaN or infinite
+     */
+    public static <T extends Throwable> void checkFinite(
+            final double value,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
+        if (Double.isInfinite(value)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be a finite number");
         }
     }
 
@@ -718,16 +1107,18 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
         if (inclusive) {
             if (value < number) {
-                throw ExceptionHelper.constructException(exceptionClass,
-                        name + " should be greater than or equal to "
-                                + number);
+                throw ExceptionHelper.constructValidationException(
+                        exceptionClass, name,
+                        "should be greater than or equal to " + number);
             }
         } else {
             if (value <= number) {
-                throw ExceptionHelper.constructException(exceptionClass,
-                        name + " should be greater than " + number);
+                throw ExceptionHelper.constructValidationException(
+                        exceptionClass, name,
+                        "should be greater than " + number);
             }
         }
     }
@@ -759,15 +1150,18 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
         if (inclusive) {
             if (value > number) {
-                throw ExceptionHelper.constructException(exceptionClass,
-                        name + " should be less than or equal to " + number);
+                throw ExceptionHelper.constructValidationException(
+                        exceptionClass, name,
+                        "should be less than or equal to " + number);
             }
         } else {
             if (value >= number) {
-                throw ExceptionHelper.constructException(exceptionClass,
-                        name + " should be less than " + number);
+                throw ExceptionHelper.constructValidationException(
+                        exceptionClass, name,
+                        "should be less than " + number);
             }
         }
     }
@@ -798,6 +1192,7 @@ public final class ValidationUtility {
             final String name,
             final Class<T> exceptionClass)
             throws T, Exception {
+        checkNotNaN(value, name, exceptionClass);
         boolean valid;
         if (fromInclusive) {
             valid = (value >= from);
@@ -820,9 +1215,10 @@ public final class ValidationUtility {
             if (toInclusive) {
                 toBracket = "]";
             }
-            String message = name + " should be in the range "
-                    + fromBracket + from + ", " + to + toBracket;
-            throw ExceptionHelper.constructException(exceptionClass, message);
+            String rule = "should be in the range " + fromBracket + from
+                    + ", " + to + toBracket;
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, rule);
         }
     }
 
@@ -843,8 +1239,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (value >= 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be negative");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be negative");
         }
     }
 
@@ -865,8 +1261,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (value <= 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be positive");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be positive");
         }
     }
 
@@ -887,8 +1283,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (value < 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be not negative");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be not negative");
         }
     }
 
@@ -909,8 +1305,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (value > 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should be not positive");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be not positive");
         }
     }
 
@@ -931,8 +1327,8 @@ public final class ValidationUtility {
             final Class<T> exceptionClass)
             throws T, Exception {
         if (value == 0) {
-            throw ExceptionHelper.constructException(exceptionClass,
-                    name + " should not be equal to 0");
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should not be equal to 0");
         }
     }
 
@@ -965,14 +1361,15 @@ public final class ValidationUtility {
             throws T, Exception {
         if (inclusive) {
             if (value < number) {
-                throw ExceptionHelper.constructException(exceptionClass, name
-                        + " should be greater than or equal to "
-                        + number);
+                throw ExceptionHelper.constructValidationException(
+                        exceptionClass, name,
+                        "should be greater than or equal to " + number);
             }
         } else {
             if (value <= number) {
-                throw ExceptionHelper.constructException(exceptionClass, name
-                        + " should be greater than " + number);
+                throw ExceptionHelper.constructValidationException(
+                        exceptionClass, name,
+                        "should be greater than " + number);
             }
         }
     }
@@ -1006,13 +1403,15 @@ public final class ValidationUtility {
             throws T, Exception {
         if (inclusive) {
             if (value > number) {
-                throw ExceptionHelper.constructException(exceptionClass,
-                        name + " should be less than or equal to " + number);
+                throw ExceptionHelper.constructValidationException(
+                        exceptionClass, name,
+                        "should be less than or equal to " + number);
             }
         } else {
             if (value >= number) {
-                throw ExceptionHelper.constructException(exceptionClass,
-                        name + " should be less than " + number);
+                throw ExceptionHelper.constructValidationException(
+                        exceptionClass, name,
+                        "should be less than " + number);
             }
         }
     }
@@ -1065,10 +1464,301 @@ public final class ValidationUtility {
             if (toInclusive) {
                 toBracket = "]";
             }
-            String message = name + " should be in the range "
-                    + fromBracket + from + ", " + to + toBracket;
-            throw ExceptionHelper.constructException(exceptionClass, message);
+            String rule = "should be in the range " + fromBracket + from
+                    + ", " + to + toBracket;
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, rule);
+        }
+    }
+
+    /**
+     * Checks whether the given value is in the specified precompiled range.
+     * The description of the range is rendered when the range is created.
+     * And if this condition is not met, the specified exception is thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param range          the range
+     * @throws IllegalArgumentException if range is null
+     * @throws T                        if the given value is out of the
+     *                                  specified range
+     * @throws Exception                if the given value is out of the
+     *                                  specified range
+     */
+    public static <T extends Throwable> void checkInRange(
+            final long value,
+            final NumberRange range,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        checkRange(range);
+        if (!range.contains(value)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be in the range " + range.getDescription());
+        }
+    }
+
+    /**
+     * Checks whether the given value is in the specified precompiled range.
+     * The description of the range is rendered when the range is created.
+     * And if this condition is not met, the specified exception is thrown.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param range          the range
+     * @throws IllegalArgumentException if range is null
+     * @throws T                        if the given value is NaN or out of
+     *                                  the specified range
+     * @throws Exception                if the given value is NaN or out of
+     *                                  the specified range
+     */
+    public static <T extends Throwable> void checkInRange(
+            final double value,
+            final NumberRange range,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        checkRange(range);
+        checkNotNaN(value, name, exceptionClass);
+        if (!range.contains(value)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be in the range " + range.getDescription());
         }
     }
+
+    /**
+     * Checks whether the given Comparable value is in the specified
+     * precompiled range. And if this condition is not met, the specified
+     * exception is thrown. Note that if value is null, exception is not
+     * thrown.
+     *
+     * @param <C>            type of the value
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param range          the range
+     * @throws IllegalArgumentException if range is null
+     * @throws T                        if the given value is out of the
+     *                                  specified range
+     * @throws Exception                if the given value is out of the
+     *                                  specified range
+     */
+    public static <C extends Comparable<? super C>, T extends Throwable>
+    void checkInRange(
+            final C value,
+            final ComparableRange<C> range,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        checkRange(range);
+        if (value != null && !range.contains(value)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be in the range " + range.getDescription());
+        }
+    }
+
+    /**
+     * Checks whether the given Comparable value (e.g. BigDecimal, Date or
+     * Instant) is in the specified range. The values are compared with
+     * compareTo(), so no precision is lost. And if this condition is not
+     * met, the specified exception is thrown. Note that if value is null,
+     * exception is not thrown.
+     *
+     * @param <C>            type of the value
+     * @param <T>            type of exception
+     * @param to             the end value of the range
+     * @param exceptionClass the exception class
+     * @param fromInclusive  true if start value is included into the range,
+     *                       false otherwise
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param toInclusive    true if end value is included into the range,
+     *                       false otherwise
+     * @param from           the start value of the range
+     * @throws IllegalArgumentException if from or to is null
+     * @throws T                        if the given value is out of the
+     *                                  specified range
+     * @throws Exception                if the given value is out of the
+     *                                  specified range
+     */
+    public static <C extends Comparable<? super C>, T extends Throwable>
+    void checkInRange(
+            final C value,
+            final C from,
+            final C to,
+            final boolean fromInclusive,
+            final boolean toInclusive,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        checkBound(from, "from");
+        checkBound(to, "to");
+        if (value == null) {
+            return;
+        }
+        int fromResult = value.compareTo(from);
+        int toResult = value.compareTo(to);
+        boolean valid = (fromInclusive ? fromResult >= 0 : fromResult > 0)
+                && (toInclusive ? toResult <= 0 : toResult < 0);
+        if (!valid) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be in the range "
+                            + NumberRange.describe(String.valueOf(from),
+                            String.valueOf(to), fromInclusive, toInclusive));
+        }
+    }
+
+    /**
+     * Checks whether the given Comparable value is greater than (greater
+     * than or equal to, if inclusive is true) than the specified bound. And
+     * if this condition is not met, the specified exception is thrown. Note
+     * that if value is null, exception is not thrown.
+     *
+     * @param <C>            type of the value
+     * @param <T>            type of exception
+     * @param inclusive      true if "greater than or equal to" check should
+     *                       be performed, false if "greater than" check
+     *                       should be performed
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param bound          the bound the value should be compared to
+     * @throws IllegalArgumentException if bound is null
+     * @throws T                        if the given value is not greater
+     *                                  than (not greater than and not equal
+     *                                  to, if inclusive is true) the bound
+     * @throws Exception                if the given value is not greater
+     *                                  than (not greater than and not equal
+     *                                  to, if inclusive is true) the bound
+     */
+    public static <C extends Comparable<? super C>, T extends Throwable>
+    void checkGreaterThan(
+            final C value,
+            final C bound,
+            final boolean inclusive,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        checkBound(bound, "bound");
+        if (value == null) {
+            return;
+        }
+        int result = value.compareTo(bound);
+        if (inclusive ? result < 0 : result <= 0) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, (inclusive ? "should be greater than or equal to "
+                            : "should be greater than ") + bound);
+        }
+    }
+
+    /**
+     * Checks whether the given Comparable value is less than (less than or
+     * equal to, if inclusive is true) than the specified bound. And if this
+     * condition is not met, the specified exception is thrown. Note that if
+     * value is null, exception is not thrown.
+     *
+     * @param <C>            type of the value
+     * @param <T>            type of exception
+     * @param inclusive      true if "less than or equal to" check should be
+     *                       performed, false if "less than" check should be
+     *                       performed
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @param bound          the bound the value should be compared to
+     * @throws IllegalArgumentException if bound is null
+     * @throws T                        if the given value is not less than
+     *                                  (not less than and not equal to, if
+     *                                  inclusive is true) the bound
+     * @throws Exception                if the given value is not less than
+     *                                  (not less than and not equal to, if
+     *                                  inclusive is true) the bound
+     */
+    public static <C extends Comparable<? super C>, T extends Throwable>
+    void checkLessThan(
+            final C value,
+            final C bound,
+            final boolean inclusive,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        checkBound(bound, "bound");
+        if (value == null) {
+            return;
+        }
+        int result = value.compareTo(bound);
+        if (inclusive ? result > 0 : result >= 0) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, (inclusive ? "should be less than or equal to "
+                            : "should be less than ") + bound);
+        }
+    }
+
+    /**
+     * Checks that the given double value is not NaN. NaN isn't ordered, so
+     * it doesn't satisfy any of the sign and range checks.
+     *
+     * @param <T>            type of exception
+     * @param exceptionClass the exception class
+     * @param name           the name associated with the value
+     * @param value          the value to be checked
+     * @throws T         if the given value is NaN
+     * @throws Exception if the given value is NaN
+     */
+    private static <T extends Throwable> void checkNotNaN(
+            final double value,
+            final String name,
+            final Class<T> exceptionClass)
+            throws T, Exception {
+        if (Double.isNaN(value)) {
+            throw ExceptionHelper.constructValidationException(exceptionClass,
+                    name, "should be a number (not NaN)");
+        }
+    }
+
+    /**
+     * Checks that the given range is not null.
+     *
+     * @param range the range
+     * @throws IllegalArgumentException if range is null
+     */
+    private static void checkRange(final Object range) {
+        if (range == null) {
+            throw new IllegalArgumentException("range should not be null");
+        }
+    }
+
+    /**
+     * Checks that the given bound is not null.
+     *
+     * @param bound the bound
+     * @param name  the name of the bound
+     * @throws IllegalArgumentException if bound is null
+     */
+    private static void checkBound(final Object bound, final String name) {
+        if (bound == null) {
+            throw new IllegalArgumentException(name + " should not be null");
+        }
+    }
+
+    /**
+     * Creates the detail of a uniqueness check failure message.
+     *
+     * @param duplicate the duplicate value
+     * @param first     the index of the first occurrence of the value
+     * @param index     the index of the duplicate
+     * @return the detail appended to the violated rule
+     */
+    private static String getDuplicateDetail(final Object duplicate,
+                                             final int first,
+                                             final int index) {
+        return " (found " + duplicate + " at indexes " + first + " and "
+                + index + ")";
+    }
 }
 
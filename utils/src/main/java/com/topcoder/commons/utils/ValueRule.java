@@ -0,0 +1,22 @@
+package com.topcoder.commons.utils;
+
+/**
+ * This interface represents a validation rule for a single value. Unlike the
+ * methods of ValidationUtility, a rule doesn't throw an exception for an
+ * invalid value, but returns the description of the violated constraint, so
+ * that callers validating many values (e.g. the rows of a batch) can decide
+ * what to do with invalid ones. Standard rules are created with ValueRules.
+ * <p>
+ * Thread Safety: implementations should be thread safe.
+ */
+public interface ValueRule {
+    /**
+     * Checks the given value.
+     *
+     * @param value the value to be checked
+     * @return null if the value is valid, otherwise the description of the
+     *         violated constraint in the form used by ValidationUtility
+     *         without the value name (e.g. "should not be null")
+     */
+    String check(Object value);
+}
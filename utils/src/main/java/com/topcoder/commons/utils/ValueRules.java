@@ -0,0 +1,350 @@
+package com.topcoder.commons.utils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * This is a utility class that creates the standard value rules. The rules
+ * check the same constraints and produce the same messages as the
+ * corresponding methods of ValidationUtility.
+ * <p>
+ * All rules except notNull() accept null values, so that they can be
+ * combined for nullable values (use all() with notNull() for mandatory
+ * ones). Numeric rules accept any Number; integral numbers (Long, Integer,
+ * Short and Byte) are compared as long values, other numbers as double
+ * values. Non-numeric values don't satisfy numeric rules.
+ * <p>
+ * Thread Safety: this class is thread safe. The created rules are immutable.
+ */
+public final class ValueRules {
+    /**
+     * The rule that checks that a value is not null.
+     */
+    private static final ValueRule NOT_NULL = new ValueRule() {
+        public String check(final Object value) {
+            return value == null ? "should not be null" : null;
+        }
+    };
+
+    /**
+     * The rule that checks that a string, collection or map is not empty.
+     */
+    private static final ValueRule NOT_EMPTY = new ValueRule() {
+        public String check(final Object value) {
+            boolean empty;
+            if (value instanceof CharSequence) {
+                empty = ((CharSequence) value).length() == 0;
+            } else if (value instanceof Collection<?>) {
+                empty = ((Collection<?>) value).isEmpty();
+            } else if (value instanceof Map<?, ?>) {
+                empty = ((Map<?, ?>) value).isEmpty();
+            } else {
+                empty = false;
+            }
+            return empty ? "should not be empty" : null;
+        }
+    };
+
+    /**
+     * The rule that checks that a string is not empty after trimming.
+     */
+    private static final ValueRule NOT_EMPTY_TRIMMED = new ValueRule() {
+        public String check(final Object value) {
+            return value instanceof CharSequence
+                    && CharSequenceUtility.isBlank((CharSequence) value)
+                    ? "should not be empty (trimmed)" : null;
+        }
+    };
+
+    /**
+     * The rule that checks that a number is positive.
+     */
+    private static final ValueRule POSITIVE = new ValueRule() {
+        public String check(final Object value) {
+            return checkSign(value, 1, "should be positive");
+        }
+    };
+
+    /**
+     * The rule that checks that a number is not negative.
+     */
+    private static final ValueRule NOT_NEGATIVE = new ValueRule() {
+        public String check(final Object value) {
+            return checkSign(value, 0, "should be not negative");
+        }
+    };
+
+    /**
+     * Empty private constructor.
+     */
+    private ValueRules() {
+    }
+
+    /**
+     * Retrieves the rule that checks that the value is not null.
+     *
+     * @return the rule (not null)
+     */
+    public static ValueRule notNull() {
+        return NOT_NULL;
+    }
+
+    /**
+     * Retrieves the rule that checks that the string, collection or map is
+     * not empty. Values of other types are accepted.
+     *
+     * @return the rule (not null)
+     */
+    public static ValueRule notEmpty() {
+        return NOT_EMPTY;
+    }
+
+    /**
+     * Retrieves the rule that checks that the string is not empty after
+     * trimming. The value isn't copied. Values of other types are accepted.
+     *
+     * @return the rule (not null)
+     */
+    public static ValueRule notEmptyAfterTrimming() {
+        return NOT_EMPTY_TRIMMED;
+    }
+
+    /**
+     * Retrieves the rule that checks that the number is positive.
+     *
+     * @return the rule (not null)
+     */
+    public static ValueRule positive() {
+        return POSITIVE;
+    }
+
+    /**
+     * Retrieves the rule that checks that the number is not negative.
+     *
+     * @return the rule (not null)
+     */
+    public static ValueRule notNegative() {
+        return NOT_NEGATIVE;
+    }
+
+    /**
+     * Creates the rule that checks that the number is in the given range
+     * (both bounds are inclusive).
+     *
+     * @param from the lower bound
+     * @param to   the upper bound
+     * @return the created rule (not null)
+     * @throws IllegalArgumentException if from is greater than to
+     */
+    public static ValueRule inRange(final long from, final long to) {
+        return inRange(NumberRange.of(from, to, true, true));
+    }
+
+    /**
+     * Creates the rule that checks that the number is in the given range.
+     * NaN is never in the range.
+     *
+     * @param from          the lower bound
+     * @param to            the upper bound
+     * @param fromInclusive true if the lower bound is inclusive
+     * @param toInclusive   true if the upper bound is inclusive
+     * @return the created rule (not null)
+     * @throws IllegalArgumentException if from or to is NaN, or from is
+     *                                  greater than to
+     */
+    public static ValueRule inRange(final double from, final double to,
+                                    final boolean fromInclusive,
+                                    final boolean toInclusive) {
+        return inRange(NumberRange.of(from, to, fromInclusive, toInclusive));
+    }
+
+    /**
+     * Creates the rule that checks that the number is in the given range.
+     * Integral numbers are checked as long values, other numbers as double
+     * values.
+     *
+     * @param range the range
+     * @return the created rule (not null)
+     * @throws IllegalArgumentException if range is null
+     */
+    public static ValueRule inRange(final NumberRange range) {
+        if (range == null) {
+            throw new IllegalArgumentException("range should not be null");
+        }
+        final String message = "should be in the range "
+                + range.getDescription();
+        return new ValueRule() {
+            public String check(final Object value) {
+                if (value == null) {
+                    return null;
+                }
+                if (isIntegral(value)) {
+                    return range.contains(((Number) value).longValue()) ? null
+                            : message;
+                }
+                if (value instanceof Number) {
+                    return range.contains(((Number) value).doubleValue())
+                            ? null : message;
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * Creates the rule that checks that the string has at most the given
+     * number of characters.
+     *
+     * @param maxLength the maximum length
+     * @return the created rule (not null)
+     * @throws IllegalArgumentException if maxLength is negative
+     */
+    public static ValueRule maxLength(final int maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException(
+                    "maxLength should not be negative");
+        }
+        final String message = "should not be longer than " + maxLength
+                + " characters";
+        return new ValueRule() {
+            public String check(final Object value) {
+                return value instanceof CharSequence
+                        && ((CharSequence) value).length() > maxLength
+                        ? message : null;
+            }
+        };
+    }
+
+    /**
+     * Creates the rule that checks that the value is an instance of the given
+     * type.
+     *
+     * @param type the expected type
+     * @return the created rule (not null)
+     * @throws IllegalArgumentException if type is null
+     */
+    public static ValueRule instanceOf(final Class<?> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("type should not be null");
+        }
+        final String message = "should be an instance of " + type.getName();
+        return new ValueRule() {
+            public String check(final Object value) {
+                return value == null || type.isInstance(value) ? null
+                        : message;
+            }
+        };
+    }
+
+    /**
+     * Creates the rule that checks that the string matches the given
+     * regular expression. The expression is compiled once.
+     *
+     * @param regex the regular expression
+     * @return the created rule (not null)
+     * @throws IllegalArgumentException if regex is null
+     * @throws java.util.regex.PatternSyntaxException if regex is invalid
+     */
+    public static ValueRule matches(final String regex) {
+        final Pattern pattern = PatternCache.getPattern(regex);
+        final String message = "should match the pattern " + regex;
+        return new ValueRule() {
+            public String check(final Object value) {
+                return value instanceof CharSequence
+                        && !pattern.matcher((CharSequence) value).matches()
+                        ? message : null;
+            }
+        };
+    }
+
+    /**
+     * Creates the rule that checks that the string is in the given format.
+     *
+     * @param format the expected format
+     * @return the created rule (not null)
+     * @throws IllegalArgumentException if format is null
+     */
+    public static ValueRule format(final TextFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("format should not be null");
+        }
+        final String message = "should be a valid " + format.getDescription();
+        return new ValueRule() {
+            public String check(final Object value) {
+                return value instanceof CharSequence
+                        && !format.matches((CharSequence) value)
+                        ? message : null;
+            }
+        };
+    }
+
+    /**
+     * Creates the rule that checks all given rules in order and reports the
+     * first violation.
+     *
+     * @param rules the rules to be combined
+     * @return the created rule (not null)
+     * @throws IllegalArgumentException if rules is null or contains null
+     */
+    public static ValueRule all(final ValueRule... rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("rules should not be null");
+        }
+        final ValueRule[] copy = rules.clone();
+        for (ValueRule rule : copy) {
+            if (rule == null) {
+                throw new IllegalArgumentException(
+                        "rules should not contain null");
+            }
+        }
+        if (copy.length == 1) {
+            return copy[0];
+        }
+        return new ValueRule() {
+            public String check(final Object value) {
+                for (ValueRule rule : copy) {
+                    String violation = rule.check(value);
+                    if (violation != null) {
+                        return violation;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Checks that the number is greater than or equal to the given bound.
+     *
+     * @param value   the value (null is accepted)
+     * @param min     the minimum value (0 or 1)
+     * @param message the violation message
+     * @return null if the value is valid, the message otherwise
+     */
+    private static String checkSign(final Object value, final int min,
+                                    final String message) {
+        if (value == null) {
+            return null;
+        }
+        if (isIntegral(value)) {
+            return ((Number) value).longValue() >= min ? null : message;
+        }
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            return (min == 0 ? number >= 0 : number > 0) ? null : message;
+        }
+        return message;
+    }
+
+    /**
+     * Checks whether the value is an integral number.
+     *
+     * @param value the value
+     * @return true if the value is Long, Integer, Short or Byte
+     */
+    private static boolean isIntegral(final Object value) {
+        return value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte;
+    }
+}
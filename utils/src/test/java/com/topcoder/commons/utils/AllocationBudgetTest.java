@@ -0,0 +1,341 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the bytes allocated per invocation of every public method of ValidationUtility,
+ * PropertiesUtility, Log4jUtility and LoggingWrapperUtility (through
+ * com.sun.management.ThreadMXBean) and fails when a method exceeds the budget declared in
+ * allocation-budgets.properties. Every method is invoked with the arguments of its success
+ * path (logging methods with disabled priorities).
+ */
+public class AllocationBudgetTest {
+
+    private static final Class<?>[] CLASSES = {ValidationUtility.class, PropertiesUtility.class,
+        Log4jUtility.class, LoggingWrapperUtility.class};
+
+    private static final int WARMUP_INVOCATIONS = 20000;
+
+    private static final int MEASURED_INVOCATIONS = 2000;
+
+    private static final int ROUNDS = 3;
+
+    private Map<String, Object[]> scenarios;
+
+    private Properties budgets;
+
+    private Logger logger;
+
+    public AllocationBudgetTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        budgets = new Properties();
+        InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties");
+        try {
+            budgets.load(in);
+        } finally {
+            in.close();
+        }
+        logger = Logger.getLogger("allocationBudgetTest");
+        logger.setLevel(Level.OFF);
+        logger.setAdditivity(false);
+        scenarios = createScenarios();
+    }
+
+    @After
+    public void tearDown() {
+        logger.setLevel(null);
+        logger.setAdditivity(true);
+    }
+
+    @Test
+    public void testAllMethodsBudgeted() {
+        List<String> missing = new ArrayList<String>();
+        for (String key : getMethods().keySet()) {
+            if (!scenarios.containsKey(key)) {
+                missing.add(key + " has no scenario");
+            }
+            if (budgets.getProperty(key) == null) {
+                missing.add(key + " has no budget");
+            }
+        }
+        assertTrue(missing.toString(), missing.isEmpty());
+    }
+
+    @Test
+    public void testBudgets() throws Exception {
+        List<String> exceeded = new ArrayList<String>();
+        for (Map.Entry<String, Method> entry : getMethods().entrySet()) {
+            final Object[] args = scenarios.get(entry.getKey());
+            String budget = budgets.getProperty(entry.getKey());
+            if (args == null || budget == null) {
+                continue;
+            }
+            final Method method = entry.getValue();
+            long bytesPerInvocation = bytesPerCall(new ContentionHarness.Operation() {
+                public void run() throws Exception {
+                    method.invoke(null, args);
+                }
+            });
+            if (bytesPerInvocation > Long.parseLong(budget.trim())) {
+                exceeded.add(entry.getKey() + ": " + bytesPerInvocation + " bytes, budget " + budget);
+            }
+        }
+        assertTrue("allocation budgets exceeded: " + exceeded, exceeded.isEmpty());
+    }
+
+    /**
+     * Measures the bytes allocated by the current thread per call of the given operation: the
+     * minimum over several rounds after a warmup (so the JIT has eliminated what it can). Fails
+     * when the JVM doesn't support the measurement. Shared by the allocation tests of the other
+     * classes.
+     */
+    static long bytesPerCall(final ContentionHarness.Operation operation) throws Exception {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue("allocation measurement is not supported", threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_INVOCATIONS; i++) {
+            operation.run();
+        }
+        long bytesPerCall = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_INVOCATIONS; i++) {
+                operation.run();
+            }
+            long bytes = threadBean.getThreadAllocatedBytes(threadId) - before;
+            bytesPerCall = Math.min(bytesPerCall, bytes / MEASURED_INVOCATIONS);
+        }
+        return bytesPerCall;
+    }
+
+    private static Map<String, Method> getMethods() {
+        Map<String, Method> methods = new TreeMap<String, Method>();
+        for (Class<?> type : CLASSES) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (Modifier.isPublic(method.getModifiers()) && Modifier.isStatic(method.getModifiers())) {
+                    methods.put(getKey(method), method);
+                }
+            }
+        }
+        return methods;
+    }
+
+    private static String getKey(Method method) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(method.getDeclaringClass().getSimpleName()).append('.').append(method.getName())
+                .append('(');
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            sb.append(i == 0 ? "" : ",").append(types[i].getSimpleName());
+        }
+        return sb.append(')').toString();
+    }
+
+    private Map<String, Object[]> createScenarios() {
+        Map<String, Object[]> result = new HashMap<String, Object[]>();
+        Class<?> e = IllegalArgumentException.class;
+        File directory = new File(".");
+        File file = new File("pom.xml");
+        List<String> list = Arrays.asList("a", " b ");
+        Map<String, String> map = Collections.singletonMap("key", " value ");
+
+        result.put("ValidationUtility.checkNotNull(Object,String,Class)", args("value", "name", e));
+        result.put("ValidationUtility.checkNotEmpty(String,String,Class)", args("value", "name", e));
+        result.put("ValidationUtility.checkNotEmptyAfterTrimming(String,String,Class)",
+                args(" value ", "name", e));
+        result.put("ValidationUtility.checkNotNullNorEmpty(String,String,Class)", args("value", "name", e));
+        result.put("ValidationUtility.checkNotNullNorEmptyAfterTrimming(String,String,Class)",
+                args(" value ", "name", e));
+        StringBuilder builder = new StringBuilder(" value ");
+        result.put("ValidationUtility.checkNotBlank(CharSequence,boolean,String,Class)",
+                args(builder, true, "name", e));
+        result.put("ValidationUtility.checkLength(CharSequence,int,int,String,Class)",
+                args(builder, 1, 10, "name", e));
+        result.put("ValidationUtility.checkContainsOnly(CharSequence,CharacterSet,String,Class)",
+                args(builder, CharacterSet.LETTERS.union(CharacterSet.WHITESPACE), "name", e));
+        result.put("ValidationUtility.checkAscii(CharSequence,String,Class)", args(builder, "name", e));
+        result.put("ValidationUtility.checkMatches(CharSequence,String,String,Class)",
+                args("value-42", "[a-z]+-\\d+", "name", e));
+        result.put("ValidationUtility.checkMatches(CharSequence,Pattern,String,Class)",
+                args("value-42", Pattern.compile("[a-z]+-\\d+"), "name", e));
+        result.put("ValidationUtility.checkFormat(CharSequence,TextFormat,String,Class)",
+                args("2001:db8::ffff:192.168.0.1", TextFormat.IPV6, "name", e));
+        result.put("ValidationUtility.checkInstance(Object,Class,String,Class)",
+                args("value", String.class, "name", e));
+        result.put("ValidationUtility.checkNullOrInstance(Object,Class,String,Class)",
+                args("value", String.class, "name", e));
+        result.put("ValidationUtility.checkExists(File,String,Class)", args(file, "name", e));
+        result.put("ValidationUtility.checkIsFile(File,String,Class)", args(file, "name", e));
+        result.put("ValidationUtility.checkIsDirectory(File,String,Class)", args(directory, "name", e));
+        result.put("ValidationUtility.checkNotEmpty(Collection,String,Class)", args(list, "name", e));
+        result.put("ValidationUtility.checkNotNullNorEmpty(Collection,String,Class)", args(list, "name", e));
+        result.put("ValidationUtility.checkNotEmpty(Map,String,Class)", args(map, "name", e));
+        result.put("ValidationUtility.checkNotNullNorEmpty(Map,String,Class)", args(map, "name", e));
+        result.put("ValidationUtility.checkNotNullElements(Collection,String,Class)", args(list, "name", e));
+        result.put("ValidationUtility.checkNotEmptyElements(Collection,boolean,String,Class)",
+                args(list, true, "name", e));
+        result.put("ValidationUtility.checkNotNullKeys(Map,String,Class)", args(map, "name", e));
+        result.put("ValidationUtility.checkNotNullValues(Map,String,Class)", args(map, "name", e));
+        result.put("ValidationUtility.checkNotEmptyKeys(Map,boolean,String,Class)", args(map, true, "name", e));
+        result.put("ValidationUtility.checkNotEmptyValues(Map,boolean,String,Class)",
+                args(map, true, "name", e));
+        result.put("ValidationUtility.checkNegative(double,String,Class)", args(-1.5, "name", e));
+        result.put("ValidationUtility.checkPositive(double,String,Class)", args(1.5, "name", e));
+        result.put("ValidationUtility.checkNotNegative(double,String,Class)", args(0.0, "name", e));
+        result.put("ValidationUtility.checkNotPositive(double,String,Class)", args(0.0, "name", e));
+        result.put("ValidationUtility.checkNotZero(double,String,Class)", args(1.5, "name", e));
+        result.put("ValidationUtility.checkGreaterThan(double,double,boolean,String,Class)",
+                args(2.0, 1.0, true, "name", e));
+        result.put("ValidationUtility.checkLessThan(double,double,boolean,String,Class)",
+                args(1.0, 2.0, true, "name", e));
+        result.put("ValidationUtility.checkInRange(double,double,double,boolean,boolean,String,Class)",
+                args(1.5, 1.0, 2.0, true, true, "name", e));
+        result.put("ValidationUtility.checkNegative(long,String,Class)", args(-1L, "name", e));
+        result.put("ValidationUtility.checkPositive(long,String,Class)", args(1L, "name", e));
+        result.put("ValidationUtility.checkNotNegative(long,String,Class)", args(0L, "name", e));
+        result.put("ValidationUtility.checkNotPositive(long,String,Class)", args(0L, "name", e));
+        result.put("ValidationUtility.checkNotZero(long,String,Class)", args(1L, "name", e));
+        result.put("ValidationUtility.checkGreaterThan(long,long,boolean,String,Class)",
+                args(2L, 1L, true, "name", e));
+        result.put("ValidationUtility.checkLessThan(long,long,boolean,String,Class)",
+                args(1L, 2L, true, "name", e));
+        result.put("ValidationUtility.checkInRange(long,long,long,boolean,boolean,String,Class)",
+                args(5L, 1L, 10L, true, true, "name", e));
+        result.put("ValidationUtility.checkFinite(double,String,Class)", args(1.5, "name", e));
+        result.put("ValidationUtility.setFailureSink(ValidationFailureSink)", args((Object) null));
+        result.put("ValidationUtility.getFailureSink()", args());
+        long[] ids = new long[16];
+        int[] intIds = new int[16];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1000 + i;
+            intIds[i] = 1000 + i;
+        }
+        result.put("ValidationUtility.checkUnique(long[],String,Class)", args(ids, "name", e));
+        result.put("ValidationUtility.checkUnique(int[],String,Class)", args(intIds, "name", e));
+        result.put("ValidationUtility.checkUnique(Collection,String,Class)", args(list, "name", e));
+        result.put("ValidationUtility.checkInRange(long,NumberRange,String,Class)",
+                args(5L, NumberRange.of(1, 10, true, false), "name", e));
+        result.put("ValidationUtility.checkInRange(double,NumberRange,String,Class)",
+                args(0.5, NumberRange.of(0.0, 1.0, true, false), "name", e));
+        BigDecimal amount = new BigDecimal("12.50");
+        BigDecimal min = new BigDecimal("0.01");
+        BigDecimal max = new BigDecimal("100.00");
+        result.put("ValidationUtility.checkInRange(Comparable,ComparableRange,String,Class)",
+                args(amount, ComparableRange.of(min, max, true, false), "name", e));
+        result.put("ValidationUtility.checkInRange(Comparable,Comparable,Comparable,boolean,boolean,String,Class)",
+                args(amount, min, max, true, false, "name", e));
+        result.put("ValidationUtility.checkGreaterThan(Comparable,Comparable,boolean,String,Class)",
+                args(amount, min, true, "name", e));
+        result.put("ValidationUtility.checkLessThan(Comparable,Comparable,boolean,String,Class)",
+                args(amount, max, false, "name", e));
+
+        Properties properties = new Properties();
+        properties.setProperty("string", "value");
+        properties.setProperty("strings", "a,b,c");
+        properties.setProperty("integer", "8080");
+        properties.setProperty("long", "8080");
+        properties.setProperty("double", "0.75");
+        properties.setProperty("date", "2020-01-01");
+        properties.setProperty("class", "java.lang.String");
+        properties.setProperty("child.key", "value");
+        PropertySource source = new PropertiesSnapshot(properties);
+        Class<?> s = IllegalStateException.class;
+        for (Object container : new Object[] {properties, source}) {
+            String type = container == properties ? "Properties" : "PropertySource";
+            result.put("PropertiesUtility.getStringProperty(" + type + ",String,boolean,Class)",
+                    args(container, "string", true, s));
+            result.put("PropertiesUtility.getStringsProperty(" + type + ",String,String,boolean,Class)",
+                    args(container, "strings", ",", true, s));
+            result.put("PropertiesUtility.getIntegerProperty(" + type + ",String,boolean,Class)",
+                    args(container, "integer", true, s));
+            result.put("PropertiesUtility.getLongProperty(" + type + ",String,boolean,Class)",
+                    args(container, "long", true, s));
+            result.put("PropertiesUtility.getDoubleProperty(" + type + ",String,boolean,Class)",
+                    args(container, "double", true, s));
+            result.put("PropertiesUtility.getDateProperty(" + type + ",String,String,boolean,Class)",
+                    args(container, "date", "yyyy-MM-dd", true, s));
+            result.put("PropertiesUtility.getClassProperty(" + type + ",String,boolean,Class)",
+                    args(container, "class", true, s));
+        }
+        result.put("PropertiesUtility.getSubConfiguration(Properties,String)", args(properties, "child"));
+
+        String[] names = {"id", "name"};
+        Object[] values = {1, "value"};
+        Object[] value = {"value"};
+        Date timestamp = new Date();
+        Exception exception = new IllegalStateException();
+        result.put("Log4jUtility.setStructuredEvents(boolean)", args(false));
+        result.put("Log4jUtility.isStructuredEvents()", args());
+        result.put("Log4jUtility.setAsyncLogging(boolean)", args(false));
+        result.put("Log4jUtility.isAsyncLogging()", args());
+        result.put("Log4jUtility.logEntrance(Logger,String,String[],Object[])",
+                args(logger, "Type#method", names, values));
+        result.put("Log4jUtility.logEntrance(Logger,String,String[],Object[],Priority)",
+                args(logger, "Type#method", names, values, Level.INFO));
+        result.put("Log4jUtility.logExit(Logger,String,Object[])", args(logger, "Type#method", value));
+        result.put("Log4jUtility.logExit(Logger,String,Object[],Date)",
+                args(logger, "Type#method", value, timestamp));
+        result.put("Log4jUtility.logExit(Logger,String,Object[],Date,Priority)",
+                args(logger, "Type#method", value, timestamp, Level.INFO));
+        result.put("Log4jUtility.logException(Logger,String,Throwable)",
+                args(logger, "Type#method", exception));
+        result.put("Log4jUtility.logException(Logger,String,Throwable,Priority)",
+                args(logger, "Type#method", exception, Level.ERROR));
+        Runnable task = new Runnable() {
+            public void run() {
+                // empty
+            }
+        };
+        result.put("Log4jUtility.trace(Class,Object,Logger)", args(Runnable.class, task, logger));
+        LoggingBackend backend = new Log4jLoggingBackend(logger);
+        result.put("LoggingWrapperUtility.logEntrance(LoggingBackend,String,String[],Object[])",
+                args(backend, "Type#method", names, values));
+        result.put("LoggingWrapperUtility.logEntrance(LoggingBackend,String,String[],Object[],LogLevel)",
+                args(backend, "Type#method", names, values, LogLevel.INFO));
+        result.put("LoggingWrapperUtility.logExit(LoggingBackend,String,Object[])",
+                args(backend, "Type#method", value));
+        result.put("LoggingWrapperUtility.logExit(LoggingBackend,String,Object[],Date)",
+                args(backend, "Type#method", value, timestamp));
+        result.put("LoggingWrapperUtility.logExit(LoggingBackend,String,Object[],Date,LogLevel)",
+                args(backend, "Type#method", value, timestamp, LogLevel.INFO));
+        result.put("LoggingWrapperUtility.logException(LoggingBackend,String,Throwable)",
+                args(backend, "Type#method", exception));
+        result.put("LoggingWrapperUtility.logException(LoggingBackend,String,Throwable,LogLevel)",
+                args(backend, "Type#method", exception, LogLevel.ERROR));
+        return result;
+    }
+
+    private static Object[] args(Object... values) {
+        return values;
+    }
+}
@@ -0,0 +1,134 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncLogWriterTest {
+
+    private static final int THREADS = 64;
+
+    private static final int EVENTS_PER_THREAD = 2000;
+
+    private Logger logger;
+
+    private CountingAppender appender;
+
+    public AsyncLogWriterTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        logger = Logger.getLogger("asyncLogWriterTest");
+        logger.setAdditivity(false);
+        logger.setLevel(Level.DEBUG);
+        appender = new CountingAppender();
+        logger.addAppender(appender);
+        Log4jUtility.setAsyncLogging(true);
+    }
+
+    @After
+    public void tearDown() {
+        Log4jUtility.setAsyncLogging(false);
+        AsyncLogWriter.setCapacity(65536);
+        AsyncLogWriter.flush(10, TimeUnit.SECONDS);
+        logger.removeAppender(appender);
+    }
+
+    @Test
+    public void testConcurrentLogging() throws Exception {
+        AsyncLogWriter.setCapacity(THREADS * EVENTS_PER_THREAD * 2);
+        long dropped = AsyncLogWriter.getDroppedCount();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < EVENTS_PER_THREAD / 2; j++) {
+                        Log4jUtility.logEntrance(logger, "Stress#run", null, null);
+                        Log4jUtility.logExit(logger, "Stress#run", null);
+                    }
+                }
+            }, "logging-thread-" + i);
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(AsyncLogWriter.flush(30, TimeUnit.SECONDS));
+        assertEquals(dropped, AsyncLogWriter.getDroppedCount());
+        assertEquals(THREADS * EVENTS_PER_THREAD, appender.count.get());
+        assertEquals(0, AsyncLogWriter.getPendingCount());
+        assertEquals(1, appender.appendingThreads.size());
+        assertTrue(appender.appendingThreads.contains("async-log-writer"));
+        assertEquals(THREADS, appender.eventThreads.size());
+        assertTrue(appender.eventThreads.contains("logging-thread-0"));
+    }
+
+    @Test
+    public void testEventsDroppedWhenFull() throws Exception {
+        AsyncLogWriter.flush(10, TimeUnit.SECONDS);
+        AsyncLogWriter.setCapacity(1);
+        appender.delayMillis = 50;
+        long dropped = AsyncLogWriter.getDroppedCount();
+        for (int i = 0; i < 20; i++) {
+            Log4jUtility.logException(logger, "Stress#fail", new IllegalStateException());
+        }
+        assertTrue(AsyncLogWriter.getDroppedCount() > dropped);
+        assertTrue(AsyncLogWriter.flush(10, TimeUnit.SECONDS));
+        assertEquals(20, appender.count.get() + AsyncLogWriter.getDroppedCount() - dropped);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetCapacityInvalid() {
+        AsyncLogWriter.setCapacity(0);
+    }
+
+    private static class CountingAppender extends AppenderSkeleton {
+        private final AtomicInteger count = new AtomicInteger();
+        private final Set<String> appendingThreads = new HashSet<String>();
+        private final Set<String> eventThreads = new HashSet<String>();
+        private volatile long delayMillis;
+
+        protected void append(LoggingEvent event) {
+            appendingThreads.add(Thread.currentThread().getName());
+            eventThreads.add(event.getThreadName());
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        public void close() {
+            // empty
+        }
+
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.topcoder.commons.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BeanValidatorTest {
+
+    public static class Person {
+        private String name;
+        private int age;
+        private boolean active = true;
+        private Person friend;
+        private List<Person> children = new ArrayList<Person>();
+        String nickname = "x";
+
+        public Person(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public Person getFriend() {
+            return friend;
+        }
+
+        public List<Person> getChildren() {
+            return children;
+        }
+    }
+
+    public static class Employee extends Person {
+        private Person[] reports = new Person[0];
+
+        public Employee(String name, int age) {
+            super(name, age);
+        }
+    }
+
+    private static class Hidden {
+        private final String code;
+
+        Hidden(String code) {
+            this.code = code;
+        }
+    }
+
+    private BeanValidator validator;
+
+    public BeanValidatorTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        validator = new BeanValidator()
+                .addRule(Person.class, "name", ValueRules.notNull())
+                .addRule(Person.class, "name", ValueRules.notEmptyAfterTrimming())
+                .addRule(Person.class, "age", ValueRules.inRange(0, 150))
+                .addNested(Person.class, "friend")
+                .addNested(Person.class, "children")
+                .addNested(Employee.class, "reports")
+                .addRule(Employee.class, "age", ValueRules.inRange(18, 70));
+    }
+
+    @Test
+    public void testValidate() throws Exception {
+        Person person = new Person("John", 30);
+        person.friend = new Person("Jane", 31);
+        person.children.add(new Person("Jim", 3));
+        validator.validate(person, "person", IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testViolations() throws Exception {
+        assertFailure(null, "person should not be null");
+        assertFailure(new Person(null, 30), "person.name should not be null");
+        assertFailure(new Person(" ", 30), "person.name should not be empty (trimmed)");
+        assertFailure(new Person("John", 200), "person.age should be in the range [0, 150]");
+    }
+
+    @Test
+    public void testNested() throws Exception {
+        Person person = new Person("John", 30);
+        person.friend = new Person("Jane", 31);
+        person.friend.friend = new Person("", 32);
+        assertFailure(person, "person.friend.friend.name should not be empty (trimmed)");
+
+        person.friend.friend = null;
+        person.children.add(new Person("Jim", 3));
+        person.children.add(new Person("Joe", -1));
+        assertFailure(person, "person.children[1].age should be in the range [0, 150]");
+    }
+
+    @Test
+    public void testSubclass() throws Exception {
+        Employee employee = new Employee("John", 30);
+        validator.validate(employee, "employee", IllegalArgumentException.class);
+        employee.reports = new Employee[] {new Employee("Jane", 40), new Employee("Jim", 16)};
+        assertFailure(employee, "person.reports[1].age should be in the range [18, 70]");
+        employee.reports[1] = null;
+        validator.validate(employee, "employee", IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testCycle() throws Exception {
+        Person john = new Person("John", 30);
+        Person jane = new Person("Jane", 31);
+        john.friend = jane;
+        jane.friend = john;
+        john.children.add(john);
+        validator.validate(john, "person", IllegalArgumentException.class);
+        jane.name = "";
+        assertFailure(john, "person.friend.name should not be empty (trimmed)");
+    }
+
+    @Test
+    public void testFieldAndBooleanGetter() throws Exception {
+        BeanValidator fields = new BeanValidator()
+                .addRule(Person.class, "nickname", ValueRules.maxLength(3))
+                .addRule(Person.class, "active", ValueRules.instanceOf(Boolean.class))
+                .addRule(Hidden.class, "code", ValueRules.notEmpty());
+        Person person = new Person("John", 30);
+        fields.validate(person, "person", IllegalArgumentException.class);
+        person.nickname = "Johnny";
+        try {
+            fields.validate(person, "person", IllegalStateException.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("person.nickname should not be longer than 3 characters", e.getMessage());
+        }
+        fields.validate(new Hidden("a"), "hidden", IllegalArgumentException.class);
+        try {
+            fields.validate(new Hidden(""), "hidden", IllegalStateException.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("hidden.code should not be empty", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownProperty() throws Exception {
+        new BeanValidator().addRule(Person.class, "unknown", ValueRules.notNull())
+                .validate(new Person("John", 30), "person", IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddRuleAfterValidation() throws Exception {
+        validator.validate(new Person("John", 30), "person", IllegalArgumentException.class);
+        validator.addRule(Person.class, "name", ValueRules.maxLength(10));
+    }
+
+    @Test
+    public void testAddRuleInvalid() {
+        try {
+            validator.addRule(null, "name", ValueRules.notNull());
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            validator.addRule(Person.class, "", ValueRules.notNull());
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            validator.addRule(Person.class, "name", null);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            validator.addNested(Person.class, null);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testValidateDoesNotAllocate() throws Exception {
+        final BeanValidator flat = new BeanValidator()
+                .addRule(Person.class, "name", ValueRules.notEmpty())
+                .addRule(Person.class, "age", ValueRules.inRange(0, 150));
+        final Person person = new Person("John", 30);
+        assertEquals(0, AllocationBudgetTest.bytesPerCall(new ContentionHarness.Operation() {
+            public void run() throws Exception {
+                flat.validate(person, "person", IllegalArgumentException.class);
+            }
+        }));
+    }
+
+    private void assertFailure(Object bean, String message) throws Exception {
+        try {
+            validator.validate(bean, "person", IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
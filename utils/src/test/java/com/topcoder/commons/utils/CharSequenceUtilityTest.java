@@ -0,0 +1,92 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.CharBuffer;
+
+import static org.junit.Assert.*;
+
+public class CharSequenceUtilityTest {
+
+    public CharSequenceUtilityTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        // empty
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testIsBlank() {
+        assertTrue(CharSequenceUtility.isBlank(""));
+        assertTrue(CharSequenceUtility.isBlank(" \t\r\n\u0000"));
+        assertFalse(CharSequenceUtility.isBlank(" a "));
+        assertFalse(CharSequenceUtility.isBlank("\u00A0"));
+        assertTrue(CharSequenceUtility.isBlank("\u00A0\u2003\u3000 \t", true));
+        assertFalse(CharSequenceUtility.isBlank("\u0000", true));
+        assertTrue(CharSequenceUtility.isBlank(new StringBuilder("   ")));
+        CharBuffer buffer = CharBuffer.wrap("xx  ");
+        buffer.position(2);
+        assertTrue(CharSequenceUtility.isBlank(buffer, true));
+    }
+
+    @Test
+    public void testLengthAndAscii() {
+        assertTrue(CharSequenceUtility.isLengthInRange("abc", 3, 5));
+        assertFalse(CharSequenceUtility.isLengthInRange("abc", 4, 5));
+        assertTrue(CharSequenceUtility.isAscii(new StringBuilder("plain text ~")));
+        assertFalse(CharSequenceUtility.isAscii("na\u00EFve"));
+    }
+
+    @Test
+    public void testContainsOnly() {
+        CharacterSet identifier = CharacterSet.ASCII_LETTERS.union(CharacterSet.ASCII_DIGITS)
+                .union(CharacterSet.of("_-"));
+        assertTrue(CharSequenceUtility.containsOnly("user_name-1", identifier));
+        assertEquals(4, CharSequenceUtility.indexOfCharacterNotIn("user name", identifier));
+        assertTrue(CharSequenceUtility.containsOnly("\u00C9t\u00E9", CharacterSet.LETTERS));
+        assertTrue(CharSequenceUtility.containsOnly("\u0663\u0664", CharacterSet.DIGITS));
+        assertFalse(CharSequenceUtility.containsOnly("\u0663\u0664", CharacterSet.ASCII_DIGITS));
+        String emoji = new String(Character.toChars(0x1F600));
+        CharacterSet emojis = CharacterSet.range(0x1F600, 0x1F64F);
+        assertTrue(CharSequenceUtility.containsOnly(emoji + emoji, emojis));
+        assertTrue(CharSequenceUtility.containsOnly(emoji, CharacterSet.of(emoji)));
+        assertEquals(2, CharSequenceUtility.indexOfCharacterNotIn(emoji + "a", emojis));
+    }
+
+    @Test
+    public void testCharacterSetUnion() {
+        CharacterSet set = CharacterSet.range(0x400, 0x410).union(CharacterSet.range(0x405, 0x420))
+                .union(CharacterSet.of("a\u0500"));
+        assertTrue(set.contains('a'));
+        assertFalse(set.contains('b'));
+        assertTrue(set.contains(0x400));
+        assertTrue(set.contains(0x420));
+        assertFalse(set.contains(0x421));
+        assertTrue(set.contains(0x500));
+        assertFalse(set.contains(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIsBlankNull() {
+        CharSequenceUtility.isBlank(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangeInvalid() {
+        CharacterSet.range(10, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfCategoriesInvalid() {
+        CharacterSet.ofCategories((byte) 99);
+    }
+}
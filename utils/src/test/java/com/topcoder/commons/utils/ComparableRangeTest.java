@@ -0,0 +1,70 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+public class ComparableRangeTest {
+
+    public ComparableRangeTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        // empty
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testBigDecimalRange() {
+        ComparableRange<BigDecimal> range = ComparableRange.of(new BigDecimal("0.01"), new BigDecimal("100.00"),
+                true, false);
+        assertEquals("[0.01, 100.00)", range.getDescription());
+        assertTrue(range.contains(new BigDecimal("0.010")));
+        assertTrue(range.contains(new BigDecimal("99.999999999999999999")));
+        assertFalse(range.contains(new BigDecimal("100")));
+        assertFalse(range.contains(new BigDecimal("0.009999999999999999999")));
+        assertEquals(new BigDecimal("0.01"), range.getFrom());
+        assertEquals(new BigDecimal("100.00"), range.getTo());
+    }
+
+    @Test
+    public void testInstantAndDurationRanges() {
+        Instant start = Instant.parse("2010-01-01T00:00:00Z");
+        ComparableRange<Instant> window = ComparableRange.of(start, start.plusSeconds(60), false, true);
+        assertFalse(window.contains(start));
+        assertTrue(window.contains(start.plusNanos(1)));
+        assertTrue(window.contains(start.plusSeconds(60)));
+        ComparableRange<Duration> timeout = ComparableRange.of(Duration.ofMillis(1), Duration.ofMinutes(5), true,
+                true);
+        assertEquals("[PT0.001S, PT5M]", timeout.toString());
+        assertTrue(timeout.contains(Duration.ofSeconds(30)));
+        assertFalse(timeout.contains(Duration.ZERO));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfInvalidBounds() {
+        ComparableRange.of("b", "a", true, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfNullBound() {
+        ComparableRange.of(null, "a", true, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testContainsNull() {
+        ComparableRange.of("a", "b", true, true).contains(null);
+    }
+}
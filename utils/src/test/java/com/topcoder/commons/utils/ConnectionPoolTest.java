@@ -0,0 +1,248 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:h2:mem:connectionPoolTest;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool pool;
+
+    public ConnectionPoolTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        pool = new ConnectionPool(URL, null, 0, 3);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        Connection first = pool.getConnection(IllegalStateException.class);
+        assertEquals(1, pool.getActiveCount());
+        first.close();
+        assertTrue(first.isClosed());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+
+        Connection second = pool.getConnection(IllegalStateException.class);
+        assertSame(first, second);
+        assertFalse(second.isClosed());
+        second.close();
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(2, pool.getWaitTimes().getCount());
+        assertEquals(2, pool.getUsageTimes().getCount());
+    }
+
+    @Test(expected = SQLException.class)
+    public void testReturnedConnectionIsUnusable() throws Exception {
+        Connection connection = pool.getConnection(IllegalStateException.class);
+        connection.close();
+        connection.createStatement();
+    }
+
+    @Test
+    public void testUncommittedWorkIsRolledBack() throws Exception {
+        Connection connection = pool.getConnection(IllegalStateException.class);
+        Statement statement = connection.createStatement();
+        statement.execute("CREATE TABLE pooled (id INT)");
+        statement.close();
+        connection.setAutoCommit(false);
+        JDBCUtility.executeUpdate(connection, "INSERT INTO pooled VALUES (?)",
+                new int[] {Types.INTEGER}, new Object[] {1}, IllegalStateException.class);
+        connection.close();
+
+        connection = pool.getConnection(IllegalStateException.class);
+        try {
+            assertTrue(connection.getAutoCommit());
+            Object[][] rows = JDBCUtility.executeQuery(connection, "SELECT COUNT(*) FROM pooled",
+                    null, null, new Class<?>[] {Integer.class}, IllegalStateException.class);
+            assertEquals(0, rows[0][0]);
+            statement = connection.createStatement();
+            statement.execute("DROP TABLE pooled");
+            statement.close();
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testInvalidConnectionIsReplaced() throws Exception {
+        Connection connection = pool.getConnection(IllegalStateException.class);
+        Connection physical = connection.unwrap(Connection.class);
+        connection.close();
+        physical.close();
+
+        Connection replacement = pool.getConnection(IllegalStateException.class);
+        assertNotSame(connection, replacement);
+        assertEquals(1, pool.getDestroyedCount());
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(1, pool.getTotalCount());
+        replacement.close();
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        pool.setMaxWait(20, TimeUnit.MILLISECONDS);
+        List<Connection> connections = new ArrayList<Connection>();
+        for (int i = 0; i < 3; i++) {
+            connections.add(pool.getConnection(IllegalStateException.class));
+        }
+        try {
+            pool.getConnection(IllegalStateException.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals(1, pool.getTimeoutCount());
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        assertEquals(3, pool.getIdleCount());
+    }
+
+    @Test
+    public void testStatementCacheKeptWhileIdle() throws Exception {
+        Connection pooled = pool.getConnection(IllegalStateException.class);
+        JDBCUtility.executeQuery(pooled, "SELECT 1", null, null, new Class<?>[] {Integer.class},
+                IllegalStateException.class);
+        pooled.close();
+        assertTrue(pooled.isClosed());
+        // a cache created for another connection removes the caches of closed connections
+        Connection raw = java.sql.DriverManager.getConnection(URL);
+        JDBCUtility.executeQuery(raw, "SELECT 1", null, null, new Class<?>[] {Integer.class},
+                IllegalStateException.class);
+        JDBCUtility.clearStatementCache(raw);
+        raw.close();
+        assertTrue(StatementCache.hasCache(pooled));
+        pool.close();
+        assertFalse(StatementCache.hasCache(pooled));
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        pool.close();
+        pool = new ConnectionPool(URL, null, 1, 3);
+        pool.prefill(IllegalStateException.class);
+        assertEquals(1, pool.getTotalCount());
+        Connection first = pool.getConnection(IllegalStateException.class);
+        Connection second = pool.getConnection(IllegalStateException.class);
+        Connection third = pool.getConnection(IllegalStateException.class);
+        first.close();
+        second.close();
+        third.close();
+        assertEquals(3, pool.getTotalCount());
+
+        pool.setIdleTimeout(1, TimeUnit.MILLISECONDS);
+        Thread.sleep(10);
+        pool.evictIdleConnections();
+        assertEquals(1, pool.getTotalCount());
+        assertEquals(2, pool.getDestroyedCount());
+    }
+
+    @Test
+    public void testScheduledEviction() throws Exception {
+        Connection first = pool.getConnection(IllegalStateException.class);
+        Connection second = pool.getConnection(IllegalStateException.class);
+        first.close();
+        second.close();
+        assertEquals(2, pool.getTotalCount());
+
+        pool.setIdleTimeout(1, TimeUnit.MILLISECONDS);
+        pool.setEvictionInterval(5, TimeUnit.MILLISECONDS);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getTotalCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, pool.getTotalCount());
+        assertEquals(2, pool.getDestroyedCount());
+        pool.setEvictionInterval(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSetEvictionIntervalClosed() {
+        pool.close();
+        pool.setEvictionInterval(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testConcurrentCheckout() throws Exception {
+        final AtomicInteger maxActive = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        int sum = 0;
+                        for (int i = 0; i < 100; i++) {
+                            Connection connection = pool.getConnection(IllegalStateException.class);
+                            try {
+                                int active = pool.getActiveCount();
+                                int max = maxActive.get();
+                                while (active > max && !maxActive.compareAndSet(max, active)) {
+                                    max = maxActive.get();
+                                }
+                                Object[][] rows = JDBCUtility.executeQuery(connection, "SELECT 1",
+                                        null, null, new Class<?>[] {Integer.class},
+                                        IllegalStateException.class);
+                                sum += (Integer) rows[0][0];
+                            } finally {
+                                connection.close();
+                            }
+                        }
+                        return sum;
+                    }
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(Integer.valueOf(100), future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(maxActive.get() <= 3);
+        assertTrue(pool.getCreatedCount() <= 3);
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(800, pool.getWaitTimes().getCount());
+        assertEquals(800, pool.getUsageTimes().getCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedPool() throws Exception {
+        pool.close();
+        pool.getConnection(IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInvalidUrl() throws Exception {
+        new ConnectionPool("jdbc:unknown:driver", null, 0, 1).getConnection(IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinSizeGreaterThanMaxSize() {
+        new ConnectionPool(URL, null, 2, 1);
+    }
+}
@@ -0,0 +1,138 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.io.File;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Multi-threaded contention benchmarks. They are not run by the default build; use
+ * "mvn -P benchmark test". The report is printed to the console and the measured values are
+ * written to target/benchmark-results.properties (in the format of the baseline file).
+ */
+public class ContentionBenchmark {
+
+    private static ContentionHarness harness;
+
+    private Logger logger;
+
+    private Properties properties;
+
+    public ContentionBenchmark() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        if (harness == null) {
+            harness = new ContentionHarness();
+        }
+        logger = Logger.getLogger("contentionBenchmark");
+        logger.setAdditivity(false);
+        properties = new Properties();
+        properties.setProperty("name", "server");
+        properties.setProperty("port", "8080");
+        properties.setProperty("ratio", "0.75");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        logger.removeAllAppenders();
+        logger.setLevel(null);
+        System.out.println(harness.takeReport());
+        harness.storeMeasured(new File("target/benchmark-results.properties"),
+                "measured contention benchmark results");
+    }
+
+    @Test
+    public void testLoggingDisabled() throws Exception {
+        logger.setLevel(Level.INFO);
+        final String[] names = {"id", "name"};
+        final Object[] values = {1, "value"};
+        harness.run("log4j.disabled", new ContentionHarness.Operation() {
+            public void run() {
+                Log4jUtility.logEntrance(logger, "Benchmark#run", names, values);
+                Log4jUtility.logExit(logger, "Benchmark#run", null);
+            }
+        });
+        assertNoRegressions();
+    }
+
+    @Test
+    public void testLoggingEnabled() throws Exception {
+        logger.setLevel(Level.DEBUG);
+        logger.addAppender(new AppenderSkeleton() {
+            protected void append(LoggingEvent event) {
+                event.getRenderedMessage();
+            }
+
+            public void close() {
+                // empty
+            }
+
+            public boolean requiresLayout() {
+                return false;
+            }
+        });
+        harness.run("log4j.enabled", new ContentionHarness.Operation() {
+            public void run() {
+                Log4jUtility.logEntrance(logger, "Benchmark#run", null, null);
+            }
+        });
+        assertNoRegressions();
+    }
+
+    @Test
+    public void testPropertiesGetters() throws Exception {
+        harness.run("properties.getters", new ContentionHarness.Operation() {
+            public void run() throws Exception {
+                PropertiesUtility.getIntegerProperty(properties, "port", true,
+                        IllegalStateException.class);
+                PropertiesUtility.getStringProperty(properties, "name", true,
+                        IllegalStateException.class);
+            }
+        });
+        assertNoRegressions();
+    }
+
+    @Test
+    public void testPropertiesSnapshotGetters() throws Exception {
+        final PropertiesSnapshot snapshot = new PropertiesSnapshot(properties);
+        harness.run("properties.snapshot", new ContentionHarness.Operation() {
+            public void run() throws Exception {
+                PropertiesUtility.getIntegerProperty(snapshot, "port", true,
+                        IllegalStateException.class);
+                PropertiesUtility.getStringProperty(snapshot, "name", true,
+                        IllegalStateException.class);
+            }
+        });
+        assertNoRegressions();
+    }
+
+    @Test
+    public void testValidationFailure() throws Exception {
+        harness.run("validation.failure", new ContentionHarness.Operation() {
+            public void run() throws Exception {
+                try {
+                    ValidationUtility.checkNotNull(null, "value", IllegalArgumentException.class);
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+        });
+        assertNoRegressions();
+    }
+
+    private static void assertNoRegressions() {
+        assertTrue(harness.getRegressions().toString(), harness.getRegressions().isEmpty());
+    }
+}
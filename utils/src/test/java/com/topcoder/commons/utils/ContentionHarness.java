@@ -0,0 +1,280 @@
+package com.topcoder.commons.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs an operation at 1, 2, 4, ... N threads and measures the throughput, the
+ * bytes allocated per operation (through com.sun.management.ThreadMXBean) and
+ * the GC activity. The results are compared with the baseline stored in
+ * benchmark-baseline.properties.
+ */
+final class ContentionHarness {
+
+    interface Operation {
+        void run() throws Exception;
+    }
+
+    static final class Result {
+        private final int threads;
+        private final long operations;
+        private final long nanos;
+        private final long allocatedBytes;
+        private final long gcCount;
+        private final long gcMillis;
+
+        Result(int threads, long operations, long nanos, long allocatedBytes, long gcCount,
+               long gcMillis) {
+            this.threads = threads;
+            this.operations = operations;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        int getThreads() {
+            return threads;
+        }
+
+        double getOpsPerSecond() {
+            return operations * 1e9 / nanos;
+        }
+
+        double getBytesPerOp() {
+            return operations == 0 ? 0 : (double) allocatedBytes / operations;
+        }
+
+        double getAllocationMbPerSecond() {
+            return allocatedBytes * 1e9 / nanos / (1024 * 1024);
+        }
+    }
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private final long warmupMillis = Long.getLong("benchmark.warmupMillis", 300);
+
+    private final long measureMillis = Long.getLong("benchmark.measureMillis", 1000);
+
+    private final int maxThreads = Integer.getInteger("benchmark.maxThreads", Math.max(4, CORES * 2));
+
+    private final Properties baseline = new Properties();
+
+    private final Properties measured = new Properties();
+
+    private final StringBuilder report = new StringBuilder();
+
+    private final List<String> regressions = new ArrayList<String>();
+
+    ContentionHarness() throws IOException {
+        InputStream in = ContentionHarness.class.getResourceAsStream("/benchmark-baseline.properties");
+        if (in != null) {
+            try {
+                baseline.load(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Runs the operation at all thread counts and checks the results against the baseline.
+     */
+    List<Result> run(String name, Operation operation) throws Exception {
+        regressions.clear();
+        // the first level would otherwise run less optimized code than the following ones
+        measure(operation, 1);
+        List<Result> results = new ArrayList<Result>();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            results.add(measure(operation, threads));
+        }
+        Result single = results.get(0);
+        Result last = results.get(results.size() - 1);
+        double efficiency = getEfficiency(single, last);
+        report.append(String.format(Locale.US, "%n%s%n%8s %14s %10s %10s %10s %6s %8s%n", name,
+                "threads", "ops/s", "efficiency", "bytes/op", "MB/s", "gc", "gc ms"));
+        for (Result result : results) {
+            report.append(String.format(Locale.US, "%8d %14.0f %10.2f %10.1f %10.1f %6d %8d%n",
+                    result.threads, result.getOpsPerSecond(), getEfficiency(single, result),
+                    result.getBytesPerOp(), result.getAllocationMbPerSecond(), result.gcCount,
+                    result.gcMillis));
+        }
+        measured.setProperty(name + ".minEfficiency", String.format(Locale.US, "%.2f", efficiency));
+        measured.setProperty(name + ".maxBytesPerOp", String.format(Locale.US, "%.0f",
+                last.getBytesPerOp()));
+        String minEfficiency = baseline.getProperty(name + ".minEfficiency");
+        if (minEfficiency != null && efficiency < Double.parseDouble(minEfficiency)) {
+            regressions.add(String.format(Locale.US, "%s: efficiency at %d threads is %.2f,"
+                    + " baseline minimum is %s", name, last.threads, efficiency, minEfficiency));
+        }
+        String maxBytes = baseline.getProperty(name + ".maxBytesPerOp");
+        if (maxBytes != null && last.getBytesPerOp() > Double.parseDouble(maxBytes)) {
+            regressions.add(String.format(Locale.US, "%s: %.1f bytes/op, baseline maximum is %s",
+                    name, last.getBytesPerOp(), maxBytes));
+        }
+        return results;
+    }
+
+    /**
+     * Runs the operation in a single thread (for comparing the throughput of alternative
+     * implementations) and checks the allocation against the baseline.
+     */
+    Result runSingle(String name, Operation operation) throws Exception {
+        regressions.clear();
+        measure(operation, 1);
+        Result result = measure(operation, 1);
+        report.append(String.format(Locale.US, "%-40s %14.0f ops/s %10.1f bytes/op%n", name,
+                result.getOpsPerSecond(), result.getBytesPerOp()));
+        measured.setProperty(name + ".maxBytesPerOp", String.format(Locale.US, "%.0f",
+                result.getBytesPerOp()));
+        String maxBytes = baseline.getProperty(name + ".maxBytesPerOp");
+        if (maxBytes != null && result.getBytesPerOp() > Double.parseDouble(maxBytes)) {
+            regressions.add(String.format(Locale.US, "%s: %.1f bytes/op, baseline maximum is %s",
+                    name, result.getBytesPerOp(), maxBytes));
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the report of the operations run since the last call.
+     */
+    String takeReport() {
+        String result = report.toString();
+        report.setLength(0);
+        return result;
+    }
+
+    /**
+     * Writes the measured values to the given file (in the format of the baseline file).
+     */
+    void storeMeasured(File file, String comments) throws IOException {
+        file.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            measured.store(out, comments);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Retrieves the regressions found by the last run.
+     */
+    List<String> getRegressions() {
+        return regressions;
+    }
+
+    /**
+     * The throughput at the given thread count relative to the ideal scaling of the single-thread
+     * throughput (threads beyond the number of cores are not expected to add throughput).
+     */
+    private static double getEfficiency(Result single, Result result) {
+        return result.getOpsPerSecond()
+                / (single.getOpsPerSecond() * Math.min(result.threads, CORES));
+    }
+
+    private Result measure(final Operation operation, int threads) throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        final long[] operations = new long[threads];
+        final long[] allocated = new long[threads];
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final AtomicBoolean stop = new AtomicBoolean();
+        final com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            workers[i] = new Thread(new Runnable() {
+                public void run() {
+                    // every worker reaches both barriers, even after a failure, so the
+                    // main thread is never left waiting
+                    try {
+                        try {
+                            long warmupEnd = System.nanoTime() + warmupMillis * 1000000L;
+                            while (System.nanoTime() < warmupEnd) {
+                                operation.run();
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            barrier.await();
+                        }
+                        try {
+                            long id = Thread.currentThread().getId();
+                            long bytes = threadBean.getThreadAllocatedBytes(id);
+                            long count = 0;
+                            while (!stop.get() && failure.get() == null) {
+                                for (int j = 0; j < 64; j++) {
+                                    operation.run();
+                                }
+                                count += 64;
+                            }
+                            allocated[index] = threadBean.getThreadAllocatedBytes(id) - bytes;
+                            operations[index] = count;
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            barrier.await();
+                        }
+                    } catch (InterruptedException e) {
+                        failure.compareAndSet(null, e);
+                    } catch (BrokenBarrierException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }, "benchmark-" + i);
+            workers[i].start();
+        }
+        barrier.await();
+        long gcCount = getGcCount();
+        long gcMillis = getGcMillis();
+        long start = System.nanoTime();
+        Thread.sleep(measureMillis);
+        stop.set(true);
+        long nanos = System.nanoTime() - start;
+        barrier.await();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("The benchmark operation failed.", failure.get());
+        }
+        long totalOperations = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < threads; i++) {
+            totalOperations += operations[i];
+            totalBytes += allocated[i];
+        }
+        return new Result(threads, totalOperations, nanos, totalBytes, getGcCount() - gcCount,
+                getGcMillis() - gcMillis);
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long getGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, bean.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,127 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DuplicateFinderTest {
+
+    private long memoryLimit;
+
+    public DuplicateFinderTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        memoryLimit = DuplicateFinder.getMemoryLimit();
+    }
+
+    @After
+    public void tearDown() {
+        DuplicateFinder.setMemoryLimit(memoryLimit);
+    }
+
+    @Test
+    public void testLongs() {
+        assertEquals(-1, DuplicateFinder.findDuplicate(new long[0]));
+        assertEquals(-1, DuplicateFinder.findDuplicate(new long[] {0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE}));
+        assertEquals(2, DuplicateFinder.findDuplicate(new long[] {0, 5, 0, 5}));
+        assertEquals(3, DuplicateFinder.findDuplicate(new long[] {7, 5, 6, 5, 7}));
+    }
+
+    @Test
+    public void testInts() {
+        assertEquals(-1, DuplicateFinder.findDuplicate(new int[] {0, 1, -1, Integer.MIN_VALUE}));
+        assertEquals(4, DuplicateFinder.findDuplicate(new int[] {1, 2, 3, 4, 2, 1}));
+    }
+
+    @Test
+    public void testCapacity() {
+        assertEquals(4, DuplicateFinder.getCapacity(0));
+        assertEquals(4, DuplicateFinder.getCapacity(2));
+        assertEquals(8, DuplicateFinder.getCapacity(3));
+        assertEquals(64, DuplicateFinder.getCapacity(31));
+        assertEquals(64, DuplicateFinder.getCapacity(32));
+        assertEquals(128, DuplicateFinder.getCapacity(33));
+        assertEquals(-1, DuplicateFinder.getCapacity(Integer.MAX_VALUE));
+        int[] values = new int[31];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        assertEquals(-1, DuplicateFinder.findDuplicate(values));
+        values[30] = 1;
+        assertEquals(30, DuplicateFinder.findDuplicate(values));
+    }
+
+    @Test
+    public void testCollections() {
+        assertEquals(-1, DuplicateFinder.findDuplicate(Arrays.asList("a", "b", null)));
+        assertEquals(3, DuplicateFinder.findDuplicate(Arrays.asList(null, "a", "b", null, "a")));
+        // equal but not identical values (outside the Long cache)
+        assertEquals(2, DuplicateFinder.findDuplicate(Arrays.asList(Long.valueOf(1000), 2L, Long.valueOf(1000))));
+        assertEquals(-1, DuplicateFinder.findDuplicate(Collections.emptyList()));
+    }
+
+    @Test
+    public void testRandomAgainstHashSet() {
+        Random random = new Random(7);
+        for (int round = 0; round < 400; round++) {
+            int length = random.nextInt(200);
+            int range = 1 + random.nextInt(length * 4 + 1);
+            long[] longs = new long[length];
+            int[] ints = new int[length];
+            List<Integer> list = new ArrayList<Integer>();
+            for (int i = 0; i < length; i++) {
+                ints[i] = random.nextInt(range) - range / 2;
+                longs[i] = ints[i] * 0x100000001L;
+                list.add(ints[i]);
+            }
+            int expected = findWithHashSet(list);
+            DuplicateFinder.setMemoryLimit(memoryLimit);
+            assertEquals(expected, DuplicateFinder.findDuplicate(longs));
+            assertEquals(expected, DuplicateFinder.findDuplicate(ints));
+            assertEquals(expected, DuplicateFinder.findDuplicate(list));
+            DuplicateFinder.setMemoryLimit(0);
+            assertEquals(expected, DuplicateFinder.findDuplicate(longs));
+            assertEquals(expected, DuplicateFinder.findDuplicate(ints));
+            assertEquals(expected, DuplicateFinder.findDuplicate(list));
+        }
+    }
+
+    @Test
+    public void testSequentialIds() {
+        long[] ids = new long[1 << 16];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1000000L + i * 1024L;
+        }
+        assertEquals(-1, DuplicateFinder.findDuplicate(ids));
+        ids[ids.length - 1] = ids[0];
+        assertEquals(ids.length - 1, DuplicateFinder.findDuplicate(ids));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMemoryLimitNegative() {
+        DuplicateFinder.setMemoryLimit(-1);
+    }
+
+    private static int findWithHashSet(List<Integer> values) {
+        Set<Integer> seen = new HashSet<Integer>();
+        for (int i = 0; i < values.size(); i++) {
+            if (!seen.add(values.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
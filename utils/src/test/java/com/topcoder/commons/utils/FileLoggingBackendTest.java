@@ -0,0 +1,117 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class FileLoggingBackendTest {
+
+    private File file;
+    private FileLoggingBackend backend;
+
+    public FileLoggingBackendTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("fileLoggingBackendTest", ".log");
+        backend = new FileLoggingBackend(file, LogLevel.DEBUG);
+    }
+
+    @After
+    public void tearDown() {
+        backend.close();
+        file.delete();
+    }
+
+    @Test
+    public void testLog() throws Exception {
+        LoggingWrapperUtility.logEntrance(backend, "Type#method", new String[]{"name"},
+                new Object[]{"\u00e9t\u00e9"});
+        LoggingWrapperUtility.logExit(backend, "Type#method", null);
+        backend.flush();
+        List<String> lines = readLines();
+        assertEquals(3, lines.size());
+        String prefix = "\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3} DEBUG \\["
+                + Thread.currentThread().getName() + "\\] ";
+        assertTrue(lines.get(0), lines.get(0).matches(prefix + "Entering method \\[Type#method\\]\\."));
+        assertTrue(lines.get(1), lines.get(1).endsWith("] Input parameters [name:\u00e9t\u00e9]"));
+        assertTrue(lines.get(2), lines.get(2).matches(prefix + "Exiting method \\[Type#method\\]\\."));
+        assertEquals(0, backend.getErrorCount());
+    }
+
+    @Test
+    public void testLogException() throws Exception {
+        Exception exception = new IllegalStateException("failure");
+        LoggingWrapperUtility.logException(backend, "Type#method", exception);
+        List<String> lines = readLines();
+        assertTrue(lines.get(0), lines.get(0).endsWith(" ERROR [" + Thread.currentThread().getName()
+                + "] Error in method [Type#method], details: failure"));
+        assertEquals("java.lang.IllegalStateException: failure", lines.get(1));
+        assertTrue(lines.get(2), lines.get(2).trim().startsWith("at "));
+    }
+
+    @Test
+    public void testThreshold() throws Exception {
+        backend.close();
+        backend = new FileLoggingBackend(file, LogLevel.INFO, 16);
+        assertFalse(backend.isEnabled(LogLevel.DEBUG));
+        assertTrue(backend.isEnabled(LogLevel.INFO));
+        LoggingWrapperUtility.logEntrance(backend, "Type#method", null, null);
+        LoggingWrapperUtility.logEntrance(backend, "Type#method", null, null, LogLevel.WARN);
+        backend.flush();
+        List<String> lines = readLines();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).contains(" WARN ["));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        LoggingWrapperUtility.logEntrance(backend, "Type#method", null, null);
+        backend.close();
+        LoggingWrapperUtility.logEntrance(backend, "Type#method", null, null);
+        backend.flush();
+        backend.close();
+        assertEquals(1, readLines().size());
+        assertEquals(0, backend.getErrorCount());
+    }
+
+    @Test
+    public void testLogDoesNotAllocate() throws Exception {
+        final String[] names = {"name", "value"};
+        final Object[] values = {"John", "Smith"};
+        assertEquals(0, AllocationBudgetTest.bytesPerCall(new ContentionHarness.Operation() {
+            public void run() {
+                LoggingWrapperUtility.logEntrance(backend, "Type#method", names, values);
+            }
+        }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullFile() throws Exception {
+        new FileLoggingBackend(null, LogLevel.DEBUG);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullThreshold() throws Exception {
+        new FileLoggingBackend(file, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveBufferSize() throws Exception {
+        new FileLoggingBackend(file, LogLevel.DEBUG, 0);
+    }
+
+    private List<String> readLines() throws Exception {
+        return Files.readAllLines(file.toPath(), Charset.forName("UTF-8"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the format checks of ValidationUtility with String.matches(). They are not run by the
+ * default build; use "mvn -P benchmark test". For every format the same inputs are checked with
+ * String.matches() (compiling the expression on every call), with checkMatches() (using the
+ * cached compiled expression) and with checkFormat() (using the regex-free scanner). The measured
+ * values are written to target/format-benchmark-results.properties.
+ */
+public class FormatBenchmark {
+
+    private static final String UUID_REGEX =
+        "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}";
+
+    private static final String EMAIL_REGEX =
+        "[A-Za-z0-9!#$%&'*+/=?^_`{|}~-]+(\\.[A-Za-z0-9!#$%&'*+/=?^_`{|}~-]+)*"
+            + "@[A-Za-z0-9]([A-Za-z0-9-]*[A-Za-z0-9])?(\\.[A-Za-z0-9]([A-Za-z0-9-]*[A-Za-z0-9])?)+";
+
+    private static final String DATE_REGEX = "\\d{4}-(0[1-9]|1[0-2])-(0[1-9]|[12]\\d|3[01])";
+
+    private static final String IPV4_REGEX =
+        "((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)";
+
+    private static final String DECIMAL_REGEX = "[+-]?\\d+(\\.\\d+)?([eE][+-]?\\d+)?";
+
+    private static ContentionHarness harness;
+
+    public FormatBenchmark() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        if (harness == null) {
+            harness = new ContentionHarness();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.out.println(harness.takeReport());
+        harness.storeMeasured(new File("target/format-benchmark-results.properties"),
+                "measured format benchmark results");
+    }
+
+    @Test
+    public void testUuid() throws Exception {
+        compare("format.uuid", UUID_REGEX, TextFormat.UUID, "123e4567-e89b-12d3-a456-426614174000");
+    }
+
+    @Test
+    public void testEmail() throws Exception {
+        compare("format.email", EMAIL_REGEX, TextFormat.EMAIL, "first.last+tag@mail.example.com");
+    }
+
+    @Test
+    public void testIsoDate() throws Exception {
+        compare("format.date", DATE_REGEX, TextFormat.ISO_DATE, "2010-12-31");
+    }
+
+    @Test
+    public void testIpv4() throws Exception {
+        compare("format.ipv4", IPV4_REGEX, TextFormat.IPV4, "192.168.100.254");
+    }
+
+    @Test
+    public void testDecimal() throws Exception {
+        compare("format.decimal", DECIMAL_REGEX, TextFormat.DECIMAL, "-12345.678e-9");
+    }
+
+    /**
+     * Measures the three ways of checking the value and asserts that the cached expression beats
+     * String.matches() and that the scanner beats both.
+     */
+    private static void compare(String name, final String regex, final TextFormat format,
+                                final String value) throws Exception {
+        assertTrue(value.matches(regex));
+        assertTrue(format.matches(value));
+        final Pattern pattern = Pattern.compile(regex);
+        // runSingle() only keeps the regressions of its own run
+        List<String> regressions = new ArrayList<String>();
+        double uncached = harness.runSingle(name + ".stringMatches", new ContentionHarness.Operation() {
+            public void run() {
+                if (!value.matches(regex)) {
+                    throw new IllegalStateException();
+                }
+            }
+        }).getOpsPerSecond();
+        regressions.addAll(harness.getRegressions());
+        double cached = harness.runSingle(name + ".checkMatches", new ContentionHarness.Operation() {
+            public void run() throws Exception {
+                ValidationUtility.checkMatches(value, pattern, "value", IllegalArgumentException.class);
+            }
+        }).getOpsPerSecond();
+        regressions.addAll(harness.getRegressions());
+        double scanned = harness.runSingle(name + ".checkFormat", new ContentionHarness.Operation() {
+            public void run() throws Exception {
+                ValidationUtility.checkFormat(value, format, "value", IllegalArgumentException.class);
+            }
+        }).getOpsPerSecond();
+        regressions.addAll(harness.getRegressions());
+        assertTrue(regressions.toString(), regressions.isEmpty());
+        assertTrue(name + ": checkMatches " + cached + " ops/s, String.matches " + uncached + " ops/s",
+                cached > uncached);
+        assertTrue(name + ": checkFormat " + scanned + " ops/s, checkMatches " + cached + " ops/s",
+                scanned > cached);
+    }
+}
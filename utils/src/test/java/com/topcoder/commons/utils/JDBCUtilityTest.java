@@ -0,0 +1,357 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JDBCUtilityTest {
+
+    private static final int[] INSERT_TYPES = {Types.INTEGER, Types.VARCHAR, Types.DOUBLE};
+
+    private static final String INSERT = "INSERT INTO item (id, name, price) VALUES (?, ?, ?)";
+
+    private Connection connection;
+
+    public JDBCUtilityTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:jdbcUtilityTest");
+        Statement statement = connection.createStatement();
+        statement.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(32),"
+                + " price DOUBLE, created TIMESTAMP, active BOOLEAN)");
+        statement.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        JDBCUtility.clearStatementCache(connection);
+        JDBCUtility.setStatementCacheSize(32);
+        Statement statement = connection.createStatement();
+        statement.execute("DROP TABLE item");
+        statement.close();
+        connection.close();
+    }
+
+    private void insert(int id, String name, Double price) throws Exception {
+        JDBCUtility.executeUpdate(connection, INSERT, INSERT_TYPES,
+                new Object[] {id, name, price}, IllegalStateException.class);
+    }
+
+    @Test
+    public void testExecuteQuery() throws Exception {
+        Date created = new Date(1000000L);
+        JDBCUtility.executeUpdate(connection,
+                "INSERT INTO item VALUES (?, ?, ?, ?, ?)",
+                new int[] {Types.INTEGER, Types.VARCHAR, Types.DOUBLE, Types.TIMESTAMP, Types.BOOLEAN},
+                new Object[] {1, "first", 2.5, new java.sql.Timestamp(created.getTime()), true},
+                IllegalStateException.class);
+        insert(2, null, null);
+
+        Object[][] rows = JDBCUtility.executeQuery(connection,
+                "SELECT id, name, price, created, active FROM item WHERE id >= ? ORDER BY id",
+                new int[] {Types.INTEGER}, new Object[] {1},
+                new Class<?>[] {Long.class, String.class, Double.class, Date.class, Boolean.class},
+                IllegalStateException.class);
+        assertEquals(2, rows.length);
+        assertEquals(1L, rows[0][0]);
+        assertEquals("first", rows[0][1]);
+        assertEquals(2.5, rows[0][2]);
+        assertEquals(created, rows[0][3]);
+        assertEquals(Boolean.TRUE, rows[0][4]);
+        assertEquals(2L, rows[1][0]);
+        assertNull(rows[1][1]);
+        assertNull(rows[1][2]);
+        assertNull(rows[1][3]);
+        assertNull(rows[1][4]);
+    }
+
+    @Test
+    public void testExecuteQueryWithRowMapper() throws Exception {
+        insert(1, "first", 1.0);
+        insert(2, "second", 2.0);
+        List<String> names = JDBCUtility.executeQuery(connection,
+                "SELECT name FROM item ORDER BY id", null, null,
+                new RowMapper<String>() {
+                    public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                        return rowNumber + ":" + resultSet.getString(1);
+                    }
+                }, IllegalStateException.class);
+        assertEquals(2, names.size());
+        assertEquals("0:first", names.get(0));
+        assertEquals("1:second", names.get(1));
+    }
+
+    @Test
+    public void testStatementCacheReuse() throws Exception {
+        insert(1, "first", 1.0);
+        insert(2, "second", 2.0);
+        final List<Integer> nested = new ArrayList<Integer>();
+        final String query = "SELECT id FROM item WHERE id = ?";
+        // the nested call uses the same query while the outer result set is open
+        List<Integer> ids = JDBCUtility.executeQuery(connection, query,
+                new int[] {Types.INTEGER}, new Object[] {1},
+                new RowMapper<Integer>() {
+                    public Integer mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                        try {
+                            Object[][] rows = JDBCUtility.executeQuery(connection, query,
+                                    new int[] {Types.INTEGER}, new Object[] {2},
+                                    new Class<?>[] {Integer.class}, IllegalStateException.class);
+                            nested.add((Integer) rows[0][0]);
+                        } catch (Exception e) {
+                            throw new SQLException(e.getMessage());
+                        }
+                        return resultSet.getInt(1);
+                    }
+                }, IllegalStateException.class);
+        assertEquals(Integer.valueOf(1), ids.get(0));
+        assertEquals(Integer.valueOf(2), nested.get(0));
+
+        Object[][] rows = JDBCUtility.executeQuery(connection, query,
+                new int[] {Types.INTEGER}, new Object[] {2},
+                new Class<?>[] {Integer.class}, IllegalStateException.class);
+        assertEquals(2, rows[0][0]);
+    }
+
+    @Test
+    public void testStatementCachesOfClosedConnectionsRemoved() throws Exception {
+        JDBCUtility.clearStatementCache(connection);
+        int before = StatementCache.getCacheCount();
+        for (int i = 0; i < 200; i++) {
+            Connection own = DriverManager.getConnection("jdbc:h2:mem:jdbcUtilityTest");
+            JDBCUtility.executeUpdate(own, "UPDATE item SET price = ? WHERE id = ?",
+                    new int[] {Types.DOUBLE, Types.INTEGER}, new Object[] {1.0, i},
+                    IllegalStateException.class);
+            own.close();
+        }
+        insert(1, "first", 1.0);
+        assertTrue(StatementCache.getCacheCount() <= before + 1);
+        JDBCUtility.clearStatementCache(connection);
+        assertTrue(StatementCache.getCacheCount() <= before);
+    }
+
+    @Test
+    public void testStatementCacheDisabled() throws Exception {
+        JDBCUtility.setStatementCacheSize(0);
+        insert(1, "first", 1.0);
+        insert(2, "second", 2.0);
+        Object[][] rows = JDBCUtility.executeQuery(connection, "SELECT COUNT(*) FROM item",
+                null, null, new Class<?>[] {Integer.class}, IllegalStateException.class);
+        assertEquals(2, rows[0][0]);
+    }
+
+    @Test
+    public void testExecuteBatch() throws Exception {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 25; i++) {
+            rows.add(new Object[] {i, "name" + i, i == 3 ? null : (double) i});
+        }
+        int count = JDBCUtility.executeBatch(connection, INSERT, INSERT_TYPES, rows, 10,
+                IllegalStateException.class);
+        assertEquals(25, count);
+        Object[][] result = JDBCUtility.executeQuery(connection,
+                "SELECT COUNT(*), COUNT(price) FROM item", null, null,
+                new Class<?>[] {Integer.class, Integer.class}, IllegalStateException.class);
+        assertEquals(25, result[0][0]);
+        assertEquals(24, result[0][1]);
+    }
+
+    @Test
+    public void testExecuteBatchFailure() throws Exception {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(new Object[] {i == 4 ? 0 : i, "name", 1.0});
+        }
+        try {
+            JDBCUtility.executeBatch(connection, INSERT, INSERT_TYPES, rows, 2,
+                    IllegalStateException.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().endsWith("starting from the argument row 4."));
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+    }
+
+    @Test
+    public void testExecuteBatchWithRowRules() throws Exception {
+        RowRules rules = new RowRules("id", "name", "price")
+                .addRule(0, ValueRules.notNull())
+                .addRule(1, ValueRules.all(ValueRules.notNull(), ValueRules.notEmptyAfterTrimming()))
+                .addRule(2, ValueRules.inRange(0, 100, true, false));
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 25; i++) {
+            rows.add(new Object[] {i, i == 5 ? " " : "name" + i, i == 7 ? 100.0 : (double) i});
+        }
+        rows.add(new Object[] {25, "short"});
+        rows.add(null);
+        List<RejectedRow> rejected = new ArrayList<RejectedRow>();
+        int count = JDBCUtility.executeBatch(connection, INSERT, INSERT_TYPES, rows, 4, rules,
+                rejected, IllegalStateException.class);
+        assertEquals(23, count);
+        assertEquals(4, rejected.size());
+        assertEquals(5, rejected.get(0).getRowNumber());
+        assertEquals("name should not be empty (trimmed)", rejected.get(0).getReason());
+        assertSame(rows.get(5), rejected.get(0).getArguments());
+        assertEquals(7, rejected.get(1).getRowNumber());
+        assertEquals("price should be in the range [0.0, 100.0)", rejected.get(1).getReason());
+        assertEquals("row should contain 3 values", rejected.get(2).getReason());
+        assertEquals(26, rejected.get(3).getRowNumber());
+        assertEquals("row should not be null", rejected.get(3).getReason());
+        Object[][] result = JDBCUtility.executeQuery(connection,
+                "SELECT COUNT(*) FROM item WHERE id IN (5, 7)", null, null,
+                new Class<?>[] {Integer.class}, IllegalStateException.class);
+        assertEquals(0, result[0][0]);
+    }
+
+    @Test
+    public void testExecuteBatchWithRowRulesFailure() throws Exception {
+        RowRules rules = new RowRules("id", "name", "price").addRule(2, ValueRules.notNull());
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 6; i++) {
+            rows.add(new Object[] {i == 5 ? 0 : i, "name", i == 2 ? null : 1.0});
+        }
+        List<RejectedRow> rejected = new ArrayList<RejectedRow>();
+        try {
+            JDBCUtility.executeBatch(connection, INSERT, INSERT_TYPES, rows, 2, rules, rejected,
+                    IllegalStateException.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().endsWith("starting from the argument row 5."));
+        }
+        assertEquals(1, rejected.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecuteBatchRowRulesWithoutRejectedRows() throws Exception {
+        JDBCUtility.executeBatch(connection, INSERT, INSERT_TYPES, new ArrayList<Object[]>(), 1,
+                new RowRules("id", "name", "price"), null, IllegalStateException.class);
+    }
+
+    @Test
+    public void testTransaction() throws Exception {
+        connection.setAutoCommit(false);
+        insert(1, "first", 1.0);
+        JDBCUtility.commitTransaction(connection, IllegalStateException.class);
+        insert(2, "second", 2.0);
+        JDBCUtility.rollbackTransaction(connection, IllegalStateException.class);
+        connection.setAutoCommit(true);
+        Object[][] rows = JDBCUtility.executeQuery(connection, "SELECT id FROM item",
+                null, null, new Class<?>[] {Integer.class}, IllegalStateException.class);
+        assertEquals(1, rows.length);
+    }
+
+    @Test
+    public void testOpenCursor() throws Exception {
+        ResultCursor<Object[]> cursor = JDBCUtility.openCursor(connection,
+                "SELECT X, 'row' || X FROM SYSTEM_RANGE(1, ?)",
+                new int[] {Types.INTEGER}, new Object[] {200000},
+                new Class<?>[] {Long.class, String.class}, 500, IllegalStateException.class);
+        long sum = 0;
+        while (cursor.hasNext()) {
+            Object[] row = cursor.next();
+            sum += (Long) row[0];
+            if (cursor.getRowCount() == 1) {
+                assertEquals("row1", row[1]);
+            }
+        }
+        assertEquals(200000, cursor.getRowCount());
+        assertEquals(200000L * 200001L / 2, sum);
+        assertTrue(cursor.isClosed());
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void testOpenCursorStream() throws Exception {
+        ResultCursor<Long> cursor = JDBCUtility.openCursor(connection,
+                "SELECT X FROM SYSTEM_RANGE(1, 1000)", null, null,
+                new RowMapper<Long>() {
+                    public Long mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                        return resultSet.getLong(1);
+                    }
+                }, 100, IllegalStateException.class);
+        java.util.stream.Stream<Long> stream = cursor.stream();
+        try {
+            assertEquals(10, stream.filter(new java.util.function.Predicate<Long>() {
+                public boolean test(Long value) {
+                    return value % 100 == 0;
+                }
+            }).count());
+        } finally {
+            stream.close();
+        }
+        assertTrue(cursor.isClosed());
+    }
+
+    @Test
+    public void testOpenCursorClosedOnError() throws Exception {
+        ResultCursor<Long> cursor = JDBCUtility.openCursor(connection,
+                "SELECT X FROM SYSTEM_RANGE(1, 10)", null, null,
+                new RowMapper<Long>() {
+                    public Long mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                        if (rowNumber == 3) {
+                            throw new SQLException("broken row");
+                        }
+                        return resultSet.getLong(1);
+                    }
+                }, 0, IllegalStateException.class);
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+            }
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        assertTrue(cursor.isClosed());
+        assertEquals(3, cursor.getRowCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenCursorNegativeFetchSize() throws Exception {
+        JDBCUtility.openCursor(connection, "SELECT id FROM item", null, null,
+                new Class<?>[] {Integer.class}, -1, IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecuteQueryColumnCountMismatch() throws Exception {
+        JDBCUtility.executeQuery(connection, "SELECT id, name FROM item", null, null,
+                new Class<?>[] {Integer.class}, IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecuteQueryUnsupportedColumnType() throws Exception {
+        JDBCUtility.executeQuery(connection, "SELECT id FROM item", null, null,
+                new Class<?>[] {StringBuilder.class}, IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecuteUpdateInvalidQuery() throws Exception {
+        JDBCUtility.executeUpdate(connection, "UPDATE missing SET id = 1", null, null,
+                IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecuteBatchInvalidBatchSize() throws Exception {
+        JDBCUtility.executeBatch(connection, INSERT, INSERT_TYPES, new ArrayList<Object[]>(), 0,
+                IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetStatementCacheSizeNegative() {
+        JDBCUtility.setStatementCacheSize(-1);
+    }
+}
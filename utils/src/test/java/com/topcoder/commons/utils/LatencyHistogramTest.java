@@ -0,0 +1,65 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    public LatencyHistogramTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testStatistics() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000L, histogram.getMaxNanos());
+        assertEquals(500500L, histogram.getMeanNanos());
+        long p50 = histogram.getPercentileNanos(50);
+        assertTrue(p50 >= 500000L && p50 <= 500000L * 1.125);
+        long p99 = histogram.getPercentileNanos(99);
+        assertTrue(p99 >= 990000L && p99 <= 1000000L);
+        assertEquals(1000000L, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testSmallAndExtremeValues() {
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getPercentileNanos(0));
+        assertEquals(3, histogram.getPercentileNanos(50));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testReset() {
+        histogram.record(10);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        histogram.getPercentileNanos(101);
+    }
+}
@@ -0,0 +1,133 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class LayeredConfigurationTest {
+
+    private Map<String, String> environment;
+    private Properties system;
+    private Properties override;
+    private Properties base;
+
+    public LayeredConfigurationTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        environment = new HashMap<String, String>();
+        environment.put("DB_PORT", "6000");
+        system = new Properties();
+        system.setProperty("db.user", "sys");
+        override = new Properties();
+        override.setProperty("db.host", "override-host");
+        base = new Properties();
+        base.setProperty("db.host", "base-host");
+        base.setProperty("db.port", "5432");
+        base.setProperty("db.user", "base");
+        base.setProperty("db.url", "jdbc://${db.host}:${db.port}/${db.name}");
+        base.setProperty("db.name", "main");
+        base.setProperty("banner", "${db.url} as ${db.user}");
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testPrecedence() {
+        LayeredConfiguration config = new LayeredConfiguration(environment, system, override, base);
+        assertEquals("6000", config.getProperty("db.port"));
+        assertEquals("sys", config.getProperty("db.user"));
+        assertEquals("override-host", config.getProperty("db.host"));
+        assertEquals("main", config.getProperty("db.name"));
+        assertNull(config.getProperty("missing"));
+    }
+
+    @Test
+    public void testPlaceholders() {
+        LayeredConfiguration config = new LayeredConfiguration(environment, system, override, base);
+        assertEquals("jdbc://override-host:6000/main", config.getProperty("db.url"));
+        assertEquals("jdbc://override-host:6000/main as sys", config.getProperty("banner"));
+    }
+
+    @Test
+    public void testMissingPlaceholderIsKept() {
+        base.setProperty("value", "a-${unknown}-b");
+        LayeredConfiguration config = new LayeredConfiguration(null, null, null, base);
+        assertEquals("a-${unknown}-b", config.getProperty("value"));
+    }
+
+    @Test
+    public void testSetLayerReResolvesDependents() {
+        LayeredConfiguration config = new LayeredConfiguration(environment, system, override, base);
+        Properties newOverride = new Properties();
+        newOverride.setProperty("db.name", "reports");
+        config.setLayer(LayeredConfiguration.Layer.OVERRIDE, newOverride);
+        assertEquals("base-host", config.getProperty("db.host"));
+        assertEquals("jdbc://base-host:6000/reports", config.getProperty("db.url"));
+        assertEquals("jdbc://base-host:6000/reports as sys", config.getProperty("banner"));
+
+        config.setLayer(LayeredConfiguration.Layer.ENVIRONMENT, null);
+        assertEquals("jdbc://base-host:5432/reports", config.getProperty("db.url"));
+    }
+
+    @Test
+    public void testSetLayerResolvesPreviouslyMissingReference() {
+        base.setProperty("value", "a-${unknown}-b");
+        LayeredConfiguration config = new LayeredConfiguration(null, null, null, base);
+        Properties newOverride = new Properties();
+        newOverride.setProperty("unknown", "x");
+        config.setLayer(LayeredConfiguration.Layer.OVERRIDE, newOverride);
+        assertEquals("a-x-b", config.getProperty("value"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCircularReference() {
+        base.setProperty("a", "${b}");
+        base.setProperty("b", "${a}");
+        new LayeredConfiguration(null, null, null, base);
+    }
+
+    @Test
+    public void testCircularReferenceKeepsConfiguration() {
+        LayeredConfiguration config = new LayeredConfiguration(environment, system, override, base);
+        Properties newOverride = new Properties();
+        newOverride.setProperty("db.name", "${db.url}");
+        try {
+            config.setLayer(LayeredConfiguration.Layer.OVERRIDE, newOverride);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals("jdbc://override-host:6000/main", config.getProperty("db.url"));
+
+        newOverride.setProperty("db.name", "reports");
+        config.setLayer(LayeredConfiguration.Layer.OVERRIDE, newOverride);
+        assertEquals("jdbc://base-host:6000/reports", config.getProperty("db.url"));
+    }
+
+    @Test
+    public void testTypedGetters() throws Exception {
+        LayeredConfiguration config = new LayeredConfiguration(environment, system, override, base);
+        assertEquals(Integer.valueOf(6000), PropertiesUtility.getIntegerProperty(config, "db.port", true,
+                IllegalArgumentException.class));
+        assertEquals("sys", PropertiesUtility.getStringProperty(config, "db.user", true,
+                IllegalArgumentException.class));
+    }
+
+    @Test(expected = NoSuchFieldException.class)
+    public void testTypedGettersThrowNoSuchFieldException() throws Exception {
+        LayeredConfiguration config = new LayeredConfiguration(environment, system, override, base);
+        PropertiesUtility.getLongProperty(config, "missing", true, NoSuchFieldException.class);
+    }
+}
@@ -0,0 +1,265 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+public class Log4jUtilityTest {
+
+    private Logger logger;
+    private Logger nullLogger;
+    private String signature;
+    private String[] paramNames;
+    private String[] nullParamNames;
+    private Object[] paramValues;
+    private Object[] value;
+    private Object[] nullValue;
+    private Exception exception;
+    private CapturingAppender appender;
+
+    public Log4jUtilityTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        this.logger = Logger.getLogger(Log4jUtilityTest.class);
+        this.nullLogger = null;
+        this.signature = "className#methodName";
+        this.paramNames = new String[]{"param1", "param2", "param3"};
+        this.nullParamNames = null;
+        this.paramValues = new Object[]{"value1", "value2", "value3"};
+        this.value = new Object[]{"value1", "value2", "value3"};
+        this.nullValue = null;
+        this.exception = new Exception();
+        this.appender = new CapturingAppender();
+        this.logger.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() {
+        Log4jUtility.setStructuredEvents(false);
+        Log4jUtility.setAsyncLogging(false);
+        logger.removeAppender(appender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    public void testLogEntrance() {
+        Log4jUtility.logEntrance(logger, signature, paramNames, paramValues);
+        Log4jUtility.logEntrance(nullLogger, signature, paramNames, paramValues);
+        Log4jUtility.logEntrance(logger, signature, nullParamNames, paramValues);
+        Log4jUtility.logEntrance(nullLogger, signature, nullParamNames, paramValues);
+    }
+
+    @Test
+    public void testLogExit() {
+        Log4jUtility.logExit(logger, signature, value);
+        Log4jUtility.logExit(nullLogger, signature, value);
+        Log4jUtility.logExit(logger, signature, nullValue);
+        Log4jUtility.logExit(nullLogger, signature, nullValue);
+        Log4jUtility.logExit(logger, signature, value, new Date());
+    }
+
+    @Test
+    public void testLogException() {
+        Log4jUtility.logException(logger, signature, exception);
+        Log4jUtility.logException(nullLogger, signature, exception);
+    }
+
+    @Test
+    public void testStructuredEvents() {
+        Log4jUtility.setStructuredEvents(true);
+        Log4jUtility.logEntrance(logger, signature, new String[]{"id", "name"},
+                new Object[]{5, "a \"quoted\"\nname"});
+        Log4jUtility.logExit(logger, signature, new Object[]{true}, new Date());
+        Log4jUtility.logException(logger, signature, new IllegalStateException("failed"));
+
+        assertEquals(3, appender.events.size());
+        String thread = Thread.currentThread().getName();
+        assertEquals("{\"signature\":\"className#methodName\",\"phase\":\"entrance\",\"thread\":\"" + thread
+                + "\",\"params\":{\"id\":5,\"name\":\"a \\\"quoted\\\"\\nname\"}}",
+                appender.events.get(0).getRenderedMessage());
+        StructuredLogEvent exit = (StructuredLogEvent) appender.events.get(1).getMessage();
+        assertEquals(StructuredLogEvent.PHASE_EXIT, exit.getPhase());
+        // only the millisecond entrance timestamp is known without span mode
+        assertEquals(-1, exit.getDurationNanos());
+        assertTrue(exit.getDurationMillis() >= 0);
+        assertTrue(exit.toString().contains("\"durationMillis\":"));
+        assertFalse(exit.toString().contains("durationNanos"));
+        assertTrue(exit.toString().contains("\"return\":true"));
+        StructuredLogEvent error = (StructuredLogEvent) appender.events.get(2).getMessage();
+        assertEquals("java.lang.IllegalStateException", error.getExceptionClass());
+        assertNotNull(appender.events.get(2).getThrowableInformation());
+    }
+
+    @Test
+    public void testStructuredEventsWithSpan() {
+        Log4jUtility.setStructuredEvents(true);
+        SpanTracer.setEnabled(true);
+        try {
+            Log4jUtility.logEntrance(logger, signature, null, null);
+            Log4jUtility.logExit(logger, signature, null, new Date());
+        } finally {
+            SpanTracer.setEnabled(false);
+        }
+        StructuredLogEvent exit = (StructuredLogEvent) appender.events.get(1).getMessage();
+        assertTrue(exit.getDurationNanos() >= 0);
+        assertEquals(-1, exit.getDurationMillis());
+        assertTrue(exit.toString().contains("\"durationNanos\":"));
+    }
+
+    @Test
+    public void testAsyncLogging() {
+        Log4jUtility.setAsyncLogging(true);
+        assertTrue(Log4jUtility.isAsyncLogging());
+        Log4jUtility.setStructuredEvents(true);
+        Log4jUtility.logEntrance(logger, signature, paramNames, paramValues);
+        Log4jUtility.logException(logger, signature, new IllegalStateException("failed"));
+        assertTrue(AsyncLogWriter.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(2, appender.events.size());
+        assertEquals(Thread.currentThread().getName(), appender.events.get(0).getThreadName());
+        assertTrue(appender.events.get(0).getRenderedMessage().contains("\"param1\":\"value1\""));
+        assertNotNull(appender.events.get(1).getThrowableInformation());
+    }
+
+    @Test
+    public void testTrace() {
+        Calculator calculator = Log4jUtility.trace(Calculator.class, new SimpleCalculator(), logger);
+        assertEquals(5, calculator.add(2, 3));
+        calculator.reset();
+        assertEquals(6, appender.events.size());
+        assertEquals("Entering method [Calculator#add].", appender.events.get(0).getRenderedMessage());
+        assertTrue(appender.events.get(1).getRenderedMessage().startsWith("Input parameters "));
+        assertTrue(appender.events.get(2).getRenderedMessage().startsWith("Exiting method [Calculator#add]"));
+        assertTrue(appender.events.get(2).getRenderedMessage().contains("time spent in the method"));
+        assertTrue(appender.events.get(3).getRenderedMessage().contains("5"));
+        assertEquals("Entering method [Calculator#reset].", appender.events.get(4).getRenderedMessage());
+        assertTrue(appender.events.get(5).getRenderedMessage().startsWith("Exiting method [Calculator#reset]"));
+    }
+
+    @Test
+    public void testTraceException() {
+        Calculator calculator = Log4jUtility.trace(Calculator.class, new SimpleCalculator(), logger);
+        try {
+            calculator.divide(1, 0);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+            // expected
+        }
+        assertEquals(3, appender.events.size());
+        assertEquals("Entering method [Calculator#divide].", appender.events.get(0).getRenderedMessage());
+        assertTrue(appender.events.get(2).getRenderedMessage().contains("Calculator#divide"));
+    }
+
+    @Test
+    public void testTraceDisabled() {
+        logger.setLevel(Level.INFO);
+        Calculator calculator = Log4jUtility.trace(Calculator.class, new SimpleCalculator(), logger);
+        assertEquals(5, calculator.add(2, 3));
+        assertEquals(0, appender.events.size());
+        try {
+            calculator.divide(1, 0);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+            // expected
+        }
+        assertEquals(1, appender.events.size());
+        assertEquals(Level.ERROR, appender.events.get(0).getLevel());
+    }
+
+    @Test
+    public void testTraceObjectMethods() {
+        SimpleCalculator target = new SimpleCalculator();
+        Calculator calculator = Log4jUtility.trace(Calculator.class, target, logger);
+        assertEquals("SimpleCalculator", calculator.toString());
+        assertEquals(target.hashCode(), calculator.hashCode());
+        assertTrue(calculator.equals(target));
+        assertTrue(calculator.equals(Log4jUtility.trace(Calculator.class, target, logger)));
+        assertEquals(0, appender.events.size());
+    }
+
+    @Test
+    public void testTraceNullLogger() {
+        SimpleCalculator target = new SimpleCalculator();
+        assertSame(target, Log4jUtility.trace(Calculator.class, target, nullLogger));
+    }
+
+    @Test
+    public void testTraceInvalid() {
+        try {
+            Log4jUtility.trace(null, new SimpleCalculator(), logger);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            Log4jUtility.trace(SimpleCalculator.class, new SimpleCalculator(), logger);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            Log4jUtility.trace(Calculator.class, null, logger);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public interface Calculator {
+        int add(int a, int b);
+
+        int divide(int a, int b);
+
+        void reset();
+    }
+
+    private static class SimpleCalculator implements Calculator {
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public int divide(int a, int b) {
+            return a / b;
+        }
+
+        public void reset() {
+            // empty
+        }
+
+        public String toString() {
+            return "SimpleCalculator";
+        }
+    }
+
+    private static class CapturingAppender extends AppenderSkeleton {
+        private final List<LoggingEvent> events = new ArrayList<LoggingEvent>();
+
+        protected void append(LoggingEvent event) {
+            events.add(event);
+        }
+
+        public void close() {
+            // empty
+        }
+
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+import static org.junit.Assert.*;
+
+
+public class LoggingWrapperUtilityTest {
+
+    private CapturingBackend backend;
+    private String signature;
+    private String[] paramNames;
+    private Object[] paramValues;
+    private Exception exception;
+
+    public LoggingWrapperUtilityTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        this.backend = new CapturingBackend(LogLevel.DEBUG);
+        this.signature = "className#methodName";
+        this.paramNames = new String[]{"param1", "param2"};
+        this.paramValues = new Object[]{"value1", 2};
+        this.exception = new IllegalStateException("failure");
+    }
+
+    @After
+    public void tearDown() {
+        SpanTracer.setEnabled(false);
+    }
+
+    @Test
+    public void testLogEntrance() {
+        LoggingWrapperUtility.logEntrance(backend, signature, paramNames, paramValues);
+        assertEquals(2, backend.messages.size());
+        assertEquals("Entering method [className#methodName].", backend.messages.get(0));
+        assertEquals(LoggingUtilityHelper.getInputParametersMessage(paramNames, paramValues),
+                backend.messages.get(1));
+        assertEquals(LogLevel.DEBUG, backend.levels.get(0));
+    }
+
+    @Test
+    public void testLogEntranceWithoutParameters() {
+        LoggingWrapperUtility.logEntrance(backend, signature, null, null, LogLevel.INFO);
+        assertEquals(1, backend.messages.size());
+        assertEquals(LogLevel.INFO, backend.levels.get(0));
+    }
+
+    @Test
+    public void testLogExit() {
+        LoggingWrapperUtility.logExit(backend, signature, new Object[]{"result"});
+        LoggingWrapperUtility.logExit(backend, signature, null, new Date());
+        assertEquals(3, backend.messages.size());
+        assertEquals("Exiting method [className#methodName].", backend.messages.get(0));
+        assertEquals("Output parameter: result", backend.messages.get(1));
+        assertTrue(backend.messages.get(2).startsWith(
+                "Exiting method [className#methodName], time spent in the method: "));
+    }
+
+    @Test
+    public void testLogExitWithSpan() {
+        SpanTracer.setEnabled(true);
+        LoggingWrapperUtility.logEntrance(backend, signature, null, null);
+        LoggingWrapperUtility.logExit(backend, signature, null);
+        assertTrue(backend.messages.get(1).startsWith("Exiting method [className#methodName]. Span [trace="));
+    }
+
+    @Test
+    public void testLogException() {
+        assertSame(exception, LoggingWrapperUtility.logException(backend, signature, exception));
+        assertEquals("Error in method [className#methodName], details: failure", backend.messages.get(0));
+        assertEquals(LogLevel.ERROR, backend.levels.get(0));
+        assertSame(exception, backend.throwables.get(0));
+    }
+
+    @Test
+    public void testNullBackend() {
+        LoggingWrapperUtility.logEntrance(null, signature, paramNames, paramValues);
+        LoggingWrapperUtility.logExit(null, signature, new Object[]{"result"}, new Date());
+        assertSame(exception, LoggingWrapperUtility.logException(null, signature, exception));
+    }
+
+    @Test
+    public void testDisabledLevel() {
+        CapturingBackend warnBackend = new CapturingBackend(LogLevel.WARN);
+        LoggingWrapperUtility.logEntrance(warnBackend, signature, paramNames, paramValues);
+        LoggingWrapperUtility.logExit(warnBackend, signature, new Object[]{"result"});
+        LoggingWrapperUtility.logException(warnBackend, signature, exception, LogLevel.INFO);
+        assertEquals(0, warnBackend.messages.size());
+        LoggingWrapperUtility.logException(warnBackend, signature, exception);
+        assertEquals(1, warnBackend.messages.size());
+    }
+
+    @Test
+    public void testEnabledLoggingDoesNotAllocate() throws Exception {
+        final LoggingBackend countingBackend = new LoggingBackend() {
+            private long count;
+
+            public boolean isEnabled(LogLevel level) {
+                return true;
+            }
+
+            public void log(LogLevel level, CharSequence message, Throwable throwable) {
+                count += message.length();
+            }
+        };
+        final String[] names = {"name", "value"};
+        final Object[] values = {"John", "Smith"};
+        final Object[] value = {"result"};
+        assertEquals(0, AllocationBudgetTest.bytesPerCall(new ContentionHarness.Operation() {
+            public void run() {
+                LoggingWrapperUtility.logEntrance(countingBackend, signature, names, values);
+                LoggingWrapperUtility.logExit(countingBackend, signature, value);
+            }
+        }));
+    }
+
+    @Test
+    public void testLog4jLoggingBackend() {
+        Logger logger = Logger.getLogger(LoggingWrapperUtilityTest.class);
+        CapturingAppender appender = new CapturingAppender();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+        try {
+            Log4jLoggingBackend log4jBackend = new Log4jLoggingBackend(logger);
+            assertSame(logger, log4jBackend.getLogger());
+            assertFalse(log4jBackend.isEnabled(LogLevel.DEBUG));
+            assertTrue(log4jBackend.isEnabled(LogLevel.WARN));
+            LoggingWrapperUtility.logEntrance(log4jBackend, signature, null, null);
+            LoggingWrapperUtility.logException(log4jBackend, signature, exception, LogLevel.WARN);
+            assertEquals(1, appender.events.size());
+            LoggingEvent event = appender.events.get(0);
+            assertEquals(Level.WARN, event.getLevel());
+            assertEquals("Error in method [className#methodName], details: failure", event.getMessage());
+            assertSame(exception, event.getThrowableInformation().getThrowable());
+        } finally {
+            logger.removeAppender(appender);
+            logger.setLevel(null);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLog4jLoggingBackendNullLogger() {
+        new Log4jLoggingBackend(null);
+    }
+
+    @Test
+    public void testJavaLoggingBackend() {
+        java.util.logging.Logger logger = java.util.logging.Logger.getLogger("loggingWrapperUtilityTest");
+        final List<LogRecord> records = new ArrayList<LogRecord>();
+        Handler handler = new Handler() {
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            public void flush() {
+                // empty
+            }
+
+            public void close() {
+                // empty
+            }
+        };
+        logger.addHandler(handler);
+        logger.setUseParentHandlers(false);
+        logger.setLevel(java.util.logging.Level.FINE);
+        try {
+            JavaLoggingBackend julBackend = new JavaLoggingBackend(logger);
+            assertSame(logger, julBackend.getLogger());
+            assertFalse(julBackend.isEnabled(LogLevel.TRACE));
+            assertTrue(julBackend.isEnabled(LogLevel.DEBUG));
+            LoggingWrapperUtility.logEntrance(julBackend, signature, null, null, LogLevel.TRACE);
+            LoggingWrapperUtility.logEntrance(julBackend, signature, null, null);
+            LoggingWrapperUtility.logException(julBackend, signature, exception);
+            assertEquals(2, records.size());
+            assertEquals(java.util.logging.Level.FINE, records.get(0).getLevel());
+            assertEquals("Entering method [className#methodName].", records.get(0).getMessage());
+            assertEquals(java.util.logging.Level.SEVERE, records.get(1).getLevel());
+            assertSame(exception, records.get(1).getThrown());
+        } finally {
+            logger.removeHandler(handler);
+            logger.setUseParentHandlers(true);
+            logger.setLevel(null);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testJavaLoggingBackendNullLogger() {
+        new JavaLoggingBackend(null);
+    }
+
+    private static class CapturingBackend implements LoggingBackend {
+        private final LogLevel threshold;
+        private final List<String> messages = new ArrayList<String>();
+        private final List<LogLevel> levels = new ArrayList<LogLevel>();
+        private final List<Throwable> throwables = new ArrayList<Throwable>();
+
+        CapturingBackend(LogLevel threshold) {
+            this.threshold = threshold;
+        }
+
+        public boolean isEnabled(LogLevel level) {
+            return level.compareTo(threshold) >= 0;
+        }
+
+        public void log(LogLevel level, CharSequence message, Throwable throwable) {
+            messages.add(message.toString());
+            levels.add(level);
+            throwables.add(throwable);
+        }
+    }
+
+    private static class CapturingAppender extends AppenderSkeleton {
+        private final List<LoggingEvent> events = new ArrayList<LoggingEvent>();
+
+        protected void append(LoggingEvent event) {
+            events.add(event);
+        }
+
+        public void close() {
+            // empty
+        }
+
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
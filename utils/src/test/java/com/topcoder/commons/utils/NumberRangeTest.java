@@ -0,0 +1,64 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NumberRangeTest {
+
+    public NumberRangeTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        // empty
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testIntegralRange() {
+        NumberRange range = NumberRange.of(1, 10, true, false);
+        assertEquals("[1, 10)", range.getDescription());
+        assertEquals("[1, 10)", range.toString());
+        assertTrue(range.contains(1));
+        assertTrue(range.contains(9));
+        assertFalse(range.contains(10));
+        assertFalse(range.contains(0));
+        assertTrue(range.contains(9.5));
+        assertFalse(range.contains(Double.NaN));
+        assertTrue(NumberRange.of(Long.MIN_VALUE, Long.MAX_VALUE, true, true).contains(Long.MAX_VALUE));
+        assertFalse(NumberRange.of(5, 5, false, true).contains(5));
+    }
+
+    @Test
+    public void testDoubleRange() {
+        NumberRange range = NumberRange.of(0.0, 1.0, false, true);
+        assertEquals("(0.0, 1.0]", range.getDescription());
+        assertFalse(range.contains(0.0));
+        assertTrue(range.contains(1.0));
+        assertTrue(range.contains(1));
+        assertFalse(range.contains(Double.NaN));
+        NumberRange unbounded = NumberRange.of(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true, true);
+        assertTrue(unbounded.contains(Double.POSITIVE_INFINITY));
+        assertTrue(unbounded.contains(-1e300));
+        assertFalse(unbounded.contains(Double.NaN));
+        assertFalse(NumberRange.of(0.0, Double.POSITIVE_INFINITY, true, false).contains(Double.POSITIVE_INFINITY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfInvalidBounds() {
+        NumberRange.of(2, 1, true, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfNaN() {
+        NumberRange.of(Double.NaN, 1.0, true, true);
+    }
+}
@@ -0,0 +1,96 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParameterRendererTest {
+
+    private String[] paramNames;
+
+    public ParameterRendererTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        ParameterRenderer.reset();
+        this.paramNames = new String[]{"param1", "param2"};
+    }
+
+    @After
+    public void tearDown() {
+        ParameterRenderer.reset();
+    }
+
+    @Test
+    public void testPlainValues() {
+        assertEquals("Input parameters [param1:value1 ,param2:null]",
+                LoggingUtilityHelper.getInputParametersMessage(paramNames, new Object[]{"value1", null}));
+        assertEquals("Output parameter: 5", LoggingUtilityHelper.getOutputValueMessage(5));
+    }
+
+    @Test
+    public void testArrays() {
+        String message = LoggingUtilityHelper.getInputParametersMessage(paramNames,
+                new Object[]{new int[]{1, 2, 3}, new Object[]{"a", new long[]{4L}}});
+        assertEquals("Input parameters [param1:[1, 2, 3] ,param2:[a, [4]]]", message);
+    }
+
+    @Test
+    public void testElementCap() {
+        ParameterRenderer.setMaxElements(2);
+        List<Integer> list = new ArrayList<Integer>(Arrays.asList(1, 2, 3, 4, 5));
+        assertEquals("Output parameter: [1, 2, ...(3 more)]", LoggingUtilityHelper.getOutputValueMessage(list));
+    }
+
+    @Test
+    public void testValueTruncation() {
+        ParameterRenderer.setMaxValueLength(5);
+        assertEquals("Output parameter: abcde...", LoggingUtilityHelper.getOutputValueMessage("abcdefghij"));
+        assertEquals("Output parameter: abc", LoggingUtilityHelper.getOutputValueMessage("abc"));
+    }
+
+    @Test
+    public void testMessageTruncation() {
+        ParameterRenderer.setMaxMessageLength(20);
+        String message = LoggingUtilityHelper.getInputParametersMessage(paramNames,
+                new Object[]{"value1", "value2"});
+        assertEquals("Input parameters [pa...", message);
+    }
+
+    @Test
+    public void testRedaction() {
+        ParameterRenderer.setRedactedNames("PARAM2");
+        assertEquals("Input parameters [param1:value1 ,param2:***]",
+                LoggingUtilityHelper.getInputParametersMessage(paramNames, new Object[]{"value1", "secret"}));
+    }
+
+    @Test
+    public void testCustomRenderer() {
+        @SuppressWarnings("unchecked")
+        Class<Collection<?>> type = (Class<Collection<?>>) (Class<?>) Collection.class;
+        ParameterRenderer.registerRenderer(type, new ParameterRenderer.TypeRenderer<Collection<?>>() {
+            public void render(Collection<?> value, StringBuilder target) {
+                target.append("size=").append(value.size());
+            }
+        });
+        assertEquals("Output parameter: size=2",
+                LoggingUtilityHelper.getOutputValueMessage(new ArrayList<String>(Arrays.asList("a", "b"))));
+        ParameterRenderer.registerRenderer(Collection.class, null);
+        assertEquals("Output parameter: [a, b]",
+                LoggingUtilityHelper.getOutputValueMessage(new ArrayList<String>(Arrays.asList("a", "b"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxElementsThrowsIllegalArgumentException() {
+        ParameterRenderer.setMaxElements(0);
+    }
+}
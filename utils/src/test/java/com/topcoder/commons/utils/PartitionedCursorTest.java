@@ -0,0 +1,160 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PartitionedCursorTest {
+
+    private static final String URL = "jdbc:h2:mem:partitionedCursorTest;DB_CLOSE_DELAY=-1";
+
+    private static final String QUERY =
+            "SELECT id FROM event WHERE kind = ? AND id >= ? AND id < ? ORDER BY id";
+
+    private static final RowMapper<Long> ID_MAPPER = new RowMapper<Long>() {
+        public Long mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+            return resultSet.getLong(1);
+        }
+    };
+
+    private ConnectionPool pool;
+
+    public PartitionedCursorTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ConnectionPool(URL, null, 0, 3);
+        Connection connection = pool.getConnection(IllegalStateException.class);
+        try {
+            Statement statement = connection.createStatement();
+            statement.execute("CREATE TABLE event (id BIGINT PRIMARY KEY, kind VARCHAR(8))");
+            statement.execute("INSERT INTO event SELECT X, CASE WHEN MOD(X, 2) = 0 THEN 'even'"
+                    + " ELSE 'odd' END FROM SYSTEM_RANGE(1, 20000)");
+            statement.close();
+        } finally {
+            connection.close();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Connection connection = pool.getConnection(IllegalStateException.class);
+        try {
+            Statement statement = connection.createStatement();
+            statement.execute("DROP TABLE event");
+            statement.close();
+        } finally {
+            connection.close();
+        }
+        pool.close();
+    }
+
+    private PartitionedCursor<Long> open(RowMapper<Long> mapper, int partitions, boolean ordered) {
+        return JDBCUtility.openPartitionedCursor(pool, QUERY, new int[] {Types.VARCHAR},
+                new Object[] {"even"}, mapper, 0, 20001, partitions, ordered, 100,
+                IllegalStateException.class);
+    }
+
+    private void awaitIdlePool() throws Exception {
+        for (int i = 0; i < 100 && pool.getActiveCount() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        PartitionedCursor<Long> cursor = open(ID_MAPPER, 8, true);
+        long expected = 2;
+        while (cursor.hasNext()) {
+            assertEquals(Long.valueOf(expected), cursor.next());
+            expected += 2;
+        }
+        assertEquals(10000, cursor.getRowCount());
+        assertTrue(cursor.isClosed());
+        assertTrue(pool.getTotalCount() <= 3);
+        awaitIdlePool();
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        PartitionedCursor<Long> cursor = open(ID_MAPPER, 5, false);
+        Set<Long> ids = new HashSet<Long>();
+        long count = cursor.stream().filter(new java.util.function.Predicate<Long>() {
+            public boolean test(Long id) {
+                return id <= 100;
+            }
+        }).count();
+        assertEquals(50, count);
+        assertTrue(cursor.isClosed());
+
+        cursor = open(ID_MAPPER, 5, false);
+        while (cursor.hasNext()) {
+            assertTrue(ids.add(cursor.next()));
+        }
+        assertEquals(10000, ids.size());
+        awaitIdlePool();
+    }
+
+    @Test
+    public void testMorePartitionsThanKeys() throws Exception {
+        PartitionedCursor<Long> cursor = JDBCUtility.openPartitionedCursor(pool, QUERY,
+                new int[] {Types.VARCHAR}, new Object[] {"odd"}, ID_MAPPER, 1, 4, 10, true, 0,
+                IllegalStateException.class);
+        assertEquals(Long.valueOf(1), cursor.next());
+        assertEquals(Long.valueOf(3), cursor.next());
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void testEarlyClose() throws Exception {
+        PartitionedCursor<Long> cursor = open(ID_MAPPER, 4, true);
+        for (int i = 0; i < 10; i++) {
+            cursor.next();
+        }
+        cursor.close();
+        assertFalse(cursor.hasNext());
+        awaitIdlePool();
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        PartitionedCursor<Long> cursor = open(new RowMapper<Long>() {
+            public Long mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                long id = resultSet.getLong(1);
+                if (id == 15000) {
+                    throw new SQLException("broken row");
+                }
+                return id;
+            }
+        }, 4, true);
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+            }
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        assertTrue(cursor.isClosed());
+        awaitIdlePool();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        JDBCUtility.openPartitionedCursor(pool, QUERY, null, null, ID_MAPPER, 5, 5, 2, true, 0,
+                IllegalStateException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.Assert.*;
+
+public class PatternCacheTest {
+
+    private int maxSize;
+
+    public PatternCacheTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        maxSize = PatternCache.getMaxSize();
+        PatternCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        PatternCache.setMaxSize(maxSize);
+        PatternCache.clear();
+    }
+
+    @Test
+    public void testGetPattern() {
+        Pattern pattern = PatternCache.getPattern("[a-z]+");
+        assertSame(pattern, PatternCache.getPattern("[a-z]+"));
+        assertEquals("[a-z]+", pattern.pattern());
+        assertEquals(1, PatternCache.getSize());
+    }
+
+    @Test
+    public void testBounded() {
+        PatternCache.setMaxSize(4);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("a{" + i + "}", PatternCache.getPattern("a{" + i + "}").pattern());
+            assertTrue(PatternCache.getSize() <= 4);
+        }
+        PatternCache.setMaxSize(2);
+        assertTrue(PatternCache.getSize() <= 2);
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testGetPatternInvalid() {
+        PatternCache.getPattern("[a-");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPatternNull() {
+        PatternCache.getPattern(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxSizeInvalid() {
+        PatternCache.setMaxSize(0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PropertiesSnapshotTest {
+
+    private Properties properties;
+
+    public PropertiesSnapshotTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        Properties defaults = new Properties();
+        defaults.setProperty("timeout", "30");
+        properties = new Properties(defaults);
+        properties.setProperty("name", "server");
+        properties.setProperty("port", "8080");
+        properties.put("object", new Object());
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        PropertiesSnapshot snapshot = new PropertiesSnapshot(properties);
+        properties.setProperty("name", "changed");
+        assertEquals(3, snapshot.size());
+        assertEquals("server", snapshot.getProperty("name"));
+        assertEquals("30", snapshot.getProperty("timeout"));
+        assertNull(snapshot.getProperty("object"));
+        assertTrue(snapshot.getKeys().contains("port"));
+        assertEquals(8080, (int) PropertiesUtility.getIntegerProperty(snapshot, "port", true,
+                IllegalStateException.class));
+        assertEquals("server", snapshot.toProperties().getProperty("name"));
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final PropertiesSnapshot snapshot = new PropertiesSnapshot(properties);
+        final AtomicInteger errors = new AtomicInteger();
+        Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 100000; j++) {
+                        if (!"8080".equals(snapshot.getProperty("port"))) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, errors.get());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testKeysUnmodifiable() {
+        new PropertiesSnapshot(properties).getKeys().clear();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullProperties() {
+        new PropertiesSnapshot(null);
+    }
+}
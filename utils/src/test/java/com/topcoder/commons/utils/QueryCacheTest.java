@@ -0,0 +1,196 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class QueryCacheTest {
+
+    private static final String URL = "jdbc:h2:mem:queryCacheTest;DB_CLOSE_DELAY=-1";
+
+    private static final String QUERY = "SELECT name FROM country WHERE code = ?";
+
+    private static final int[] TYPES = {Types.VARCHAR};
+
+    private Connection connection;
+    private QueryCache cache;
+    private AtomicInteger mappedRows;
+    private RowMapper<String> mapper;
+
+    public QueryCacheTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection(URL);
+        Statement statement = connection.createStatement();
+        statement.execute("CREATE TABLE country (code VARCHAR(2) PRIMARY KEY, name VARCHAR(32))");
+        statement.execute("INSERT INTO country VALUES ('US', 'United States'), ('FR', 'France'),"
+                + " ('DE', 'Germany')");
+        statement.close();
+        cache = new QueryCache(2, 1, TimeUnit.MINUTES);
+        mappedRows = new AtomicInteger();
+        mapper = new RowMapper<String>() {
+            public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                mappedRows.incrementAndGet();
+                return resultSet.getString(1);
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Statement statement = connection.createStatement();
+        statement.execute("DROP TABLE country");
+        statement.close();
+        JDBCUtility.clearStatementCache(connection);
+        connection.close();
+    }
+
+    private String lookup(String code) throws Exception {
+        List<String> names = cache.executeQuery(connection, QUERY, TYPES, new Object[] {code}, mapper,
+                new String[] {"country"}, IllegalStateException.class);
+        return names.get(0);
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        assertEquals("France", lookup("FR"));
+        assertEquals("France", lookup("FR"));
+        assertEquals("Germany", lookup("DE"));
+        assertEquals(2, mappedRows.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getLoadTimes().getCount());
+
+        Object[][] rows = cache.executeQuery(connection, QUERY, TYPES, new Object[] {"US"},
+                new Class<?>[] {String.class}, null, IllegalStateException.class);
+        rows[0][0] = "changed";
+        rows = cache.executeQuery(connection, QUERY, TYPES, new Object[] {"US"},
+                new Class<?>[] {String.class}, null, IllegalStateException.class);
+        assertEquals("United States", rows[0][0]);
+    }
+
+    @Test
+    public void testClockEviction() throws Exception {
+        lookup("FR");
+        lookup("DE");
+        lookup("FR");
+        lookup("US");
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getSize());
+        int mapped = mappedRows.get();
+        lookup("FR");
+        assertEquals(mapped, mappedRows.get());
+        lookup("DE");
+        assertEquals(mapped + 1, mappedRows.get());
+    }
+
+    @Test
+    public void testTableInvalidation() throws Exception {
+        lookup("FR");
+        JDBCUtility.executeUpdate(connection, "UPDATE country SET name = ? WHERE code = ?",
+                new int[] {Types.VARCHAR, Types.VARCHAR}, new Object[] {"Republique francaise", "FR"},
+                IllegalStateException.class);
+        assertEquals("France", lookup("FR"));
+        cache.invalidateTable("OTHER");
+        assertEquals("France", lookup("FR"));
+        cache.invalidateTable("COUNTRY");
+        assertEquals("Republique francaise", lookup("FR"));
+        cache.invalidateAll();
+        lookup("FR");
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        cache = new QueryCache(10, 20, TimeUnit.MILLISECONDS);
+        lookup("FR");
+        Thread.sleep(40);
+        lookup("FR");
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RowMapper<String> slowMapper = new RowMapper<String>() {
+            public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                mappedRows.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new SQLException(e.getMessage());
+                }
+                return resultSet.getString(1);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        Connection own = DriverManager.getConnection(URL);
+                        try {
+                            return cache.executeQuery(own, QUERY, TYPES, new Object[] {"DE"}, slowMapper,
+                                    null, IllegalStateException.class).get(0);
+                        } finally {
+                            JDBCUtility.clearStatementCache(own);
+                            own.close();
+                        }
+                    }
+                }));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("Germany", future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, mappedRows.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(7, cache.getHitCount());
+    }
+
+    @Test
+    public void testLoadFailure() throws Exception {
+        try {
+            cache.executeQuery(connection, "SELECT name FROM missing WHERE code = ?", TYPES,
+                    new Object[] {"FR"}, mapper, null, IllegalStateException.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals(1, cache.getLoadFailureCount());
+            assertEquals(0, cache.getSize());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new QueryCache(0, 1, TimeUnit.SECONDS);
+    }
+}
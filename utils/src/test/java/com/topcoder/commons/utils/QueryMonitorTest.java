@@ -0,0 +1,177 @@
+package com.topcoder.commons.utils;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueryMonitorTest {
+
+    private Connection connection;
+    private Logger logger;
+    private CapturingAppender appender;
+
+    public QueryMonitorTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:queryMonitorTest");
+        Statement statement = connection.createStatement();
+        statement.execute("CREATE TABLE account (id INT PRIMARY KEY, owner VARCHAR(32))");
+        statement.close();
+        logger = Logger.getLogger("QueryMonitorTest");
+        logger.setAdditivity(false);
+        logger.setLevel(Level.DEBUG);
+        appender = new CapturingAppender();
+        logger.addAppender(appender);
+        QueryMonitor.setEnabled(true);
+        QueryMonitor.setLogger(logger);
+        QueryMonitor.setSlowQueryThreshold(0, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        QueryMonitor.setEnabled(false);
+        QueryMonitor.setLogger(null);
+        QueryMonitor.setArgumentsShown(false);
+        QueryMonitor.setSlowQueryThreshold(1, TimeUnit.SECONDS);
+        QueryMonitor.setMaxShapes(256);
+        QueryMonitor.clearStatistics();
+        logger.removeAppender(appender);
+        JDBCUtility.clearStatementCache(connection);
+        connection.close();
+    }
+
+    private void insert(int id, String owner) throws Exception {
+        JDBCUtility.executeUpdate(connection, "INSERT INTO account VALUES (?, ?)",
+                new int[] {Types.INTEGER, Types.VARCHAR}, new Object[] {id, owner},
+                IllegalStateException.class);
+    }
+
+    private QueryStatistics find(String shape) {
+        for (QueryStatistics statistics : QueryMonitor.getStatistics()) {
+            if (statistics.getShape().equals(shape)) {
+                return statistics;
+            }
+        }
+        fail("no statistics for " + shape);
+        return null;
+    }
+
+    @Test
+    public void testStatisticsAndSlowQueryLog() throws Exception {
+        insert(1, "secret owner");
+        insert(2, "other");
+        JDBCUtility.executeQuery(connection, "SELECT  id FROM account\n WHERE id > 0",
+                null, null, new Class<?>[] {Integer.class}, IllegalStateException.class);
+        JDBCUtility.executeQuery(connection, "SELECT id FROM account WHERE id > 1",
+                null, null, new Class<?>[] {Integer.class}, IllegalStateException.class);
+
+        QueryStatistics inserts = find("INSERT INTO account VALUES (?, ?)");
+        assertEquals(2, inserts.getCount());
+        assertEquals(2, inserts.getRowCount());
+        assertEquals(0, inserts.getErrorCount());
+        assertTrue(inserts.getMaxNanos() > 0);
+        assertTrue(inserts.getTotalNanos() >= inserts.getMaxNanos());
+        QueryStatistics selects = find("SELECT id FROM account WHERE id > ?");
+        assertEquals(2, selects.getCount());
+        assertEquals(3, selects.getRowCount());
+
+        assertEquals(4, appender.messages.size());
+        String message = appender.messages.get(0);
+        assertTrue(message.startsWith("Slow query [INSERT INTO account VALUES (?, ?)] took "));
+        assertTrue(message.endsWith(" ms, rows: 1, arguments: [2 redacted]."));
+        assertFalse(message.contains("secret"));
+        assertTrue(QueryMonitor.dumpStatistics().contains("\tINSERT INTO account VALUES (?, ?)"));
+    }
+
+    @Test
+    public void testArgumentsShownAndFailures() throws Exception {
+        QueryMonitor.setArgumentsShown(true);
+        insert(1, "owner");
+        try {
+            insert(1, "duplicate");
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertTrue(appender.messages.get(0).endsWith(", rows: 1, arguments: [1, owner]."));
+        assertTrue(appender.messages.get(1).contains(" ms and failed, arguments: [1, duplicate]."));
+        assertEquals(1, find("INSERT INTO account VALUES (?, ?)").getErrorCount());
+    }
+
+    @Test
+    public void testThresholdAndDisabledMonitor() throws Exception {
+        QueryMonitor.setSlowQueryThreshold(1, TimeUnit.MINUTES);
+        insert(1, "owner");
+        assertEquals(0, appender.messages.size());
+        assertEquals(1, QueryMonitor.getStatistics().size());
+
+        QueryMonitor.setEnabled(false);
+        insert(2, "owner");
+        assertEquals(1, find("INSERT INTO account VALUES (?, ?)").getCount());
+    }
+
+    @Test
+    public void testBoundedStatistics() throws Exception {
+        QueryMonitor.setLogger(null);
+        QueryMonitor.setMaxShapes(2);
+        Class<?>[] types = new Class<?>[] {Integer.class};
+        JDBCUtility.executeQuery(connection, "SELECT 1", null, null, types, IllegalStateException.class);
+        JDBCUtility.executeQuery(connection, "SELECT id FROM account", null, null, types,
+                IllegalStateException.class);
+        JDBCUtility.executeQuery(connection, "SELECT 2", null, null, types, IllegalStateException.class);
+        JDBCUtility.executeQuery(connection, "SELECT COUNT(*) FROM account", null, null, types,
+                IllegalStateException.class);
+        List<String> shapes = new ArrayList<String>();
+        for (QueryStatistics statistics : QueryMonitor.getStatistics()) {
+            shapes.add(statistics.getShape());
+        }
+        assertEquals(2, shapes.size());
+        assertTrue(shapes.contains("SELECT ?"));
+        assertTrue(shapes.contains("SELECT COUNT(*) FROM account"));
+        assertEquals(2, find("SELECT ?").getCount());
+    }
+
+    @Test
+    public void testShapeNormalization() {
+        assertEquals("SELECT * FROM t1 WHERE a = ? AND b = ? AND c IN (?, ?)",
+                QueryMonitor.getShape("SELECT *\tFROM t1 WHERE a = 'x''y' AND b = 1.5e3 AND c IN (1, 2)"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxShapesInvalid() {
+        QueryMonitor.setMaxShapes(0);
+    }
+
+    private static class CapturingAppender extends AppenderSkeleton {
+        private final List<String> messages = new ArrayList<String>();
+
+        protected synchronized void append(LoggingEvent event) {
+            messages.add(event.getRenderedMessage());
+        }
+
+        public void close() {
+            // empty
+        }
+
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.topcoder.commons.utils;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class SpanTracerTest {
+
+    private static final Pattern SPAN_PATTERN = Pattern.compile(
+            "Span \\[trace=(\\w+), span=(\\w+), parent=(\\w+), depth=(\\d+), total=(\\d+)ns, self=(-?\\d+)ns\\]");
+
+    private Logger logger;
+    private CapturingAppender appender;
+    private File exportFile;
+
+    public SpanTracerTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        logger = Logger.getLogger("SpanTracerTest");
+        logger.setAdditivity(false);
+        logger.setLevel(Level.DEBUG);
+        appender = new CapturingAppender();
+        logger.addAppender(appender);
+        exportFile = File.createTempFile("spans", ".txt");
+        SpanTracer.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        SpanTracer.setEnabled(false);
+        SpanTracer.setExportFile(null);
+        logger.removeAppender(appender);
+        exportFile.delete();
+    }
+
+    private Matcher findSpan(String signature) {
+        for (String message : appender.messages) {
+            if (message.startsWith("Exiting method [" + signature + "]")) {
+                Matcher matcher = SPAN_PATTERN.matcher(message);
+                assertTrue(matcher.find());
+                return matcher;
+            }
+        }
+        fail("no exit message for " + signature);
+        return null;
+    }
+
+    @Test
+    public void testNestedSpans() throws Exception {
+        SpanTracer.setExportFile(exportFile);
+        Log4jUtility.logEntrance(logger, "outer", null, null);
+        Log4jUtility.logEntrance(logger, "inner", null, null);
+        Thread.sleep(5);
+        Log4jUtility.logExit(logger, "inner", null);
+        Log4jUtility.logExit(logger, "outer", null);
+
+        Matcher outer = findSpan("outer");
+        Matcher inner = findSpan("inner");
+        assertEquals(outer.group(1), inner.group(1));
+        assertEquals(outer.group(2), inner.group(3));
+        assertEquals("0000000000000000", outer.group(3));
+        assertEquals("0", outer.group(4));
+        assertEquals("1", inner.group(4));
+        long outerTotal = Long.parseLong(outer.group(5));
+        long outerSelf = Long.parseLong(outer.group(6));
+        long innerTotal = Long.parseLong(inner.group(5));
+        assertEquals(outerTotal - innerTotal, outerSelf);
+
+        BufferedReader reader = new BufferedReader(new FileReader(exportFile));
+        try {
+            assertTrue(reader.readLine().startsWith("Trace " + outer.group(1)));
+            assertTrue(reader.readLine().startsWith("  outer span=" + outer.group(2)));
+            assertTrue(reader.readLine().startsWith("    inner span=" + inner.group(2)));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testExceptionClosesSpan() {
+        Log4jUtility.logEntrance(logger, "outer", null, null);
+        Log4jUtility.logEntrance(logger, "inner", null, null);
+        Log4jUtility.logException(logger, "inner", new Exception());
+        Log4jUtility.logEntrance(logger, "sibling", null, null);
+        Log4jUtility.logExit(logger, "sibling", null);
+        Log4jUtility.logExit(logger, "outer", null);
+
+        Matcher outer = findSpan("outer");
+        Matcher sibling = findSpan("sibling");
+        assertEquals(outer.group(2), sibling.group(3));
+        assertEquals("1", sibling.group(4));
+    }
+
+    @Test
+    public void testWrappedTask() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Log4jUtility.logEntrance(logger, "outer", null, null);
+            executor.submit(SpanTracer.wrap(new Runnable() {
+                public void run() {
+                    Log4jUtility.logEntrance(logger, "task", null, null);
+                    Log4jUtility.logExit(logger, "task", null);
+                }
+            })).get();
+            Log4jUtility.logExit(logger, "outer", null);
+        } finally {
+            executor.shutdown();
+        }
+        Matcher outer = findSpan("outer");
+        Matcher task = findSpan("task");
+        assertEquals(outer.group(1), task.group(1));
+        assertEquals(outer.group(2), task.group(3));
+        assertEquals("1", task.group(4));
+    }
+
+    private static class CapturingAppender extends AppenderSkeleton {
+        private final List<String> messages = new ArrayList<String>();
+
+        protected synchronized void append(LoggingEvent event) {
+            messages.add(event.getRenderedMessage());
+        }
+
+        public void close() {
+            // empty
+        }
+
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class StreamValidationUtilityTest {
+
+    private static final ValueRule POSITIVE = ValueRules.all(ValueRules.notNull(), ValueRules.positive());
+
+    public StreamValidationUtilityTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        // empty
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testIterator() {
+        Iterator<Integer> it = StreamValidationUtility.validate(Arrays.asList(1, 2, null, 4).iterator(), POSITIVE,
+                "values", IllegalArgumentException.class);
+        assertEquals(Integer.valueOf(1), it.next());
+        assertEquals(Integer.valueOf(2), it.next());
+        assertTrue(it.hasNext());
+        try {
+            it.next();
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("values[2] should not be null", e.getMessage());
+        }
+        assertEquals(Integer.valueOf(4), it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        List<String> list = new ArrayList<String>(Arrays.asList("a", "b"));
+        Iterator<String> it = StreamValidationUtility.validate(list.iterator(), ValueRules.notEmpty(), "values",
+                IllegalArgumentException.class);
+        it.next();
+        it.remove();
+        assertEquals(Arrays.asList("b"), list);
+    }
+
+    @Test
+    public void testStreamIsLazy() {
+        final AtomicInteger pulled = new AtomicInteger();
+        Stream<Integer> source = Stream.iterate(1, new UnaryOperator<Integer>() {
+            public Integer apply(Integer value) {
+                pulled.incrementAndGet();
+                return value + 1;
+            }
+        });
+        List<Integer> result = StreamValidationUtility.validate(source, POSITIVE, "values",
+                IllegalStateException.class).limit(5).collect(Collectors.<Integer>toList());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), result);
+        assertTrue(pulled.get() <= 5);
+    }
+
+    @Test
+    public void testStreamFailure() {
+        try {
+            StreamValidationUtility.validate(Stream.of(3, 2, 1, 0, -1), POSITIVE, "values",
+                    IllegalStateException.class).forEach(new Consumer<Integer>() {
+                        public void accept(Integer value) {
+                            // empty
+                        }
+                    });
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("values[3] should be positive", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParallelStreamReportsExactOrdinal() {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 1; i <= 100000; i++) {
+            list.add(i == 76543 ? -i : i);
+        }
+        try {
+            StreamValidationUtility.validate(list.parallelStream(), POSITIVE, "values",
+                    IllegalArgumentException.class).mapToLong(new java.util.function.ToLongFunction<Integer>() {
+                        public long applyAsLong(Integer value) {
+                            return value;
+                        }
+                    }).sum();
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // the exception of a worker thread is rethrown wrapped in a new one of the same type
+            Throwable original = e.getCause() instanceof IllegalArgumentException ? e.getCause() : e;
+            assertEquals("values[76542] should be positive", original.getMessage());
+        }
+    }
+
+    @Test
+    public void testParallelStreamSplits() {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 1; i <= 100000; i++) {
+            list.add(i);
+        }
+        Stream<Integer> stream = StreamValidationUtility.validate(list.parallelStream(), POSITIVE, "values",
+                IllegalArgumentException.class);
+        assertTrue(stream.isParallel());
+        List<Integer> result = stream.map(new Function<Integer, Integer>() {
+            public Integer apply(Integer value) {
+                return value;
+            }
+        }).collect(Collectors.<Integer>toList());
+        assertEquals(list, result);
+    }
+
+    @Test
+    public void testSpliteratorOrdinals() {
+        Spliterator<Integer> spliterator = StreamValidationUtility.validate(
+                Arrays.asList(1, 2, 3, 4, 5, 6, 7, -8).spliterator(), POSITIVE, "values",
+                IllegalArgumentException.class);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(4, prefix.estimateSize());
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        final List<Integer> seen = new ArrayList<Integer>();
+        Consumer<Integer> collect = new Consumer<Integer>() {
+            public void accept(Integer value) {
+                seen.add(value);
+            }
+        };
+        assertTrue(spliterator.tryAdvance(collect));
+        try {
+            spliterator.forEachRemaining(collect);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("values[7] should be positive", e.getMessage());
+        }
+        prefix.forEachRemaining(collect);
+        assertEquals(Arrays.asList(5, 6, 7, 1, 2, 3, 4), seen);
+    }
+
+    @Test
+    public void testSpliteratorUnknownOrdinals() {
+        Set<Integer> set = new HashSet<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+        Spliterator<Integer> spliterator = StreamValidationUtility.validate(set.spliterator(),
+                ValueRules.inRange(1, 1000), "values", IllegalArgumentException.class);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Consumer<Integer> ignore = new Consumer<Integer>() {
+            public void accept(Integer value) {
+                // empty
+            }
+        };
+        int failures = 0;
+        for (Spliterator<Integer> part : Arrays.asList(prefix, spliterator)) {
+            try {
+                part.forEachRemaining(ignore);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().matches("values\\[(\\d+|\\?)\\] should be in the range"
+                        + " \\[1, 1000\\]"));
+                failures++;
+            }
+        }
+        assertEquals(1, failures);
+    }
+
+    @Test
+    public void testStreamClose() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        Stream<String> source = Stream.of("a").onClose(new Runnable() {
+            public void run() {
+                closed.set(true);
+            }
+        });
+        StreamValidationUtility.validate(source, ValueRules.notNull(), "values", IllegalStateException.class)
+                .close();
+        assertTrue(closed.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExceptionClassWithoutMessageConstructor() {
+        StreamValidationUtility.validate(Arrays.asList((Object) null).iterator(), ValueRules.notNull(), "values",
+                NoMessageException.class).next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidateNullRule() {
+        StreamValidationUtility.validate(Stream.of(1), null, "values", IllegalStateException.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidateNullIterator() {
+        StreamValidationUtility.validate((Iterator<Object>) null, ValueRules.notNull(), "values",
+                IllegalStateException.class);
+    }
+
+    public static class NoMessageException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public NoMessageException() {
+            // empty
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TextFormatTest {
+
+    public TextFormatTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        // empty
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testUuid() {
+        assertTrue(TextFormat.UUID.matches("123e4567-e89b-12d3-a456-426614174000"));
+        assertTrue(TextFormat.UUID.matches("123E4567-E89B-12D3-A456-426614174000"));
+        assertTrue(TextFormat.UUID.matches(java.util.UUID.randomUUID().toString()));
+        assertFalse(TextFormat.UUID.matches("123e4567e89b12d3a456426614174000"));
+        assertFalse(TextFormat.UUID.matches("123e4567-e89b-12d3-a456-42661417400g"));
+        assertFalse(TextFormat.UUID.matches("123e4567-e89b-12d3-a456_426614174000"));
+        assertFalse(TextFormat.UUID.matches("123e4567-e89b-12d3-a456-4266141740001"));
+        assertFalse(TextFormat.UUID.matches(""));
+    }
+
+    @Test
+    public void testEmail() {
+        assertTrue(TextFormat.EMAIL.matches("user@example.com"));
+        assertTrue(TextFormat.EMAIL.matches("first.last+tag@mail.example-host.org"));
+        assertTrue(TextFormat.EMAIL.matches("a!#$%&'*+/=?^_`{|}~-z@x.io"));
+        assertFalse(TextFormat.EMAIL.matches("user@localhost"));
+        assertFalse(TextFormat.EMAIL.matches("userexample.com"));
+        assertFalse(TextFormat.EMAIL.matches("@example.com"));
+        assertFalse(TextFormat.EMAIL.matches("user@"));
+        assertFalse(TextFormat.EMAIL.matches(".user@example.com"));
+        assertFalse(TextFormat.EMAIL.matches("user.@example.com"));
+        assertFalse(TextFormat.EMAIL.matches("us..er@example.com"));
+        assertFalse(TextFormat.EMAIL.matches("user@@example.com"));
+        assertFalse(TextFormat.EMAIL.matches("user@example..com"));
+        assertFalse(TextFormat.EMAIL.matches("user@-example.com"));
+        assertFalse(TextFormat.EMAIL.matches("user@example-.com"));
+        assertFalse(TextFormat.EMAIL.matches("user@example.com."));
+        assertFalse(TextFormat.EMAIL.matches("us er@example.com"));
+        assertFalse(TextFormat.EMAIL.matches("us\u00E9r@example.com"));
+        assertFalse(TextFormat.EMAIL.matches(repeat('a', 65) + "@example.com"));
+        assertTrue(TextFormat.EMAIL.matches(repeat('a', 64) + "@example.com"));
+        assertFalse(TextFormat.EMAIL.matches("user@" + repeat('a', 64) + ".com"));
+        assertFalse(TextFormat.EMAIL.matches("user@" + repeat('a', 62) + "." + repeat('b', 62) + "."
+                + repeat('c', 62) + "." + repeat('d', 62) + ".com"));
+    }
+
+    @Test
+    public void testIsoDate() {
+        assertTrue(TextFormat.ISO_DATE.matches("2010-12-31"));
+        assertTrue(TextFormat.ISO_DATE.matches("2000-02-29"));
+        assertTrue(TextFormat.ISO_DATE.matches("2012-02-29"));
+        assertFalse(TextFormat.ISO_DATE.matches("1900-02-29"));
+        assertFalse(TextFormat.ISO_DATE.matches("2011-02-29"));
+        assertFalse(TextFormat.ISO_DATE.matches("2010-04-31"));
+        assertFalse(TextFormat.ISO_DATE.matches("2010-13-01"));
+        assertFalse(TextFormat.ISO_DATE.matches("2010-00-01"));
+        assertFalse(TextFormat.ISO_DATE.matches("2010-01-00"));
+        assertFalse(TextFormat.ISO_DATE.matches("2010/01/01"));
+        assertFalse(TextFormat.ISO_DATE.matches("2010-1-01"));
+        assertFalse(TextFormat.ISO_DATE.matches("201a-01-01"));
+        assertFalse(TextFormat.ISO_DATE.matches("2010-01-01T00:00"));
+    }
+
+    @Test
+    public void testIsoDateAgainstCalendar() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        format.setLenient(false);
+        Calendar calendar = new GregorianCalendar(1999, Calendar.JANUARY, 1);
+        for (int i = 0; i < 3000; i++) {
+            String text = format.format(calendar.getTime());
+            assertTrue(text, TextFormat.ISO_DATE.matches(text));
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        for (int month = 1; month <= 12; month++) {
+            for (int day = 28; day <= 32; day++) {
+                String text = String.format("2100-%02d-%02d", month, day);
+                boolean valid;
+                try {
+                    format.parse(text);
+                    valid = true;
+                } catch (ParseException e) {
+                    valid = false;
+                }
+                assertEquals(text, valid, TextFormat.ISO_DATE.matches(text));
+            }
+        }
+    }
+
+    @Test
+    public void testIpv4() {
+        assertTrue(TextFormat.IPV4.matches("192.168.0.1"));
+        assertTrue(TextFormat.IPV4.matches("0.0.0.0"));
+        assertTrue(TextFormat.IPV4.matches("255.255.255.255"));
+        assertFalse(TextFormat.IPV4.matches("256.0.0.1"));
+        assertFalse(TextFormat.IPV4.matches("01.2.3.4"));
+        assertFalse(TextFormat.IPV4.matches("1.2.3"));
+        assertFalse(TextFormat.IPV4.matches("1.2.3.4.5"));
+        assertFalse(TextFormat.IPV4.matches("1.2.3.4."));
+        assertFalse(TextFormat.IPV4.matches("1..3.4"));
+        assertFalse(TextFormat.IPV4.matches("1.2.3.1000"));
+        assertFalse(TextFormat.IPV4.matches("a.b.c.d"));
+        assertFalse(TextFormat.IPV4.matches(""));
+    }
+
+    @Test
+    public void testIpv6() {
+        assertTrue(TextFormat.IPV6.matches("2001:0db8:85a3:0000:0000:8a2e:0370:7334"));
+        assertTrue(TextFormat.IPV6.matches("2001:db8::1"));
+        assertTrue(TextFormat.IPV6.matches("::"));
+        assertTrue(TextFormat.IPV6.matches("::1"));
+        assertTrue(TextFormat.IPV6.matches("fe80::"));
+        assertTrue(TextFormat.IPV6.matches("::ffff:192.168.0.1"));
+        assertTrue(TextFormat.IPV6.matches("1:2:3:4:5:6:192.168.0.1"));
+        assertTrue(TextFormat.IPV6.matches("1::6:192.168.0.1"));
+        assertFalse(TextFormat.IPV6.matches("1:2:3:4:5:6:7:192.168.0.1"));
+        assertFalse(TextFormat.IPV6.matches("1:2:3:4:5:6::192.168.0.1"));
+        assertFalse(TextFormat.IPV6.matches("1:2:3:4:5:6:7"));
+        assertFalse(TextFormat.IPV6.matches("1:2:3:4:5:6:7:8:9"));
+        assertFalse(TextFormat.IPV6.matches("1:2:3:4::5:6:7:8"));
+        assertFalse(TextFormat.IPV6.matches("1::2::3"));
+        assertFalse(TextFormat.IPV6.matches(":::"));
+        assertFalse(TextFormat.IPV6.matches(":1::"));
+        assertFalse(TextFormat.IPV6.matches("1:"));
+        assertFalse(TextFormat.IPV6.matches("12345::"));
+        assertFalse(TextFormat.IPV6.matches("g::"));
+        assertFalse(TextFormat.IPV6.matches("::ffff:256.168.0.1"));
+        assertFalse(TextFormat.IPV6.matches("fe80::1%eth0"));
+        assertFalse(TextFormat.IPV6.matches(""));
+    }
+
+    @Test
+    public void testIpAddress() {
+        assertTrue(TextFormat.IP_ADDRESS.matches("10.0.0.1"));
+        assertTrue(TextFormat.IP_ADDRESS.matches("::1"));
+        assertFalse(TextFormat.IP_ADDRESS.matches("localhost"));
+    }
+
+    @Test
+    public void testNumbers() {
+        assertTrue(TextFormat.INTEGER.matches("0"));
+        assertTrue(TextFormat.INTEGER.matches("-42"));
+        assertTrue(TextFormat.INTEGER.matches("+123456789012345678901234567890"));
+        assertFalse(TextFormat.INTEGER.matches("-"));
+        assertFalse(TextFormat.INTEGER.matches(""));
+        assertFalse(TextFormat.INTEGER.matches("1.0"));
+        assertFalse(TextFormat.INTEGER.matches("1 "));
+        assertFalse(TextFormat.INTEGER.matches("\u0661"));
+        assertTrue(TextFormat.DECIMAL.matches("1"));
+        assertTrue(TextFormat.DECIMAL.matches("-1.5"));
+        assertTrue(TextFormat.DECIMAL.matches("1.5e10"));
+        assertTrue(TextFormat.DECIMAL.matches("+1E-10"));
+        assertFalse(TextFormat.DECIMAL.matches("1."));
+        assertFalse(TextFormat.DECIMAL.matches(".5"));
+        assertFalse(TextFormat.DECIMAL.matches("1e"));
+        assertFalse(TextFormat.DECIMAL.matches("1e+"));
+        assertFalse(TextFormat.DECIMAL.matches("1.5.5"));
+        assertFalse(TextFormat.DECIMAL.matches("NaN"));
+    }
+
+    @Test
+    public void testDecimalAgainstBigDecimal() {
+        Random random = new Random(42);
+        String alphabet = "0123456789+-.eE";
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String value = text.toString();
+            boolean parsed;
+            try {
+                new BigDecimal(value);
+                parsed = true;
+            } catch (NumberFormatException e) {
+                parsed = false;
+            }
+            // BigDecimal also accepts "1." and ".5", which the format rejects
+            if (TextFormat.DECIMAL.matches(value)) {
+                assertTrue(value, parsed);
+            } else if (parsed) {
+                assertTrue(value, value.startsWith(".") || value.contains(".e") || value.contains(".E")
+                        || value.endsWith(".") || value.contains("-.") || value.contains("+."));
+            }
+        }
+    }
+
+    @Test
+    public void testCharSequences() {
+        assertTrue(TextFormat.IPV4.matches(new StringBuilder("10.0.0.1")));
+        CharBuffer buffer = CharBuffer.wrap("x2010-01-01");
+        buffer.position(1);
+        assertTrue(TextFormat.ISO_DATE.matches(buffer));
+    }
+
+    @Test
+    public void testGetDescription() {
+        assertEquals("UUID", TextFormat.UUID.getDescription());
+        assertEquals("email address", TextFormat.EMAIL.getDescription());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMatchesNull() {
+        TextFormat.UUID.matches(null);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        java.util.Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
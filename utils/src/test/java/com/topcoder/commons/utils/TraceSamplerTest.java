@@ -0,0 +1,114 @@
+package com.topcoder.commons.utils;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TraceSamplerTest {
+
+    private Logger logger;
+    private String signature;
+
+    public TraceSamplerTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        this.logger = Logger.getLogger("TraceSamplerTest");
+        this.logger.setAdditivity(false);
+        this.logger.setLevel(Level.DEBUG);
+        this.signature = "className#methodName";
+    }
+
+    @After
+    public void tearDown() {
+        TraceSampler.clearPolicies();
+    }
+
+    private void call(String methodSignature) {
+        Log4jUtility.logEntrance(logger, methodSignature, null, null);
+        Log4jUtility.logExit(logger, methodSignature, null);
+    }
+
+    @Test
+    public void testOneInN() {
+        SamplingPolicy policy = SamplingPolicy.oneInN(3);
+        TraceSampler.setPolicy(signature, policy);
+        for (int i = 0; i < 6; i++) {
+            call(signature);
+        }
+        assertEquals(4, policy.getSampledCount());
+        assertEquals(8, policy.getSuppressedCount());
+    }
+
+    @Test
+    public void testTokenBucket() {
+        SamplingPolicy policy = SamplingPolicy.tokenBucket(0.001, 2);
+        TraceSampler.setDefaultPolicy(policy);
+        for (int i = 0; i < 5; i++) {
+            call(signature);
+        }
+        assertEquals(4, policy.getSampledCount());
+        assertEquals(6, policy.getSuppressedCount());
+    }
+
+    @Test
+    public void testSlowerThan() throws Exception {
+        SamplingPolicy policy = SamplingPolicy.slowerThan(20, TimeUnit.MILLISECONDS);
+        TraceSampler.setPolicy(signature, policy);
+        call(signature);
+        assertEquals(0, policy.getSampledCount());
+
+        Log4jUtility.logEntrance(logger, signature, null, null);
+        Thread.sleep(30);
+        Log4jUtility.logExit(logger, signature, null);
+        assertEquals(1, policy.getSampledCount());
+        assertEquals(3, policy.getSuppressedCount());
+    }
+
+    @Test
+    public void testSlowerThanWithoutTracedEntrance() {
+        SamplingPolicy policy = SamplingPolicy.slowerThan(1, TimeUnit.SECONDS);
+        TraceSampler.setPolicy(signature, policy);
+        Log4jUtility.logExit(logger, signature, null, new Date(System.currentTimeMillis() - 2000));
+        assertEquals(1, policy.getSampledCount());
+    }
+
+    @Test
+    public void testNestedCallsAndExceptions() {
+        SamplingPolicy policy = SamplingPolicy.oneInN(2);
+        TraceSampler.setDefaultPolicy(policy);
+        Log4jUtility.logEntrance(logger, "outer", null, null);
+        Log4jUtility.logEntrance(logger, "inner", null, null);
+        Log4jUtility.logException(logger, "inner", new Exception());
+        Log4jUtility.logExit(logger, "outer", null);
+        // the outer exit reuses the outer entrance decision
+        assertEquals(2, policy.getSampledCount());
+        assertEquals(1, policy.getSuppressedCount());
+    }
+
+    @Test
+    public void testPolicyLookup() {
+        SamplingPolicy own = SamplingPolicy.always();
+        SamplingPolicy other = SamplingPolicy.oneInN(10);
+        TraceSampler.setPolicy(signature, own);
+        TraceSampler.setDefaultPolicy(other);
+        assertSame(own, TraceSampler.getPolicy(signature));
+        assertSame(other, TraceSampler.getPolicy("other"));
+        TraceSampler.clearPolicies();
+        assertNull(TraceSampler.getPolicy(signature));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOneInNThrowsIllegalArgumentException() {
+        SamplingPolicy.oneInN(0);
+    }
+}
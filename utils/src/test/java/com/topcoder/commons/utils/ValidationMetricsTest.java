@@ -0,0 +1,131 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ValidationMetricsTest {
+
+    private ValidationMetrics metrics;
+
+    public ValidationMetricsTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        metrics = new ValidationMetrics(3);
+    }
+
+    @After
+    public void tearDown() {
+        ValidationUtility.setFailureSink(null);
+    }
+
+    @Test
+    public void testFailed() {
+        metrics.failed("age", "should be positive");
+        metrics.failed("age", "should be positive");
+        metrics.failed("age", "should not be null");
+        metrics.failed(null, "should not be null");
+        assertEquals(2, metrics.getCount("age", "should be positive"));
+        assertEquals(1, metrics.getCount("age", "should not be null"));
+        assertEquals(1, metrics.getCount(null, "should not be null"));
+        assertEquals(0, metrics.getCount("name", "should not be null"));
+        assertEquals(0, metrics.getOverflowCount());
+    }
+
+    @Test
+    public void testOverflow() {
+        metrics.failed("a", "should be positive");
+        metrics.failed("b", "should be positive");
+        metrics.failed("c", "should be positive");
+        metrics.failed("d", "should be positive");
+        metrics.failed("a", "should not be null");
+        metrics.failed("a", "should be positive");
+        assertEquals(2, metrics.getCount("a", "should be positive"));
+        assertEquals(0, metrics.getCount("d", "should be positive"));
+        assertEquals(2, metrics.getOverflowCount());
+        assertEquals(2, metrics.getCount(ValidationMetrics.OTHER, ValidationMetrics.OTHER));
+    }
+
+    @Test
+    public void testGetSnapshot() {
+        metrics.failed("b", "should be positive");
+        metrics.failed("a", "should not be null");
+        metrics.failed("a", "should be positive");
+        metrics.failed("c", "should be positive");
+        metrics.failed("d", "should be positive");
+        Map<String, Map<String, Long>> snapshot = metrics.getSnapshot();
+        assertEquals("{a={should be positive=1, should not be null=1}, b={should be positive=1}, "
+                + "other={other=2}}", snapshot.toString());
+        metrics.failed("a", "should be positive");
+        assertEquals(Long.valueOf(1), snapshot.get("a").get("should be positive"));
+    }
+
+    @Test
+    public void testReset() {
+        metrics.failed("a", "should be positive");
+        metrics.failed("b", "should be positive");
+        metrics.failed("c", "should be positive");
+        metrics.failed("d", "should be positive");
+        metrics.reset();
+        assertTrue(metrics.getSnapshot().isEmpty());
+        metrics.failed("d", "should be positive");
+        assertEquals(1, metrics.getCount("d", "should be positive"));
+        assertEquals(0, metrics.getOverflowCount());
+    }
+
+    @Test
+    public void testValidationUtility() throws Exception {
+        ValidationUtility.setFailureSink(metrics);
+        for (int i = 0; i < 3; i++) {
+            try {
+                ValidationUtility.checkPositive(-i, "count", IllegalArgumentException.class);
+                fail("IllegalArgumentException expected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        ValidationUtility.checkPositive(1, "count", IllegalArgumentException.class);
+        assertEquals(3, metrics.getCount("count", "should be positive"));
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final ValidationMetrics shared = new ValidationMetrics(10);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        shared.failed("name" + (j % 20), "should not be null");
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long total = 0;
+        int keys = 0;
+        for (Map<String, Long> rules : shared.getSnapshot().values()) {
+            for (Long count : rules.values()) {
+                total += count;
+            }
+            keys += rules.size();
+        }
+        assertEquals(40000, total);
+        assertEquals(11, keys);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxKeys() {
+        new ValidationMetrics(0);
+    }
+}
@@ -6,8 +6,15 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.regex.Pattern;
 import java.util.*;
 
+import static org.junit.Assert.*;
+
 public class ValidationUtilityTest {
 
     private String VARIABLE_NAME;
@@ -105,6 +112,7 @@ public class ValidationUtilityTest {
 
     @After
     public void tearDown() {
+        ValidationUtility.setFailureSink(null);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -442,4 +450,295 @@ public class ValidationUtilityTest {
         ValidationUtility.checkInRange(NEGATIVE_LONG_VALUE, 0, 2, true, true,
                 VARIABLE_NAME, IllegalArgumentException.class);
     }
+
+    @Test
+    public void testCheckCharSequences() throws Exception {
+        StringBuilder builder = new StringBuilder(" value\u00A0");
+        ValidationUtility.checkNotBlank(builder, true, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkNotBlank(NULL_STRING, true, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkLength(builder, 7, 7, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkContainsOnly(CharBuffer.wrap("abc def"),
+                CharacterSet.ASCII_LETTERS.union(CharacterSet.of(" ")), VARIABLE_NAME,
+                IllegalArgumentException.class);
+        ValidationUtility.checkAscii(LEGAL_STRING, VARIABLE_NAME, IllegalArgumentException.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckNotBlankUnicode() throws Exception {
+        ValidationUtility.checkNotBlank(new StringBuilder(" \u00A0\u2003"), true, VARIABLE_NAME,
+                IllegalArgumentException.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckLengthTooLong() throws Exception {
+        ValidationUtility.checkLength(LEGAL_STRING, 0, 1, VARIABLE_NAME, IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testCheckContainsOnlyMessage() throws Exception {
+        try {
+            ValidationUtility.checkContainsOnly("ab1", CharacterSet.ASCII_LETTERS, VARIABLE_NAME,
+                    IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME
+                    + " should not contain the character U+0031 (found at index 2)", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckAsciiFailure() throws Exception {
+        ValidationUtility.checkAscii("caf\u00E9", VARIABLE_NAME, IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testCheckMatches() throws Exception {
+        ValidationUtility.checkMatches("abc-42", "[a-z]+-\\d+", VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkMatches(new StringBuilder("abc-42"), Pattern.compile("[a-z]+-\\d+"), VARIABLE_NAME,
+                IllegalArgumentException.class);
+        ValidationUtility.checkMatches(null, "[a-z]+", VARIABLE_NAME, IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testCheckMatchesFailure() throws Exception {
+        try {
+            ValidationUtility.checkMatches("abc", "\\d+", VARIABLE_NAME, IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should match the pattern \\d+", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCheckFormat() throws Exception {
+        ValidationUtility.checkFormat("192.168.0.1", TextFormat.IP_ADDRESS, VARIABLE_NAME,
+                IllegalArgumentException.class);
+        ValidationUtility.checkFormat(null, TextFormat.UUID, VARIABLE_NAME, IllegalArgumentException.class);
+        try {
+            ValidationUtility.checkFormat("2010-02-30", TextFormat.ISO_DATE, VARIABLE_NAME,
+                    IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should be a valid ISO-8601 date", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckFormatNullFormat() throws Exception {
+        ValidationUtility.checkFormat("value", null, VARIABLE_NAME, IllegalStateException.class);
+    }
+
+    @Test
+    public void testDoubleChecksRejectNaN() throws Exception {
+        int failures = 0;
+        try {
+            ValidationUtility.checkPositive(Double.NaN, VARIABLE_NAME, IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should be a number (not NaN)", e.getMessage());
+            failures++;
+        }
+        try {
+            ValidationUtility.checkNotZero(Double.NaN, VARIABLE_NAME, IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            failures++;
+        }
+        try {
+            ValidationUtility.checkGreaterThan(Double.NaN, 0, false, VARIABLE_NAME, IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            failures++;
+        }
+        try {
+            ValidationUtility.checkLessThan(Double.NaN, 0, false, VARIABLE_NAME, IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            failures++;
+        }
+        assertEquals(4, failures);
+    }
+
+    @Test
+    public void testDoubleChecksInfinity() throws Exception {
+        ValidationUtility.checkPositive(Double.POSITIVE_INFINITY, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkGreaterThan(Double.POSITIVE_INFINITY, Double.MAX_VALUE, false, VARIABLE_NAME,
+                IllegalArgumentException.class);
+        ValidationUtility.checkFinite(-Double.MAX_VALUE, VARIABLE_NAME, IllegalArgumentException.class);
+        try {
+            ValidationUtility.checkFinite(Double.NEGATIVE_INFINITY, VARIABLE_NAME, IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should be a finite number", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckFiniteNaN() throws Exception {
+        ValidationUtility.checkFinite(Double.NaN, VARIABLE_NAME, IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testCheckInRangeWithRange() throws Exception {
+        NumberRange range = NumberRange.of(1, 10, true, false);
+        ValidationUtility.checkInRange(1, range, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkInRange(9.5, range, VARIABLE_NAME, IllegalArgumentException.class);
+        try {
+            ValidationUtility.checkInRange(10, range, VARIABLE_NAME, IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should be in the range [1, 10)", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCheckInRangeWithRangeNaN() throws Exception {
+        ValidationUtility.checkInRange(Double.NaN, NumberRange.of(0.0, 1.0, true, true), VARIABLE_NAME,
+                IllegalStateException.class);
+    }
+
+    @Test
+    public void testCheckInRangeComparable() throws Exception {
+        BigDecimal min = new BigDecimal("0.01");
+        BigDecimal max = new BigDecimal("100.00");
+        ValidationUtility.checkInRange(new BigDecimal("100.00"), min, max, true, true, VARIABLE_NAME,
+                IllegalArgumentException.class);
+        ValidationUtility.checkInRange(null, min, max, true, true, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkInRange(new BigDecimal("0.5"), ComparableRange.of(min, max, true, false),
+                VARIABLE_NAME, IllegalArgumentException.class);
+        try {
+            ValidationUtility.checkInRange(new BigDecimal("100.000000000000000001"), min, max, true, true,
+                    VARIABLE_NAME, IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should be in the range [0.01, 100.00]", e.getMessage());
+        }
+        try {
+            ValidationUtility.checkInRange(max, ComparableRange.of(min, max, true, false), VARIABLE_NAME,
+                    IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should be in the range [0.01, 100.00)", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCheckGreaterAndLessThanComparable() throws Exception {
+        Instant now = Instant.parse("2010-01-01T00:00:00Z");
+        ValidationUtility.checkGreaterThan(now.plusMillis(1), now, false, VARIABLE_NAME,
+                IllegalArgumentException.class);
+        ValidationUtility.checkLessThan(Duration.ofSeconds(30), Duration.ofSeconds(30), true, VARIABLE_NAME,
+                IllegalArgumentException.class);
+        try {
+            ValidationUtility.checkGreaterThan(now, now, false, VARIABLE_NAME, IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should be greater than 2010-01-01T00:00:00Z", e.getMessage());
+        }
+        try {
+            ValidationUtility.checkLessThan(Duration.ofSeconds(31), Duration.ofSeconds(30), true, VARIABLE_NAME,
+                    IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should be less than or equal to PT30S", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckGreaterThanComparableNullBound() throws Exception {
+        ValidationUtility.checkGreaterThan(BigDecimal.ONE, null, false, VARIABLE_NAME, IllegalStateException.class);
+    }
+
+    @Test
+    public void testCheckUnique() throws Exception {
+        ValidationUtility.checkUnique(new long[] {1, 2, 3}, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkUnique(new int[] {1, 2, 3}, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkUnique(Arrays.asList("a", "b"), VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkUnique((long[]) null, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkUnique((Collection<?>) null, VARIABLE_NAME, IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testCheckUniqueLongsMessage() throws Exception {
+        try {
+            ValidationUtility.checkUnique(new long[] {10, 20, 30, 20, 10}, VARIABLE_NAME,
+                    IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should not contain duplicate values (found 20 at indexes 1 and 3)",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCheckUniqueIntsMessage() throws Exception {
+        try {
+            ValidationUtility.checkUnique(new int[] {0, 1, 0}, VARIABLE_NAME, IllegalStateException.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals(VARIABLE_NAME + " should not contain duplicate values (found 0 at indexes 0 and 2)",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCheckUniqueCollectionMessage() throws Exception {
+        try {
+            ValidationUtility.checkUnique(Arrays.asList("a", null, "b", null), VARIABLE_NAME,
+                    IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should not contain duplicate values (found null at indexes 1 and 3)",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFailureSink() throws Exception {
+        final List<String> failures = new ArrayList<String>();
+        ValidationFailureSink sink = new ValidationFailureSink() {
+            public void failed(String name, String rule) {
+                failures.add(name + "|" + rule);
+            }
+        };
+        ValidationUtility.setFailureSink(sink);
+        assertSame(sink, ValidationUtility.getFailureSink());
+        ValidationUtility.checkPositive(1, VARIABLE_NAME, IllegalArgumentException.class);
+        ValidationUtility.checkNotNull(LEGAL_STRING, VARIABLE_NAME, IllegalArgumentException.class);
+        assertTrue(failures.isEmpty());
+        try {
+            ValidationUtility.checkInRange(11, 1, 10, true, true, "count", IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("count should be in the range [1, 10]", e.getMessage());
+        }
+        try {
+            ValidationUtility.checkUnique(new long[] {1, 1}, "ids", IllegalStateException.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("ids should not contain duplicate values (found 1 at indexes 0 and 1)", e.getMessage());
+        }
+        try {
+            ValidationUtility.checkContainsOnly("ab1", CharacterSet.ASCII_LETTERS, "code",
+                    IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("code should not contain the character U+0031 (found at index 2)", e.getMessage());
+        }
+        assertEquals(Arrays.asList("count|should be in the range [1, 10]", "ids|should not contain duplicate values",
+                "code|should not contain the character"), failures);
+        ValidationUtility.setFailureSink(null);
+        assertNull(ValidationUtility.getFailureSink());
+    }
+
+    @Test
+    public void testFailureSinkFailureIgnored() throws Exception {
+        ValidationUtility.setFailureSink(new ValidationFailureSink() {
+            public void failed(String name, String rule) {
+                throw new IllegalStateException("sink failed");
+            }
+        });
+        try {
+            ValidationUtility.checkNotNull(NULL_OBJECT, VARIABLE_NAME, IllegalArgumentException.class);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(VARIABLE_NAME + " should not be null", e.getMessage());
+        }
+    }
 }
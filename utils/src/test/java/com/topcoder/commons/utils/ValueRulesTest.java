@@ -0,0 +1,110 @@
+package com.topcoder.commons.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class ValueRulesTest {
+
+    public ValueRulesTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() {
+        // empty
+    }
+
+    @After
+    public void tearDown() {
+        // empty
+    }
+
+    @Test
+    public void testNotNullAndNotEmpty() {
+        assertEquals("should not be null", ValueRules.notNull().check(null));
+        assertNull(ValueRules.notNull().check(""));
+        assertEquals("should not be empty", ValueRules.notEmpty().check(""));
+        assertEquals("should not be empty", ValueRules.notEmpty().check(new ArrayList<Object>()));
+        assertNull(ValueRules.notEmpty().check(null));
+        assertNull(ValueRules.notEmpty().check("a"));
+        assertEquals("should not be empty (trimmed)",
+                ValueRules.notEmptyAfterTrimming().check(" \t\n"));
+        assertNull(ValueRules.notEmptyAfterTrimming().check(" a "));
+    }
+
+    @Test
+    public void testNumericRules() {
+        ValueRule range = ValueRules.inRange(1, 10);
+        assertNull(range.check(1));
+        assertNull(range.check(10L));
+        assertNull(range.check(null));
+        assertEquals("should be in the range [1, 10]", range.check(11));
+        assertEquals("should be in the range [1, 10]", range.check(10.5));
+        assertEquals("should be in the range [1, 10]", range.check("5"));
+        ValueRule open = ValueRules.inRange(0.0, 1.0, false, true);
+        assertEquals("should be in the range (0.0, 1.0]", open.check(0.0));
+        assertEquals("should be in the range (0.0, 1.0]", open.check(Double.NaN));
+        assertNull(open.check(1.0f));
+        assertEquals("should be positive", ValueRules.positive().check(0));
+        assertNull(ValueRules.positive().check(0.5));
+        assertEquals("should be not negative", ValueRules.notNegative().check(-1L));
+        assertNull(ValueRules.notNegative().check(0));
+    }
+
+    @Test
+    public void testOtherRules() {
+        assertEquals("should not be longer than 3 characters", ValueRules.maxLength(3).check("abcd"));
+        assertNull(ValueRules.maxLength(3).check("abc"));
+        assertEquals("should be an instance of java.lang.String",
+                ValueRules.instanceOf(String.class).check(1));
+        ValueRule all = ValueRules.all(ValueRules.notNull(), ValueRules.maxLength(1));
+        assertEquals("should not be null", all.check(null));
+        assertEquals("should not be longer than 1 characters", all.check("ab"));
+        assertNull(all.check("a"));
+    }
+
+    @Test
+    public void testRowRules() {
+        RowRules rules = new RowRules("id", "name").addRule(0, ValueRules.positive())
+                .addRule(1, ValueRules.notNull());
+        assertEquals(2, rules.getColumnCount());
+        assertNull(rules.validate(new Object[] {1, "a"}));
+        assertEquals("id should be positive", rules.validate(new Object[] {0, null}));
+        assertEquals("name should not be null", rules.validate(new Object[] {1, null}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInRangeInvalidBounds() {
+        ValueRules.inRange(2, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddRuleInvalidColumn() {
+        new RowRules("id").addRule(1, ValueRules.notNull());
+    }
+
+    @Test
+    public void testFormatRules() {
+        assertNull(ValueRules.matches("[a-z]+").check("abc"));
+        assertNull(ValueRules.matches("[a-z]+").check(null));
+        assertEquals("should match the pattern [a-z]+", ValueRules.matches("[a-z]+").check("ab1"));
+        assertNull(ValueRules.format(TextFormat.EMAIL).check("user@example.com"));
+        assertEquals("should be a valid email address", ValueRules.format(TextFormat.EMAIL).check("user"));
+    }
+
+    @Test
+    public void testInRangeNumberRange() {
+        ValueRule rule = ValueRules.inRange(NumberRange.of(1, 10, true, false));
+        assertNull(rule.check(1));
+        assertNull(rule.check(9.5));
+        assertNull(rule.check(null));
+        assertEquals("should be in the range [1, 10)", rule.check(10L));
+        assertEquals("should be in the range [1, 10)", rule.check(Double.NaN));
+        assertEquals("should be in the range [1, 10)", rule.check("5"));
+    }
+}
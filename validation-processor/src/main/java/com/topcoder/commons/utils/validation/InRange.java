@@ -0,0 +1,50 @@
+package com.topcoder.commons.utils.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a numeric field (primitive or boxed) that should be
+ * in the given range. Null values of boxed fields are accepted. The
+ * generated validator checks it with ValidationUtility.checkInRange() and a
+ * NumberRange constant, so the range is created once; integral fields use an
+ * integral range (the bounds should then be integers), floating-point fields
+ * a floating-point one (the bounds can be fractional or infinite).
+ * <p>
+ * Thread Safety: this annotation is immutable and thread safe.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface InRange {
+    /**
+     * The lower bound of the range.
+     *
+     * @return the lower bound
+     */
+    double from();
+
+    /**
+     * The upper bound of the range.
+     *
+     * @return the upper bound
+     */
+    double to();
+
+    /**
+     * True if the lower bound is included into the range.
+     *
+     * @return true if the lower bound is inclusive
+     */
+    boolean fromInclusive() default true;
+
+    /**
+     * True if the upper bound is included into the range.
+     *
+     * @return true if the upper bound is inclusive
+     */
+    boolean toInclusive() default true;
+}
@@ -0,0 +1,27 @@
+package com.topcoder.commons.utils.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a String, Collection or Map field that should not be
+ * empty. Null values are accepted (combine with NotNull for mandatory
+ * fields). The generated validator checks it with
+ * ValidationUtility.checkNotEmpty() or checkNotEmptyAfterTrimming().
+ * <p>
+ * Thread Safety: this annotation is immutable and thread safe.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface NotEmpty {
+    /**
+     * True if strings should be trimmed before the emptiness check.
+     *
+     * @return true if strings should be trimmed
+     */
+    boolean trim() default false;
+}
@@ -0,0 +1,19 @@
+package com.topcoder.commons.utils.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a field that should not be null. The generated
+ * validator checks it with ValidationUtility.checkNotNull().
+ * <p>
+ * Thread Safety: this annotation is immutable and thread safe.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface NotNull {
+}
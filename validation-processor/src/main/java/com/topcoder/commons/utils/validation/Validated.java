@@ -0,0 +1,28 @@
+package com.topcoder.commons.utils.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation configures the validator generated for a class. It's
+ * optional: a validator is generated for every class with constraint
+ * annotations (NotNull, NotEmpty, InRange) on its fields.
+ * <p>
+ * Thread Safety: this annotation is immutable and thread safe.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Validated {
+    /**
+     * The exception class thrown by the generated validator. It should have
+     * a constructor with a single String argument.
+     *
+     * @return the exception class
+     */
+    Class<? extends Throwable> exceptionClass()
+            default IllegalArgumentException.class;
+}
@@ -0,0 +1,588 @@
+package com.topcoder.commons.utils.validation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * This is a javac annotation processor that generates validators for classes
+ * with constraint annotations (NotNull, NotEmpty, InRange) on their fields.
+ * For a class Foo it generates the class FooValidator (Outer_FooValidator
+ * for a nested class) in the same package, with the method
+ * validate(Foo value) that checks the annotated fields in declaration order.
+ * <p>
+ * The generated code is straight-line calls of ValidationUtility with
+ * constant names, constant exception classes and NumberRange constants, so
+ * validating doesn't use reflection or look up any metadata. Fields are read
+ * directly when they aren't private, otherwise through their getters (which
+ * should not be private either). Only the fields declared in the class are
+ * checked; the fields of superclasses are checked by their own validators.
+ * <p>
+ * Misplaced annotations (e.g. NotEmpty on an int field) are reported as
+ * compilation errors.
+ * <p>
+ * Thread Safety: this class is not thread safe; javac uses a separate
+ * instance per compilation.
+ */
+@SupportedAnnotationTypes({
+    "com.topcoder.commons.utils.validation.NotNull",
+    "com.topcoder.commons.utils.validation.NotEmpty",
+    "com.topcoder.commons.utils.validation.InRange",
+    "com.topcoder.commons.utils.validation.Validated"
+    })
+public final class ValidationProcessor extends AbstractProcessor {
+    /**
+     * The suffix of the generated class names.
+     */
+    private static final String SUFFIX = "Validator";
+
+    /**
+     * The constraint annotations.
+     */
+    @SuppressWarnings("unchecked")
+    private static final List<Class<? extends Annotation>> CONSTRAINTS =
+            Arrays.<Class<? extends Annotation>>asList(NotNull.class,
+                    NotEmpty.class, InRange.class);
+
+    /**
+     * The default exception class of the generated validators.
+     */
+    private static final String DEFAULT_EXCEPTION =
+            "java.lang.IllegalArgumentException";
+
+    /**
+     * The names of the types the validators were generated for (javac may
+     * run several rounds).
+     */
+    private final Set<String> generated = new HashSet<String>();
+
+    /**
+     * Creates the processor.
+     */
+    public ValidationProcessor() {
+    }
+
+    /**
+     * Retrieves the latest source version supported by the compiler (the
+     * processor doesn't depend on the language version).
+     *
+     * @return the latest supported source version
+     */
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Generates the validators of the classes with annotated fields.
+     *
+     * @param annotations the annotation types requested to be processed
+     * @param roundEnv    the environment of the round
+     * @return true (the annotations are claimed by this processor)
+     */
+    public boolean process(final Set<? extends TypeElement> annotations,
+                           final RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (Element element
+                : roundEnv.getElementsAnnotatedWith(Validated.class)) {
+            types.add((TypeElement) element);
+        }
+        for (Class<? extends Annotation> constraint : CONSTRAINTS) {
+            for (Element element
+                    : roundEnv.getElementsAnnotatedWith(constraint)) {
+                types.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        for (TypeElement type : types) {
+            if (generated.add(type.getQualifiedName().toString())) {
+                generate(type);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the validator of the given class.
+     *
+     * @param type the class
+     */
+    private void generate(final TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS) {
+            error("validators can be generated only for classes", type);
+            return;
+        }
+        if (type.getModifiers().contains(Modifier.PRIVATE)
+                || (type.getNestingKind() == NestingKind.MEMBER
+                && !type.getModifiers().contains(Modifier.STATIC))) {
+            error("validated classes should be top-level or static nested"
+                    + " classes and not private", type);
+            return;
+        }
+        String exception = getExceptionClass(type);
+        List<String> constants = new ArrayList<String>();
+        List<String> statements = new ArrayList<String>();
+        Set<String> constantNames = new HashSet<String>();
+        boolean valid = true;
+        for (VariableElement field
+                : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (!hasConstraints(field)) {
+                continue;
+            }
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                error("constraint annotations are not applicable to static"
+                        + " fields", field);
+                valid = false;
+                continue;
+            }
+            String access = getAccess(type, field);
+            if (access == null) {
+                valid = false;
+                continue;
+            }
+            valid &= addChecks(field, access, exception, constants,
+                    statements, constantNames);
+        }
+        if (valid) {
+            write(type, exception, constants, statements);
+        }
+    }
+
+    /**
+     * Generates the checks of the given field.
+     *
+     * @param field         the field
+     * @param access        the expression that reads the field
+     * @param exception     the exception class
+     * @param constants     the constant declarations (the created ones are
+     *                      added to it)
+     * @param statements    the statements (the created ones are added to it)
+     * @param constantNames the names of the constants
+     * @return true if the annotations are valid, false otherwise
+     */
+    private boolean addChecks(final VariableElement field,
+                              final String access, final String exception,
+                              final List<String> constants,
+                              final List<String> statements,
+                              final Set<String> constantNames) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror type = field.asType();
+        String name = quote(field.getSimpleName().toString());
+        String suffix = ", " + name + ", " + exception + ".class);";
+        boolean valid = true;
+        if (field.getAnnotation(NotNull.class) != null) {
+            if (type.getKind().isPrimitive()) {
+                error("@NotNull is not applicable to primitive fields",
+                        field);
+                valid = false;
+            } else {
+                statements.add("ValidationUtility.checkNotNull(" + access
+                        + suffix);
+            }
+        }
+        NotEmpty notEmpty = field.getAnnotation(NotEmpty.class);
+        if (notEmpty != null) {
+            if (isType(type, "java.lang.String")) {
+                statements.add("ValidationUtility.checkNotEmpty"
+                        + (notEmpty.trim() ? "AfterTrimming(" : "(") + access
+                        + suffix);
+            } else if (isSubtype(type, "java.util.Collection")
+                    || isSubtype(type, "java.util.Map")) {
+                statements.add("ValidationUtility.checkNotEmpty(" + access
+                        + suffix);
+            } else {
+                error("@NotEmpty is applicable only to String, Collection"
+                        + " and Map fields", field);
+                valid = false;
+            }
+        }
+        InRange inRange = field.getAnnotation(InRange.class);
+        if (inRange != null) {
+            TypeKind kind = type.getKind();
+            boolean boxed = false;
+            if (!kind.isPrimitive()) {
+                try {
+                    PrimitiveType unboxed = types.unboxedType(type);
+                    kind = unboxed.getKind();
+                    boxed = true;
+                } catch (IllegalArgumentException e) {
+                    kind = TypeKind.NONE;
+                }
+            }
+            boolean integral = kind == TypeKind.BYTE
+                    || kind == TypeKind.SHORT || kind == TypeKind.INT
+                    || kind == TypeKind.LONG;
+            boolean floating = kind == TypeKind.FLOAT
+                    || kind == TypeKind.DOUBLE;
+            if (!integral && !floating) {
+                error("@InRange is applicable only to numeric fields",
+                        field);
+                return false;
+            }
+            double from = inRange.from();
+            double to = inRange.to();
+            if (Double.isNaN(from) || Double.isNaN(to)) {
+                error("@InRange bounds should not be NaN", field);
+                return false;
+            }
+            if (from > to) {
+                error("@InRange from should not be greater than to", field);
+                return false;
+            }
+            if (integral && (!isLong(from) || !isLong(to))) {
+                error("@InRange bounds of integral fields should be"
+                        + " integers", field);
+                return false;
+            }
+            String constant = getConstantName(field, constantNames);
+            constants.add("private static final NumberRange " + constant
+                    + " = NumberRange.of(" + toLiteral(from, integral) + ", "
+                    + toLiteral(to, integral) + ", " + inRange.fromInclusive()
+                    + ", " + inRange.toInclusive() + ");");
+            if (boxed) {
+                String local = field.getSimpleName() + "Value";
+                statements.add("final " + type + " " + local + " = "
+                        + access + ";");
+                statements.add("if (" + local + " != null) {");
+                statements.add("    ValidationUtility.checkInRange(" + local
+                        + (integral ? ".longValue()" : ".doubleValue()")
+                        + ", " + constant + suffix);
+                statements.add("}");
+            } else {
+                statements.add("ValidationUtility.checkInRange(" + access
+                        + ", " + constant + suffix);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Checks whether the given bound is an integer in the range of long.
+     *
+     * @param bound the bound
+     * @return true if the bound can be converted to long exactly
+     */
+    private static boolean isLong(final double bound) {
+        return bound == Math.rint(bound) && bound >= Long.MIN_VALUE
+                && bound < -(double) Long.MIN_VALUE;
+    }
+
+    /**
+     * Retrieves the Java literal of the given bound.
+     *
+     * @param bound    the bound (not NaN)
+     * @param integral true if the bound of an integral range is needed
+     * @return the literal
+     */
+    private static String toLiteral(final double bound,
+                                    final boolean integral) {
+        if (integral) {
+            return (long) bound + "L";
+        }
+        if (Double.isInfinite(bound)) {
+            return bound > 0 ? "Double.POSITIVE_INFINITY"
+                    : "Double.NEGATIVE_INFINITY";
+        }
+        return Double.toString(bound);
+    }
+
+    /**
+     * Writes the source of the validator.
+     *
+     * @param type       the validated class
+     * @param exception  the exception class
+     * @param constants  the constant declarations
+     * @param statements the statements of the validate() method
+     */
+    private void write(final TypeElement type, final String exception,
+                       final List<String> constants,
+                       final List<String> statements) {
+        String packageName = processingEnv.getElementUtils()
+                .getPackageOf(type).getQualifiedName().toString();
+        String simpleName = getValidatorName(type);
+        String qualifiedName = packageName.length() == 0 ? simpleName
+                : packageName + "." + simpleName;
+        String typeName = getTypeName(type);
+        String throwsClause = exception.equals("java.lang.Exception")
+                ? exception : exception + ", Exception";
+        StringBuilder source = new StringBuilder();
+        if (packageName.length() > 0) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.topcoder.commons.utils.NumberRange;\n");
+        source.append("import com.topcoder.commons.utils.ValidationUtility;"
+                + "\n\n");
+        source.append("/**\n * This class validates ")
+                .append(type.getQualifiedName())
+                .append(" instances. It was generated by\n"
+                        + " * ValidationProcessor from the constraint"
+                        + " annotations of the class.\n"
+                        + " * <p>\n"
+                        + " * Thread Safety: this class is thread safe.\n"
+                        + " */\n");
+        source.append("public final class ").append(simpleName)
+                .append(" {\n");
+        for (String constant : constants) {
+            source.append("    ").append(constant).append("\n\n");
+        }
+        source.append("    /**\n     * Empty private constructor.\n     */\n"
+                + "    private ").append(simpleName).append("() {\n"
+                + "    }\n\n");
+        source.append("    /**\n"
+                + "     * Validates the given object.\n"
+                + "     *\n"
+                + "     * @param value the object to be validated\n"
+                + "     * @throws ").append(exception)
+                .append(" if the object is null or some field\n"
+                        + "     *         is not valid\n"
+                        + "     * @throws Exception if the exception can't"
+                        + " be created\n"
+                        + "     */\n");
+        source.append("    public static void validate(final ")
+                .append(typeName).append(" value)\n            throws ")
+                .append(throwsClause).append(" {\n");
+        source.append("        ValidationUtility.checkNotNull(value, ")
+                .append(quote(decapitalize(type.getSimpleName().toString())))
+                .append(", ").append(exception).append(".class);\n");
+        for (String statement : statements) {
+            source.append("        ").append(statement).append('\n');
+        }
+        source.append("    }\n}\n");
+        try {
+            Writer writer = processingEnv.getFiler().createSourceFile(
+                    qualifiedName, type).openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error("failed to write " + qualifiedName + ": " + e.getMessage(),
+                    type);
+        }
+    }
+
+    /**
+     * Retrieves the expression that reads the given field of the validated
+     * object: the field itself if it isn't private, otherwise its getter.
+     *
+     * @param type  the validated class
+     * @param field the field
+     * @return the expression, null if the field isn't accessible (the error
+     *         is reported)
+     */
+    private String getAccess(final TypeElement type,
+                             final VariableElement field) {
+        String name = field.getSimpleName().toString();
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return "value." + name;
+        }
+        String capitalized = Character.toUpperCase(name.charAt(0))
+                + name.substring(1);
+        for (ExecutableElement method
+                : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            String methodName = method.getSimpleName().toString();
+            boolean getter = methodName.equals("get" + capitalized)
+                    || (methodName.equals("is" + capitalized)
+                    && field.asType().getKind() == TypeKind.BOOLEAN);
+            if (getter && method.getParameters().isEmpty()
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                return "value." + methodName + "()";
+            }
+        }
+        error("private field " + name + " should have a getter that is not"
+                + " private", field);
+        return null;
+    }
+
+    /**
+     * Retrieves the exception class configured with the Validated
+     * annotation of the given class.
+     *
+     * @param type the class
+     * @return the qualified name of the exception class
+     */
+    private String getExceptionClass(final TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType()
+                    .asElement();
+            if (!annotation.getQualifiedName().contentEquals(
+                    Validated.class.getName())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement,
+                    ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(
+                        "exceptionClass")) {
+                    TypeMirror value = (TypeMirror) entry.getValue()
+                            .getValue();
+                    return processingEnv.getTypeUtils().erasure(value)
+                            .toString();
+                }
+            }
+        }
+        return DEFAULT_EXCEPTION;
+    }
+
+    /**
+     * Checks whether the given field has constraint annotations.
+     *
+     * @param field the field
+     * @return true if the field has constraint annotations
+     */
+    private static boolean hasConstraints(final VariableElement field) {
+        for (Class<? extends Annotation> constraint : CONSTRAINTS) {
+            if (field.getAnnotation(constraint) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the given type is the given class.
+     *
+     * @param type      the type
+     * @param className the qualified name of the class
+     * @return true if the type is the class
+     */
+    private boolean isType(final TypeMirror type, final String className) {
+        TypeElement element = processingEnv.getElementUtils()
+                .getTypeElement(className);
+        return element != null && processingEnv.getTypeUtils().isSameType(
+                type, element.asType());
+    }
+
+    /**
+     * Checks whether the given type is a subtype of the given class (type
+     * arguments are ignored).
+     *
+     * @param type      the type
+     * @param className the qualified name of the class
+     * @return true if the type is a subtype of the class
+     */
+    private boolean isSubtype(final TypeMirror type, final String className) {
+        Types types = processingEnv.getTypeUtils();
+        TypeElement element = processingEnv.getElementUtils()
+                .getTypeElement(className);
+        return element != null && types.isAssignable(types.erasure(type),
+                types.erasure(element.asType()));
+    }
+
+    /**
+     * Retrieves the name of the validator of the given class: the simple
+     * names of the class and its enclosing classes joined with '_', followed
+     * by "Validator".
+     *
+     * @param type the class
+     * @return the simple name of the validator
+     */
+    private static String getValidatorName(final TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, ((TypeElement) enclosing).getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    /**
+     * Retrieves the name of the given class used in the generated code
+     * (with wildcard type arguments for generic classes).
+     *
+     * @param type the class
+     * @return the name of the class
+     */
+    private static String getTypeName(final TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getQualifiedName());
+        int parameters = type.getTypeParameters().size();
+        if (parameters > 0) {
+            name.append('<');
+            for (int i = 0; i < parameters; i++) {
+                name.append(i == 0 ? "?" : ", ?");
+            }
+            name.append('>');
+        }
+        return name.toString();
+    }
+
+    /**
+     * Retrieves a unique name of the range constant of the given field,
+     * e.g. MAX_AGE_RANGE for the field maxAge.
+     *
+     * @param field the field
+     * @param names the names already used (the returned name is added)
+     * @return the name of the constant
+     */
+    private static String getConstantName(final VariableElement field,
+                                          final Set<String> names) {
+        String fieldName = field.getSimpleName().toString();
+        String base = fieldName.replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+                .toUpperCase(Locale.ENGLISH) + "_RANGE";
+        String name = base;
+        for (int i = 2; !names.add(name); i++) {
+            name = base + i;
+        }
+        return name;
+    }
+
+    /**
+     * Converts the given name to a Java string literal.
+     *
+     * @param name the name (a Java identifier)
+     * @return the string literal
+     */
+    private static String quote(final String name) {
+        return "\"" + name + "\"";
+    }
+
+    /**
+     * Converts the first character of the given name to lower case.
+     *
+     * @param name the name
+     * @return the converted name
+     */
+    private static String decapitalize(final String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Reports a compilation error.
+     *
+     * @param message the message
+     * @param element the element the error refers to
+     */
+    private void error(final String message, final Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                message, element);
+    }
+}
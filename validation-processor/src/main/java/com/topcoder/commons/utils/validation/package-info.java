@@ -0,0 +1,5 @@
+/**
+ * This is a package info file.
+ */
+
+package com.topcoder.commons.utils.validation;
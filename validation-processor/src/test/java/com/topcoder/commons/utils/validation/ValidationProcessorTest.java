@@ -0,0 +1,255 @@
+package com.topcoder.commons.utils.validation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.*;
+
+public class ValidationProcessorTest {
+
+    private static final String USER = "package dto;\n"
+            + "import java.util.List;\n"
+            + "import com.topcoder.commons.utils.validation.*;\n"
+            + "public class User {\n"
+            + "    @NotNull @NotEmpty(trim = true) String name;\n"
+            + "    @InRange(from = 1, to = 100) private int age;\n"
+            + "    @InRange(from = 0, to = 1, toInclusive = false) public Double ratio;\n"
+            + "    @NotEmpty private List<String> roles;\n"
+            + "    public int getAge() { return age; }\n"
+            + "    public void setAge(int age) { this.age = age; }\n"
+            + "    public List<String> getRoles() { return roles; }\n"
+            + "    public void setRoles(List<String> roles) { this.roles = roles; }\n"
+            + "    @Validated(exceptionClass = IllegalStateException.class)\n"
+            + "    public static class Address {\n"
+            + "        @NotNull public String city;\n"
+            + "    }\n"
+            + "}\n";
+
+    private File directory;
+
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+
+    public ValidationProcessorTest() {
+        // empty
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("validation", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        diagnostics = new DiagnosticCollector<JavaFileObject>();
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void testValidate() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile("dto.User", USER));
+        ClassLoader loader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, getClass().getClassLoader());
+        Class<?> userClass = loader.loadClass("dto.User");
+        Method validate = loader.loadClass("dto.UserValidator").getMethod("validate", userClass);
+
+        Object user = userClass.getDeclaredConstructor().newInstance();
+        setName(user, "John");
+        userClass.getMethod("setAge", int.class).invoke(user, 30);
+        validate.invoke(null, user);
+
+        userClass.getField("ratio").set(user, 0.5);
+        userClass.getMethod("setRoles", List.class).invoke(user, Arrays.asList("admin"));
+        validate.invoke(null, user);
+
+        assertFailure(validate, null, IllegalArgumentException.class, "user should not be null");
+
+        setName(user, null);
+        assertFailure(validate, user, IllegalArgumentException.class, "name should not be null");
+        setName(user, "  ");
+        assertFailure(validate, user, IllegalArgumentException.class, "name should not be empty (trimmed)");
+        setName(user, "John");
+
+        userClass.getMethod("setAge", int.class).invoke(user, 0);
+        assertFailure(validate, user, IllegalArgumentException.class, "age should be in the range [1, 100]");
+        userClass.getMethod("setAge", int.class).invoke(user, 100);
+
+        userClass.getField("ratio").set(user, 1.0);
+        assertFailure(validate, user, IllegalArgumentException.class, "ratio should be in the range [0.0, 1.0)");
+        userClass.getField("ratio").set(user, null);
+
+        userClass.getMethod("setRoles", List.class).invoke(user, Collections.emptyList());
+        assertFailure(validate, user, IllegalArgumentException.class, "roles should not be empty");
+    }
+
+    @Test
+    public void testNestedClassAndExceptionClass() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile("dto.User", USER));
+        ClassLoader loader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, getClass().getClassLoader());
+        Class<?> addressClass = loader.loadClass("dto.User$Address");
+        Method validate = loader.loadClass("dto.User_AddressValidator").getMethod("validate", addressClass);
+        assertFailure(validate, addressClass.getDeclaredConstructor().newInstance(), IllegalStateException.class, "city should not be null");
+    }
+
+    @Test
+    public void testGeneratedCodeIsReflectionFree() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile("dto.User", USER));
+        String source = new String(java.nio.file.Files.readAllBytes(
+                new File(directory, "dto/UserValidator.java").toPath()), "US-ASCII");
+        assertTrue(source, source.contains("private static final NumberRange AGE_RANGE = NumberRange.of(1L, 100L, true, true);"));
+        assertTrue(source, source.contains("ValidationUtility.checkInRange(value.getAge(), AGE_RANGE, \"age\", java.lang.IllegalArgumentException.class);"));
+        assertFalse(source, source.contains("reflect"));
+    }
+
+    @Test
+    public void testNotEmptyOnInt() throws Exception {
+        assertFalse(compile("dto.Bad", "package dto;\n"
+                + "public class Bad {\n"
+                + "    @com.topcoder.commons.utils.validation.NotEmpty int count;\n"
+                + "}\n"));
+        assertError("@NotEmpty is applicable only to String, Collection and Map fields");
+    }
+
+    @Test
+    public void testNotNullOnPrimitive() throws Exception {
+        assertFalse(compile("dto.Bad", "package dto;\n"
+                + "public class Bad {\n"
+                + "    @com.topcoder.commons.utils.validation.NotNull long count;\n"
+                + "}\n"));
+        assertError("@NotNull is not applicable to primitive fields");
+    }
+
+    @Test
+    public void testInRangeOnString() throws Exception {
+        assertFalse(compile("dto.Bad", "package dto;\n"
+                + "public class Bad {\n"
+                + "    @com.topcoder.commons.utils.validation.InRange(from = 1, to = 2) String count;\n"
+                + "}\n"));
+        assertError("@InRange is applicable only to numeric fields");
+    }
+
+    @Test
+    public void testInRangeInvalidBounds() throws Exception {
+        assertFalse(compile("dto.Bad", "package dto;\n"
+                + "public class Bad {\n"
+                + "    @com.topcoder.commons.utils.validation.InRange(from = 2, to = 1) int count;\n"
+                + "}\n"));
+        assertError("@InRange from should not be greater than to");
+    }
+
+    @Test
+    public void testFractionalRange() throws Exception {
+        assertTrue(diagnostics.getDiagnostics().toString(), compile("dto.Rate", "package dto;\n"
+                + "public class Rate {\n"
+                + "    @com.topcoder.commons.utils.validation.InRange(from = 0.5, to = 2.5) public double value;\n"
+                + "}\n"));
+        ClassLoader loader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, getClass().getClassLoader());
+        Class<?> rateClass = loader.loadClass("dto.Rate");
+        Method validate = loader.loadClass("dto.RateValidator").getMethod("validate", rateClass);
+        Object rate = rateClass.getDeclaredConstructor().newInstance();
+        rateClass.getField("value").set(rate, 2.5);
+        validate.invoke(null, rate);
+        rateClass.getField("value").set(rate, 0.25);
+        assertFailure(validate, rate, IllegalArgumentException.class, "value should be in the range [0.5, 2.5]");
+    }
+
+    @Test
+    public void testInRangeFractionalBoundOnInt() throws Exception {
+        assertFalse(compile("dto.Bad", "package dto;\n"
+                + "public class Bad {\n"
+                + "    @com.topcoder.commons.utils.validation.InRange(from = 0.5, to = 2) int count;\n"
+                + "}\n"));
+        assertError("@InRange bounds of integral fields should be integers");
+    }
+
+    @Test
+    public void testPrivateFieldWithoutGetter() throws Exception {
+        assertFalse(compile("dto.Bad", "package dto;\n"
+                + "public class Bad {\n"
+                + "    @com.topcoder.commons.utils.validation.NotNull private String name;\n"
+                + "}\n"));
+        assertError("private field name should have a getter that is not private");
+    }
+
+    private boolean compile(final String className, final String source) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singleton(directory));
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singleton(directory));
+            List<String> options = new ArrayList<String>();
+            options.add("-classpath");
+            options.add(System.getProperty("java.class.path"));
+            JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+                    JavaFileObject.Kind.SOURCE) {
+                public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    Collections.singleton(file));
+            task.setProcessors(Collections.singleton(new ValidationProcessor()));
+            return task.call();
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private void assertError(final String message) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getMessage(null).equals(message)) {
+                return;
+            }
+        }
+        fail("no error " + message + " in " + diagnostics.getDiagnostics());
+    }
+
+    private static void setName(final Object user, final String name) throws Exception {
+        Field field = user.getClass().getDeclaredField("name");
+        field.setAccessible(true);
+        field.set(user, name);
+    }
+
+    private static void assertFailure(final Method validate, final Object value, final Class<?> exceptionClass,
+                                      final String message) throws Exception {
+        try {
+            validate.invoke(null, value);
+            fail(exceptionClass.getName() + " expected");
+        } catch (InvocationTargetException e) {
+            assertEquals(exceptionClass, e.getCause().getClass());
+            assertEquals(message, e.getCause().getMessage());
+        }
+    }
+
+    private static void delete(final File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}